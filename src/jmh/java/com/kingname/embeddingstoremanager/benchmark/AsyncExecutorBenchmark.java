@@ -0,0 +1,127 @@
+package com.kingname.embeddingstoremanager.benchmark;
+
+import com.kingname.embeddingstoremanager.EmbeddingCacheManager;
+import com.kingname.embeddingstoremanager.EmbeddingCacheManagerConfig;
+import com.kingname.embeddingstoremanager.EmbeddingCacheStore;
+import com.kingname.embeddingstoremanager.EmbeddingGenerator;
+import com.kingname.embeddingstoremanager.async.AsyncEmbeddingService;
+import com.kingname.embeddingstoremanager.async.AsyncExecutorMode;
+import com.kingname.embeddingstoremanager.async.AsyncExecutors;
+import com.kingname.embeddingstoremanager.exception.EmbeddingGeneratorException;
+import com.kingname.embeddingstoremanager.vo.CachedEmbeddingDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link AsyncEmbeddingService#getEmbeddingAsync(String)} for a burst of concurrent misses against a
+ * generator that blocks like an embedding API call. Compares the fixed platform pool with virtual threads; run on
+ * JDK 21+ for the virtual-thread numbers, and add {@code -prof gc} for allocation. Peak platform threads and heap
+ * after the trial are printed at tear-down.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class AsyncExecutorBenchmark {
+
+    private static final int REQUESTS = 1_000; // Concurrent requests per invocation
+
+    @Param({"FIXED_POOL", "VIRTUAL_THREADS"})
+    public AsyncExecutorMode mode;
+
+    @Param({"20"})
+    public long apiLatencyMs;
+
+    private AsyncEmbeddingService service;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        EmbeddingCacheManagerConfig config = EmbeddingCacheManagerConfig.builder()
+                .elasticSearchCacheHosts(Collections.singletonList("localhost"))
+                .elasticSearchCachePort(9200)
+                .elasticSearchCacheAliasName("benchmark")
+                .modelName("benchmark")
+                .enableMetrics(false)
+                .build();
+        EmbeddingCacheManager manager = new EmbeddingCacheManager(config, new MissingStore(), new SleepingGenerator(apiLatencyMs));
+        service = new AsyncEmbeddingService(manager, mode);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(REQUESTS)
+    public void burst(Blackhole blackhole) {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[REQUESTS];
+        for (int i = 0; i < REQUESTS; i++) {
+            futures[i] = service.getEmbeddingAsync("text " + i).thenAccept(blackhole::consume);
+        }
+        CompletableFuture.allOf(futures).join();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.out.printf("%n[%s, virtual threads %s] peak platform threads: %d, heap used: %d MB%n",
+                mode, AsyncExecutors.isVirtualThreadSupported() ? "available" : "unavailable",
+                threads.getPeakThreadCount(), memory.getHeapMemoryUsage().getUsed() / (1024 * 1024));
+        service.shutdown();
+    }
+
+    static class MissingStore implements EmbeddingCacheStore {
+        @Override
+        public List<Double> getCachedEmbedding(String text) {
+            return null;
+        }
+
+        @Override
+        public void storeEmbedding(String id, String text, List<Double> embedding) {
+        }
+
+        @Override
+        public void storeEmbeddings(List<CachedEmbeddingDocument> documents) {
+        }
+    }
+
+    static class SleepingGenerator implements EmbeddingGenerator {
+        private final long latencyMs;
+
+        SleepingGenerator(long latencyMs) {
+            this.latencyMs = latencyMs;
+        }
+
+        @Override
+        public List<Double> generateEmbedding(String text) throws EmbeddingGeneratorException {
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new EmbeddingGeneratorException(e);
+            }
+            return Arrays.asList(0.1, 0.2, 0.3);
+        }
+    }
+}
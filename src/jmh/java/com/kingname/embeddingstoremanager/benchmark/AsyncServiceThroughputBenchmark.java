@@ -0,0 +1,75 @@
+package com.kingname.embeddingstoremanager.benchmark;
+
+import com.kingname.embeddingstoremanager.EmbeddingCacheManager;
+import com.kingname.embeddingstoremanager.async.AsyncEmbeddingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link AsyncEmbeddingService#getEmbeddingAsync(String)} with eight concurrent callers against in-memory
+ * stubs, so the admission controller, executor hand-offs and metrics are what is measured. Pass {@code -t} to change
+ * the number of callers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class AsyncServiceThroughputBenchmark {
+
+    private static final int TEXTS = 1_024;
+
+    @Param({"0.0", "0.6", "1.0"})
+    public double hitRatio;
+
+    private AsyncEmbeddingService service;
+    private EmbeddingCacheManager manager;
+    private String[] texts;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchmarkFixtures.InMemoryStore store = new BenchmarkFixtures.InMemoryStore() {
+            @Override
+            public void storeEmbedding(String id, String text, List<Double> embedding) {
+                // Keep the hit ratio fixed: misses stay misses
+            }
+        };
+        manager = BenchmarkFixtures.manager(store);
+        texts = new String[TEXTS];
+        for (int i = 0; i < TEXTS; i++) {
+            texts[i] = BenchmarkFixtures.text(100, i);
+            if (i < TEXTS * hitRatio) {
+                store.embeddings.put(manager.normalize(texts[i]), BenchmarkFixtures.embedding(i));
+            }
+        }
+        service = manager.createAsyncService();
+    }
+
+    @Benchmark
+    public List<Double> getEmbeddingAsync() {
+        return service.getEmbeddingAsync(texts[ThreadLocalRandom.current().nextInt(TEXTS)]).join();
+    }
+
+    @TearDown
+    public void tearDown() {
+        service.shutdown();
+        manager.shutdown();
+    }
+}
@@ -0,0 +1,128 @@
+package com.kingname.embeddingstoremanager.benchmark;
+
+import com.google.gson.Gson;
+import com.kingname.embeddingstoremanager.EmbeddingCacheManager;
+import com.kingname.embeddingstoremanager.EmbeddingCacheManagerConfig;
+import com.kingname.embeddingstoremanager.EmbeddingCacheStore;
+import com.kingname.embeddingstoremanager.EmbeddingGenerator;
+import com.kingname.embeddingstoremanager.vo.CachedEmbeddingDocument;
+import com.kingname.embeddingstoremanager.vo.EmbeddingData;
+import com.kingname.embeddingstoremanager.vo.EmbeddingResponse;
+import com.kingname.embeddingstoremanager.vo.EmbeddingUsage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Inputs and in-memory stand-ins for Elasticsearch and the embedding API shared by the benchmarks
+ */
+final class BenchmarkFixtures {
+
+    static final int DIMENSION = 768;
+    private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyz ABCDEFGHIJKLMNOPQRSTUVWXYZ 가나다라마바사아자차카타파하";
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Mixed-case Hangul/ASCII text of the given length with surrounding whitespace, as callers send it
+     */
+    static String text(int length, long seed) {
+        Random random = new Random(seed);
+        StringBuilder builder = new StringBuilder(length + 4).append("  ");
+        while (builder.length() < length + 2) {
+            builder.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return builder.append("  ").toString();
+    }
+
+    static List<Double> embedding(long seed) {
+        Random random = new Random(seed);
+        List<Double> embedding = new ArrayList<>(DIMENSION);
+        for (int i = 0; i < DIMENSION; i++) {
+            embedding.add(random.nextDouble() * 2 - 1);
+        }
+        return embedding;
+    }
+
+    /**
+     * JSON body of an embedding API response carrying the given number of embeddings
+     */
+    static String embeddingResponseJson(int embeddings) {
+        List<EmbeddingData> data = new ArrayList<>(embeddings);
+        for (int i = 0; i < embeddings; i++) {
+            data.add(new EmbeddingData("embedding", (long) i, embedding(i)));
+        }
+        return new Gson().toJson(new EmbeddingResponse("list", data, "benchmark", new EmbeddingUsage(100L * embeddings, 100L * embeddings)));
+    }
+
+    static EmbeddingCacheManagerConfig config() {
+        return EmbeddingCacheManagerConfig.builder()
+                .elasticSearchCacheHosts(Collections.singletonList("localhost"))
+                .elasticSearchCachePort(9200)
+                .elasticSearchCacheAliasName("benchmark")
+                .modelName("benchmark")
+                .enableMetrics(false)
+                .build();
+    }
+
+    static EmbeddingCacheManager manager(EmbeddingCacheStore store) {
+        return new EmbeddingCacheManager(config(), store, new InstantGenerator());
+    }
+
+    /**
+     * Store backed by a map, standing in for an Elasticsearch store with zero network latency
+     */
+    static class InMemoryStore implements EmbeddingCacheStore {
+        final Map<String, List<Double>> embeddings = new ConcurrentHashMap<>();
+
+        @Override
+        public List<Double> getCachedEmbedding(String text) {
+            return embeddings.get(text);
+        }
+
+        @Override
+        public void storeEmbedding(String id, String text, List<Double> embedding) {
+            embeddings.put(text, embedding);
+        }
+
+        @Override
+        public void storeEmbeddings(List<CachedEmbeddingDocument> documents) {
+            documents.forEach(document -> embeddings.put(document.getText(), document.getEmbedding()));
+        }
+    }
+
+    /**
+     * Store that never hits and drops writes, so every request is a miss
+     */
+    static class MissingStore extends InMemoryStore {
+        @Override
+        public List<Double> getCachedEmbedding(String text) {
+            return null;
+        }
+
+        @Override
+        public void storeEmbedding(String id, String text, List<Double> embedding) {
+        }
+
+        @Override
+        public void storeEmbeddings(List<CachedEmbeddingDocument> documents) {
+        }
+    }
+
+    /**
+     * Generator answering without latency, so a miss measures only the manager's own work
+     */
+    static class InstantGenerator implements EmbeddingGenerator {
+        private final List<Double> embedding = embedding(0);
+
+        @Override
+        public List<Double> generateEmbedding(String text) {
+            return embedding;
+        }
+    }
+}
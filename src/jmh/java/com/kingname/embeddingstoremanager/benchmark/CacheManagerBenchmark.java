@@ -0,0 +1,80 @@
+package com.kingname.embeddingstoremanager.benchmark;
+
+import com.kingname.embeddingstoremanager.EmbeddingCacheManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of the manager itself around the store and generator: normalization, metrics, priority bulkheads
+ * and the batch pipeline, measured against in-memory stubs with no network latency.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheManagerBenchmark {
+
+    private static final int BATCH = 1_000;
+
+    private EmbeddingCacheManager hitManager;
+    private EmbeddingCacheManager missManager;
+    private String text;
+    private List<String> batch;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchmarkFixtures.InMemoryStore store = new BenchmarkFixtures.InMemoryStore();
+        hitManager = BenchmarkFixtures.manager(store);
+        missManager = BenchmarkFixtures.manager(new BenchmarkFixtures.MissingStore());
+        text = BenchmarkFixtures.text(100, 42);
+        hitManager.storeEmbedding(text, BenchmarkFixtures.embedding(42));
+
+        // 60% of the batch is cached
+        batch = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            String batchText = BenchmarkFixtures.text(100, 1_000 + i);
+            if (i % 5 < 3) {
+                hitManager.storeEmbedding(batchText, BenchmarkFixtures.embedding(i));
+            }
+            batch.add(batchText);
+        }
+    }
+
+    @Benchmark
+    public List<Double> getEmbeddingHit() throws Exception {
+        return hitManager.getEmbedding(text);
+    }
+
+    @Benchmark
+    public List<Double> getEmbeddingMiss() throws Exception {
+        return missManager.getEmbedding(text);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<List<Double>> getEmbeddingsBatch() throws Exception {
+        return hitManager.getEmbeddings(batch);
+    }
+
+    @TearDown
+    public void tearDown() {
+        hitManager.shutdown();
+        missManager.shutdown();
+    }
+}
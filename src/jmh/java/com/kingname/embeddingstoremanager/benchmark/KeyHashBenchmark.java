@@ -0,0 +1,54 @@
+package com.kingname.embeddingstoremanager.benchmark;
+
+import com.kingname.embeddingstoremanager.KeyHashStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of deriving a cache key from a normalized text, per {@link KeyHashStrategy}, for a short query and a text at
+ * the default maxLength. Add {@code -prof gc} for allocation per key.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeyHashBenchmark {
+
+    @Param({"SHA256_HEX", "MURMUR3_128_BASE64"})
+    public KeyHashStrategy strategy;
+
+    @Param({"100", "3000"})
+    public int length;
+
+    private String text;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder(length);
+        String alphabet = "abcdefghijklmnopqrstuvwxyz 가나다라마바사아자차카타파하";
+        while (builder.length() < length) {
+            builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        text = builder.toString();
+    }
+
+    @Benchmark
+    public String hash() {
+        return strategy.hash(text);
+    }
+}
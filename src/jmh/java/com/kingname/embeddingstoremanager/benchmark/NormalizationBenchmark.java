@@ -0,0 +1,52 @@
+package com.kingname.embeddingstoremanager.benchmark;
+
+import com.kingname.embeddingstoremanager.EmbeddingCacheManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link EmbeddingCacheManager#normalize(String)}, which runs on every lookup and store, for a short query and
+ * a text at the default maxLength.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NormalizationBenchmark {
+
+    @Param({"100", "3000"})
+    public int length;
+
+    private EmbeddingCacheManager manager;
+    private String text;
+
+    @Setup
+    public void setUp() {
+        manager = BenchmarkFixtures.manager(new BenchmarkFixtures.InMemoryStore());
+        text = BenchmarkFixtures.text(length, 42);
+    }
+
+    @Benchmark
+    public String normalize() {
+        return manager.normalize(text);
+    }
+
+    @TearDown
+    public void tearDown() {
+        manager.shutdown();
+    }
+}
@@ -0,0 +1,87 @@
+package com.kingname.embeddingstoremanager.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.gson.Gson;
+import com.kingname.embeddingstoremanager.KeyHashStrategy;
+import com.kingname.embeddingstoremanager.vo.EmbeddingResponse;
+import com.kingname.embeddingstoremanager.vo.EsCachedEmbeddingDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON work around one cache miss: building the embedding API request body, parsing its response with Gson (as the
+ * generators do) and Jackson, and serializing the Elasticsearch document the way the client's Jackson mapper does.
+ * The batch parameter is the number of texts per API call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"1", "100"})
+    public int batch;
+
+    private final Gson gson = new Gson();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private Object input;
+    private String responseJson;
+    private EsCachedEmbeddingDocument document;
+
+    @Setup
+    public void setUp() {
+        List<String> texts = new ArrayList<>(batch);
+        for (int i = 0; i < batch; i++) {
+            texts.add(BenchmarkFixtures.text(100, i).trim().toLowerCase());
+        }
+        input = batch == 1 ? texts.get(0) : texts;
+        responseJson = BenchmarkFixtures.embeddingResponseJson(batch);
+        String text = texts.get(0);
+        document = EsCachedEmbeddingDocument.builder()
+                .hash(KeyHashStrategy.SHA256_HEX.hash(text))
+                .text(text)
+                .embedding(BenchmarkFixtures.embedding(1))
+                .has_embedding(true)
+                .build();
+    }
+
+    @Benchmark
+    public String buildRequestBody() {
+        Map<String, Object> body = new HashMap<>();
+        body.put("input", input);
+        body.put("model", "benchmark");
+        return gson.toJson(body);
+    }
+
+    @Benchmark
+    public EmbeddingResponse parseResponseGson() {
+        return gson.fromJson(responseJson, EmbeddingResponse.class);
+    }
+
+    @Benchmark
+    public EmbeddingResponse parseResponseJackson() throws Exception {
+        return objectMapper.readValue(responseJson, EmbeddingResponse.class);
+    }
+
+    @Benchmark
+    public byte[] serializeDocument() throws Exception {
+        return objectMapper.writeValueAsBytes(document);
+    }
+}
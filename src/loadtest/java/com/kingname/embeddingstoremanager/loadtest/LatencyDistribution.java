@@ -0,0 +1,86 @@
+package com.kingname.embeddingstoremanager.loadtest;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Simulated service time of a stub dependency, sampled once per call
+ */
+public interface LatencyDistribution {
+
+    /** z-score of the 99th percentile of a standard normal distribution */
+    double Z_99 = 2.326;
+
+    long sampleMicros();
+
+    static LatencyDistribution none() {
+        return fixed(0);
+    }
+
+    static LatencyDistribution fixed(double millis) {
+        long micros = (long) (millis * 1000);
+        return describe(() -> micros, String.format(Locale.ROOT, "fixed:%s", millis));
+    }
+
+    static LatencyDistribution uniform(double minMillis, double maxMillis) {
+        long min = (long) (minMillis * 1000);
+        long max = (long) (maxMillis * 1000);
+        return describe(() -> min + (long) (ThreadLocalRandom.current().nextDouble() * (max - min)),
+                String.format(Locale.ROOT, "uniform:%s:%s", minMillis, maxMillis));
+    }
+
+    /**
+     * Log-normal latency with the given median and 99th percentile, the long right tail of a remote API
+     */
+    static LatencyDistribution logNormal(double medianMillis, double p99Millis) {
+        if (p99Millis < medianMillis) {
+            throw new IllegalArgumentException("p99 must not be below the median");
+        }
+        double sigma = Math.log(p99Millis / medianMillis) / Z_99;
+        return describe(() -> (long) (medianMillis * 1000 * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian())),
+                String.format(Locale.ROOT, "lognormal:%s:%s", medianMillis, p99Millis));
+    }
+
+    /**
+     * Parses "none", "fixed:&lt;ms&gt;", "uniform:&lt;min ms&gt;:&lt;max ms&gt;" or "lognormal:&lt;median ms&gt;:&lt;p99 ms&gt;"
+     */
+    static LatencyDistribution parse(String spec) {
+        String[] parts = spec.trim().toLowerCase(Locale.ROOT).split(":");
+        switch (parts[0]) {
+            case "none":
+                return none();
+            case "fixed":
+                return fixed(Double.parseDouble(parts[1]));
+            case "uniform":
+                return uniform(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]));
+            case "lognormal":
+                return logNormal(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]));
+            default:
+                throw new IllegalArgumentException("Unknown latency distribution: " + spec);
+        }
+    }
+
+    static LatencyDistribution describe(LatencyDistribution distribution, String description) {
+        return new LatencyDistribution() {
+            @Override
+            public long sampleMicros() {
+                return Math.max(0, distribution.sampleMicros());
+            }
+
+            @Override
+            public String toString() {
+                return description;
+            }
+        };
+    }
+
+    /**
+     * Blocks the calling thread for one sampled latency
+     */
+    default void pause() throws InterruptedException {
+        long micros = sampleMicros();
+        if (micros > 0) {
+            Thread.sleep(micros / 1000, (int) (micros % 1000) * 1000);
+        }
+    }
+}
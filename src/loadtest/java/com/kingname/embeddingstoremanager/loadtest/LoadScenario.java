@@ -0,0 +1,34 @@
+package com.kingname.embeddingstoremanager.loadtest;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Locale;
+
+/**
+ * One open-model load point: requests arrive at a fixed rate regardless of how fast earlier ones complete
+ */
+@Builder
+@Getter
+@ToString
+public class LoadScenario {
+    @Builder.Default
+    private final Double arrivalRatePerSecond = 200.0;   // Requests started per second
+    @Builder.Default
+    private final Double hitRatio = 0.8;                 // Share of texts already in the cache
+    @Builder.Default
+    private final Integer concurrency = 32;              // Async slots, executor threads and API connections of the manager
+    @Builder.Default
+    private final Integer batchSize = 1;                 // Texts per request; above 1 requests go through getEmbeddingsBatchAsync
+    @Builder.Default
+    private final Integer warmupSeconds = 2;             // Leading seconds left out of the latency histogram
+    @Builder.Default
+    private final Integer durationSeconds = 10;          // Measured seconds after the warm-up
+    @Builder.Default
+    private final Integer drainTimeoutSeconds = 60;      // Wait for outstanding requests after the last arrival
+
+    public String getName() {
+        return String.format(Locale.ROOT, "hit=%.2f conc=%d batch=%d rate=%.0f/s", hitRatio, concurrency, batchSize, arrivalRatePerSecond);
+    }
+}
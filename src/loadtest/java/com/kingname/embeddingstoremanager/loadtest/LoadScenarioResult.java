@@ -0,0 +1,34 @@
+package com.kingname.embeddingstoremanager.loadtest;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Outcome of one {@link LoadScenario}; latencies are measured from each request's scheduled start
+ */
+@Getter
+@Builder
+@ToString
+public class LoadScenarioResult {
+
+    private final String name;
+    private final double arrivalRatePerSecond;
+    private final double hitRatio;
+    private final int concurrency;
+    private final int batchSize;
+    private final long requests;          // Requests scheduled in the measured window
+    private final long succeeded;
+    private final long failed;            // Generation or store errors after retries
+    private final long rejected;          // Refused by the admission controller
+    private final long timedOut;          // Still outstanding when the drain timeout expired
+    private final double throughputPerSecond;  // Succeeded requests per measured second
+    private final double textsPerSecond;
+    private final double p50Ms;
+    private final double p99Ms;
+    private final double p999Ms;
+    private final double maxMs;
+    private final long apiCalls;          // Calls the stub embedding API received, retries included
+    private final long apiErrors;
+    private final long apiThrottled;
+}
@@ -0,0 +1,224 @@
+package com.kingname.embeddingstoremanager.loadtest;
+
+import com.google.gson.GsonBuilder;
+import com.kingname.embeddingstoremanager.EmbeddingCacheManager;
+import com.kingname.embeddingstoremanager.EmbeddingCacheManagerConfig;
+import com.kingname.embeddingstoremanager.async.AsyncEmbeddingService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * End-to-end load test of EmbeddingCacheManager and AsyncEmbeddingService against a stub embedding API and a
+ * simulated-latency store. Runs every combination of the listed rates, hit ratios, concurrencies and batch sizes,
+ * prints a summary table and writes all results as JSON.
+ *
+ * <pre>
+ * gradle loadTest -PloadTestArgs="rate=100,400 hitRatio=0,0.9 concurrency=16,64 batchSize=1,32 apiLatency=lognormal:30:250"
+ * </pre>
+ */
+public class LoadTestRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadTestRunner.class);
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put("rate", "200");                      // Requests per second, comma separated for several runs
+        DEFAULTS.put("hitRatio", "0,0.8,0.95");
+        DEFAULTS.put("concurrency", "32");
+        DEFAULTS.put("batchSize", "1,16");
+        DEFAULTS.put("duration", "10");                   // Measured seconds per scenario
+        DEFAULTS.put("warmup", "2");                      // Unmeasured seconds per scenario
+        DEFAULTS.put("apiLatency", "lognormal:20:150");   // See LatencyDistribution.parse
+        DEFAULTS.put("apiErrorRate", "0");                // Share of API calls answered with 500
+        DEFAULTS.put("apiThrottleRate", "0");             // Share of API calls answered with 429
+        DEFAULTS.put("esLatency", "lognormal:2:15");      // Per get / mget round trip
+        DEFAULTS.put("esWriteLatency", "lognormal:5:40"); // Per index / bulk round trip
+        DEFAULTS.put("retryWaitMs", "100");
+        DEFAULTS.put("cachedTexts", "10000");             // Distinct texts cache hits are drawn from
+        DEFAULTS.put("dimension", "768");
+        DEFAULTS.put("results", "build/reports/loadtest/results.json");
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        List<LoadScenario> scenarios = scenarios(options);
+        int dimension = Integer.parseInt(options.get("dimension"));
+        LatencyDistribution apiLatency = LatencyDistribution.parse(options.get("apiLatency"));
+        double errorRate = Double.parseDouble(options.get("apiErrorRate"));
+        double throttleRate = Double.parseDouble(options.get("apiThrottleRate"));
+
+        List<LoadScenarioResult> results = new ArrayList<>();
+        try (StubEmbeddingServer api = new StubEmbeddingServer(dimension, LatencyDistribution.none(), 0.0, 0.0)) {
+            SimulatedLatencyStore store = new SimulatedLatencyStore(LatencyDistribution.none(), LatencyDistribution.none());
+            List<String> cachedTexts = warmCache(options, api, store, Integer.parseInt(options.get("cachedTexts")));
+
+            api.configure(apiLatency, errorRate, throttleRate);
+            store.configure(LatencyDistribution.parse(options.get("esLatency")), LatencyDistribution.parse(options.get("esWriteLatency")));
+            store.freeze();
+            logger.info("Stub embedding API at {} ({}, {} errors, {} throttled); {} scenarios",
+                    api.getUrl(), apiLatency, errorRate, throttleRate, scenarios.size());
+
+            for (LoadScenario scenario : scenarios) {
+                results.add(runScenario(options, api, store, cachedTexts, scenario));
+            }
+        }
+
+        printTable(results);
+        writeResults(Paths.get(options.get("results")), options, results);
+    }
+
+    private static LoadScenarioResult runScenario(Map<String, String> options, StubEmbeddingServer api, SimulatedLatencyStore store,
+                                                  List<String> cachedTexts, LoadScenario scenario) throws InterruptedException {
+        EmbeddingCacheManagerConfig config = config(options, api, scenario.getConcurrency());
+        EmbeddingCacheManager manager = new EmbeddingCacheManager(config, store, new StubApiEmbeddingGenerator(config, api));
+        ExecutorService executor = Executors.newFixedThreadPool(scenario.getConcurrency(), daemonThreadFactory("loadtest-worker-"));
+        AsyncEmbeddingService service = new AsyncEmbeddingService(manager, executor, Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("loadtest-scheduler-")));
+        try {
+            return new OpenLoopLoadGenerator(service, cachedTexts, api).run(scenario);
+        } finally {
+            service.shutdown();
+            executor.shutdownNow();
+            manager.shutdown();
+        }
+    }
+
+    /**
+     * Fills the store through the manager itself, with the stubs answering instantly
+     */
+    private static List<String> warmCache(Map<String, String> options, StubEmbeddingServer api, SimulatedLatencyStore store, int count) throws Exception {
+        List<String> texts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            texts.add("cached load test text " + i);
+        }
+        EmbeddingCacheManagerConfig config = config(options, api, 32);
+        EmbeddingCacheManager manager = new EmbeddingCacheManager(config, store, new StubApiEmbeddingGenerator(config, api));
+        try {
+            manager.getEmbeddings(texts);
+            // Misses of getEmbeddings(List) are stored in the background
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (store.size() < count && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+        } finally {
+            manager.shutdown();
+        }
+        logger.info("Warmed the cache with {} texts", store.size());
+        return Collections.unmodifiableList(texts);
+    }
+
+    private static EmbeddingCacheManagerConfig config(Map<String, String> options, StubEmbeddingServer api, int concurrency) {
+        return EmbeddingCacheManagerConfig.builder()
+                .elasticSearchCacheHosts(Collections.singletonList("localhost"))
+                .elasticSearchCachePort(9200)
+                .elasticSearchCacheAliasName("loadtest")
+                .modelName("loadtest")
+                .embeddingApiUrl(api.getUrl())
+                .embeddingDimension(Integer.parseInt(options.get("dimension")))
+                .asyncMaxConcurrency(concurrency)
+                .maxConnections(concurrency)
+                .maxConnectionsPerRoute(concurrency)
+                .retryWaitDurationMs(Long.parseLong(options.get("retryWaitMs")))
+                .build();
+    }
+
+    private static List<LoadScenario> scenarios(Map<String, String> options) {
+        int duration = Integer.parseInt(options.get("duration"));
+        int warmup = Integer.parseInt(options.get("warmup"));
+        List<LoadScenario> scenarios = new ArrayList<>();
+        for (double rate : list(options.get("rate"), Double::parseDouble)) {
+            for (double hitRatio : list(options.get("hitRatio"), Double::parseDouble)) {
+                for (int concurrency : list(options.get("concurrency"), Integer::parseInt)) {
+                    for (int batchSize : list(options.get("batchSize"), Integer::parseInt)) {
+                        scenarios.add(LoadScenario.builder()
+                                .arrivalRatePerSecond(rate)
+                                .hitRatio(hitRatio)
+                                .concurrency(concurrency)
+                                .batchSize(batchSize)
+                                .durationSeconds(duration)
+                                .warmupSeconds(warmup)
+                                .build());
+                    }
+                }
+            }
+        }
+        return scenarios;
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>(DEFAULTS);
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 0 || !DEFAULTS.containsKey(arg.substring(0, separator))) {
+                throw new IllegalArgumentException("Expected one of " + DEFAULTS.keySet() + " as key=value, got: " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+
+    private static <T> List<T> list(String value, Function<String, T> parser) {
+        List<T> values = new ArrayList<>();
+        for (String item : value.split(",")) {
+            if (!item.trim().isEmpty()) {
+                values.add(parser.apply(item.trim()));
+            }
+        }
+        return values;
+    }
+
+    private static void printTable(List<LoadScenarioResult> results) {
+        StringBuilder table = new StringBuilder(String.format(Locale.ROOT, "%n%-40s %10s %10s %9s %9s %9s %9s %7s %7s %8s%n",
+                "scenario", "req/s", "texts/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "failed", "reject", "api"));
+        for (LoadScenarioResult r : results) {
+            table.append(String.format(Locale.ROOT, "%-40s %10.1f %10.1f %9.2f %9.2f %9.2f %9.2f %7d %7d %8d%n",
+                    r.getName(), r.getThroughputPerSecond(), r.getTextsPerSecond(), r.getP50Ms(), r.getP99Ms(), r.getP999Ms(),
+                    r.getMaxMs(), r.getFailed() + r.getTimedOut(), r.getRejected(), r.getApiCalls()));
+        }
+        System.out.println(table);
+    }
+
+    private static void writeResults(Path path, Map<String, String> options, List<LoadScenarioResult> results) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("parameters", options.entrySet().stream()
+                .filter(e -> !"results".equals(e.getKey()))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new)));
+        report.put("scenarios", results);
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().serializeSpecialFloatingPointValues().create().toJson(report, writer);
+        }
+        logger.info("Wrote load test results to {}", path.toAbsolutePath());
+    }
+
+    private static ThreadFactory daemonThreadFactory(String prefix) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
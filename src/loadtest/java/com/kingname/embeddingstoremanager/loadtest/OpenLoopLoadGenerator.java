@@ -0,0 +1,159 @@
+package com.kingname.embeddingstoremanager.loadtest;
+
+import com.kingname.embeddingstoremanager.async.AsyncEmbeddingService;
+import com.kingname.embeddingstoremanager.exception.EmbeddingRequestRejectedException;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Starts requests on a fixed schedule from a single arrival thread and never waits for their completion.
+ * Latency runs from the scheduled start rather than the actual send, so a stalled system is charged for the
+ * requests it delayed (no coordinated omission).
+ */
+public class OpenLoopLoadGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(OpenLoopLoadGenerator.class);
+    private static final AtomicLong RUN_SEQUENCE = new AtomicLong();
+
+    private final AsyncEmbeddingService service;
+    private final List<String> cachedTexts;
+    private final StubEmbeddingServer api;
+    private final String missPrefix = "load test miss " + System.nanoTime() + "-" + RUN_SEQUENCE.incrementAndGet() + " ";
+    private final AtomicLong missSequence = new AtomicLong();
+    private final Random random = new Random(42);
+
+    /**
+     * @param cachedTexts texts already in the service's cache; hits are drawn from them, misses are always new texts
+     */
+    public OpenLoopLoadGenerator(AsyncEmbeddingService service, List<String> cachedTexts, StubEmbeddingServer api) {
+        this.service = service;
+        this.cachedTexts = cachedTexts;
+        this.api = api;
+    }
+
+    public LoadScenarioResult run(LoadScenario scenario) throws InterruptedException {
+        Histogram latencyMicros = new ConcurrentHistogram(3);
+        LongAdder succeeded = new LongAdder();
+        LongAdder failed = new LongAdder();
+        LongAdder rejected = new LongAdder();
+        AtomicLong outstanding = new AtomicLong();
+        AtomicLong lastCompletion = new AtomicLong();
+
+        double intervalNanos = TimeUnit.SECONDS.toNanos(1) / scenario.getArrivalRatePerSecond();
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(10);
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(scenario.getWarmupSeconds());
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(scenario.getDurationSeconds());
+        long requests = 0;
+        long[] apiBaseline = null;
+
+        logger.info("Running {} for {}s (+{}s warm-up)", scenario.getName(), scenario.getDurationSeconds(), scenario.getWarmupSeconds());
+        for (long i = 0; ; i++) {
+            long scheduled = start + (long) (i * intervalNanos);
+            if (scheduled >= end) {
+                break;
+            }
+            long remaining;
+            while ((remaining = scheduled - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(remaining);
+            }
+            boolean measured = scheduled >= measureFrom;
+            if (measured && apiBaseline == null) {
+                apiBaseline = new long[] {api.getRequests(), api.getErrors(), api.getThrottled()};
+            }
+            if (measured) {
+                requests++;
+                outstanding.incrementAndGet();
+            }
+            send(nextTexts(scenario)).whenComplete((result, error) -> {
+                if (!measured) {
+                    return;
+                }
+                long now = System.nanoTime();
+                if (error == null) {
+                    latencyMicros.recordValue(TimeUnit.NANOSECONDS.toMicros(now - scheduled));
+                    succeeded.increment();
+                } else if (isRejection(error)) {
+                    rejected.increment();
+                } else {
+                    failed.increment();
+                }
+                lastCompletion.accumulateAndGet(now, Math::max);
+                outstanding.decrementAndGet();
+            });
+        }
+
+        long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(scenario.getDrainTimeoutSeconds());
+        while (outstanding.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(10);
+        }
+        if (apiBaseline == null) {
+            apiBaseline = new long[3];
+        }
+
+        double measuredSeconds = Math.max(end, lastCompletion.get()) - measureFrom;
+        measuredSeconds /= TimeUnit.SECONDS.toNanos(1);
+        return LoadScenarioResult.builder()
+                .name(scenario.getName())
+                .arrivalRatePerSecond(scenario.getArrivalRatePerSecond())
+                .hitRatio(scenario.getHitRatio())
+                .concurrency(scenario.getConcurrency())
+                .batchSize(scenario.getBatchSize())
+                .requests(requests)
+                .succeeded(succeeded.sum())
+                .failed(failed.sum())
+                .rejected(rejected.sum())
+                .timedOut(outstanding.get())
+                .throughputPerSecond(succeeded.sum() / measuredSeconds)
+                .textsPerSecond(succeeded.sum() * scenario.getBatchSize() / measuredSeconds)
+                .p50Ms(percentileMs(latencyMicros, 50.0))
+                .p99Ms(percentileMs(latencyMicros, 99.0))
+                .p999Ms(percentileMs(latencyMicros, 99.9))
+                .maxMs(latencyMicros.getTotalCount() > 0 ? latencyMicros.getMaxValue() / 1000.0 : 0.0)
+                .apiCalls(api.getRequests() - apiBaseline[0])
+                .apiErrors(api.getErrors() - apiBaseline[1])
+                .apiThrottled(api.getThrottled() - apiBaseline[2])
+                .build();
+    }
+
+    private CompletableFuture<?> send(List<String> texts) {
+        try {
+            return texts.size() == 1 ? service.getEmbeddingAsync(texts.get(0)) : service.getEmbeddingsBatchAsync(texts);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private List<String> nextTexts(LoadScenario scenario) {
+        List<String> texts = new ArrayList<>(scenario.getBatchSize());
+        for (int i = 0; i < scenario.getBatchSize(); i++) {
+            texts.add(!cachedTexts.isEmpty() && random.nextDouble() < scenario.getHitRatio()
+                    ? cachedTexts.get(random.nextInt(cachedTexts.size()))
+                    : missPrefix + missSequence.incrementAndGet());
+        }
+        return texts;
+    }
+
+    private static boolean isRejection(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof EmbeddingRequestRejectedException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static double percentileMs(Histogram histogram, double percentile) {
+        return histogram.getTotalCount() > 0 ? histogram.getValueAtPercentile(percentile) / 1000.0 : 0.0;
+    }
+}
@@ -0,0 +1,84 @@
+package com.kingname.embeddingstoremanager.loadtest;
+
+import com.kingname.embeddingstoremanager.EmbeddingCacheStore;
+import com.kingname.embeddingstoremanager.exception.EmbeddingCacheStoreException;
+import com.kingname.embeddingstoremanager.vo.CachedEmbeddingDocument;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory stand-in for the Elasticsearch store that pays one simulated round trip per get, mget or bulk.
+ * After {@link #freeze()} writes are timed but dropped, so a long run keeps its hit ratio and its heap flat.
+ */
+public class SimulatedLatencyStore implements EmbeddingCacheStore {
+
+    private final Map<String, List<Double>> embeddings = new ConcurrentHashMap<>();
+    private volatile LatencyDistribution lookupLatency;
+    private volatile LatencyDistribution writeLatency;
+    private volatile boolean frozen;
+
+    public SimulatedLatencyStore(LatencyDistribution lookupLatency, LatencyDistribution writeLatency) {
+        this.lookupLatency = lookupLatency;
+        this.writeLatency = writeLatency;
+    }
+
+    public void configure(LatencyDistribution lookupLatency, LatencyDistribution writeLatency) {
+        this.lookupLatency = lookupLatency;
+        this.writeLatency = writeLatency;
+    }
+
+    public void freeze() {
+        this.frozen = true;
+    }
+
+    public int size() {
+        return embeddings.size();
+    }
+
+    @Override
+    public List<Double> getCachedEmbedding(String text) throws EmbeddingCacheStoreException {
+        pause(lookupLatency);
+        return embeddings.get(text);
+    }
+
+    @Override
+    public Map<String, List<Double>> getCachedEmbeddings(List<String> texts) throws EmbeddingCacheStoreException {
+        pause(lookupLatency);
+        Map<String, List<Double>> cached = new LinkedHashMap<>();
+        for (String text : texts) {
+            List<Double> embedding = embeddings.get(text);
+            if (embedding != null) {
+                cached.put(text, embedding);
+            }
+        }
+        return cached;
+    }
+
+    @Override
+    public void storeEmbedding(String id, String text, List<Double> embedding) throws EmbeddingCacheStoreException {
+        pause(writeLatency);
+        if (!frozen) {
+            embeddings.put(text, embedding);
+        }
+    }
+
+    @Override
+    public void storeEmbeddings(List<CachedEmbeddingDocument> documents) throws EmbeddingCacheStoreException {
+        pause(writeLatency);
+        if (!frozen) {
+            documents.forEach(document -> embeddings.put(document.getText(), document.getEmbedding()));
+        }
+    }
+
+    private static void pause(LatencyDistribution latency) throws EmbeddingCacheStoreException {
+        try {
+            latency.pause();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EmbeddingCacheStoreException(e.getMessage(), e.getCause());
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.kingname.embeddingstoremanager.loadtest;
+
+import com.kingname.embeddingstoremanager.EmbeddingCacheManagerConfig;
+import com.kingname.embeddingstoremanager.RestEmbeddingGenerator;
+import com.kingname.embeddingstoremanager.exception.RestEmbeddingGeneratorException;
+
+/**
+ * REST generator for the loopback {@link StubEmbeddingServer}. The production generator only accepts public HTTPS
+ * URLs, so this one swaps that check for one that only accepts the stub's URL.
+ */
+public class StubApiEmbeddingGenerator extends RestEmbeddingGenerator {
+
+    private final String apiUrl;
+    private final String stubUrl;
+
+    public StubApiEmbeddingGenerator(EmbeddingCacheManagerConfig ecmConfig, StubEmbeddingServer api) {
+        super(ecmConfig);
+        this.apiUrl = ecmConfig.getEmbeddingApiUrl();
+        this.stubUrl = api.getUrl();
+    }
+
+    @Override
+    protected void checkApiUrl() throws RestEmbeddingGeneratorException {
+        if (!stubUrl.equals(apiUrl)) {
+            throw new RestEmbeddingGeneratorException("Only the stub server URL is allowed: " + stubUrl, null);
+        }
+    }
+}
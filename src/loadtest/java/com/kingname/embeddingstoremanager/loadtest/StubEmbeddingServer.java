@@ -0,0 +1,168 @@
+package com.kingname.embeddingstoremanager.loadtest;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * OpenAI-compatible embedding endpoint on the loopback interface with simulated latency, 5xx errors and 429 throttling.
+ * Every request is served on its own thread, so the stub never queues and only the client side limits concurrency.
+ */
+public class StubEmbeddingServer implements AutoCloseable {
+
+    public static final String PATH = "/v1/embeddings";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final String embeddingJson;
+    private volatile LatencyDistribution latency;
+    private volatile double errorRate;
+    private volatile double throttleRate;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong inputs = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+
+    public StubEmbeddingServer(int dimension, LatencyDistribution latency, double errorRate, double throttleRate) throws IOException {
+        this.embeddingJson = embeddingJson(dimension);
+        this.latency = latency;
+        this.errorRate = errorRate;
+        this.throttleRate = throttleRate;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "stub-embedding-api-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        this.server.createContext(PATH, this::handle);
+        this.server.setExecutor(executor);
+        this.server.start();
+    }
+
+    /**
+     * URL to configure as embeddingApiUrl, with a {@link StubApiEmbeddingGenerator} to accept it
+     */
+    public String getUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + PATH;
+    }
+
+    public void configure(LatencyDistribution latency, double errorRate, double throttleRate) {
+        this.latency = latency;
+        this.errorRate = errorRate;
+        this.throttleRate = throttleRate;
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getInputs() {
+        return inputs.get();
+    }
+
+    public long getErrors() {
+        return errors.get();
+    }
+
+    public long getThrottled() {
+        return throttled.get();
+    }
+
+    public void resetCounters() {
+        requests.set(0);
+        inputs.set(0);
+        errors.set(0);
+        throttled.set(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            requests.incrementAndGet();
+            JsonElement input;
+            try (InputStreamReader reader = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)) {
+                JsonObject body = new JsonParser().parse(reader).getAsJsonObject();
+                input = body.get("input");
+            } catch (RuntimeException e) {
+                respond(exchange, 400, "{\"error\":{\"message\":\"invalid request body\"}}");
+                return;
+            }
+            int count = input == null ? 0 : input.isJsonArray() ? input.getAsJsonArray().size() : 1;
+            inputs.addAndGet(count);
+
+            latency.pause();
+
+            double roll = ThreadLocalRandom.current().nextDouble();
+            if (roll < throttleRate) {
+                throttled.incrementAndGet();
+                exchange.getResponseHeaders().add("Retry-After", "1");
+                respond(exchange, 429, "{\"error\":{\"message\":\"rate limit exceeded\",\"type\":\"rate_limit_error\"}}");
+                return;
+            }
+            if (roll < throttleRate + errorRate) {
+                errors.incrementAndGet();
+                respond(exchange, 500, "{\"error\":{\"message\":\"internal error\",\"type\":\"server_error\"}}");
+                return;
+            }
+            respond(exchange, 200, responseJson(count));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private String responseJson(int count) {
+        StringBuilder json = new StringBuilder(count * embeddingJson.length() + 128).append("{\"object\":\"list\",\"data\":[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"object\":\"embedding\",\"index\":").append(i).append(",\"embedding\":").append(embeddingJson).append('}');
+        }
+        return json.append("],\"model\":\"stub\",\"usage\":{\"prompt_tokens\":").append(count * 10)
+                .append(",\"total_tokens\":").append(count * 10).append("}}").toString();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static String embeddingJson(int dimension) {
+        StringBuilder json = new StringBuilder(dimension * 10).append('[');
+        for (int i = 0; i < dimension; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(String.format(Locale.ROOT, "%.6f", Math.sin(i)));
+        }
+        return json.append(']').toString();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,23 @@
+package com.kingname.embeddingstoremanager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Estimates the JSON size of a cached embedding document without serializing it
+ */
+final class DocumentSizeEstimator {
+
+    private static final int DOCUMENT_OVERHEAD_BYTES = 160; // field names, hash, id, bulk action line
+    private static final int BYTES_PER_DIMENSION = 22;      // "-0.0123456789012345678,"
+
+    private DocumentSizeEstimator() {
+    }
+
+    static long estimate(String text, List<Double> embedding) {
+        long textBytes = Objects.isNull(text) ? 0 : text.getBytes(StandardCharsets.UTF_8).length;
+        long embeddingBytes = Objects.isNull(embedding) ? 0 : (long) embedding.size() * BYTES_PER_DIMENSION;
+        return DOCUMENT_OVERHEAD_BYTES + textBytes + embeddingBytes;
+    }
+}
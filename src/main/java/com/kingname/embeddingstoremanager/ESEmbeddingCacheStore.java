@@ -1,52 +1,215 @@
 package com.kingname.embeddingstoremanager;
 
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
 import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import co.elastic.clients.elasticsearch._types.ExpandWildcard;
+import co.elastic.clients.elasticsearch._types.HealthStatus;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.Level;
+import co.elastic.clients.elasticsearch._types.OpType;
+import co.elastic.clients.elasticsearch._types.Refresh;
 import co.elastic.clients.elasticsearch._types.Time;
+import co.elastic.clients.elasticsearch._types.mapping.Property;
 import co.elastic.clients.elasticsearch._types.mapping.TypeMapping;
 import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
 import co.elastic.clients.elasticsearch._types.query_dsl.Query;
 import co.elastic.clients.elasticsearch._types.query_dsl.TermQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.TermsQuery;
+import co.elastic.clients.elasticsearch.cluster.HealthRequest;
+import co.elastic.clients.elasticsearch.cluster.HealthResponse;
 import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.ClosePointInTimeRequest;
+import co.elastic.clients.elasticsearch.core.GetRequest;
+import co.elastic.clients.elasticsearch.core.GetResponse;
 import co.elastic.clients.elasticsearch.core.IndexRequest;
+import co.elastic.clients.elasticsearch.core.MgetRequest;
+import co.elastic.clients.elasticsearch.core.OpenPointInTimeRequest;
 import co.elastic.clients.elasticsearch.core.SearchRequest;
 import co.elastic.clients.elasticsearch.core.bulk.BulkOperation;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
 import co.elastic.clients.elasticsearch.core.bulk.IndexOperation;
+import co.elastic.clients.elasticsearch.core.mget.MultiGetOperation;
+import co.elastic.clients.elasticsearch.core.mget.MultiGetResponseItem;
 import co.elastic.clients.elasticsearch.core.search.Hit;
 import co.elastic.clients.elasticsearch.indices.*;
+import co.elastic.clients.elasticsearch.indices.get_mapping.IndexMappingRecord;
+import co.elastic.clients.elasticsearch.indices.stats.IndicesStats;
 import co.elastic.clients.elasticsearch.indices.update_aliases.Action;
 import co.elastic.clients.elasticsearch.indices.update_aliases.AddAction;
+import co.elastic.clients.transport.ElasticsearchTransport;
 import com.kingname.embeddingstoremanager.exception.ElasticSearchClientException;
 import com.kingname.embeddingstoremanager.exception.EmbeddingCacheStoreException;
+import com.kingname.embeddingstoremanager.exception.HashGeneratorException;
+import com.kingname.embeddingstoremanager.index.CacheIndexDefinition;
+import com.kingname.embeddingstoremanager.index.ExpiredIndexAction;
+import com.kingname.embeddingstoremanager.index.IndexGeneration;
+import com.kingname.embeddingstoremanager.index.IndexLifecycleStatus;
+import com.kingname.embeddingstoremanager.metrics.MetricsService;
+import com.kingname.embeddingstoremanager.metrics.Outcome;
+import com.kingname.embeddingstoremanager.metrics.RequestStage;
+import com.kingname.embeddingstoremanager.metrics.StageTimings;
+import com.kingname.embeddingstoremanager.vo.BulkStoreResult;
+import com.kingname.embeddingstoremanager.vo.CacheLookupResult;
 import com.kingname.embeddingstoremanager.vo.CachedEmbeddingDocument;
 import com.kingname.embeddingstoremanager.vo.EsCachedEmbeddingDocument;
+import com.kingname.embeddingstoremanager.vo.LeaseDocument;
+import com.google.common.util.concurrent.RateLimiter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.SneakyThrows;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.*;
-import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
-public class ESEmbeddingCacheStore implements EmbeddingCacheStore {
+public class ESEmbeddingCacheStore implements EmbeddingCacheStore, AutoCloseable {
+
+    private static final long ALIAS_STATE_TTL_MS = 60_000L;
+    private static final String PIT_KEEP_ALIVE = "5m";
+    private static final ZoneId INDEX_ZONE = ZoneId.of("Asia/Seoul");
+    private static final String INDEX_TEMPLATE_SUFFIX = "-template";
+    private static final int INDEX_TEMPLATE_PRIORITY = 200;
+    private static final String LEASE_INDEX_SUFFIX = "_lease";
+    private static final String INDEX_READY_TIMEOUT = "60s";
+    private static final int PARALLEL_HASH_THRESHOLD = 256;
+    private static final int MAX_ROUTING_CHARS = 2048; // routing 은 URL 에 실리므로 ES 기본 4kb 요청 라인 안에 머물게 한다.
+    private static final Logger logger = LoggerFactory.getLogger(ESEmbeddingCacheStore.class);
 
     private final EmbeddingCacheManagerConfig ecmConfig;
+    private final ElasticsearchTransport transport;
     private final ElasticsearchClient esClient;
+    private final ElasticsearchAsyncClient lookupClient;
+    private final ElasticsearchAsyncClient bulkClient;
+    private final ElasticsearchAsyncClient writeClient;
     private final HashGenerator hashGenerator;
+    private final HashGenerator legacyHashGenerator;
+    private final ExecutorService bulkExecutor;
+    private final ExecutorService readRepairExecutor;
+    private final RateLimiter readRepairRateLimiter;
+    private final Set<String> repairingHashes = ConcurrentHashMap.newKeySet();
+    private final AtomicLong readRepairs = new AtomicLong();
+    private final AtomicLong readRepairsSkipped = new AtomicLong();
+    private final AtomicLong readRepairsFailed = new AtomicLong();
+    private final AtomicLong legacyKeyHits = new AtomicLong();
+    private final AtomicLong rollovers = new AtomicLong();
+    private final AtomicLong expiredIndices = new AtomicLong();
+    private final Map<String, Timer> lookupTimers = new ConcurrentHashMap<>();
+    private volatile MeterRegistry meterRegistry;
+    private volatile IndexLifecycleStatus lifecycleStatus = IndexLifecycleStatus.unknown();
+    private volatile AliasState aliasState;
+    private final AtomicReference<CompletableFuture<AliasState>> aliasStateRefresh = new AtomicReference<>();
 
     public ESEmbeddingCacheStore(EmbeddingCacheManagerConfig ecmConfig) throws ElasticSearchClientException {
+        this(ecmConfig, ElasticSearchClientBuilder.buildTransport(ecmConfig));
+    }
+
+    /**
+     * 주어진 transport 위에서 동작한다. 테스트에서 클러스터 없이 요청과 응답을 흉내 낼 때 사용한다.
+     */
+    ESEmbeddingCacheStore(EmbeddingCacheManagerConfig ecmConfig, ElasticsearchTransport transport) throws ElasticSearchClientException {
         this.ecmConfig = ecmConfig;
-        this.esClient = ElasticSearchClientBuilder.build(ecmConfig);
-        this.hashGenerator = new HashGenerator();
+        this.transport = transport;
+        this.esClient = new ElasticsearchClient(this.transport);
+        this.lookupClient = new ElasticsearchAsyncClient(this.transport).withTransportOptions(
+                ElasticSearchClientBuilder.requestOptions(ecmConfig.getEsLookupTimeoutMs(), ecmConfig));
+        this.writeClient = new ElasticsearchAsyncClient(this.transport);
+        this.bulkClient = new ElasticsearchAsyncClient(this.transport).withTransportOptions(
+                ElasticSearchClientBuilder.requestOptions(ecmConfig.getEsBulkTimeoutMs(), ecmConfig));
+        this.hashGenerator = new HashGenerator(ecmConfig.getKeyHashStrategy());
+        this.legacyHashGenerator = Objects.nonNull(ecmConfig.getLegacyKeyHashStrategy())
+                && ecmConfig.getLegacyKeyHashStrategy() != ecmConfig.getKeyHashStrategy()
+                ? new HashGenerator(ecmConfig.getLegacyKeyHashStrategy()) : null;
+        this.bulkExecutor = createBulkExecutor(ecmConfig.getBulkParallelism());
+        this.readRepairExecutor = createReadRepairExecutor(ecmConfig.getReadRepairQueueSize());
+        this.readRepairRateLimiter = RateLimiter.create(ecmConfig.getReadRepairPerSecond());
         init(ecmConfig);
     }
 
+    private static ExecutorService createBulkExecutor(int parallelism) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(parallelism, r -> {
+            Thread t = new Thread(r, "es-bulk-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    private static ExecutorService createReadRepairExecutor(int queueSize) {
+        return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(queueSize), r -> {
+            Thread t = new Thread(r, "es-read-repair");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
     public void init(EmbeddingCacheManagerConfig ecmConfig) throws ElasticSearchClientException {
+        if(Boolean.TRUE.equals(ecmConfig.getManageIndexTemplate())) {
+            putIndexTemplate(ecmConfig.getElasticSearchCacheAliasName());
+        }
         createEmbeddingCacheIndexIfNotExists(ecmConfig);
     }
 
+    /**
+     * "{alias}-*" 에 적용되는 composable index template 을 설정에 맞게 갱신한다. 새 index 는 본문 없이 생성된다.
+     */
+    private void putIndexTemplate(String aliasName) throws ElasticSearchClientException {
+        try {
+            String mappings = CacheIndexDefinition.mappingsJson(this.ecmConfig);
+            String settings = CacheIndexDefinition.settingsJson(this.ecmConfig);
+            this.esClient.indices().putIndexTemplate(new PutIndexTemplateRequest.Builder()
+                    .name(aliasName + INDEX_TEMPLATE_SUFFIX)
+                    .indexPatterns(aliasName + "-*")
+                    .priority(INDEX_TEMPLATE_PRIORITY)
+                    .template(template -> template
+                            .mappings(new TypeMapping.Builder()
+                                    .withJson(new ByteArrayInputStream(mappings.getBytes()))
+                                    .build())
+                            .settings(new IndexSettings.Builder()
+                                    .withJson(new ByteArrayInputStream(settings.getBytes()))
+                                    .build()))
+                    .build());
+        } catch (Exception e) {
+            throw new ElasticSearchClientException(e.getMessage(), e.getCause());
+        }
+    }
+
     private void createEmbeddingCacheIndexIfNotExists(EmbeddingCacheManagerConfig ecmConfig) throws ElasticSearchClientException {
         String aliasName = ecmConfig.getElasticSearchCacheAliasName();
         String indexName = getIndexName(aliasName);
@@ -63,30 +226,70 @@ public class ESEmbeddingCacheStore implements EmbeddingCacheStore {
     }
 
     private String getIndexName(String aliasName) {
-        String nowDate = LocalDate.now(ZoneId.of("Asia/Seoul")).format(DateTimeFormatter.ofPattern("yyyyMM"));
-        return String.format("%s-%s", aliasName, nowDate);
+        return IndexGeneration.first(aliasName, YearMonth.now(INDEX_ZONE)).getIndexName();
     }
 
     private CreateIndexResponse createIndexIfNotExists(String indexName, String aliasName) throws ElasticSearchClientException {
         if(!existsIndex(aliasName)) {
-            String mappings = readStringFromClassPath("/mappings.json");
-            String settings = readStringFromClassPath("/settings.json");
-            return createIndex(indexName, mappings, settings);
+            return createIndex(indexName);
         }
         return null;
     }
 
-    private String readStringFromClassPath(String path) throws ElasticSearchClientException {
-        try(InputStream in = getClass().getResourceAsStream(path);
-            BufferedReader reader = new BufferedReader(new InputStreamReader(in))) {
-            String line;
-            StringBuffer stringBuffer = new StringBuffer();
-            do {
-                line = reader.readLine();
-                stringBuffer.append(line);
-            }while (line != null);
-            return stringBuffer.toString();
-        } catch (IOException e) {
+    private CreateIndexResponse createIndex(String indexName) throws ElasticSearchClientException {
+        if(Boolean.TRUE.equals(this.ecmConfig.getManageIndexTemplate())) {
+            try {
+                return this.esClient.indices().create(new CreateIndexRequest.Builder()
+                        .index(indexName)
+                        .masterTimeout(new Time.Builder().time("5m").build())
+                        .build());
+            } catch (Exception e) {
+                throw new ElasticSearchClientException(e.getMessage(), e.getCause());
+            }
+        }
+        String mappings = CacheIndexDefinition.mappingsJson(this.ecmConfig);
+        String settings = CacheIndexDefinition.settingsJson(this.ecmConfig);
+        return createIndex(indexName, mappings, settings);
+    }
+
+    /**
+     * 현재 write index 매핑에 정의된 embedding 차원 수를 반환한다. 매핑에 없으면 null.
+     */
+    public Integer getEmbeddingDimension() throws ElasticSearchClientException {
+        try {
+            AliasState state = getAliasState();
+            GetMappingResponse getMappingResponse = this.esClient.indices().getMapping(new GetMappingRequest.Builder()
+                    .index(this.ecmConfig.getElasticSearchCacheAliasName())
+                    .build());
+            IndexMappingRecord record = Objects.nonNull(state.getWriteIndexName()) && getMappingResponse.result().containsKey(state.getWriteIndexName())
+                    ? getMappingResponse.result().get(state.getWriteIndexName())
+                    : getMappingResponse.result().values().stream().findFirst().orElse(null);
+            if(Objects.isNull(record) || Objects.isNull(record.mappings())) return null;
+            Property property = record.mappings().properties().get("embedding");
+            return Objects.nonNull(property) && property.isDenseVector() ? property.denseVector().dims() : null;
+        } catch (ElasticSearchClientException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ElasticSearchClientException(e.getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * alias 에 묶인 index 들의 primary 기준 문서당 저장 바이트를 측정한다. 문서가 없으면 null.
+     * {@link com.kingname.embeddingstoremanager.index.StorageProfileReport} 의 추정치와 비교하는 용도.
+     */
+    public Double getStoredBytesPerDocument() throws ElasticSearchClientException {
+        try {
+            IndicesStatsResponse statsResponse = this.esClient.indices().stats(new IndicesStatsRequest.Builder()
+                    .index(this.ecmConfig.getElasticSearchCacheAliasName())
+                    .metric("store", "docs")
+                    .build());
+            if(Objects.isNull(statsResponse.all()) || Objects.isNull(statsResponse.all().primaries())) return null;
+            Long docCount = statsResponse.all().primaries().docs().count();
+            long sizeInBytes = statsResponse.all().primaries().store().sizeInBytes();
+            if(Objects.isNull(docCount) || docCount == 0) return null;
+            return (double) sizeInBytes / docCount;
+        } catch (Exception e) {
             throw new ElasticSearchClientException(e.getMessage(), e.getCause());
         }
     }
@@ -128,22 +331,6 @@ public class ESEmbeddingCacheStore implements EmbeddingCacheStore {
         }
     }
 
-    private DeleteAliasResponse deleteAlias(String aliasName) throws ElasticSearchClientException {
-        try {
-            List<String> indexNames = getIndexNamesFromAlias(aliasName);
-            indexNames = indexNames.stream().filter(str -> !str.endsWith("base")).collect(Collectors.toList());
-            if(indexNames.size() <= this.ecmConfig.getRetentionMonth()) return null; // 삭제할게 없음.
-            int count = indexNames.size() - this.ecmConfig.getRetentionMonth();
-            List<String> deleteIndexNames = indexNames.subList(0, count);
-            return this.esClient.indices().deleteAlias(new DeleteAliasRequest.Builder()
-                    .index(deleteIndexNames)
-                    .name(aliasName)
-                    .build());
-        }catch (Exception e) {
-            throw new ElasticSearchClientException(e.getMessage(), e.getCause());
-        }
-    }
-
     private PutAliasResponse addAlias(String indexName, String aliasName, boolean isWriteIndex) throws ElasticSearchClientException {
         try {
             return this.esClient.indices().putAlias(new PutAliasRequest.Builder()
@@ -156,64 +343,537 @@ public class ESEmbeddingCacheStore implements EmbeddingCacheStore {
         }
     }
 
+    /**
+     * 현재 write index 는 realtime GET 으로 조회하고, 이전 세대 인덱스가 있을 때만 search 로 fallback 한다.
+     */
     public List<Double> getCachedEmbedding(String text) throws EmbeddingCacheStoreException {
+        CacheLookupResult result = lookupCachedEmbedding(text);
+        return Objects.nonNull(result) ? result.getEmbedding() : null;
+    }
+
+    /**
+     * {@link #getCachedEmbedding(String)} 와 같지만 hit 를 제공한 index 를 함께 반환한다. 미스면 null.
+     * 이전 세대 index 에서 찾은 문서는 비동기로 현재 write index 에 복사(read-repair)한다.
+     */
+    @Override
+    public CacheLookupResult lookupCachedEmbedding(String text) throws EmbeddingCacheStoreException {
+        return await(lookupCachedEmbeddingAsync(text));
+    }
+
+    /**
+     * {@link #lookupCachedEmbedding(String)} 의 비동기 버전. 응답을 기다리며 막혀 있는 스레드가 없다.
+     * 완료는 IO reactor 스레드에서 일어나므로 이어 붙이는 단계에서 블로킹하면 안 된다.
+     */
+    public CompletableFuture<CacheLookupResult> lookupCachedEmbeddingAsync(String text) {
+        StageTimings timings = StageTimings.current(); // 이후 단계는 IO 스레드에서 실행되므로 호출 스레드에서 잡아 둔다.
+        String hash;
+        String legacyHash;
+        long hashStartNanos = System.nanoTime();
         try {
-            String hash = this.hashGenerator.getHash(text);
-            SearchRequest searchRequest = getHashSearchRequest(hash);
-            List<EsCachedEmbeddingDocument> cachedList = search(searchRequest);
-            return cachedList.stream()
-                    .filter(doc -> text.equalsIgnoreCase(doc.getText()))
-                    .filter(doc -> Objects.nonNull(doc.getEmbedding()))
-                    .filter(doc -> doc.getEmbedding().size() > 0)
+            hash = this.hashGenerator.getHash(text);
+            legacyHash = Objects.nonNull(this.legacyHashGenerator) ? this.legacyHashGenerator.getHash(text) : null;
+        } catch (Exception e) {
+            return failedFuture(e);
+        } finally {
+            StageTimings.record(RequestStage.HASH, hashStartNanos);
+        }
+        long startNanos = System.nanoTime();
+        CompletableFuture<CacheLookupResult> future = getAliasStateAsync().thenCompose(state ->
+                lookupByHashAsync(text, hash, state, true, timings).thenCompose(result -> {
+                    if(Objects.nonNull(result) || Objects.isNull(legacyHash)) return CompletableFuture.completedFuture(result);
+                    return lookupByHashAsync(text, legacyHash, state, false, timings).thenApply(legacyResult -> {
+                        if(Objects.nonNull(legacyResult)) {
+                            this.legacyKeyHits.incrementAndGet();
+                            scheduleReadRepair(hash, text, legacyResult.getEmbedding(), legacyResult.getTokenCount());
+                        }
+                        return legacyResult;
+                    });
+                }));
+        return wrapFailure(future.whenComplete((result, e) -> recordLookup(startNanos, "get", Objects.nonNull(e) ? Outcome.ERROR
+                : Objects.isNull(result) ? Outcome.MISS : Outcome.HIT,
+                Objects.isNull(result) ? "none" : result.isOlderGeneration() ? "older" : "current")));
+    }
+
+    /**
+     * repair 가 꺼져 있으면 이전 세대 hit 를 복사하지 않는다. legacy hash 조회는 호출자가 새 hash 로 복사한다.
+     */
+    private CompletableFuture<CacheLookupResult> lookupByHashAsync(String text, String hash, AliasState state, boolean repair,
+                                                                   StageTimings timings) {
+        if(Objects.isNull(state.getWriteIndexName())) return searchGenerationsAsync(text, hash, state, getFallbackTargets(state), 0, repair, timings);
+        return getAsync(state.getWriteIndexName(), getDocumentId(hash), getRouting(hash), timings).thenCompose(document -> {
+            if(isValidDocument(text, document)) return CompletableFuture.completedFuture(toLookupResult(document, state.getWriteIndexName(), state));
+            if(!state.hasOlderGenerations() && !searchesWriteIndex()) return CompletableFuture.completedFuture(null); // 이전 세대 인덱스가 없음.
+            return searchGenerationsAsync(text, hash, state, getFallbackTargets(state), 0, repair, timings);
+        });
+    }
+
+    private CompletableFuture<CacheLookupResult> searchGenerationsAsync(String text, String hash, AliasState state,
+                                                                        List<String> targets, int position, boolean repair,
+                                                                        StageTimings timings) {
+        if(position >= targets.size()) return CompletableFuture.completedFuture(null);
+        String target = targets.get(position);
+        return searchHitsAsync(getHashSearchRequest(target, hash, getExcludedIndexName(target, state)), timings).thenCompose(hits -> {
+            Hit<EsCachedEmbeddingDocument> hit = hits.stream()
+                    .filter(h -> isValidDocument(text, h.source()))
                     .findFirst()
-                    .map(EsCachedEmbeddingDocument::getEmbedding)
                     .orElse(null);
+            if(Objects.isNull(hit)) return searchGenerationsAsync(text, hash, state, targets, position + 1, repair, timings);
+            CacheLookupResult result = toLookupResult(hit.source(), hit.index(), state);
+            if(repair && (result.isOlderGeneration() || !getDocumentId(hash).equals(hit.id()))) {
+                scheduleReadRepair(hash, text, result.getEmbedding(), result.getTokenCount());
+            }
+            return CompletableFuture.completedFuture(result);
+        });
+    }
+
+    /**
+     * 현재 write index 에 한 번의 _mget 을 보내고, 남은 미스만 이전 세대 인덱스에서 한 번의 search 로 찾는다.
+     * lookupNewestGenerationFirst 가 켜져 있으면 최신 세대부터 index 별로 남은 미스를 찾는다.
+     */
+    @Override
+    public Map<String, List<Double>> getCachedEmbeddings(List<String> texts) throws EmbeddingCacheStoreException {
+        return await(getCachedEmbeddingsAsync(texts));
+    }
+
+    /**
+     * {@link #getCachedEmbeddings(List)} 의 비동기 버전.
+     */
+    public CompletableFuture<Map<String, List<Double>>> getCachedEmbeddingsAsync(List<String> texts) {
+        return lookupCachedEmbeddingsAsync(texts).thenApply(results -> {
+            Map<String, List<Double>> cached = new HashMap<>();
+            results.forEach((text, result) -> cached.put(text, result.getEmbedding()));
+            return cached;
+        });
+    }
+
+    /**
+     * {@link #getCachedEmbeddings(List)} 와 같지만 텍스트별로 hit 를 제공한 index 와 저장된 token 수를 함께 반환한다.
+     */
+    @Override
+    public Map<String, CacheLookupResult> lookupCachedEmbeddings(List<String> texts) throws EmbeddingCacheStoreException {
+        return await(lookupCachedEmbeddingsAsync(texts));
+    }
+
+    /**
+     * {@link #lookupCachedEmbeddings(List)} 의 비동기 버전.
+     */
+    public CompletableFuture<Map<String, CacheLookupResult>> lookupCachedEmbeddingsAsync(List<String> texts) {
+        StageTimings timings = StageTimings.current();
+        Map<String, String> hashes;
+        long hashStartNanos = System.nanoTime();
+        try {
+            hashes = getHashes(texts);
         } catch (Exception e) {
-            throw new EmbeddingCacheStoreException(e.getMessage(), e.getCause());
+            return failedFuture(e);
+        } finally {
+            StageTimings.record(RequestStage.HASH, hashStartNanos);
         }
+        Map<String, CacheLookupResult> cached = new HashMap<>();
+        if(hashes.isEmpty()) return CompletableFuture.completedFuture(cached);
+
+        long startNanos = System.nanoTime();
+        CompletableFuture<Map<String, CacheLookupResult>> future = getAliasStateAsync().thenCompose(state ->
+                lookupByHashesAsync(hashes, cached, state, true, timings).thenCompose(primaryCached -> {
+                    if(Objects.isNull(this.legacyHashGenerator) || primaryCached.size() == hashes.size()) {
+                        return CompletableFuture.completedFuture(primaryCached);
+                    }
+                    return lookupLegacyHashesAsync(hashes, primaryCached, state, timings);
+                }));
+        return wrapFailure(future.whenComplete((result, e) -> recordLookup(startNanos, "mget", Objects.nonNull(e) ? Outcome.ERROR
+                : result.size() == hashes.size() ? Outcome.HIT : Outcome.MISS, "all")));
     }
 
-    @SneakyThrows
-    private List<EsCachedEmbeddingDocument> search(SearchRequest searchRequest) {
-        return this.esClient.search(searchRequest, EsCachedEmbeddingDocument.class)
-                .hits()
-                .hits()
-                .stream()
-                .map(Hit::source)
+    /**
+     * 새 hash 로 찾지 못한 텍스트를 legacy hash 로 다시 찾고, 찾은 문서는 새 hash 로 복사한다.
+     */
+    private CompletableFuture<Map<String, CacheLookupResult>> lookupLegacyHashesAsync(Map<String, String> hashes, Map<String, CacheLookupResult> cached,
+                                                                                    AliasState state, StageTimings timings) {
+        Map<String, String> legacyHashes = new LinkedHashMap<>();
+        long hashStartNanos = System.nanoTime();
+        try {
+            for(String text : hashes.keySet()) {
+                if(!cached.containsKey(text)) legacyHashes.put(text, this.legacyHashGenerator.getHash(text));
+            }
+        } catch (Exception e) {
+            return failedFuture(e);
+        } finally {
+            if(Objects.nonNull(timings)) timings.add(RequestStage.HASH, System.nanoTime() - hashStartNanos);
+        }
+        Map<String, CacheLookupResult> legacyCached = new HashMap<>();
+        return lookupByHashesAsync(legacyHashes, legacyCached, state, false, timings).thenApply(found -> {
+            found.forEach((text, result) -> {
+                this.legacyKeyHits.incrementAndGet();
+                scheduleReadRepair(hashes.get(text), text, result.getEmbedding(), result.getTokenCount());
+            });
+            cached.putAll(found);
+            return cached;
+        });
+    }
+
+    private CompletableFuture<Map<String, CacheLookupResult>> lookupByHashesAsync(Map<String, String> hashes, Map<String, CacheLookupResult> cached,
+                                                                                AliasState state, boolean repair, StageTimings timings) {
+        if(Objects.isNull(state.getWriteIndexName())) return searchGenerationsAsync(hashes, cached, state, getFallbackTargets(state), 0, repair, timings);
+        List<String> distinctHashes = hashes.values().stream().distinct().collect(Collectors.toList());
+        return multiGetAsync(state.getWriteIndexName(), distinctHashes, timings).thenCompose(documents -> {
+            hashes.forEach((text, hash) -> {
+                EsCachedEmbeddingDocument document = documents.get(getDocumentId(hash));
+                if(isValidDocument(text, document)) cached.put(text, toLookupResult(document, state.getWriteIndexName(), state));
+            });
+            if(!state.hasOlderGenerations() && !searchesWriteIndex()) return CompletableFuture.completedFuture(cached);
+            return searchGenerationsAsync(hashes, cached, state, getFallbackTargets(state), 0, repair, timings);
+        });
+    }
+
+    /**
+     * 중복을 제거한 텍스트별 hash. 텍스트가 많으면 병렬로 계산한다.
+     */
+    private Map<String, String> getHashes(List<String> texts) throws HashGeneratorException {
+        List<String> distinctTexts = texts.stream().distinct().collect(Collectors.toList());
+        Map<String, String> hashes = new LinkedHashMap<>();
+        if(distinctTexts.size() < PARALLEL_HASH_THRESHOLD) {
+            for(String text : distinctTexts) {
+                hashes.put(text, this.hashGenerator.getHash(text));
+            }
+            return hashes;
+        }
+        List<String> hashList;
+        try {
+            hashList = distinctTexts.parallelStream().map(text -> {
+                try {
+                    return this.hashGenerator.getHash(text);
+                } catch (HashGeneratorException e) {
+                    throw new CompletionException(e);
+                }
+            }).collect(Collectors.toList());
+        } catch (CompletionException e) {
+            throw (HashGeneratorException) e.getCause();
+        }
+        for(int i = 0; i < distinctTexts.size(); i++) {
+            hashes.put(distinctTexts.get(i), hashList.get(i));
+        }
+        return hashes;
+    }
+
+    private CompletableFuture<Map<String, CacheLookupResult>> searchGenerationsAsync(Map<String, String> hashes, Map<String, CacheLookupResult> cached,
+                                                                                   AliasState state, List<String> targets, int position, boolean repair,
+                                                                                   StageTimings timings) {
+        List<String> missingHashes = hashes.entrySet().stream()
+                .filter(entry -> !cached.containsKey(entry.getKey()))
+                .map(Map.Entry::getValue)
+                .distinct()
+                .collect(Collectors.toList());
+        if(missingHashes.isEmpty() || position >= targets.size()) return CompletableFuture.completedFuture(cached);
+        String target = targets.get(position);
+        return searchHashesAsync(target, missingHashes, getExcludedIndexName(target, state), timings).thenCompose(hits -> {
+            Map<String, Hit<EsCachedEmbeddingDocument>> hitsByHash = hits.stream()
+                    .filter(hit -> Objects.nonNull(hit.source()))
+                    .collect(Collectors.toMap(hit -> hit.source().getHash(), hit -> hit, (a, b) -> a));
+            hashes.forEach((text, hash) -> {
+                Hit<EsCachedEmbeddingDocument> hit = hitsByHash.get(hash);
+                if(cached.containsKey(text) || Objects.isNull(hit) || !isValidDocument(text, hit.source())) return;
+                CacheLookupResult result = toLookupResult(hit.source(), hit.index(), state);
+                cached.put(text, result);
+                if(repair && (!hit.index().equals(state.getWriteIndexName()) || !getDocumentId(hash).equals(hit.id()))) {
+                    scheduleReadRepair(hash, text, result.getEmbedding(), result.getTokenCount());
+                }
+            });
+            return searchGenerationsAsync(hashes, cached, state, targets, position + 1, repair, timings);
+        });
+    }
+
+    /**
+     * write index GET 다음으로 조회할 대상. lookupNewestGenerationFirst 면 이전 세대 index 들, 아니면 alias 한 번.
+     * searchWriteIndexOnIdMiss 면 write index 도 hash 로 검색한다. hash 기반 id 도입 전에 자동 id 로 저장된 문서는 GET 으로 찾을 수 없다.
+     */
+    private List<String> getFallbackTargets(AliasState state) {
+        if(Boolean.TRUE.equals(this.ecmConfig.getLookupNewestGenerationFirst()) && Objects.nonNull(state.getWriteIndexName())) {
+            if(!searchesWriteIndex()) return state.getOlderIndexNames();
+            List<String> targets = new ArrayList<>();
+            targets.add(state.getWriteIndexName());
+            targets.addAll(state.getOlderIndexNames());
+            return targets;
+        }
+        return Collections.singletonList(this.ecmConfig.getElasticSearchCacheAliasName());
+    }
+
+    private boolean searchesWriteIndex() {
+        return Boolean.TRUE.equals(this.ecmConfig.getSearchWriteIndexOnIdMiss());
+    }
+
+    /**
+     * alias 검색에서 제외할 index. write index 를 다시 검색하지 않아도 될 때만 제외한다.
+     */
+    private String getExcludedIndexName(String target, AliasState state) {
+        return target.equals(this.ecmConfig.getElasticSearchCacheAliasName()) && !searchesWriteIndex() ? state.getWriteIndexName() : null;
+    }
+
+    private <T> T await(CompletableFuture<T> future) throws EmbeddingCacheStoreException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EmbeddingCacheStoreException(e.getMessage(), e);
+        } catch (ExecutionException e) {
+            if(e.getCause() instanceof EmbeddingCacheStoreException) throw (EmbeddingCacheStoreException) e.getCause();
+            throw new EmbeddingCacheStoreException(e.getCause().getMessage(), e.getCause().getCause());
+        }
+    }
+
+    private static <T> CompletableFuture<T> failedFuture(Exception e) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(new EmbeddingCacheStoreException(e.getMessage(), e.getCause()));
+        return future;
+    }
+
+    /**
+     * 비동기 조회의 실패를 동기 API 와 같은 {@link EmbeddingCacheStoreException} 으로 맞춘다.
+     */
+    private static <T> CompletableFuture<T> wrapFailure(CompletableFuture<T> future) {
+        return future.handle((result, e) -> {
+            if(Objects.isNull(e)) return result;
+            Throwable cause = e instanceof CompletionException && Objects.nonNull(e.getCause()) ? e.getCause() : e;
+            if(cause instanceof EmbeddingCacheStoreException) throw new CompletionException(cause);
+            throw new CompletionException(new EmbeddingCacheStoreException(cause.getMessage(), cause.getCause()));
+        });
+    }
+
+    private CacheLookupResult toLookupResult(EsCachedEmbeddingDocument document, String indexName, AliasState state) {
+        return CacheLookupResult.builder()
+                .embedding(document.getEmbedding())
+                .indexName(indexName)
+                .olderGeneration(Objects.nonNull(state.getWriteIndexName()) && !state.getWriteIndexName().equals(indexName))
+                .tokenCount(document.getToken_count())
+                .build();
+    }
+
+    /**
+     * 이전 세대에서 찾았거나 write index 에 자동 id 로 저장돼 있던 문서를 현재 write index 에 hash 기반 id 로 복사하도록 예약한다.
+     * 같은 hash 의 복사가 진행 중이거나 초당 한도를 넘으면 건너뛴다. 다음 hit 때 다시 시도된다.
+     */
+    private void scheduleReadRepair(String hash, String text, List<Double> embedding, Long tokenCount) {
+        if(!Boolean.TRUE.equals(this.ecmConfig.getEnableReadRepair())) return;
+        if(!this.repairingHashes.add(hash)) {
+            this.readRepairsSkipped.incrementAndGet();
+            return;
+        }
+        if(!this.readRepairRateLimiter.tryAcquire()) {
+            this.repairingHashes.remove(hash);
+            this.readRepairsSkipped.incrementAndGet();
+            return;
+        }
+        try {
+            this.readRepairExecutor.execute(() -> {
+                try {
+                    EsCachedEmbeddingDocument document = buildEmbeddingDocument(null, hash, text, embedding);
+                    document.setToken_count(tokenCount);
+                    this.esClient.index(getIndexRequest(document));
+                    this.readRepairs.incrementAndGet();
+                } catch (Exception e) {
+                    this.readRepairsFailed.incrementAndGet();
+                } finally {
+                    this.repairingHashes.remove(hash);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            this.repairingHashes.remove(hash);
+            this.readRepairsSkipped.incrementAndGet();
+        }
+    }
+
+    public long getReadRepairCount() {
+        return this.readRepairs.get();
+    }
+
+    public long getReadRepairSkippedCount() {
+        return this.readRepairsSkipped.get();
+    }
+
+    public long getLegacyKeyHitCount() {
+        return legacyKeyHits.get();
+    }
+
+    public long getReadRepairFailedCount() {
+        return this.readRepairsFailed.get();
+    }
+
+    private boolean isValidDocument(String text, EsCachedEmbeddingDocument document) {
+        return Objects.nonNull(document)
+                && (Objects.isNull(document.getText()) ? !this.ecmConfig.getStorageProfile().storesText() : text.equalsIgnoreCase(document.getText()))
+                && Objects.nonNull(document.getEmbedding())
+                && document.getEmbedding().size() > 0;
+    }
+
+    private CompletableFuture<EsCachedEmbeddingDocument> getAsync(String indexName, String id, String routing, StageTimings timings) {
+        long sentNanos = System.nanoTime();
+        return this.lookupClient.get(new GetRequest.Builder()
+                .index(indexName)
+                .id(id)
+                .routing(routing)
+                .realtime(true)
+                .build(), EsCachedEmbeddingDocument.class)
+                .thenApply(getResponse -> {
+                    recordResponse(timings, sentNanos);
+                    return getResponse.found() ? getResponse.source() : null;
+                });
+    }
+
+    private CompletableFuture<Map<String, EsCachedEmbeddingDocument>> multiGetAsync(String indexName, List<String> hashes, StageTimings timings) {
+        List<MultiGetOperation> operations = hashes.stream()
+                .map(hash -> new MultiGetOperation.Builder()
+                        .id(getDocumentId(hash))
+                        .routing(getRouting(hash))
+                        .build())
                 .collect(Collectors.toList());
+        long sentNanos = System.nanoTime();
+        return this.lookupClient.mget(new MgetRequest.Builder()
+                .index(indexName)
+                .docs(operations)
+                .realtime(true)
+                .build(), EsCachedEmbeddingDocument.class).thenApply(mgetResponse -> {
+            recordResponse(timings, sentNanos);
+            Map<String, EsCachedEmbeddingDocument> documents = new HashMap<>();
+            for(MultiGetResponseItem<EsCachedEmbeddingDocument> item : mgetResponse.docs()) {
+                if(item.isResult() && item.result().found()) {
+                    documents.put(item.result().id(), item.result().source());
+                }
+            }
+            return documents;
+        });
+    }
+
+    /**
+     * 문서 id 는 정규화된 텍스트의 hash 로부터 결정되므로 같은 텍스트의 재저장은 덮어쓰기(upsert)가 된다.
+     */
+    public String getDocumentId(String hash) {
+        if(Boolean.TRUE.equals(this.ecmConfig.getModelQualifiedDocumentId()) && Objects.nonNull(this.ecmConfig.getModelName())) {
+            return this.ecmConfig.getModelName() + ":" + hash;
+        }
+        return hash;
+    }
+
+    /**
+     * hash routing 이 켜져 있으면 문서를 hash 로 shard 에 배치해 조회가 index 당 한 shard 만 거치게 한다.
+     * routing 없이 저장된 기존 index 에서는 문서를 찾지 못하므로 새 alias 에서만 켜야 한다.
+     */
+    private String getRouting(String hash) {
+        return Boolean.TRUE.equals(this.ecmConfig.getEnableHashRouting()) ? hash : null;
+    }
+
+    private String getRouting(List<String> hashes) {
+        return Boolean.TRUE.equals(this.ecmConfig.getEnableHashRouting()) ? String.join(",", hashes) : null;
     }
 
-    private SearchRequest getHashSearchRequest(String hash) {
+    /**
+     * hash routing 이 켜져 있으면 routing 값이 MAX_ROUTING_CHARS 를 넘지 않도록 hash 를 나눠 동시에 검색하고 hit 를 합친다.
+     */
+    private CompletableFuture<List<Hit<EsCachedEmbeddingDocument>>> searchHashesAsync(String target, List<String> hashes, String excludeIndexName,
+                                                                                     StageTimings timings) {
+        List<List<String>> chunks = Boolean.TRUE.equals(this.ecmConfig.getEnableHashRouting())
+                ? splitByRoutingLength(hashes)
+                : Collections.singletonList(hashes);
+        if(chunks.size() == 1) return searchHitsAsync(getHashesSearchRequest(target, hashes, excludeIndexName), timings);
+        List<CompletableFuture<List<Hit<EsCachedEmbeddingDocument>>>> searches = chunks.stream()
+                .map(chunk -> searchHitsAsync(getHashesSearchRequest(target, chunk, excludeIndexName), timings))
+                .collect(Collectors.toList());
+        return CompletableFuture.allOf(searches.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> searches.stream()
+                .flatMap(search -> search.join().stream())
+                .collect(Collectors.toList()));
+    }
+
+    static List<List<String>> splitByRoutingLength(List<String> hashes) {
+        List<List<String>> chunks = new ArrayList<>();
+        int from = 0;
+        int length = 0;
+        for(int i = 0; i < hashes.size(); i++) {
+            int hashLength = hashes.get(i).length() + (i > from ? 1 : 0); // 구분자 ','
+            if(i > from && length + hashLength > MAX_ROUTING_CHARS) {
+                chunks.add(hashes.subList(from, i));
+                from = i;
+                length = 0;
+                hashLength = hashes.get(i).length();
+            }
+            length += hashLength;
+        }
+        if(from < hashes.size()) chunks.add(hashes.subList(from, hashes.size()));
+        return chunks;
+    }
+
+    private CompletableFuture<List<Hit<EsCachedEmbeddingDocument>>> searchHitsAsync(SearchRequest searchRequest, StageTimings timings) {
+        long sentNanos = System.nanoTime();
+        return this.lookupClient.search(searchRequest, EsCachedEmbeddingDocument.class)
+                .thenApply(searchResponse -> {
+                    recordResponse(timings, sentNanos);
+                    return searchResponse.hits().hits();
+                });
+    }
+
+    /**
+     * 응답을 받은 IO 스레드에서 호출한다. 왕복 시간 중 _source 역직렬화 몫은 deserialize, 나머지는 es_query 로 나눈다.
+     * 측정하지 않는 요청이어도 누적값은 비워야 다음 응답에 섞이지 않는다.
+     */
+    private static void recordResponse(StageTimings timings, long sentNanos) {
+        long elapsedNanos = System.nanoTime() - sentNanos;
+        long deserializeNanos = Math.min(TimingJsonpMapper.takeDeserializeNanos(), elapsedNanos);
+        if(Objects.isNull(timings)) return;
+        timings.add(RequestStage.DESERIALIZE, deserializeNanos);
+        timings.add(RequestStage.ES_QUERY, elapsedNanos - deserializeNanos);
+    }
+
+    private SearchRequest getHashSearchRequest(String target, String hash, String excludeIndexName) {
         return new SearchRequest.Builder()
-                .index(this.ecmConfig.getElasticSearchCacheAliasName())
-                .query(getQuery(hash))
+                .index(target)
+                .query(getQuery(new TermQuery.Builder()
+                        .field("hash")
+                        .value(hash)
+                        .build()
+                        ._toQuery(), excludeIndexName))
+                .routing(getRouting(hash))
                 .size(1)
                 .build();
     }
 
+    private SearchRequest getHashesSearchRequest(String target, List<String> hashes, String excludeIndexName) {
+        List<FieldValue> values = hashes.stream().map(FieldValue::of).collect(Collectors.toList());
+        return new SearchRequest.Builder()
+                .index(target)
+                .query(getQuery(new TermsQuery.Builder()
+                        .field("hash")
+                        .terms(terms -> terms.value(values))
+                        .build()
+                        ._toQuery(), excludeIndexName))
+                .collapse(collapse -> collapse.field("hash"))
+                .routing(getRouting(hashes))
+                .size(hashes.size())
+                .build();
+    }
+
     private IndexRequest<EsCachedEmbeddingDocument> getIndexRequest(EsCachedEmbeddingDocument document) {
         return new IndexRequest.Builder<EsCachedEmbeddingDocument>()
                 .index(this.ecmConfig.getElasticSearchCacheAliasName())
                 .id(document.getId())
+                .routing(getRouting(document.getHash()))
                 .document(document)
                 .build();
     }
 
-    private Query getQuery(String hash) {
-        return new BoolQuery.Builder()
+    private Query getQuery(Query hashQuery, String excludeIndexName) {
+        BoolQuery.Builder boolQuery = new BoolQuery.Builder()
                 .filter(Arrays.asList(
-                        new TermQuery.Builder()
-                                .field("hash")
-                                .value(hash)
-                                .build()
-                                ._toQuery(),
+                        hashQuery,
                         new TermQuery.Builder()
                                 .field("has_embedding")
                                 .value(true)
                                 .build()
                                 ._toQuery()
-                )).build()
-                ._toQuery();
+                ));
+        if(Objects.nonNull(excludeIndexName)) { // write index 는 이미 GET 으로 조회함.
+            boolQuery.mustNot(new TermQuery.Builder()
+                    .field("_index")
+                    .value(excludeIndexName)
+                    .build()
+                    ._toQuery());
+        }
+        return boolQuery.build()._toQuery();
     }
 
     @Override
@@ -226,13 +886,56 @@ public class ESEmbeddingCacheStore implements EmbeddingCacheStore {
         }
     }
 
+    /**
+     * token 수 등 문서에 담긴 값을 그대로 저장한다.
+     */
+    @Override
+    public void storeEmbedding(CachedEmbeddingDocument document) throws EmbeddingCacheStoreException {
+        try {
+            this.esClient.index(getIndexRequest(buildEmbeddingDocument(document)));
+        } catch (Exception e) {
+            throw new EmbeddingCacheStoreException(e.getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * {@link #storeEmbedding(String, String, List)} 의 비동기 버전. 완료는 IO reactor 스레드에서 일어난다.
+     */
+    public CompletableFuture<Void> storeEmbeddingAsync(String id, String text, List<Double> embedding) {
+        CompletableFuture<Void> future;
+        try {
+            future = this.writeClient.index(getIndexRequest(buildEmbeddingDocument(id, this.hashGenerator.getHash(text), text, embedding)))
+                    .thenApply(indexResponse -> null);
+        } catch (Exception e) {
+            return failedFuture(e);
+        }
+        return wrapFailure(future);
+    }
+
+    /**
+     * {@link #storeEmbedding(CachedEmbeddingDocument)} 의 비동기 버전. token 수 등 문서에 담긴 값을 그대로 저장한다.
+     */
+    public CompletableFuture<Void> storeEmbeddingAsync(CachedEmbeddingDocument document) {
+        CompletableFuture<Void> future;
+        try {
+            future = this.writeClient.index(getIndexRequest(buildEmbeddingDocument(document)))
+                    .thenApply(indexResponse -> null);
+        } catch (Exception e) {
+            return failedFuture(e);
+        }
+        return wrapFailure(future);
+    }
+
     @SneakyThrows
     private EsCachedEmbeddingDocument buildEmbeddingDocument(String id, String text, List<Double> embedding) {
-        String hash = this.hashGenerator.getHash(text);
+        return this.buildEmbeddingDocument(id, this.hashGenerator.getHash(text), text, embedding);
+    }
+
+    private EsCachedEmbeddingDocument buildEmbeddingDocument(String id, String hash, String text, List<Double> embedding) {
         return EsCachedEmbeddingDocument.builder()
-                .id(id)
+                .id(Objects.nonNull(id) ? id : getDocumentId(hash))
                 .embedding(embedding)
-                .text(text)
+                .text(this.ecmConfig.getStorageProfile().storesText() ? text : null) // HASH_ONLY 는 text 를 저장하지 않음
                 .hash(hash)
                 .has_embedding(Objects.nonNull(embedding))
                 .build();
@@ -243,71 +946,765 @@ public class ESEmbeddingCacheStore implements EmbeddingCacheStore {
         return this.buildEmbeddingDocument(null, text, embedding);
     }
 
+    private EsCachedEmbeddingDocument buildEmbeddingDocument(CachedEmbeddingDocument document) {
+        EsCachedEmbeddingDocument esCachedEmbeddingDocument;
+        if(document instanceof EsCachedEmbeddingDocument) {
+            EsCachedEmbeddingDocument esDocument = (EsCachedEmbeddingDocument) document;
+            esCachedEmbeddingDocument = Objects.nonNull(esDocument.getHash()) // 호출자가 이미 계산한 hash 는 재사용
+                    ? this.buildEmbeddingDocument(esDocument.getId(), esDocument.getHash(), document.getText(), document.getEmbedding())
+                    : this.buildEmbeddingDocument(esDocument.getId(), document.getText(), document.getEmbedding());
+        } else {
+            esCachedEmbeddingDocument = this.buildEmbeddingDocument(null, document.getText(), document.getEmbedding());
+        }
+        esCachedEmbeddingDocument.setToken_count(document.getToken_count());
+        return esCachedEmbeddingDocument;
+    }
+
     @Override
     public void storeEmbeddings(List<CachedEmbeddingDocument> documents) throws EmbeddingCacheStoreException {
+        BulkStoreResult result = bulkStoreEmbeddings(documents);
+        if(result.hasFailures()) {
+            throw new EmbeddingCacheStoreException(new IllegalStateException(
+                    String.format("%d/%d 문서 저장에 실패했습니다. (첫 번째 실패: %s)", result.getFailed(), result.getTotal(), result.getFailures().get(0))));
+        }
+    }
+
+    /**
+     * 입력을 요청 크기 기준으로 나눠 제한된 병렬도로 _bulk 를 보내고, 429 로 거절된 문서만 backoff 후 재시도한다.
+     */
+    @Override
+    public BulkStoreResult bulkStoreEmbeddings(List<CachedEmbeddingDocument> documents) throws EmbeddingCacheStoreException {
         try {
-            List<BulkOperation> bulkOperations = documents.stream()
-                    .map(doc -> buildEmbeddingDocument(((EsCachedEmbeddingDocument) doc).getId(), doc.getText(), doc.getEmbedding()))
-                    .map(doc -> new IndexOperation.Builder<EsCachedEmbeddingDocument>()
-                            .id(doc.getId())
-                            .document(doc)
-                            .build())
-                    .map(indexOperation -> new BulkOperation.Builder()
-                            .index(indexOperation)
-                            .build())
-                    .collect(Collectors.toList());
-            this.esClient.bulk(new BulkRequest.Builder()
+            return bulkStoreEmbeddingsAsync(documents).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException ? e.getCause().getCause() : e.getCause();
+            throw new EmbeddingCacheStoreException(cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EmbeddingCacheStoreException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * {@link #bulkStoreEmbeddings(List)} 의 비동기 버전. bulkParallelism 개의 lane 이 chunk 를 하나씩 가져가 async client 로 보내므로
+     * 응답을 기다리며 막혀 있는 스레드가 없다. 요청 직렬화와 응답 처리는 IO reactor 가 아닌 bulk 스레드에서 한다.
+     */
+    public CompletableFuture<BulkStoreResult> bulkStoreEmbeddingsAsync(List<CachedEmbeddingDocument> documents) {
+        long startTime = System.currentTimeMillis();
+        List<List<CachedEmbeddingDocument>> chunks = splitIntoChunks(documents);
+        int[] offsets = new int[chunks.size()];
+        for(int i = 1; i < chunks.size(); i++) {
+            offsets[i] = offsets[i - 1] + chunks.get(i - 1).size();
+        }
+        ChunkResult[] results = new ChunkResult[chunks.size()];
+        AtomicInteger nextChunk = new AtomicInteger();
+        int lanes = Math.min(this.ecmConfig.getBulkParallelism(), chunks.size());
+        CompletableFuture<?>[] laneFutures = new CompletableFuture<?>[lanes];
+        for(int lane = 0; lane < lanes; lane++) {
+            laneFutures[lane] = CompletableFuture.supplyAsync(() -> null, this.bulkExecutor)
+                    .thenCompose(ignored -> runBulkLane(chunks, offsets, results, nextChunk));
+        }
+        return CompletableFuture.allOf(laneFutures).thenApply(ignored -> {
+            int succeeded = 0;
+            int retried = 0;
+            List<BulkStoreResult.ItemFailure> failures = new ArrayList<>();
+            for(ChunkResult chunkResult : results) {
+                succeeded += chunkResult.succeeded;
+                retried += chunkResult.retried;
+                failures.addAll(chunkResult.failures);
+            }
+            return BulkStoreResult.builder()
+                    .total(documents.size())
+                    .succeeded(succeeded)
+                    .failed(failures.size())
+                    .retried(retried)
+                    .chunks(chunks.size())
+                    .tookMs(System.currentTimeMillis() - startTime)
+                    .failures(failures)
+                    .build();
+        });
+    }
+
+    private CompletableFuture<Void> runBulkLane(List<List<CachedEmbeddingDocument>> chunks, int[] offsets,
+                                                ChunkResult[] results, AtomicInteger nextChunk) {
+        int index = nextChunk.getAndIncrement();
+        if(index >= chunks.size()) return CompletableFuture.completedFuture(null);
+        return sendChunk(chunks.get(index), offsets[index])
+                .thenComposeAsync(result -> {
+                    results[index] = result;
+                    return runBulkLane(chunks, offsets, results, nextChunk);
+                }, this.bulkExecutor);
+    }
+
+    private List<List<CachedEmbeddingDocument>> splitIntoChunks(List<CachedEmbeddingDocument> documents) {
+        List<List<CachedEmbeddingDocument>> chunks = new ArrayList<>();
+        int maxDocuments = this.ecmConfig.getBulkMaxDocuments();
+        long maxBytes = this.ecmConfig.getBulkMaxBytes();
+        int from = 0;
+        long chunkBytes = 0;
+        for(int i = 0; i < documents.size(); i++) {
+            CachedEmbeddingDocument document = documents.get(i);
+            long documentBytes = DocumentSizeEstimator.estimate(document.getText(), document.getEmbedding());
+            boolean full = i - from >= maxDocuments || chunkBytes + documentBytes > maxBytes;
+            if(full && i > from) {
+                chunks.add(documents.subList(from, i));
+                from = i;
+                chunkBytes = 0;
+            }
+            chunkBytes += documentBytes;
+        }
+        if(from < documents.size()) {
+            chunks.add(documents.subList(from, documents.size()));
+        }
+        return chunks;
+    }
+
+    private CompletableFuture<ChunkResult> sendChunk(List<CachedEmbeddingDocument> chunk, int offset) {
+        List<EsCachedEmbeddingDocument> pending = chunk.stream()
+                .map(this::buildEmbeddingDocument)
+                .collect(Collectors.toList());
+        List<Integer> positions = new ArrayList<>();
+        for(int i = 0; i < chunk.size(); i++) positions.add(offset + i);
+        return sendChunk(pending, positions, 0, this.ecmConfig.getBulkRetryInitialBackoffMs(), new ChunkResult());
+    }
+
+    private CompletableFuture<ChunkResult> sendChunk(List<EsCachedEmbeddingDocument> pending, List<Integer> positions,
+                                                     int attempt, long backoffMs, ChunkResult result) {
+        return this.bulkClient.bulk(getBulkRequest(pending)).thenComposeAsync(bulkResponse -> {
+            List<EsCachedEmbeddingDocument> rejected = new ArrayList<>();
+            List<Integer> rejectedPositions = new ArrayList<>();
+            List<BulkResponseItem> items = bulkResponse.items();
+            for(int i = 0; i < items.size(); i++) {
+                BulkResponseItem item = items.get(i);
+                if(Objects.isNull(item.error())) {
+                    result.succeeded++;
+                } else if(isRejected(item) && attempt < this.ecmConfig.getBulkMaxRetries()) {
+                    rejected.add(pending.get(i));
+                    rejectedPositions.add(positions.get(i));
+                } else {
+                    result.failures.add(BulkStoreResult.ItemFailure.builder()
+                            .position(positions.get(i))
+                            .id(item.id())
+                            .status(item.status())
+                            .type(item.error().type())
+                            .reason(item.error().reason())
+                            .build());
+                }
+            }
+            if(rejected.isEmpty()) return CompletableFuture.completedFuture(result);
+            result.retried += rejected.size();
+            Executor delayed = CompletableFuture.delayedExecutor(backoffMs, TimeUnit.MILLISECONDS, this.bulkExecutor);
+            return CompletableFuture.supplyAsync(() -> null, delayed)
+                    .thenCompose(ignored -> sendChunk(rejected, rejectedPositions, attempt + 1, backoffMs * 2, result));
+        }, this.bulkExecutor);
+    }
+
+    private boolean isRejected(BulkResponseItem item) {
+        return item.status() == 429 || "es_rejected_execution_exception".equals(item.error().type());
+    }
+
+    private BulkRequest getBulkRequest(List<EsCachedEmbeddingDocument> documents) {
+        List<BulkOperation> bulkOperations = documents.stream()
+                .map(doc -> new IndexOperation.Builder<EsCachedEmbeddingDocument>()
+                        .id(doc.getId())
+                        .routing(getRouting(doc.getHash()))
+                        .document(doc)
+                        .build())
+                .map(indexOperation -> new BulkOperation.Builder()
+                        .index(indexOperation)
+                        .build())
+                .collect(Collectors.toList());
+        return new BulkRequest.Builder()
+                .index(this.ecmConfig.getElasticSearchCacheAliasName())
+                .operations(bulkOperations)
+                .timeout(new Time.Builder().time("5m").build())
+                .build();
+    }
+
+    /**
+     * alias 전체를 point-in-time 으로 고정한 뒤 slice 별로 병렬 순회하며 search_after 로 페이지를 넘긴다.
+     * consumer 는 여러 slice 스레드에서 동시에 호출될 수 있다.
+     *
+     * @return 순회한 문서 수
+     */
+    public long scanDocuments(int slices, int pageSize, Consumer<List<EsCachedEmbeddingDocument>> consumer) throws ElasticSearchClientException {
+        String pitId = null;
+        ExecutorService sliceExecutor = Executors.newFixedThreadPool(slices);
+        try {
+            pitId = this.esClient.openPointInTime(new OpenPointInTimeRequest.Builder()
                     .index(this.ecmConfig.getElasticSearchCacheAliasName())
-                    .operations(bulkOperations)
-                    .timeout(new Time.Builder().time("5m").build())
-                    .build());
+                    .keepAlive(new Time.Builder().time(PIT_KEEP_ALIVE).build())
+                    .build()).id();
+            List<Future<Long>> futures = new ArrayList<>();
+            for(int sliceId = 0; sliceId < slices; sliceId++) {
+                int slice = sliceId;
+                String pit = pitId;
+                futures.add(sliceExecutor.submit(() -> scanSlice(pit, slice, slices, pageSize, consumer)));
+            }
+            long total = 0;
+            for(Future<Long> future : futures) {
+                total += future.get();
+            }
+            return total;
+        } catch (ExecutionException e) {
+            throw new ElasticSearchClientException(e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ElasticSearchClientException(e.getMessage(), e);
         } catch (Exception e) {
-            throw new EmbeddingCacheStoreException(e.getMessage(), e.getCause());
+            throw new ElasticSearchClientException(e.getMessage(), e.getCause());
+        } finally {
+            sliceExecutor.shutdownNow();
+            closePointInTime(pitId);
         }
     }
 
+    private long scanSlice(String pitId, int sliceId, int slices, int pageSize,
+                           Consumer<List<EsCachedEmbeddingDocument>> consumer) throws IOException {
+        long count = 0;
+        List<FieldValue> searchAfter = null;
+        while (true) {
+            SearchRequest.Builder builder = new SearchRequest.Builder()
+                    .pit(pit -> pit.id(pitId).keepAlive(new Time.Builder().time(PIT_KEEP_ALIVE).build()))
+                    .query(new TermQuery.Builder().field("has_embedding").value(true).build()._toQuery())
+                    .sort(sort -> sort.field(field -> field.field("_shard_doc")))
+                    .size(pageSize);
+            if(slices > 1) {
+                builder.slice(slice -> slice.id(String.valueOf(sliceId)).max(slices));
+            }
+            if(Objects.nonNull(searchAfter)) {
+                builder.searchAfter(searchAfter);
+            }
+            List<Hit<EsCachedEmbeddingDocument>> hits = this.esClient.search(builder.build(), EsCachedEmbeddingDocument.class)
+                    .hits()
+                    .hits();
+            if(hits.isEmpty()) return count;
+            consumer.accept(hits.stream()
+                    .filter(hit -> Objects.nonNull(hit.source()))
+                    .map(hit -> {
+                        EsCachedEmbeddingDocument document = hit.source();
+                        if(Objects.isNull(document.getId())) document.setId(hit.id()); // _source 에서 id 를 뺀 profile
+                        return document;
+                    })
+                    .collect(Collectors.toList()));
+            count += hits.size();
+            searchAfter = hits.get(hits.size() - 1).sort();
+        }
+    }
+
+    private void closePointInTime(String pitId) {
+        if(Objects.isNull(pitId)) return;
+        try {
+            this.esClient.closePointInTime(new ClosePointInTimeRequest.Builder().id(pitId).build());
+        } catch (Exception e) {
+            // keep_alive 만료 후 자동으로 정리된다.
+        }
+    }
+
+    @Override
+    public void close() {
+        this.bulkExecutor.shutdown();
+        this.readRepairExecutor.shutdown();
+        try {
+            this.transport.close();
+        } catch (IOException e) {
+            // 종료 중이므로 무시한다.
+        }
+    }
+
+    /**
+     * 달이 바뀌었거나 write index 가 한도를 넘었으면 rollover 하고 보존 기간이 지난 index 를 정리한다.
+     */
     public boolean rollUpEmbeddingIndex() throws ElasticSearchClientException {
+        runLifecycle();
+        return true;
+    }
+
+    /**
+     * index lifecycle 을 한 번 수행한다.
+     * <ol>
+     *     <li>write index 가 지난 달 index 이면 이번 달 index 로, 문서 수나 primary shard 크기가 한도를 넘었으면
+     *     같은 달의 다음 세대({@code alias-yyyyMM-000002}) 로 rollover 한다.</li>
+     *     <li>retentionMonth 보다 오래된 달의 index 를 expiredIndexAction 에 따라 alias 에서 떼거나 닫거나 삭제한다.
+     *     alias 에서 이미 떨어진 index 는 sweepDetachedIndices 를 켠 CLOSE/DELETE 에서만 대상이다.</li>
+     * </ol>
+     * 크기 기준 rollover 는 이 메서드가 주기적으로 호출될 때만 동작한다.
+     */
+    public IndexLifecycleStatus runLifecycle() throws ElasticSearchClientException {
+        return runLifecycle(LocalDateTime.now(INDEX_ZONE));
+    }
+
+    /**
+     * {@link #runLifecycle()} 를 주어진 서울 시각 기준으로 수행한다. 이번 달과 보존 기간은 now 의 달로 판단하므로
+     * scheduler 는 tick 의 시각을 넘겨 prepareMonthlyIndex 와 같은 달을 보게 한다.
+     */
+    public synchronized IndexLifecycleStatus runLifecycle(LocalDateTime now) throws ElasticSearchClientException {
+        IndexLifecycleStatus previous = this.lifecycleStatus;
+        YearMonth month = YearMonth.from(now);
+        String rolloverReason = previous.getLastRolloverReason();
+        LocalDateTime rolloverAt = previous.getLastRolloverAt();
+        String reason = null;
         try {
-            String aliasName = this.ecmConfig.getElasticSearchCacheAliasName();
-            String indexName = getIndexName(aliasName);
-            CreateIndexResponse createIndexResponse = createIndexIfNotExists(indexName, indexName);
-            if(Objects.isNull(createIndexResponse))
-                return true; // 이미 존재
-            if(!createIndexResponse.acknowledged())
-                throw new ElasticSearchClientException(new IllegalStateException(indexName + " index 생성에 실패했습니다."));
-            PutAliasResponse  putAliasResponse = addAlias(indexName, aliasName, false);
-            if(!putAliasResponse.acknowledged())
-                throw new ElasticSearchClientException(new IllegalStateException(indexName + " alias 추가에 실패했습니다."));
-            UpdateAliasesResponse updateAliasesResponse = updateWriteIndex(indexName, aliasName);
-            if(!updateAliasesResponse.acknowledged())
-                throw new ElasticSearchClientException(new IllegalStateException(indexName + " alias 업데이트에 실패했습니다."));
-            DeleteAliasResponse deleteAliasResponse = deleteAlias(aliasName);
-            if(Objects.nonNull(deleteAliasResponse) && !deleteAliasResponse.acknowledged())
-                throw new ElasticSearchClientException(new IllegalStateException(indexName + "의 alias 삭제에 실패했습니다."));
+            AliasState state = refreshAliasState();
+            WriteIndexStats stats = getWriteIndexStats(state.getWriteIndexName());
+            reason = getRolloverReason(state.getWriteIndexName(), stats, month);
+            if(Objects.nonNull(reason)) {
+                rollover(state, reason, month);
+                this.rollovers.incrementAndGet();
+                rolloverReason = reason;
+                rolloverAt = now;
+                reason = null;
+                state = refreshAliasState();
+                stats = getWriteIndexStats(state.getWriteIndexName());
+            }
+            List<String> expired = removeExpiredIndices(state, month);
+            this.expiredIndices.addAndGet(expired.size());
+            if(!expired.isEmpty()) state = refreshAliasState();
+            this.lifecycleStatus = IndexLifecycleStatus.builder()
+                    .writeIndexName(state.getWriteIndexName())
+                    .indexNames(state.getIndexNames())
+                    .writeIndexDocs(stats.docs)
+                    .writeIndexPrimaryBytes(stats.primaryBytes)
+                    .writeIndexMaxShardBytes(stats.maxShardBytes)
+                    .rolloverDue(false)
+                    .lastRolloverReason(rolloverReason)
+                    .lastRolloverAt(rolloverAt)
+                    .lastExpiredIndices(expired)
+                    .lastRunAt(now)
+                    .build();
+            return this.lifecycleStatus;
+        } catch (Exception e) {
+            this.lifecycleStatus = IndexLifecycleStatus.builder()
+                    .writeIndexName(previous.getWriteIndexName())
+                    .indexNames(previous.getIndexNames())
+                    .writeIndexDocs(previous.getWriteIndexDocs())
+                    .writeIndexPrimaryBytes(previous.getWriteIndexPrimaryBytes())
+                    .writeIndexMaxShardBytes(previous.getWriteIndexMaxShardBytes())
+                    .rolloverDue(Objects.nonNull(reason))
+                    .lastRolloverReason(rolloverReason)
+                    .lastRolloverAt(rolloverAt)
+                    .lastRunAt(now)
+                    .lastError(e.getMessage())
+                    .build();
+            if(e instanceof ElasticSearchClientException) throw (ElasticSearchClientException) e;
+            throw new ElasticSearchClientException(e.getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * 주어진 달의 첫 index 를 alias 에 붙이지 않은 채 미리 생성하고 shard 가 할당(yellow)될 때까지 기다린다.
+     * 달이 바뀐 뒤 {@link #runLifecycle()} 가 이 index 로 write alias 를 넘긴다.
+     *
+     * @return 준비된 index 이름
+     */
+    public String prepareMonthlyIndex(YearMonth month) throws ElasticSearchClientException {
+        String indexName = IndexGeneration.first(this.ecmConfig.getElasticSearchCacheAliasName(), month).getIndexName();
+        CreateIndexResponse createIndexResponse = createIndexIfNotExists(indexName, indexName);
+        if(Objects.nonNull(createIndexResponse) && !createIndexResponse.acknowledged())
+            throw new ElasticSearchClientException(new IllegalStateException(indexName + " index 생성에 실패했습니다."));
+        try {
+            HealthResponse healthResponse = this.esClient.cluster().health(new HealthRequest.Builder()
+                    .index(indexName)
+                    .waitForStatus(HealthStatus.Yellow)
+                    .timeout(new Time.Builder().time(INDEX_READY_TIMEOUT).build())
+                    .build());
+            if(healthResponse.timedOut())
+                throw new ElasticSearchClientException(new IllegalStateException(indexName + " index 의 shard 할당이 끝나지 않았습니다."));
+            if(Objects.nonNull(createIndexResponse)) logger.info("Prepared next generation index {}", indexName);
+            return indexName;
+        } catch (ElasticSearchClientException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ElasticSearchClientException(e.getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * "{alias}_lease" index 의 lease 문서를 seq_no/primary_term 조건부 쓰기로 획득하거나 갱신한다.
+     * 다른 owner 가 만료되지 않은 lease 를 가지고 있거나 동시에 갱신에 성공하면 false.
+     */
+    public boolean tryAcquireLease(String leaseName, String owner, long ttlMs) throws ElasticSearchClientException {
+        String leaseIndexName = getLeaseIndexName();
+        try {
+            if(!existsIndex(leaseIndexName)) createLeaseIndex(leaseIndexName);
+            long now = System.currentTimeMillis();
+            LeaseDocument lease = LeaseDocument.builder().owner(owner).expiresAt(now + ttlMs).build();
+            GetResponse<LeaseDocument> current = this.esClient.get(new GetRequest.Builder()
+                    .index(leaseIndexName)
+                    .id(leaseName)
+                    .realtime(true)
+                    .build(), LeaseDocument.class);
+            IndexRequest.Builder<LeaseDocument> request = new IndexRequest.Builder<LeaseDocument>()
+                    .index(leaseIndexName)
+                    .id(leaseName)
+                    .document(lease)
+                    .refresh(Refresh.False);
+            if(!current.found()) {
+                request.opType(OpType.Create);
+            } else {
+                LeaseDocument held = current.source();
+                boolean expired = Objects.isNull(held) || Objects.isNull(held.getExpiresAt()) || held.getExpiresAt() < now;
+                if(!expired && !owner.equals(held.getOwner())) return false;
+                request.ifSeqNo(current.seqNo()).ifPrimaryTerm(current.primaryTerm());
+            }
+            this.esClient.index(request.build());
             return true;
+        } catch (ElasticsearchException e) {
+            if(e.status() == 409) return false; // 다른 instance 가 먼저 획득함
+            throw new ElasticSearchClientException(e.getMessage(), e);
+        } catch (ElasticSearchClientException e) {
+            throw e;
         } catch (Exception e) {
             throw new ElasticSearchClientException(e.getMessage(), e.getCause());
         }
     }
 
-    private UpdateAliasesResponse updateWriteIndex(String writeIndexName, String aliasName) throws IOException, ElasticSearchClientException {
-        List<String> indexNames = getIndexNamesFromAlias(aliasName);
-        List<Action> actions = indexNames.stream()
-                .map(indexName -> new AddAction.Builder()
-                        .index(indexName)
-                        .alias(aliasName)
-                        .isWriteIndex(writeIndexName.equals(indexName))
-                        .build())
-                .map(action -> new Action.Builder()
-                        .add(action)
-                        .build())
+    /**
+     * owner 가 가진 lease 를 즉시 만료시켜 다른 instance 가 기다리지 않고 넘겨받게 한다.
+     */
+    public void releaseLease(String leaseName, String owner) {
+        try {
+            String leaseIndexName = getLeaseIndexName();
+            GetResponse<LeaseDocument> current = this.esClient.get(new GetRequest.Builder()
+                    .index(leaseIndexName)
+                    .id(leaseName)
+                    .build(), LeaseDocument.class);
+            if(!current.found() || Objects.isNull(current.source()) || !owner.equals(current.source().getOwner())) return;
+            this.esClient.index(new IndexRequest.Builder<LeaseDocument>()
+                    .index(leaseIndexName)
+                    .id(leaseName)
+                    .document(LeaseDocument.builder().owner(owner).expiresAt(0L).build())
+                    .ifSeqNo(current.seqNo())
+                    .ifPrimaryTerm(current.primaryTerm())
+                    .build());
+        } catch (Exception e) {
+            // 만료 시간이 지나면 자연히 풀린다.
+        }
+    }
+
+    private String getLeaseIndexName() {
+        return this.ecmConfig.getElasticSearchCacheAliasName() + LEASE_INDEX_SUFFIX;
+    }
+
+    private void createLeaseIndex(String leaseIndexName) throws IOException {
+        try {
+            this.esClient.indices().create(new CreateIndexRequest.Builder()
+                    .index(leaseIndexName)
+                    .settings(settings -> settings
+                            .numberOfShards("1")
+                            .autoExpandReplicas("0-1"))
+                    .build());
+        } catch (ElasticsearchException e) {
+            if(!"resource_already_exists_exception".equals(e.error().type())) throw e;
+        }
+    }
+
+    public ElasticsearchClient getElasticsearchClient() {
+        return this.esClient;
+    }
+
+    /**
+     * 마지막 lifecycle 수행 결과. 한 번도 수행하지 않았으면 모든 값이 비어 있다.
+     */
+    public IndexLifecycleStatus getLifecycleStatus() {
+        return this.lifecycleStatus;
+    }
+
+    /**
+     * index 수, write index 의 문서 수/크기, rollover 와 만료 처리 횟수를 등록한다. 값은 마지막 lifecycle 수행 시점 기준.
+     */
+    public void registerMetrics(MeterRegistry meterRegistry) {
+        if(Objects.isNull(meterRegistry)) return;
+        this.meterRegistry = meterRegistry;
+        String aliasName = this.ecmConfig.getElasticSearchCacheAliasName();
+        Gauge.builder("embedding.index.generations", this, store -> store.getLifecycleStatus().getIndexNames().size())
+                .description("Number of indices behind the cache alias")
+                .tag("alias", aliasName)
+                .register(meterRegistry);
+        Gauge.builder("embedding.index.write.docs", this, store -> store.getLifecycleStatus().getWriteIndexDocs())
+                .description("Documents in the current write index")
+                .tag("alias", aliasName)
+                .register(meterRegistry);
+        Gauge.builder("embedding.index.write.primary.bytes", this, store -> store.getLifecycleStatus().getWriteIndexPrimaryBytes())
+                .description("Primary store size of the current write index")
+                .tag("alias", aliasName)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        FunctionCounter.builder("embedding.index.rollovers", this.rollovers, AtomicLong::get)
+                .description("Write index rollovers performed by this instance")
+                .tag("alias", aliasName)
+                .register(meterRegistry);
+        FunctionCounter.builder("embedding.index.expired", this.expiredIndices, AtomicLong::get)
+                .description("Expired indices detached, closed or deleted by this instance")
+                .tag("alias", aliasName)
+                .register(meterRegistry);
+        FunctionCounter.builder("embedding.cache.legacy.key.hits", this.legacyKeyHits, AtomicLong::get)
+                .description("Hits found only under legacyKeyHashStrategy and re-stored under the current key")
+                .tag("alias", aliasName)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 조회 지연을 operation(get/mget), outcome, hit 를 제공한 세대(current/older, 미스는 none, mget 은 all) 태그로 기록한다.
+     */
+    private void recordLookup(long startNanos, String operation, Outcome outcome, String generation) {
+        MeterRegistry registry = this.meterRegistry;
+        if(Objects.isNull(registry)) return;
+        this.lookupTimers.computeIfAbsent(operation + '|' + outcome.tagValue() + '|' + generation, key ->
+                MetricsService.latencyTimer("embedding.cache.lookup.time", this.ecmConfig)
+                        .description("Elasticsearch cache lookups from hashing to the parsed response")
+                        .tag("alias", this.ecmConfig.getElasticSearchCacheAliasName())
+                        .tag("operation", operation)
+                        .tag("outcome", outcome.tagValue())
+                        .tag("generation", generation)
+                        .register(registry))
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private String getRolloverReason(String writeIndexName, WriteIndexStats stats, YearMonth month) {
+        String aliasName = this.ecmConfig.getElasticSearchCacheAliasName();
+        Optional<IndexGeneration> generation = Objects.nonNull(writeIndexName)
+                ? IndexGeneration.parse(aliasName, writeIndexName)
+                : Optional.empty();
+        if(!generation.isPresent() || generation.get().getMonth().isBefore(month)) return "month";
+        if(Objects.nonNull(this.ecmConfig.getRolloverMaxDocs()) && stats.docs >= this.ecmConfig.getRolloverMaxDocs()) return "max_docs";
+        if(Objects.nonNull(this.ecmConfig.getRolloverMaxPrimaryShardSizeBytes())
+                && stats.maxShardBytes >= this.ecmConfig.getRolloverMaxPrimaryShardSizeBytes()) return "max_primary_shard_size";
+        return null;
+    }
+
+    private void rollover(AliasState state, String reason, YearMonth month) throws ElasticSearchClientException {
+        String aliasName = this.ecmConfig.getElasticSearchCacheAliasName();
+        IndexGeneration target = "month".equals(reason)
+                ? IndexGeneration.first(aliasName, month)
+                : IndexGeneration.parse(aliasName, state.getWriteIndexName()).orElseThrow(IllegalStateException::new).next();
+        while(state.getIndexNames().contains(target.getIndexName())) { // 이미 alias 에 있는 세대는 건너뜀
+            target = target.next();
+        }
+        String indexName = target.getIndexName();
+        CreateIndexResponse createIndexResponse = createIndexIfNotExists(indexName, indexName);
+        if(Objects.nonNull(createIndexResponse) && !createIndexResponse.acknowledged())
+            throw new ElasticSearchClientException(new IllegalStateException(indexName + " index 생성에 실패했습니다."));
+        UpdateAliasesResponse updateAliasesResponse = switchWriteIndex(state.getWriteIndexName(), indexName, aliasName);
+        if(!updateAliasesResponse.acknowledged())
+            throw new ElasticSearchClientException(new IllegalStateException(indexName + " alias 업데이트에 실패했습니다."));
+        logger.info("Rolled over {} from {} to {} ({})", aliasName, state.getWriteIndexName(), indexName, reason);
+    }
+
+    /**
+     * 새 index 를 write index 로 추가하고 이전 write index 의 write 플래그를 내리는 작업을 한 번의 _aliases 요청으로 수행한다.
+     */
+    private UpdateAliasesResponse switchWriteIndex(String previousWriteIndexName, String writeIndexName, String aliasName) throws ElasticSearchClientException {
+        try {
+            List<Action> actions = new ArrayList<>();
+            actions.add(new Action.Builder()
+                    .add(new AddAction.Builder().index(writeIndexName).alias(aliasName).isWriteIndex(true).build())
+                    .build());
+            if(Objects.nonNull(previousWriteIndexName) && !previousWriteIndexName.equals(writeIndexName)) {
+                actions.add(new Action.Builder()
+                        .add(new AddAction.Builder().index(previousWriteIndexName).alias(aliasName).isWriteIndex(false).build())
+                        .build());
+            }
+            return this.esClient.indices().updateAliases(new UpdateAliasesRequest.Builder().actions(actions).build());
+        } catch (Exception e) {
+            throw new ElasticSearchClientException(e.getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * "{alias}-yyyyMM[-nnnnnn]" 형식 index 중 보존 기간이 지난 달의 index 를 처리한다. base index 와 write index 는 건드리지 않는다.
+     */
+    private List<String> removeExpiredIndices(AliasState state, YearMonth month) throws ElasticSearchClientException {
+        try {
+            String aliasName = this.ecmConfig.getElasticSearchCacheAliasName();
+            ExpiredIndexAction action = this.ecmConfig.getExpiredIndexAction();
+            boolean sweepDetached = Boolean.TRUE.equals(this.ecmConfig.getSweepDetachedIndices());
+            List<String> openIndexNames = Collections.emptyList();
+            if(sweepsDetachedIndices(action, sweepDetached)) {
+                openIndexNames = new ArrayList<>(this.esClient.indices().get(new GetIndexRequest.Builder()
+                        .index(aliasName + "-*")
+                        .expandWildcards(ExpandWildcard.Open)
+                        .build()).result().keySet());
+            }
+            List<String> expired = selectExpiredIndices(aliasName, state.getWriteIndexName(), state.getIndexNames(), openIndexNames,
+                    action, sweepDetached, month, this.ecmConfig.getRetentionMonth());
+            if(expired.isEmpty()) return expired;
+            if(action == ExpiredIndexAction.DELETE) {
+                this.esClient.indices().delete(new DeleteIndexRequest.Builder().index(expired).build());
+            } else {
+                List<String> attached = expired.stream().filter(state.getIndexNames()::contains).collect(Collectors.toList());
+                if(!attached.isEmpty()) {
+                    this.esClient.indices().deleteAlias(new DeleteAliasRequest.Builder()
+                            .index(attached)
+                            .name(aliasName)
+                            .build());
+                }
+                if(action == ExpiredIndexAction.CLOSE) {
+                    this.esClient.indices().close(new CloseIndexRequest.Builder().index(expired).build());
+                }
+            }
+            logger.info("Applied {} to expired indices of {}: {}", action, aliasName, expired);
+            return expired;
+        } catch (Exception e) {
+            throw new ElasticSearchClientException(e.getMessage(), e.getCause());
+        }
+    }
+
+    private static boolean sweepsDetachedIndices(ExpiredIndexAction action, boolean sweepDetached) {
+        return sweepDetached && action != ExpiredIndexAction.DETACH;
+    }
+
+    /**
+     * 보존 기간이 지난 index 를 고른다. alias 에 붙은 index 가 대상이고, CLOSE/DELETE 에 sweepDetached 가 켜져 있으면
+     * 예전 방식으로 alias 에서만 떨어진 open index 도 대상에 넣는다. write index 와 달 형식이 아닌 index 는 제외한다.
+     */
+    static List<String> selectExpiredIndices(String aliasName, String writeIndexName, Collection<String> aliasIndexNames,
+                                             Collection<String> openIndexNames, ExpiredIndexAction action, boolean sweepDetached,
+                                             YearMonth currentMonth, int retentionMonth) {
+        YearMonth oldestRetained = currentMonth.minusMonths(Math.max(retentionMonth - 1, 0));
+        Set<String> candidates = new TreeSet<>(aliasIndexNames);
+        if(sweepsDetachedIndices(action, sweepDetached)) candidates.addAll(openIndexNames);
+        return candidates.stream()
+                .filter(indexName -> !indexName.equals(writeIndexName))
+                .filter(indexName -> IndexGeneration.parse(aliasName, indexName)
+                        .map(generation -> generation.getMonth().isBefore(oldestRetained))
+                        .orElse(false))
                 .collect(Collectors.toList());
-        UpdateAliasesRequest updateAliasesRequest = new UpdateAliasesRequest.Builder().actions(actions).build();
-        return this.esClient.indices().updateAliases(updateAliasesRequest);
+    }
+
+    private WriteIndexStats getWriteIndexStats(String writeIndexName) throws ElasticSearchClientException {
+        WriteIndexStats stats = new WriteIndexStats();
+        if(Objects.isNull(writeIndexName)) return stats;
+        try {
+            IndicesStatsResponse statsResponse = this.esClient.indices().stats(new IndicesStatsRequest.Builder()
+                    .index(writeIndexName)
+                    .metric("store", "docs")
+                    .level(Level.Shards)
+                    .build());
+            IndicesStats indexStats = statsResponse.indices().get(writeIndexName);
+            if(Objects.isNull(indexStats)) return stats;
+            if(Objects.nonNull(indexStats.primaries())) {
+                if(Objects.nonNull(indexStats.primaries().docs())) stats.docs = indexStats.primaries().docs().count();
+                if(Objects.nonNull(indexStats.primaries().store())) stats.primaryBytes = indexStats.primaries().store().sizeInBytes();
+            }
+            stats.maxShardBytes = indexStats.shards().values().stream()
+                    .flatMap(List::stream)
+                    .filter(shard -> Objects.nonNull(shard.routing()) && shard.routing().primary() && Objects.nonNull(shard.store()))
+                    .mapToLong(shard -> shard.store().sizeInBytes())
+                    .max()
+                    .orElse(0L);
+            return stats;
+        } catch (Exception e) {
+            throw new ElasticSearchClientException(e.getMessage(), e.getCause());
+        }
     }
 
     private List<String> getIndexNamesFromAlias(String aliasName) throws ElasticSearchClientException {
         GetAliasResponse getAliasResponse = getAlias(aliasName);
         return getAliasResponse.result().keySet().stream().sorted().collect(Collectors.toList());
     }
+
+    private AliasState getAliasState() throws ElasticSearchClientException {
+        AliasState state = this.aliasState;
+        if(Objects.isNull(state) || state.isExpired()) {
+            state = refreshAliasState();
+        }
+        return state;
+    }
+
+    /**
+     * 비동기 조회용. 캐시가 만료됐으면 갱신을 한 번만 걸어 두고 그동안은 이전 상태로 조회한다.
+     * 아직 한 번도 읽지 않았을 때만 갱신 완료를 기다린다.
+     */
+    private CompletableFuture<AliasState> getAliasStateAsync() {
+        AliasState state = this.aliasState;
+        if(Objects.nonNull(state) && !state.isExpired()) return CompletableFuture.completedFuture(state);
+        CompletableFuture<AliasState> refresh = new CompletableFuture<>();
+        CompletableFuture<AliasState> running = this.aliasStateRefresh.compareAndExchange(null, refresh);
+        if(Objects.isNull(running)) {
+            this.lookupClient.indices().getAlias(new GetAliasRequest.Builder()
+                    .index(this.ecmConfig.getElasticSearchCacheAliasName())
+                    .build())
+                    .thenApply(this::toAliasState)
+                    .whenComplete((refreshed, e) -> {
+                        this.aliasStateRefresh.set(null);
+                        if(Objects.isNull(e)) refresh.complete(refreshed);
+                        else refresh.completeExceptionally(e);
+                    });
+            running = refresh;
+        }
+        return Objects.nonNull(state) ? CompletableFuture.completedFuture(state) : running;
+    }
+
+    private AliasState refreshAliasState() throws ElasticSearchClientException {
+        return toAliasState(getAlias(this.ecmConfig.getElasticSearchCacheAliasName()));
+    }
+
+    private AliasState toAliasState(GetAliasResponse getAliasResponse) {
+        String aliasName = this.ecmConfig.getElasticSearchCacheAliasName();
+        List<String> indexNames = getAliasResponse.result().keySet().stream().sorted().collect(Collectors.toList());
+        String writeIndexName = getAliasResponse.result().entrySet().stream()
+                .filter(entry -> Objects.nonNull(entry.getValue().aliases().get(aliasName)))
+                .filter(entry -> Boolean.TRUE.equals(entry.getValue().aliases().get(aliasName).isWriteIndex()))
+                .map(Map.Entry::getKey)
+                .findFirst()
+                .orElse(indexNames.size() == 1 ? indexNames.get(0) : null); // 인덱스가 하나면 암묵적으로 write index
+        AliasState state = new AliasState(writeIndexName, indexNames, System.currentTimeMillis());
+        this.aliasState = state;
+        return state;
+    }
+
+    private static final class WriteIndexStats {
+        private long docs;
+        private long primaryBytes;
+        private long maxShardBytes;
+    }
+
+    private static final class ChunkResult {
+        private int succeeded;
+        private int retried;
+        private final List<BulkStoreResult.ItemFailure> failures = new ArrayList<>();
+    }
+
+    /**
+     * alias 뒤의 인덱스 구성을 짧게 캐시해 조회마다 _alias 요청을 보내지 않도록 한다.
+     */
+    private static final class AliasState {
+        private final String writeIndexName;
+        private final List<String> indexNames;
+        private final long loadedAt;
+
+        private AliasState(String writeIndexName, List<String> indexNames, long loadedAt) {
+            this.writeIndexName = writeIndexName;
+            this.indexNames = new ArrayList<>(indexNames);
+            this.loadedAt = loadedAt;
+        }
+
+        private String getWriteIndexName() {
+            return writeIndexName;
+        }
+
+        private List<String> getIndexNames() {
+            return indexNames;
+        }
+
+        private boolean hasOlderGenerations() {
+            return indexNames.size() > 1;
+        }
+
+        /**
+         * write index 를 제외한 index 를 최신 세대부터 반환한다. base index 는 가장 마지막.
+         */
+        private List<String> getOlderIndexNames() {
+            return indexNames.stream()
+                    .filter(indexName -> !indexName.equals(writeIndexName))
+                    .sorted(Comparator.comparing((String indexName) -> indexName.endsWith("base"))
+                            .thenComparing(Comparator.<String>reverseOrder()))
+                    .collect(Collectors.toList());
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() - loadedAt > ALIAS_STATE_TTL_MS;
+        }
+    }
 }
@@ -1,40 +1,80 @@
 package com.kingname.embeddingstoremanager;
 
 import co.elastic.clients.elasticsearch.ElasticsearchClient;
-import co.elastic.clients.json.jackson.JacksonJsonpMapper;
 import co.elastic.clients.transport.ElasticsearchTransport;
+import co.elastic.clients.transport.rest_client.RestClientOptions;
 import co.elastic.clients.transport.rest_client.RestClientTransport;
 import com.kingname.embeddingstoremanager.exception.ElasticSearchClientException;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.HttpHost;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.elasticsearch.client.RequestOptions;
 import org.elasticsearch.client.RestClient;
 import org.elasticsearch.client.RestClientBuilder;
 
+import java.util.Objects;
+
 
 public class ElasticSearchClientBuilder {
 
     public static ElasticsearchClient build(EmbeddingCacheManagerConfig ecmConfig) throws ElasticSearchClientException {
+        return new ElasticsearchClient(buildTransport(ecmConfig));
+    }
+
+    /**
+     * 하나의 RestClient 커넥션 풀을 공유하는 transport. 동기/비동기 client 를 같은 transport 로 만든다.
+     */
+    public static ElasticsearchTransport buildTransport(EmbeddingCacheManagerConfig ecmConfig) throws ElasticSearchClientException {
         try {
-            return new ElasticsearchClient(getTransport(ecmConfig));
+            return new RestClientTransport(getRestClient(ecmConfig), new TimingJsonpMapper());
         }catch (Exception e) {
             throw new ElasticSearchClientException(e.getMessage(), e.getCause());
         }
     }
 
-    private static ElasticsearchTransport getTransport(EmbeddingCacheManagerConfig ecmConfig) {
-        return new RestClientTransport(getRestClient(getHttpHosts(ecmConfig)), new JacksonJsonpMapper());
+    /**
+     * 요청 단위 socket timeout 을 덮어쓰는 transport option. {@code client.withTransportOptions(...)} 로 사용한다.
+     */
+    public static RestClientOptions requestOptions(int socketTimeoutMs, EmbeddingCacheManagerConfig ecmConfig) {
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(ecmConfig.getEsConnectTimeoutMs())
+                .setConnectionRequestTimeout(ecmConfig.getEsConnectionRequestTimeoutMs())
+                .setSocketTimeout(socketTimeoutMs)
+                .build();
+        return new RestClientOptions(RequestOptions.DEFAULT.toBuilder()
+                .setRequestConfig(requestConfig)
+                .build());
     }
 
-    private static RestClient getRestClient(HttpHost[] httpHosts) {
-        return RestClient.builder(httpHosts)
-                .setRequestConfigCallback(getRequestConfigCallBack())
+    private static RestClient getRestClient(EmbeddingCacheManagerConfig ecmConfig) {
+        return RestClient.builder(getHttpHosts(ecmConfig))
+                .setRequestConfigCallback(getRequestConfigCallBack(ecmConfig))
+                .setHttpClientConfigCallback(getHttpClientConfigCallback(ecmConfig))
+                .setCompressionEnabled(Boolean.TRUE.equals(ecmConfig.getEsCompressionEnabled()))
                 .build();
     }
 
-    private  static RestClientBuilder.RequestConfigCallback getRequestConfigCallBack() {
+    private static RestClientBuilder.RequestConfigCallback getRequestConfigCallBack(EmbeddingCacheManagerConfig ecmConfig) {
         return requestConfigBuilder -> requestConfigBuilder
-                .setConnectionRequestTimeout(2000)
-                .setSocketTimeout(3000);
+                .setConnectTimeout(ecmConfig.getEsConnectTimeoutMs())
+                .setConnectionRequestTimeout(ecmConfig.getEsConnectionRequestTimeoutMs())
+                .setSocketTimeout(ecmConfig.getEsSocketTimeoutMs());
+    }
+
+    private static RestClientBuilder.HttpClientConfigCallback getHttpClientConfigCallback(EmbeddingCacheManagerConfig ecmConfig) {
+        return httpClientBuilder -> {
+            IOReactorConfig.Builder ioReactorConfig = IOReactorConfig.custom().setSoKeepAlive(true);
+            if(Objects.nonNull(ecmConfig.getEsIoThreadCount())) {
+                ioReactorConfig.setIoThreadCount(ecmConfig.getEsIoThreadCount());
+            }
+            long keepAliveMs = ecmConfig.getEsKeepAliveMs();
+            return httpClientBuilder
+                    .setMaxConnTotal(ecmConfig.getEsMaxConnections())
+                    .setMaxConnPerRoute(ecmConfig.getEsMaxConnectionsPerRoute())
+                    .setKeepAliveStrategy((response, context) -> keepAliveMs) // 서버 idle timeout 보다 짧게 유지
+                    .setDefaultIOReactorConfig(ioReactorConfig.build());
+        };
     }
 
     private static HttpHost[] getHttpHosts(EmbeddingCacheManagerConfig ecmConfig) {
@@ -4,30 +4,70 @@ import com.kingname.embeddingstoremanager.exception.ElasticSearchClientException
 import com.kingname.embeddingstoremanager.exception.EmbeddingCacheManagerException;
 import com.kingname.embeddingstoremanager.exception.EmbeddingCacheStoreException;
 import com.kingname.embeddingstoremanager.exception.EmbeddingGeneratorException;
+import com.google.common.collect.Lists;
+import com.kingname.embeddingstoremanager.async.AsyncAdapters;
+import com.kingname.embeddingstoremanager.async.AsyncEmbeddingCacheManager;
 import com.kingname.embeddingstoremanager.async.AsyncEmbeddingService;
 import com.kingname.embeddingstoremanager.health.HealthCheck;
 import com.kingname.embeddingstoremanager.health.HealthCheckService;
 import com.kingname.embeddingstoremanager.metrics.MetricsService;
 import com.kingname.embeddingstoremanager.metrics.MetricsSummary;
+import com.kingname.embeddingstoremanager.metrics.Outcome;
+import com.kingname.embeddingstoremanager.metrics.PrometheusEndpoint;
+import com.kingname.embeddingstoremanager.metrics.RequestStage;
+import com.kingname.embeddingstoremanager.metrics.StageTimings;
+import com.kingname.embeddingstoremanager.priority.PriorityBulkhead;
+import com.kingname.embeddingstoremanager.priority.RequestPriority;
+import com.kingname.embeddingstoremanager.stream.EmbeddingStreamPublisher;
+import com.kingname.embeddingstoremanager.stream.IndexedEmbedding;
+import com.kingname.embeddingstoremanager.stream.StreamOptions;
+import com.kingname.embeddingstoremanager.vo.BulkStoreResult;
+import com.kingname.embeddingstoremanager.vo.CacheLookupResult;
 import com.kingname.embeddingstoremanager.vo.CachedEmbeddingDocument;
+import com.kingname.embeddingstoremanager.vo.GeneratedEmbeddings;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class EmbeddingCacheManager {
 
     private static final Logger logger = LoggerFactory.getLogger(EmbeddingCacheManager.class);
+    private static final int PARALLEL_NORMALIZE_THRESHOLD = 256;
     
     private final EmbeddingCacheStore embeddingCacheStore;
     private final EmbeddingGenerator openAIEmbeddingGenerator;
     private final EmbeddingCacheManagerConfig embeddingCacheManagerConfig;
     private final HealthCheckService healthCheckService;
     private final MetricsService metricsService;
+    private final PriorityBulkhead esBulkhead;
+    private final PriorityBulkhead apiBulkhead;
+    private final Map<RequestPriority, ExecutorService> batchExecutors = new EnumMap<>(RequestPriority.class);
+    private final PrometheusEndpoint prometheusEndpoint;
 
     public EmbeddingCacheManager(EmbeddingCacheManagerConfig ecmConfig) throws EmbeddingCacheManagerException {
         this(ecmConfig, new ESEmbeddingCacheStore(ecmConfig), new RestEmbeddingGenerator(ecmConfig));
@@ -42,10 +82,39 @@ public class EmbeddingCacheManager {
     }
 
     public EmbeddingCacheManager(EmbeddingCacheManagerConfig embeddingCacheManagerConfig, EmbeddingCacheStore esEmbeddingCacheStore, EmbeddingGenerator openAIEmbeddingGenerator) {
-        this.embeddingCacheStore = esEmbeddingCacheStore;
         this.openAIEmbeddingGenerator = openAIEmbeddingGenerator;
         this.embeddingCacheManagerConfig = embeddingCacheManagerConfig;
         
+        // Initialize metrics service
+        this.metricsService = new MetricsService(embeddingCacheManagerConfig);
+        
+        // Buffer cache writes so a miss does not wait for the store
+        if (Boolean.TRUE.equals(embeddingCacheManagerConfig.getEnableWriteBehind())) {
+            this.embeddingCacheStore = new WriteBehindEmbeddingCacheStore(
+                esEmbeddingCacheStore, embeddingCacheManagerConfig, metricsService.getMeterRegistry());
+        } else {
+            this.embeddingCacheStore = esEmbeddingCacheStore;
+        }
+        if (esEmbeddingCacheStore instanceof ESEmbeddingCacheStore) {
+            ((ESEmbeddingCacheStore) esEmbeddingCacheStore).registerMetrics(metricsService.getMeterRegistry());
+        }
+        if (openAIEmbeddingGenerator instanceof RestEmbeddingGenerator) {
+            ((RestEmbeddingGenerator) openAIEmbeddingGenerator).registerMetrics(metricsService.getMeterRegistry());
+        }
+        this.prometheusEndpoint = startPrometheusEndpoint(embeddingCacheManagerConfig.getPrometheusPort());
+        
+        // Keep part of the ES and embedding API capacity free of bulk traffic
+        this.esBulkhead = new PriorityBulkhead("elasticsearch", esPoolCapacity(embeddingCacheManagerConfig),
+            embeddingCacheManagerConfig.getInteractiveReservedShare(), embeddingCacheManagerConfig.getEsLookupTimeoutMs());
+        this.apiBulkhead = new PriorityBulkhead("embedding-api", apiPoolCapacity(embeddingCacheManagerConfig),
+            embeddingCacheManagerConfig.getInteractiveReservedShare(), embeddingCacheManagerConfig.getSocketTimeoutMs());
+        
+        // One pipeline pool per lane, so bulk batches queued or parked on a bulkhead never delay interactive ones
+        for (RequestPriority priority : RequestPriority.values()) {
+            batchExecutors.put(priority, Executors.newFixedThreadPool(
+                embeddingCacheManagerConfig.getBatchPipelineParallelism(), daemonThreadFactory("embedding-batch-" + priority.tagValue() + "-")));
+        }
+        
         // Initialize health check service
         CircuitBreaker circuitBreaker = null;
         if (openAIEmbeddingGenerator instanceof RestEmbeddingGenerator) {
@@ -59,55 +128,450 @@ public class EmbeddingCacheManager {
             circuitBreaker
         );
         
-        // Initialize metrics service
-        this.metricsService = new MetricsService(embeddingCacheManagerConfig.getEnableMetrics());
-        
         logger.info("EmbeddingCacheManager initialized with health checking and metrics collection enabled");
     }
 
+    private PrometheusEndpoint startPrometheusEndpoint(Integer port) {
+        if (Objects.isNull(port) || !metricsService.isEnabled()) {
+            return null;
+        }
+        try {
+            return new PrometheusEndpoint(metricsService.getMeterRegistry(), port);
+        } catch (IOException e) {
+            logger.warn("Failed to start the Prometheus endpoint on port {}: {}", port, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Connections the ES client pool can open: one route per configured host
+     */
+    static int esPoolCapacity(EmbeddingCacheManagerConfig config) {
+        int hosts = Objects.isNull(config.getElasticSearchCacheHosts()) ? 1 : config.getElasticSearchCacheHosts().size();
+        return PriorityBulkhead.poolCapacity(config.getEsMaxConnections(), config.getEsMaxConnectionsPerRoute(), hosts);
+    }
+
+    /**
+     * Connections the embedding API pool can open against its single URL
+     */
+    static int apiPoolCapacity(EmbeddingCacheManagerConfig config) {
+        return PriorityBulkhead.poolCapacity(config.getMaxConnections(), config.getMaxConnectionsPerRoute(), 1);
+    }
+
+    private static ThreadFactory daemonThreadFactory(String prefix) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
     public List<Double> getEmbedding(String text) throws EmbeddingCacheStoreException, EmbeddingGeneratorException {
+        return getEmbedding(text, RequestPriority.INTERACTIVE);
+    }
+
+    /**
+     * Bulk requests only use the Elasticsearch and embedding API capacity not reserved for interactive traffic
+     */
+    public List<Double> getEmbedding(String text, RequestPriority priority) throws EmbeddingCacheStoreException, EmbeddingGeneratorException {
+        return getEmbedding(text, priority, null);
+    }
+
+    /**
+     * Like {@link #getEmbedding(String, RequestPriority)}, also adding the time spent in each {@link RequestStage} to timings.
+     * Without timings the stages only go to the stage histograms, and only when enableStageMetrics is on.
+     */
+    public List<Double> getEmbedding(String text, RequestPriority priority, StageTimings timings) throws EmbeddingCacheStoreException, EmbeddingGeneratorException {
         metricsService.recordEmbeddingRequest();
         Timer.Sample totalTimer = metricsService.startTotalRequestTimer();
+        Outcome outcome = Outcome.ERROR;
+        StageTimings requestTimings = timings != null ? timings : metricsService.isStageMetricsEnabled() ? new StageTimings() : null;
+        StageTimings previousTimings = requestTimings != null ? StageTimings.attach(requestTimings) : null;
         
         try {
-            List<Double> embedding = getEmbeddingFromCache(text);
+            List<Double> embedding = getEmbeddingFromCache(text, priority);
             if(Objects.isNull(embedding)) {
                 metricsService.recordCacheMiss();
-                embedding = generateEmbedding(text);
-                storeEmbedding(text, embedding);
+                GeneratedEmbeddings generated = generateEmbeddingWithUsage(text, priority);
+                embedding = generated.getEmbeddings().get(0);
+                storeEmbedding(text, embedding, generated.getTokenCount(0), priority);
                 metricsService.recordEmbeddingSuccess();
+                outcome = Outcome.MISS;
             } else {
                 metricsService.recordCacheHit();
+                outcome = Outcome.HIT;
             }
             return embedding;
         } catch (Exception e) {
             metricsService.recordEmbeddingFailure();
             throw e;
         } finally {
-            metricsService.stopTotalRequestTimer(totalTimer);
+            metricsService.stopTotalRequestTimer(totalTimer, MetricsService.OPERATION_GET_EMBEDDING, outcome);
+            metricsService.stopLaneRequestTimer(totalTimer, priority);
+            if (requestTimings != null) {
+                StageTimings.restore(previousTimings);
+                metricsService.recordStageTimings(requestTimings);
+            }
         }
     }
 
+    /**
+     * A hit is credited with the tokens it saved: the count stored with the embedding, or an estimate from the text length
+     */
     public List<Double> getEmbeddingFromCache(String text) throws EmbeddingCacheStoreException {
         Timer.Sample cacheTimer = metricsService.startCacheRetrievalTimer();
+        Outcome outcome = Outcome.ERROR;
+        try {
+            String normalized = normalizeTimed(text);
+            CacheLookupResult result = embeddingCacheStore.lookupCachedEmbedding(normalized);
+            if (Objects.isNull(result)) {
+                outcome = Outcome.MISS;
+                return null;
+            }
+            metricsService.recordTokensSaved(tokenCount(result.getTokenCount(), normalized));
+            outcome = Outcome.HIT;
+            return result.getEmbedding();
+        } finally {
+            metricsService.stopCacheRetrievalTimer(cacheTimer, MetricsService.OPERATION_LOOKUP, outcome);
+        }
+    }
+
+    public List<Double> getEmbeddingFromCache(String text, RequestPriority priority) throws EmbeddingCacheStoreException {
+        acquireStorePermit(priority);
         try {
-            return embeddingCacheStore.getCachedEmbedding(normalize(text));
+            return getEmbeddingFromCache(text);
         } finally {
-            metricsService.stopCacheRetrievalTimer(cacheTimer);
+            esBulkhead.release(priority);
         }
     }
 
     public List<Double> generateEmbedding(String text) throws EmbeddingGeneratorException {
+        return generateEmbeddingWithUsage(text).getEmbeddings().get(0);
+    }
+
+    public List<Double> generateEmbedding(String text, RequestPriority priority) throws EmbeddingGeneratorException {
+        return generateEmbeddingWithUsage(text, priority).getEmbeddings().get(0);
+    }
+
+    private GeneratedEmbeddings generateEmbeddingWithUsage(String text) throws EmbeddingGeneratorException {
         Timer.Sample generationTimer = metricsService.startEmbeddingGenerationTimer();
+        Outcome outcome = Outcome.ERROR;
+        try {
+            String normalized = normalizeTimed(text);
+            GeneratedEmbeddings generated = openAIEmbeddingGenerator.generateEmbeddingsWithUsage(Collections.singletonList(normalized));
+            if (generated.getEmbeddings().size() != 1) {
+                throw new EmbeddingGeneratorException("Embedding generator returned " + generated.getEmbeddings().size()
+                    + " embeddings for 1 text", null);
+            }
+            metricsService.recordTokensConsumed(tokenCount(generated.getTokenCount(0), normalized));
+            outcome = Outcome.SUCCESS;
+            return generated;
+        } finally {
+            metricsService.stopEmbeddingGenerationTimer(generationTimer, MetricsService.OPERATION_GENERATE, outcome);
+        }
+    }
+
+    private GeneratedEmbeddings generateEmbeddingWithUsage(String text, RequestPriority priority) throws EmbeddingGeneratorException {
+        acquireApiPermit(priority);
+        try {
+            return generateEmbeddingWithUsage(text);
+        } finally {
+            apiBulkhead.release(priority);
+        }
+    }
+
+    /**
+     * Tokens reported by the API for the text, or estimated from its length with estimatedCharsPerToken
+     */
+    public long tokenCount(Long reported, String normalizedText) {
+        if (Objects.nonNull(reported)) {
+            return reported;
+        }
+        return (long) Math.ceil(normalizedText.length() / embeddingCacheManagerConfig.getEstimatedCharsPerToken());
+    }
+
+    private void acquireApiPermit(RequestPriority priority) throws EmbeddingGeneratorException {
+        long startNanos = System.nanoTime();
         try {
-            return openAIEmbeddingGenerator.generateEmbedding(normalize(text));
+            if (!apiBulkhead.acquire(priority)) {
+                throw new EmbeddingGeneratorException("Bulk lane limit of " + apiBulkhead.getBulkLimit() + " concurrent embedding API calls reached", null);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EmbeddingGeneratorException(e.getMessage(), e);
         } finally {
-            metricsService.stopEmbeddingGenerationTimer(generationTimer);
+            StageTimings.record(RequestStage.POOL_WAIT, startNanos);
         }
     }
 
+    public List<List<Double>> getEmbeddings(List<String> texts) throws EmbeddingCacheStoreException, EmbeddingGeneratorException {
+        return getEmbeddings(texts, RequestPriority.INTERACTIVE);
+    }
+
+    /**
+     * Blocking version of {@link #getEmbeddingsAsync(List, RequestPriority)}
+     */
+    public List<List<Double>> getEmbeddings(List<String> texts, RequestPriority priority) throws EmbeddingCacheStoreException, EmbeddingGeneratorException {
+        try {
+            return getEmbeddingsAsync(texts, priority).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EmbeddingCacheStoreException(e.getMessage(), e);
+        } catch (ExecutionException e) {
+            Throwable cause = AsyncAdapters.unwrap(e);
+            if (cause instanceof EmbeddingCacheStoreException) {
+                throw (EmbeddingCacheStoreException) cause;
+            }
+            if (cause instanceof EmbeddingGeneratorException) {
+                throw (EmbeddingGeneratorException) cause;
+            }
+            throw new EmbeddingCacheStoreException(cause.getMessage(), cause);
+        }
+    }
+
+    public CompletableFuture<List<List<Double>>> getEmbeddingsAsync(List<String> texts) {
+        return getEmbeddingsAsync(texts, RequestPriority.INTERACTIVE);
+    }
+
+    /**
+     * Embeds a batch of texts as a staged pipeline instead of one {@link #getEmbedding(String)} per text:
+     * texts are normalized and deduplicated, looked up with one multi-lookup, the misses are generated in
+     * embeddingApiBatchSize API calls running concurrently, and the generated embeddings are bulk stored
+     * in the background.
+     * 
+     * @return CompletableFuture of the embeddings in the order of texts
+     */
+    public CompletableFuture<List<List<Double>>> getEmbeddingsAsync(List<String> texts, RequestPriority priority) {
+        return getEmbeddingsAsync(texts, priority, null);
+    }
+
+    /**
+     * Like {@link #getEmbeddingsAsync(List, RequestPriority)}, also adding the time spent in each {@link RequestStage} to timings.
+     * Concurrent API batches are summed, so the stages of a large batch can add up to more than its wall time.
+     */
+    public CompletableFuture<List<List<Double>>> getEmbeddingsAsync(List<String> texts, RequestPriority priority, StageTimings timings) {
+        if (texts.isEmpty()) {
+            return CompletableFuture.completedFuture(new ArrayList<>());
+        }
+        texts.forEach(text -> metricsService.recordEmbeddingRequest());
+        Timer.Sample totalTimer = metricsService.startTotalRequestTimer();
+        AtomicReference<Outcome> outcome = new AtomicReference<>(Outcome.HIT);
+        StageTimings requestTimings = timings != null ? timings : metricsService.isStageMetricsEnabled() ? new StageTimings() : null;
+        
+        return supplyBatchStage(() -> normalizeAll(texts), priority, requestTimings)
+            .thenCompose(normalized -> {
+                List<String> distinctTexts = new ArrayList<>(new LinkedHashSet<>(normalized));
+                return supplyBatchStage(() -> lookupBatch(distinctTexts, priority), priority, requestTimings)
+                    .thenCompose(cached -> {
+                        if (cached.size() < distinctTexts.size()) {
+                            outcome.set(Outcome.MISS);
+                        }
+                        return generateMisses(distinctTexts, cached, priority, requestTimings);
+                    })
+                    .thenApply(embeddings -> normalized.stream().map(embeddings::get).collect(Collectors.toList()));
+            })
+            .whenComplete((embeddings, e) -> {
+                metricsService.stopTotalRequestTimer(totalTimer, MetricsService.OPERATION_GET_EMBEDDINGS, e != null ? Outcome.ERROR : outcome.get());
+                metricsService.recordStageTimings(requestTimings);
+                if (e != null) {
+                    texts.forEach(text -> metricsService.recordEmbeddingFailure());
+                    logger.error("Batch embedding of {} texts failed: {}", texts.size(), AsyncAdapters.unwrap(e).getMessage());
+                }
+            });
+    }
+
+    /**
+     * Stream the embeddings of an unbounded source with demand-based backpressure, chunk by chunk through
+     * {@link #getEmbeddingsAsync(List, RequestPriority)}
+     * 
+     * @return Publisher of (source index, embedding) results for a single subscriber
+     */
+    public Flow.Publisher<IndexedEmbedding> streamEmbeddings(Flow.Publisher<String> texts, StreamOptions options) {
+        return new EmbeddingStreamPublisher(this, texts, options);
+    }
+
+    /**
+     * Iterator version of {@link #streamEmbeddings(Flow.Publisher, StreamOptions)}; the iterator is read on the stream's own thread
+     */
+    public Flow.Publisher<IndexedEmbedding> streamEmbeddings(Iterator<String> texts, StreamOptions options) {
+        return new EmbeddingStreamPublisher(this, texts, options);
+    }
+
+    private List<String> normalizeAll(List<String> texts) {
+        long startNanos = System.nanoTime();
+        Stream<String> stream = texts.size() >= PARALLEL_NORMALIZE_THRESHOLD ? texts.parallelStream() : texts.stream();
+        try {
+            return stream.map(this::normalize).collect(Collectors.toList());
+        } finally {
+            StageTimings.record(RequestStage.NORMALIZE, startNanos);
+        }
+    }
+
+    private Map<String, List<Double>> lookupBatch(List<String> distinctTexts, RequestPriority priority) throws EmbeddingCacheStoreException {
+        acquireStorePermit(priority);
+        Timer.Sample cacheTimer = metricsService.startCacheRetrievalTimer();
+        Outcome outcome = Outcome.ERROR;
+        try {
+            Map<String, List<Double>> cached = new HashMap<>();
+            embeddingCacheStore.lookupCachedEmbeddings(distinctTexts).forEach((text, result) -> {
+                metricsService.recordTokensSaved(tokenCount(result.getTokenCount(), text));
+                cached.put(text, result.getEmbedding());
+            });
+            outcome = cached.size() == distinctTexts.size() ? Outcome.HIT : Outcome.MISS;
+            return cached;
+        } finally {
+            metricsService.stopCacheRetrievalTimer(cacheTimer, MetricsService.OPERATION_LOOKUP_BATCH, outcome);
+            esBulkhead.release(priority);
+        }
+    }
+
+    private CompletableFuture<Map<String, List<Double>>> generateMisses(List<String> distinctTexts, Map<String, List<Double>> cached,
+                                                                       RequestPriority priority, StageTimings timings) {
+        List<String> misses = distinctTexts.stream().filter(text -> !cached.containsKey(text)).collect(Collectors.toList());
+        for (int i = 0; i < distinctTexts.size(); i++) {
+            if (i < misses.size()) {
+                metricsService.recordCacheMiss();
+            } else {
+                metricsService.recordCacheHit();
+            }
+        }
+        if (misses.isEmpty()) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        
+        Map<String, List<Double>> embeddings = new ConcurrentHashMap<>(cached);
+        Map<String, Long> tokenCounts = new ConcurrentHashMap<>();
+        List<CompletableFuture<Void>> apiBatches = new ArrayList<>();
+        for (List<String> apiBatch : Lists.partition(misses, embeddingCacheManagerConfig.getEmbeddingApiBatchSize())) {
+            apiBatches.add(supplyBatchStage(() -> generateBatch(apiBatch, priority), priority, timings).thenAccept(generated -> {
+                for (int i = 0; i < apiBatch.size(); i++) {
+                    embeddings.put(apiBatch.get(i), generated.getEmbeddings().get(i));
+                    Long tokenCount = generated.getTokenCount(i);
+                    if (tokenCount != null) {
+                        tokenCounts.put(apiBatch.get(i), tokenCount);
+                    }
+                }
+            }));
+        }
+        return CompletableFuture.allOf(apiBatches.toArray(new CompletableFuture<?>[0])).thenApply(v -> {
+            misses.forEach(text -> metricsService.recordEmbeddingSuccess());
+            storeInBackground(misses, embeddings, tokenCounts, priority);
+            return embeddings;
+        });
+    }
+
+    private GeneratedEmbeddings generateBatch(List<String> apiBatch, RequestPriority priority) throws EmbeddingGeneratorException {
+        acquireApiPermit(priority);
+        Timer.Sample generationTimer = metricsService.startEmbeddingGenerationTimer();
+        Outcome outcome = Outcome.ERROR;
+        try {
+            GeneratedEmbeddings generated = openAIEmbeddingGenerator.generateEmbeddingsWithUsage(apiBatch);
+            if (generated.getEmbeddings().size() != apiBatch.size()) {
+                throw new EmbeddingGeneratorException("Embedding generator returned " + generated.getEmbeddings().size()
+                    + " embeddings for " + apiBatch.size() + " texts", null);
+            }
+            for (int i = 0; i < apiBatch.size(); i++) {
+                metricsService.recordTokensConsumed(tokenCount(generated.getTokenCount(i), apiBatch.get(i)));
+            }
+            outcome = Outcome.SUCCESS;
+            return generated;
+        } finally {
+            metricsService.stopEmbeddingGenerationTimer(generationTimer, MetricsService.OPERATION_GENERATE_BATCH, outcome);
+            apiBulkhead.release(priority);
+        }
+    }
+
+    private void storeInBackground(List<String> texts, Map<String, List<Double>> embeddings, Map<String, Long> tokenCounts,
+                                   RequestPriority priority) {
+        List<CachedEmbeddingDocument> documents = texts.stream()
+            .map(text -> CachedEmbeddingDocument.builder().text(text).embedding(embeddings.get(text)).token_count(tokenCounts.get(text)).build())
+            .collect(Collectors.toList());
+        supplyBatchStage(() -> embeddingCacheStore.bulkStoreEmbeddings(documents), priority).whenComplete((result, e) -> {
+            if (e != null) {
+                logger.warn("Background store of {} generated embeddings failed: {}", documents.size(), AsyncAdapters.unwrap(e).getMessage());
+            } else if (result.hasFailures()) {
+                logger.warn("Background store of {} generated embeddings left {} failed", documents.size(), result.getFailed());
+            }
+        });
+    }
+
+    private <T> CompletableFuture<T> supplyBatchStage(BatchStage<T> stage, RequestPriority priority) {
+        return supplyBatchStage(stage, priority, null);
+    }
+
+    /**
+     * Runs the stage on the priority's pipeline pool with timings attached to the batch thread, so the store and
+     * generator can add their stages to it
+     */
+    private <T> CompletableFuture<T> supplyBatchStage(BatchStage<T> stage, RequestPriority priority, StageTimings timings) {
+        return CompletableFuture.supplyAsync(() -> {
+            StageTimings previousTimings = timings != null ? StageTimings.attach(timings) : null;
+            try {
+                return stage.call();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            } finally {
+                if (timings != null) {
+                    StageTimings.restore(previousTimings);
+                }
+            }
+        }, batchExecutors.get(priority));
+    }
+
+    @FunctionalInterface
+    private interface BatchStage<T> {
+        T call() throws Exception;
+    }
+
     public void storeEmbedding(String text, List<Double> embedding) throws EmbeddingCacheStoreException {
-        this.embeddingCacheStore.storeEmbedding(normalize(text), embedding);
+        String normalized = normalizeTimed(text);
+        long startNanos = System.nanoTime();
+        try {
+            this.embeddingCacheStore.storeEmbedding(normalized, embedding);
+        } finally {
+            StageTimings.record(RequestStage.STORE, startNanos);
+        }
+    }
+
+    /**
+     * Stores the embedding with the token count the API reported for it, so later hits can be credited with it
+     */
+    public void storeEmbedding(String text, List<Double> embedding, Long tokenCount) throws EmbeddingCacheStoreException {
+        CachedEmbeddingDocument document = CachedEmbeddingDocument.builder()
+                .text(normalizeTimed(text))
+                .embedding(embedding)
+                .token_count(tokenCount)
+                .build();
+        long startNanos = System.nanoTime();
+        try {
+            this.embeddingCacheStore.storeEmbedding(document);
+        } finally {
+            StageTimings.record(RequestStage.STORE, startNanos);
+        }
+    }
+
+    private void storeEmbedding(String text, List<Double> embedding, Long tokenCount, RequestPriority priority) throws EmbeddingCacheStoreException {
+        acquireStorePermit(priority);
+        try {
+            storeEmbedding(text, embedding, tokenCount);
+        } finally {
+            esBulkhead.release(priority);
+        }
+    }
+
+    private void acquireStorePermit(RequestPriority priority) throws EmbeddingCacheStoreException {
+        long startNanos = System.nanoTime();
+        try {
+            if (!esBulkhead.acquire(priority)) {
+                throw new EmbeddingCacheStoreException("Bulk lane limit of " + esBulkhead.getBulkLimit() + " concurrent Elasticsearch calls reached", null);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EmbeddingCacheStoreException(e.getMessage(), e);
+        } finally {
+            StageTimings.record(RequestStage.POOL_WAIT, startNanos);
+        }
     }
 
     public void storeEmbedding(CachedEmbeddingDocument document) throws EmbeddingCacheStoreException {
@@ -118,11 +582,62 @@ public class EmbeddingCacheManager {
         this.embeddingCacheStore.storeEmbeddings(documents);
     }
 
+    public BulkStoreResult bulkStoreEmbeddings(List<CachedEmbeddingDocument> documents) throws EmbeddingCacheStoreException {
+        return this.embeddingCacheStore.bulkStoreEmbeddings(documents);
+    }
+
+    public BulkStoreResult bulkStoreEmbeddings(List<CachedEmbeddingDocument> documents, RequestPriority priority) throws EmbeddingCacheStoreException {
+        acquireStorePermit(priority);
+        try {
+            return bulkStoreEmbeddings(documents);
+        } finally {
+            esBulkhead.release(priority);
+        }
+    }
+
+    /**
+     * Multi-lookup of already normalized texts within the priority's share of Elasticsearch connections
+     */
+    public Map<String, List<Double>> getCachedEmbeddings(List<String> normalizedTexts, RequestPriority priority) throws EmbeddingCacheStoreException {
+        acquireStorePermit(priority);
+        try {
+            return this.embeddingCacheStore.getCachedEmbeddings(normalizedTexts);
+        } finally {
+            esBulkhead.release(priority);
+        }
+    }
+
+    /**
+     * One embedding API call for already normalized texts within the priority's share of API connections
+     */
+    public List<List<Double>> generateEmbeddings(List<String> normalizedTexts, RequestPriority priority) throws EmbeddingGeneratorException {
+        acquireApiPermit(priority);
+        try {
+            List<List<Double>> embeddings = openAIEmbeddingGenerator.generateEmbeddings(normalizedTexts);
+            if (embeddings.size() != normalizedTexts.size()) {
+                throw new EmbeddingGeneratorException("Embedding generator returned " + embeddings.size()
+                    + " embeddings for " + normalizedTexts.size() + " texts", null);
+            }
+            return embeddings;
+        } finally {
+            apiBulkhead.release(priority);
+        }
+    }
+
     public String normalize(String text) {
         return text.substring(0, Math.min(text.length(), embeddingCacheManagerConfig.getMaxLength()))
                 .trim()
                 .toLowerCase(Locale.ROOT);
     }
+
+    private String normalizeTimed(String text) {
+        long startNanos = System.nanoTime();
+        try {
+            return normalize(text);
+        } finally {
+            StageTimings.record(RequestStage.NORMALIZE, startNanos);
+        }
+    }
     
     /**
      * Performs comprehensive health check of all system components
@@ -183,6 +698,54 @@ public class EmbeddingCacheManager {
         return new AsyncEmbeddingService(this, executorService, scheduledExecutorService);
     }
 
+    /**
+     * Create a manager whose lookup, generation and store calls return CompletionStage without blocking a thread
+     * 
+     * @return AsyncEmbeddingCacheManager sharing this manager's store, generator and metrics
+     */
+    public AsyncEmbeddingCacheManager createAsyncCacheManager() {
+        logger.debug("Creating CompletionStage based embedding cache manager");
+        return new AsyncEmbeddingCacheManager(this);
+    }
+
+    /**
+     * Release resources held by the manager, draining any buffered cache writes
+     */
+    public void shutdown() {
+        batchExecutors.values().forEach(ExecutorService::shutdown);
+        if (prometheusEndpoint != null) {
+            prometheusEndpoint.close();
+        }
+        EmbeddingCacheStore store = embeddingCacheStore;
+        if (store instanceof WriteBehindEmbeddingCacheStore) {
+            ((WriteBehindEmbeddingCacheStore) store).close();
+            store = ((WriteBehindEmbeddingCacheStore) store).getDelegate();
+        }
+        if (store instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) store).close();
+            } catch (Exception e) {
+                logger.warn("Failed to close embedding cache store: {}", e.getMessage());
+            }
+        }
+        logger.info("EmbeddingCacheManager shutdown completed");
+    }
+
+    /**
+     * The Elasticsearch store behind any write-behind buffer, or null when the manager uses another store
+     */
+    public ESEmbeddingCacheStore getESEmbeddingCacheStore() {
+        EmbeddingCacheStore store = embeddingCacheStore;
+        if (store instanceof WriteBehindEmbeddingCacheStore) {
+            store = ((WriteBehindEmbeddingCacheStore) store).getDelegate();
+        }
+        return store instanceof ESEmbeddingCacheStore ? (ESEmbeddingCacheStore) store : null;
+    }
+
+    public EmbeddingCacheManagerConfig getEmbeddingCacheManagerConfig() {
+        return this.embeddingCacheManagerConfig;
+    }
+
     public EmbeddingCacheStore getEmbeddingCacheStore() {
         return this.embeddingCacheStore;
     }
@@ -190,4 +753,12 @@ public class EmbeddingCacheManager {
     public EmbeddingGenerator getOpenAIEmbeddingGenerator() {
         return this.openAIEmbeddingGenerator;
     }
+
+    public PriorityBulkhead getEsBulkhead() {
+        return this.esBulkhead;
+    }
+
+    public PriorityBulkhead getApiBulkhead() {
+        return this.apiBulkhead;
+    }
 }
@@ -1,9 +1,16 @@
 package com.kingname.embeddingstoremanager;
 
+import co.elastic.clients.elasticsearch._types.HealthStatus;
+import com.kingname.embeddingstoremanager.async.AsyncExecutorMode;
+import com.kingname.embeddingstoremanager.async.RejectionPolicy;
+import com.kingname.embeddingstoremanager.index.ExpiredIndexAction;
+import com.kingname.embeddingstoremanager.index.StorageProfile;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.ToString;
 
+import java.util.Arrays;
 import java.util.List;
 
 @Builder
@@ -19,6 +26,86 @@ public class EmbeddingCacheManagerConfig {
     private final String embeddingApiUrl;
     @Builder.Default
     private final Integer maxLength = 3_000;
+    @Builder.Default
+    private final Boolean modelQualifiedDocumentId = false; // Prefix document ids with the model name ("model:hash")
+    @Builder.Default
+    private final KeyHashStrategy keyHashStrategy = KeyHashStrategy.SHA256_HEX; // Key of new documents; MURMUR3_128_BASE64 is faster and 22 chars
+    private final KeyHashStrategy legacyKeyHashStrategy;  // Also looked up on a miss while migrating keys; hits are re-stored under keyHashStrategy
+    
+    // Index layout configuration
+    @Builder.Default
+    private final StorageProfile storageProfile = StorageProfile.STANDARD; // Field layout and codec of new indices
+    @Builder.Default
+    private final Integer embeddingDimension = 768;      // dense_vector dims of new indices
+    @Builder.Default
+    private final Integer numberOfShards = 3;
+    @Builder.Default
+    private final Integer numberOfReplicas = 1;
+    @Builder.Default
+    private final String indexLifecyclePolicy = "delete-120days"; // ILM policy name, null to omit
+    @Builder.Default
+    private final Boolean manageIndexTemplate = true;    // Keep a composable index template for "<alias>-*" instead of per-index bodies
+    @Builder.Default
+    private final Long rolloverMaxDocs = 20_000_000L;    // Roll the write index over within the month past this many docs
+    @Builder.Default
+    private final Long rolloverMaxPrimaryShardSizeBytes = 40L * 1024 * 1024 * 1024; // ... or when its largest primary shard exceeds this size
+    @Builder.Default
+    private final ExpiredIndexAction expiredIndexAction = ExpiredIndexAction.DETACH; // Applied to indices older than retentionMonth
+    @Builder.Default
+    private final Boolean sweepDetachedIndices = false;  // Also close or delete expired indices already outside the alias, e.g. detached by older versions
+    @Builder.Default
+    private final Long rolloverCheckIntervalMs = 300_000L; // IndexRolloverScheduler tick interval
+    @Builder.Default
+    private final Integer rolloverPrecreateHours = 6;    // Pre-create next month's index this long before the boundary
+    @Builder.Default
+    private final Long rolloverLeaseTtlMs = 900_000L;    // Lifecycle lease lifetime; renewed every tick by the holder
+    @Builder.Default
+    private final Long generationOptimizeIntervalMs = 600_000L; // GenerationOptimizer tick interval; one step per tick
+    @Builder.Default
+    private final Boolean shrinkOldGenerations = false;  // Shrink older generations to a single shard
+    @Builder.Default
+    private final Integer oldGenerationReplicas = 1;
+    @Builder.Default
+    private final String oldGenerationRefreshInterval = "-1"; // Older generations receive no writes
+    @Builder.Default
+    private final Long optimizerMaxSearchQueue = 0L;     // Skip optimizer ticks while more searches than this are queued cluster-wide
+    @Builder.Default
+    private final HealthStatus optimizerMinHealthStatus = HealthStatus.Yellow; // Skip optimizer ticks while the cluster is worse than this; Yellow tolerates unassigned replicas
+    @Builder.Default
+    private final Boolean enableHashRouting = false;     // Route documents by text hash (single-shard lookups); enable only on a fresh alias
+    
+    // Multi-generation lookup configuration
+    @Builder.Default
+    private final Boolean lookupNewestGenerationFirst = false; // Query older indices one by one, newest first, instead of in one search
+    @Builder.Default
+    private final Boolean searchWriteIndexOnIdMiss = true; // Also search the write index by hash after a GET miss; turn off once no write index holds auto-id documents
+    @Builder.Default
+    private final Boolean enableReadRepair = true;       // Copy hits from older indices into the current write index
+    @Builder.Default
+    private final Double readRepairPerSecond = 50.0;     // Read-repair rate limit; repairs over the limit are skipped
+    @Builder.Default
+    private final Integer readRepairQueueSize = 1000;
+    
+    // Elasticsearch transport configuration
+    @Builder.Default
+    private final Integer esMaxConnections = 100;        // Total pooled connections shared by sync and async clients
+    @Builder.Default
+    private final Integer esMaxConnectionsPerRoute = 50; // Pooled connections per ES node
+    @Builder.Default
+    private final Long esKeepAliveMs = 60_000L;          // Idle connections are reused for this long
+    private final Integer esIoThreadCount;               // IO reactor threads; null for one per CPU
+    @Builder.Default
+    private final Boolean esCompressionEnabled = false;  // gzip every request body and accept gzip responses; lookups pay for it too, so enable only when bandwidth-bound
+    @Builder.Default
+    private final Integer esConnectTimeoutMs = 1_000;
+    @Builder.Default
+    private final Integer esConnectionRequestTimeoutMs = 2_000; // Max wait for a pooled connection
+    @Builder.Default
+    private final Integer esSocketTimeoutMs = 30_000;    // Default for index management and other operations
+    @Builder.Default
+    private final Integer esLookupTimeoutMs = 3_000;     // get / mget / search lookups
+    @Builder.Default
+    private final Integer esBulkTimeoutMs = 60_000;      // _bulk requests
     
     // Authentication support
     private final String apiKey;           // API Key for Bearer token authentication
@@ -53,7 +140,71 @@ public class EmbeddingCacheManagerConfig {
     @Builder.Default
     private final Long retryWaitDurationMs = 1_000L;     // Wait time between retries (1 second)
     
+    // Bulk store configuration
+    @Builder.Default
+    private final Long bulkMaxBytes = 5L * 1024 * 1024;  // Target size of one _bulk request body
+    @Builder.Default
+    private final Integer bulkMaxDocuments = 1_000;      // Max documents in one _bulk request
+    @Builder.Default
+    private final Integer bulkParallelism = 4;           // Concurrent _bulk requests per bulk store
+    @Builder.Default
+    private final Integer bulkMaxRetries = 3;            // Retries for items rejected with 429
+    @Builder.Default
+    private final Long bulkRetryInitialBackoffMs = 200L; // Backoff before the first retry, doubled per retry
+    
+    // Write-behind configuration
+    @Builder.Default
+    private final Boolean enableWriteBehind = false;     // Buffer cache writes and flush them asynchronously
+    @Builder.Default
+    private final Integer writeBehindMaxBufferSize = 10_000; // Pending writes beyond this are dropped
+    @Builder.Default
+    private final Integer writeBehindFlushSize = 500;    // Flush when this many writes are pending
+    @Builder.Default
+    private final Long writeBehindFlushBytes = 5L * 1024 * 1024; // Flush when pending writes exceed 5MB
+    @Builder.Default
+    private final Long writeBehindFlushIntervalMs = 1_000L; // Max time a write waits in the buffer
+    @Builder.Default
+    private final Integer writeBehindMaxRetries = 3;     // Flush attempts per write before it is dropped
+    
+    // Async service configuration
+    @Builder.Default
+    private final AsyncExecutorMode asyncExecutorMode = AsyncExecutorMode.FIXED_POOL; // VIRTUAL_THREADS falls back to the fixed pool before JDK 21
+    private final Integer asyncMaxConcurrency;           // Requests running at once; null for the pool size (1,000 with virtual threads)
+    @Builder.Default
+    private final Integer asyncQueueCapacity = 10_000;   // Requests waiting for a slot; arrivals beyond this follow asyncRejectionPolicy
+    @Builder.Default
+    private final RejectionPolicy asyncRejectionPolicy = RejectionPolicy.REJECT;
+    @Builder.Default
+    private final Long asyncRequestTimeoutMs = 30_000L;  // Queued requests past this deadline are rejected instead of run
+    
+    // Priority lane configuration
+    @Builder.Default
+    private final Integer interactiveLaneWeight = 4;     // Async dispatch share of interactive requests relative to bulkLaneWeight
+    @Builder.Default
+    private final Integer bulkLaneWeight = 1;
+    @Builder.Default
+    private final Double interactiveReservedShare = 0.25; // Share of async slots, ES connections and API connections bulk traffic may not use
+    
+    // Batch pipeline configuration
+    @Builder.Default
+    private final Integer embeddingApiBatchSize = 100;   // Texts per embedding API call in getEmbeddings(List)
+    @Builder.Default
+    private final Integer batchPipelineParallelism = 4;  // Threads per priority lane running lookups, API batches and background stores of getEmbeddings(List)
+    
     // Metrics configuration
     @Builder.Default
     private final Boolean enableMetrics = true;          // Enable metrics collection
+    @ToString.Exclude
+    private final MeterRegistry meterRegistry;           // Shared by the manager, generator, store and async service; a private SimpleMeterRegistry when null
+    @Builder.Default
+    private final List<Double> metricsPercentiles = Arrays.asList(0.5, 0.95, 0.99, 0.999); // Client-side percentiles of every latency timer
+    @Builder.Default
+    private final Boolean metricsPercentileHistogram = false; // Also publish histogram buckets, for percentiles aggregated across instances
+    @Builder.Default
+    private final Long metricsDistributionExpiryMs = 120_000L; // Percentiles and max cover roughly this much recent time
+    @Builder.Default
+    private final Boolean enableStageMetrics = true;     // Break request time down into normalize, hash, pool wait, ES, API, parse, backoff and store
+    @Builder.Default
+    private final Double estimatedCharsPerToken = 4.0;   // Token estimate for texts the API reported no usage for, e.g. hits cached before token counts were stored
+    private final Integer prometheusPort;                // Serve the registry in Prometheus text format on /metrics; off when null
 }
@@ -1,13 +1,44 @@
 package com.kingname.embeddingstoremanager;
 
 import com.kingname.embeddingstoremanager.exception.EmbeddingCacheStoreException;
+import com.kingname.embeddingstoremanager.vo.BulkStoreResult;
+import com.kingname.embeddingstoremanager.vo.CacheLookupResult;
 import com.kingname.embeddingstoremanager.vo.CachedEmbeddingDocument;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 
 public interface EmbeddingCacheStore {
     List<Double> getCachedEmbedding(String text) throws EmbeddingCacheStoreException;
+    default Map<String, List<Double>> getCachedEmbeddings(List<String> texts) throws EmbeddingCacheStoreException {
+        Map<String, List<Double>> cached = new LinkedHashMap<>();
+        for (String text : texts) {
+            List<Double> embedding = this.getCachedEmbedding(text);
+            if (Objects.nonNull(embedding)) {
+                cached.put(text, embedding);
+            }
+        }
+        return cached;
+    }
+    /**
+     * Like {@link #getCachedEmbedding(String)}, with what the store kept alongside the embedding. Null on a miss.
+     */
+    default CacheLookupResult lookupCachedEmbedding(String text) throws EmbeddingCacheStoreException {
+        List<Double> embedding = this.getCachedEmbedding(text);
+        return Objects.nonNull(embedding) ? CacheLookupResult.builder().embedding(embedding).build() : null;
+    }
+    /**
+     * Like {@link #getCachedEmbeddings(List)}, with what the store kept alongside each embedding
+     */
+    default Map<String, CacheLookupResult> lookupCachedEmbeddings(List<String> texts) throws EmbeddingCacheStoreException {
+        Map<String, CacheLookupResult> results = new LinkedHashMap<>();
+        this.getCachedEmbeddings(texts).forEach((text, embedding) ->
+                results.put(text, CacheLookupResult.builder().embedding(embedding).build()));
+        return results;
+    }
     default void storeEmbedding(String text, List<Double> embedding) throws EmbeddingCacheStoreException {
         this.storeEmbedding(null, text, embedding);
     }
@@ -16,4 +47,8 @@ public interface EmbeddingCacheStore {
         this.storeEmbedding(document.getText(), document.getEmbedding());
     }
     void storeEmbeddings(List<CachedEmbeddingDocument> documents) throws EmbeddingCacheStoreException;
+    default BulkStoreResult bulkStoreEmbeddings(List<CachedEmbeddingDocument> documents) throws EmbeddingCacheStoreException {
+        this.storeEmbeddings(documents);
+        return BulkStoreResult.allSucceeded(documents.size());
+    }
 }
@@ -1,9 +1,27 @@
 package com.kingname.embeddingstoremanager;
 
 import com.kingname.embeddingstoremanager.exception.EmbeddingGeneratorException;
+import com.kingname.embeddingstoremanager.vo.GeneratedEmbeddings;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public interface EmbeddingGenerator {
     List<Double> generateEmbedding(String text) throws EmbeddingGeneratorException;
+    default List<List<Double>> generateEmbeddings(List<String> texts) throws EmbeddingGeneratorException {
+        List<List<Double>> embeddings = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            embeddings.add(this.generateEmbedding(text));
+        }
+        return embeddings;
+    }
+
+    /**
+     * Like {@link #generateEmbeddings(List)}, also returning the tokens the API billed for each text when it reports usage
+     */
+    default GeneratedEmbeddings generateEmbeddingsWithUsage(List<String> texts) throws EmbeddingGeneratorException {
+        return GeneratedEmbeddings.builder()
+                .embeddings(this.generateEmbeddings(texts))
+                .build();
+    }
 }
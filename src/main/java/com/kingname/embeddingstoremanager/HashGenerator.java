@@ -1,16 +1,27 @@
 package com.kingname.embeddingstoremanager;
 
-import com.google.common.hash.Hashing;
 import com.kingname.embeddingstoremanager.exception.HashGeneratorException;
 
-import java.nio.charset.StandardCharsets;
-
 public class HashGenerator {
+    private final KeyHashStrategy strategy;
+
+    public HashGenerator() {
+        this(KeyHashStrategy.SHA256_HEX);
+    }
+
+    public HashGenerator(KeyHashStrategy strategy) {
+        this.strategy = strategy;
+    }
+
     public String getHash(String str) throws HashGeneratorException {
         try {
-            return Hashing.sha256().hashString(str, StandardCharsets.UTF_8).toString();
+            return strategy.hash(str);
         }catch (Exception e) {
             throw new HashGeneratorException(e.getMessage(), e.getCause());
         }
     }
+
+    public KeyHashStrategy getStrategy() {
+        return strategy;
+    }
 }
@@ -0,0 +1,35 @@
+package com.kingname.embeddingstoremanager;
+
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * How the cache key (document id and "hash" field) is derived from a normalized text.
+ * The key only has to tell texts apart, so it does not need to be cryptographic.
+ */
+public enum KeyHashStrategy {
+    /**
+     * 64 hex characters of SHA-256; the original key format
+     */
+    SHA256_HEX {
+        @Override
+        public String hash(String text) {
+            return Hashing.sha256().hashString(text, StandardCharsets.UTF_8).toString();
+        }
+    },
+    /**
+     * 22 URL-safe base64 characters of Murmur3 x64 128 over the UTF-8 bytes
+     */
+    MURMUR3_128_BASE64 {
+        @Override
+        public String hash(String text) {
+            return BASE64.encodeToString(Hashing.murmur3_128().hashBytes(text.getBytes(StandardCharsets.UTF_8)).asBytes());
+        }
+    };
+
+    private static final Base64.Encoder BASE64 = Base64.getUrlEncoder().withoutPadding();
+
+    public abstract String hash(String text);
+}
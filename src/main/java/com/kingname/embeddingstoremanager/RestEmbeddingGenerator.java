@@ -2,7 +2,14 @@ package com.kingname.embeddingstoremanager;
 
 import com.google.gson.Gson;
 import com.kingname.embeddingstoremanager.exception.RestEmbeddingGeneratorException;
+import com.kingname.embeddingstoremanager.metrics.MetricsService;
+import com.kingname.embeddingstoremanager.metrics.Outcome;
+import com.kingname.embeddingstoremanager.metrics.RequestStage;
+import com.kingname.embeddingstoremanager.metrics.StageTimings;
+import com.kingname.embeddingstoremanager.vo.EmbeddingData;
 import com.kingname.embeddingstoremanager.vo.EmbeddingResponse;
+import com.kingname.embeddingstoremanager.vo.EmbeddingUsage;
+import com.kingname.embeddingstoremanager.vo.GeneratedEmbeddings;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.entity.StringEntity;
@@ -18,13 +25,17 @@ import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
 import io.github.resilience4j.retry.Retry;
 import io.github.resilience4j.retry.RetryConfig;
+import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
-import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
 
 public class RestEmbeddingGenerator implements EmbeddingGenerator {
 
@@ -35,12 +46,16 @@ public class RestEmbeddingGenerator implements EmbeddingGenerator {
     private final CloseableHttpClient httpClient;
     private final CircuitBreaker circuitBreaker;
     private final Retry retry;
-    private final MeterRegistry meterRegistry;
+    private volatile MeterRegistry meterRegistry;
+    private volatile Timer apiSuccessTime;
+    private volatile Timer apiFailureTime;
+    private volatile Counter apiPromptTokens;
+    private volatile Counter apiTotalTokens;
 
     public RestEmbeddingGenerator(EmbeddingCacheManagerConfig ecmConfig) {
         this.ecmConfig = ecmConfig;
         this.httpClient = createHttpClient();
-        this.meterRegistry = ecmConfig.getEnableMetrics() ? new SimpleMeterRegistry() : null;
+        registerMetrics(ecmConfig.getMeterRegistry());
         this.circuitBreaker = createCircuitBreaker();
         this.retry = createRetry();
         
@@ -48,6 +63,37 @@ public class RestEmbeddingGenerator implements EmbeddingGenerator {
                     ecmConfig.getEnableCircuitBreaker(), ecmConfig.getEnableRetry(), ecmConfig.getEnableMetrics());
     }
     
+    /**
+     * Records API call counts, latency and reported token usage on the given registry, normally the manager's;
+     * ignored when metrics are disabled
+     */
+    public void registerMetrics(MeterRegistry meterRegistry) {
+        if (meterRegistry == null || !Boolean.TRUE.equals(ecmConfig.getEnableMetrics())) {
+            return;
+        }
+        this.apiSuccessTime = MetricsService.latencyTimer("embedding.api.time", ecmConfig)
+                .description("Embedding API calls including retries and backoff")
+                .tag("outcome", Outcome.SUCCESS.tagValue())
+                .register(meterRegistry);
+        this.apiFailureTime = MetricsService.latencyTimer("embedding.api.time", ecmConfig)
+                .description("Embedding API calls including retries and backoff")
+                .tag("outcome", Outcome.ERROR.tagValue())
+                .register(meterRegistry);
+        this.apiPromptTokens = apiTokenCounter(meterRegistry, "prompt");
+        this.apiTotalTokens = apiTokenCounter(meterRegistry, "total");
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Token counter shared with the async generator, so both paths add to the same series
+     */
+    public static Counter apiTokenCounter(MeterRegistry meterRegistry, String type) {
+        return Counter.builder("embedding.api.tokens")
+                .description("Tokens reported in the usage of successful embedding API responses")
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+    
     /**
      * Creates HTTP client with connection pooling and proper timeouts
      */
@@ -123,14 +169,102 @@ public class RestEmbeddingGenerator implements EmbeddingGenerator {
     @Override
     public List<Double> generateEmbedding(String text) throws RestEmbeddingGeneratorException {
         logger.debug("Generating embedding for text with length: {}", text != null ? text.length() : 0);
-        
+        return execute(() -> {
+            EmbeddingResponse embeddingResponse = callEmbeddingApi(text);
+            List<Double> embedding = embeddingResponse.getData().get(0).getEmbedding();
+            logger.debug("Successfully generated embedding with dimension: {}", embedding != null ? embedding.size() : 0);
+            return embedding;
+        });
+    }
+
+    /**
+     * Generates embeddings for all texts with one API call, sending them as the "input" array
+     */
+    @Override
+    public List<List<Double>> generateEmbeddings(List<String> texts) throws RestEmbeddingGeneratorException {
+        logger.debug("Generating embeddings for {} texts", texts.size());
+        if (texts.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return execute(() -> toEmbeddings(callEmbeddingApi(texts), texts.size()));
+    }
+
+    /**
+     * Generates embeddings with one API call and splits the reported usage across the texts. A single text is sent
+     * as a plain string input, like {@link #generateEmbedding(String)}.
+     */
+    @Override
+    public GeneratedEmbeddings generateEmbeddingsWithUsage(List<String> texts) throws RestEmbeddingGeneratorException {
+        logger.debug("Generating embeddings with usage for {} texts", texts.size());
+        if (texts.isEmpty()) {
+            return GeneratedEmbeddings.builder().embeddings(new ArrayList<>()).build();
+        }
+        return execute(() -> toGeneratedEmbeddings(callEmbeddingApi(texts.size() == 1 ? texts.get(0) : texts), texts));
+    }
+
+    /**
+     * The API reports usage per call only, so the prompt tokens of a batch are split across its texts by length
+     */
+    public static GeneratedEmbeddings toGeneratedEmbeddings(EmbeddingResponse embeddingResponse, List<String> texts) throws RestEmbeddingGeneratorException {
+        List<List<Double>> embeddings = toEmbeddings(embeddingResponse, texts.size());
+        EmbeddingUsage usage = embeddingResponse.getUsage();
+        Long promptTokens = usage == null ? null : usage.getPrompt_tokens() != null ? usage.getPrompt_tokens() : usage.getTotal_tokens();
+        Long totalTokens = usage == null ? null : usage.getTotal_tokens() != null ? usage.getTotal_tokens() : usage.getPrompt_tokens();
+        return GeneratedEmbeddings.builder()
+                .embeddings(embeddings)
+                .tokenCounts(promptTokens != null ? splitTokens(promptTokens, texts) : null)
+                .promptTokens(promptTokens != null ? promptTokens : 0L)
+                .totalTokens(totalTokens != null ? totalTokens : 0L)
+                .build();
+    }
+
+    /**
+     * Rounds cumulative shares so the parts always add up to tokens
+     */
+    private static List<Long> splitTokens(long tokens, List<String> texts) {
+        long totalChars = texts.stream().mapToLong(String::length).sum();
+        List<Long> counts = new ArrayList<>(texts.size());
+        long cumulative = 0;
+        long assigned = 0;
+        for (int i = 0; i < texts.size(); i++) {
+            cumulative += totalChars > 0 ? texts.get(i).length() : 1;
+            long upTo = Math.round((double) tokens * cumulative / (totalChars > 0 ? totalChars : texts.size()));
+            counts.add(upTo - assigned);
+            assigned = upTo;
+        }
+        return counts;
+    }
+
+    /**
+     * Orders the response data by index; the API does not promise to return it in input order
+     */
+    public static List<List<Double>> toEmbeddings(EmbeddingResponse embeddingResponse, int expected) throws RestEmbeddingGeneratorException {
+        if (embeddingResponse.getData().size() != expected) {
+            throw new RestEmbeddingGeneratorException("Embedding API returned " + embeddingResponse.getData().size()
+                    + " embeddings for " + expected + " texts", null);
+        }
+        List<EmbeddingData> data = new ArrayList<>(embeddingResponse.getData());
+        if (data.stream().allMatch(item -> item.getIndex() != null)) {
+            data.sort(Comparator.comparing(EmbeddingData::getIndex));
+        }
+        List<List<Double>> embeddings = new ArrayList<>(data.size());
+        for (EmbeddingData item : data) {
+            embeddings.add(item.getEmbedding());
+        }
+        return embeddings;
+    }
+
+    /**
+     * Runs one API call through the circuit breaker and retry policy
+     */
+    private <T> T execute(ApiCall<T> apiCall) throws RestEmbeddingGeneratorException {
         // Input validation for SSRF prevention
-        validateApiUrl(this.ecmConfig.getEmbeddingApiUrl());
+        checkApiUrl();
         
         // Create the embedding generation function
-        java.util.function.Supplier<List<Double>> embeddingSupplier = () -> {
+        java.util.function.Supplier<T> embeddingSupplier = () -> {
             try {
-                return callEmbeddingApi(text);
+                return apiCall.call();
             } catch (Exception e) {
                 if (e instanceof RestEmbeddingGeneratorException) {
                     throw new RuntimeException(e.getMessage(), e);
@@ -140,7 +274,7 @@ public class RestEmbeddingGenerator implements EmbeddingGenerator {
         };
         
         // Apply circuit breaker and retry patterns
-        java.util.function.Supplier<List<Double>> decoratedSupplier = embeddingSupplier;
+        java.util.function.Supplier<T> decoratedSupplier = embeddingSupplier;
         
         if (circuitBreaker != null) {
             decoratedSupplier = CircuitBreaker.decorateSupplier(circuitBreaker, decoratedSupplier);
@@ -152,20 +286,26 @@ public class RestEmbeddingGenerator implements EmbeddingGenerator {
             logger.debug("Applied retry mechanism to embedding generation");
         }
         
+        long startNanos = System.nanoTime();
+        MeterRegistry registry = this.meterRegistry;
+        StageTimings timings = StageTimings.current();
+        long attemptNanosBefore = timings != null ? attemptNanos(timings) : 0L;
         try {
-            List<Double> result = decoratedSupplier.get();
+            T result = decoratedSupplier.get();
             
             // Record metrics if enabled
-            if (meterRegistry != null) {
-                meterRegistry.counter("embedding.api.success").increment();
+            if (registry != null) {
+                registry.counter("embedding.api.success").increment();
+                apiSuccessTime.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
             }
             
             return result;
             
         } catch (Exception e) {
             // Record metrics if enabled
-            if (meterRegistry != null) {
-                meterRegistry.counter("embedding.api.failure").increment();
+            if (registry != null) {
+                registry.counter("embedding.api.failure").increment();
+                apiFailureTime.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
             }
             
             logger.error("Embedding generation failed after retries and circuit breaker: {}", e.getMessage());
@@ -178,17 +318,39 @@ public class RestEmbeddingGenerator implements EmbeddingGenerator {
                 throw e;
             }
             throw new RestEmbeddingGeneratorException(e.getMessage(), e.getCause());
+        } finally {
+            // Whatever the attempts did not account for was spent waiting between them
+            if (timings != null) {
+                long attemptsNanos = attemptNanos(timings) - attemptNanosBefore;
+                timings.add(RequestStage.RETRY_BACKOFF, System.nanoTime() - startNanos - attemptsNanos);
+            }
         }
     }
+
+    private void recordUsage(EmbeddingUsage usage) {
+        if (usage == null || this.meterRegistry == null) {
+            return;
+        }
+        if (usage.getPrompt_tokens() != null) {
+            apiPromptTokens.increment(usage.getPrompt_tokens());
+        }
+        if (usage.getTotal_tokens() != null) {
+            apiTotalTokens.increment(usage.getTotal_tokens());
+        }
+    }
+
+    private static long attemptNanos(StageTimings timings) {
+        return timings.getNanos(RequestStage.API_CALL) + timings.getNanos(RequestStage.RESPONSE_PARSE);
+    }
     
     /**
-     * Makes the actual API call to generate embedding
+     * Makes the actual API call; input is a single text or a list of texts
      */
-    private List<Double> callEmbeddingApi(String text) throws RestEmbeddingGeneratorException {
+    private EmbeddingResponse callEmbeddingApi(Object input) throws RestEmbeddingGeneratorException {
         try {
             HttpPost httpPost = new HttpPost(this.ecmConfig.getEmbeddingApiUrl());
-            Map<String, String> body = new HashMap<>();
-            body.put("input", text);
+            Map<String, Object> body = new HashMap<>();
+            body.put("input", input);
             body.put("model", this.ecmConfig.getModelName());
             StringEntity entity = new StringEntity(gson.toJson(body), "UTF-8");
             httpPost.setEntity(entity);
@@ -208,7 +370,9 @@ public class RestEmbeddingGenerator implements EmbeddingGenerator {
             
             logger.debug("Sending embedding request to API: {}", this.ecmConfig.getEmbeddingApiUrl());
             
-            // Use connection pooled HTTP client
+            // Use connection pooled HTTP client; api_call runs from leasing a connection to the last body byte
+            StringBuilder responseBody = new StringBuilder();
+            long callStartNanos = System.nanoTime();
             try (CloseableHttpResponse response = httpClient.execute(httpPost);
                  Scanner sc = new Scanner(response.getEntity().getContent())) {
                 
@@ -220,25 +384,30 @@ public class RestEmbeddingGenerator implements EmbeddingGenerator {
                     throw new RestEmbeddingGeneratorException("API returned error status: " + statusCode, null);
                 }
                 
-                StringBuilder responseBody = new StringBuilder();
                 while(sc.hasNext()) {
                     responseBody.append(sc.nextLine());
                 }
-                
-                EmbeddingResponse embeddingResponse = gson.fromJson(responseBody.toString(), EmbeddingResponse.class);
-                
-                // Validate response structure
-                if (embeddingResponse == null || embeddingResponse.getData() == null || 
-                    embeddingResponse.getData().isEmpty()) {
-                    logger.error("Invalid response structure from embedding API");
-                    throw new RestEmbeddingGeneratorException("Invalid response structure from embedding API", null);
-                }
-                
-                List<Double> embedding = embeddingResponse.getData().get(0).getEmbedding();
-                logger.debug("Successfully generated embedding with dimension: {}", embedding != null ? embedding.size() : 0);
-                
-                return embedding;
+            } finally {
+                StageTimings.record(RequestStage.API_CALL, callStartNanos);
             }
+            
+            long parseStartNanos = System.nanoTime();
+            EmbeddingResponse embeddingResponse;
+            try {
+                embeddingResponse = gson.fromJson(responseBody.toString(), EmbeddingResponse.class);
+            } finally {
+                StageTimings.record(RequestStage.RESPONSE_PARSE, parseStartNanos);
+            }
+            
+            // Validate response structure
+            if (embeddingResponse == null || embeddingResponse.getData() == null || 
+                embeddingResponse.getData().isEmpty()) {
+                logger.error("Invalid response structure from embedding API");
+                throw new RestEmbeddingGeneratorException("Invalid response structure from embedding API", null);
+            }
+            
+            recordUsage(embeddingResponse.getUsage());
+            return embeddingResponse;
         } catch (RestEmbeddingGeneratorException e) {
             throw e;
         } catch (Exception e) {
@@ -247,10 +416,17 @@ public class RestEmbeddingGenerator implements EmbeddingGenerator {
         }
     }
     
+    /**
+     * Validates the configured API URL before each call
+     */
+    protected void checkApiUrl() throws RestEmbeddingGeneratorException {
+        validateApiUrl(this.ecmConfig.getEmbeddingApiUrl());
+    }
+    
     /**
      * Validates API URL to prevent SSRF attacks
      */
-    private void validateApiUrl(String url) throws RestEmbeddingGeneratorException {
+    public static void validateApiUrl(String url) throws RestEmbeddingGeneratorException {
         if (url == null || url.trim().isEmpty()) {
             logger.error("API URL validation failed: URL is null or empty");
             throw new RestEmbeddingGeneratorException("API URL cannot be null or empty", null);
@@ -282,4 +458,16 @@ public class RestEmbeddingGenerator implements EmbeddingGenerator {
     public CircuitBreaker getCircuitBreaker() {
         return this.circuitBreaker;
     }
+
+    /**
+     * Returns the retry instance so async callers share the same policy
+     */
+    public Retry getRetry() {
+        return this.retry;
+    }
+
+    @FunctionalInterface
+    private interface ApiCall<T> {
+        T call() throws RestEmbeddingGeneratorException;
+    }
 }
@@ -0,0 +1,55 @@
+package com.kingname.embeddingstoremanager;
+
+import co.elastic.clients.json.JsonpMapper;
+import co.elastic.clients.json.jackson.JacksonJsonpMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kingname.embeddingstoremanager.vo.EsCachedEmbeddingDocument;
+import jakarta.json.stream.JsonParser;
+
+import java.lang.reflect.Type;
+
+/**
+ * 캐시 문서(_source)의 역직렬화 시간을 스레드별로 누적하는 mapper. ES client 는 응답을 IO 스레드에서 역직렬화하고
+ * 같은 스레드에서 future 를 완료하므로, 조회 callback 에서 {@link #takeDeserializeNanos()} 로 그 요청의 몫을 꺼낸다.
+ */
+public class TimingJsonpMapper extends JacksonJsonpMapper {
+
+    private static final ThreadLocal<long[]> DESERIALIZE_NANOS = ThreadLocal.withInitial(() -> new long[1]);
+
+    public TimingJsonpMapper() {
+        super();
+    }
+
+    public TimingJsonpMapper(ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    @Override
+    public <T> T deserialize(JsonParser parser, Type type) {
+        if(type != EsCachedEmbeddingDocument.class) return super.deserialize(parser, type);
+        long start = System.nanoTime();
+        try {
+            return super.deserialize(parser, type);
+        } finally {
+            DESERIALIZE_NANOS.get()[0] += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * endpoint 마다 attribute 를 붙인 mapper 가 새로 만들어지므로 이 클래스를 유지해야 측정이 이어진다.
+     */
+    @Override
+    public <T> JsonpMapper withAttribute(String name, T value) {
+        return new TimingJsonpMapper(objectMapper()).addAttribute(name, value);
+    }
+
+    /**
+     * 이 스레드에서 누적된 역직렬화 시간을 반환하고 0 으로 되돌린다.
+     */
+    public static long takeDeserializeNanos() {
+        long[] nanos = DESERIALIZE_NANOS.get();
+        long taken = nanos[0];
+        nanos[0] = 0;
+        return taken;
+    }
+}
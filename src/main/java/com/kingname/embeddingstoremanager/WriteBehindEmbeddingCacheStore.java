@@ -0,0 +1,442 @@
+package com.kingname.embeddingstoremanager;
+
+import com.kingname.embeddingstoremanager.exception.EmbeddingCacheStoreException;
+import com.kingname.embeddingstoremanager.metrics.MetricsService;
+import com.kingname.embeddingstoremanager.vo.BulkStoreResult;
+import com.kingname.embeddingstoremanager.vo.CacheLookupResult;
+import com.kingname.embeddingstoremanager.vo.CachedEmbeddingDocument;
+import com.kingname.embeddingstoremanager.vo.EsCachedEmbeddingDocument;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Cache store decorator that buffers writes and flushes them to the delegate as bulk requests.
+ * Writes for the same text are coalesced, pending and in-flight writes are visible to lookups,
+ * and the buffer is drained on {@link #close()}.
+ */
+public class WriteBehindEmbeddingCacheStore implements EmbeddingCacheStore, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindEmbeddingCacheStore.class);
+
+    private final EmbeddingCacheStore delegate;
+    private final HashGenerator hashGenerator;
+    private final int maxBufferSize;
+    private final int flushSize;
+    private final long flushBytes;
+    private final int maxRetries;
+
+    private final Object bufferLock = new Object();
+    private final Object flushLock = new Object();
+    private final LinkedHashMap<String, PendingWrite> buffer = new LinkedHashMap<>();
+    private final Map<String, PendingWrite> inFlight = new HashMap<>(); // Taken by the running flush, until its bulk response
+    private long bufferedBytes;
+
+    private final ScheduledExecutorService flushExecutor;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    private final AtomicLong droppedWrites = new AtomicLong();
+    private final AtomicLong coalescedWrites = new AtomicLong();
+    private final AtomicLong flushedWrites = new AtomicLong();
+    private final Counter droppedCounter;
+    private final Timer flushTimer;
+
+    public WriteBehindEmbeddingCacheStore(EmbeddingCacheStore delegate, EmbeddingCacheManagerConfig ecmConfig, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.hashGenerator = new HashGenerator(ecmConfig.getKeyHashStrategy());
+        this.maxBufferSize = ecmConfig.getWriteBehindMaxBufferSize();
+        this.flushSize = ecmConfig.getWriteBehindFlushSize();
+        this.flushBytes = ecmConfig.getWriteBehindFlushBytes();
+        this.maxRetries = ecmConfig.getWriteBehindMaxRetries();
+
+        this.flushExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "embedding-write-behind");
+            t.setDaemon(true);
+            return t;
+        });
+        long intervalMs = ecmConfig.getWriteBehindFlushIntervalMs();
+        this.flushExecutor.scheduleWithFixedDelay(this::flushAll, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+
+        if (Objects.nonNull(meterRegistry)) {
+            Gauge.builder("embedding.writebehind.queue.depth", this, WriteBehindEmbeddingCacheStore::getQueueDepth)
+                    .description("Number of cache writes waiting to be flushed")
+                    .register(meterRegistry);
+            FunctionCounter.builder("embedding.writebehind.coalesced", coalescedWrites, AtomicLong::get)
+                    .description("Number of buffered writes replaced by a newer write for the same text")
+                    .register(meterRegistry);
+            FunctionCounter.builder("embedding.writebehind.flushed", flushedWrites, AtomicLong::get)
+                    .description("Number of buffered writes flushed to the cache store")
+                    .register(meterRegistry);
+            this.droppedCounter = Counter.builder("embedding.writebehind.dropped")
+                    .description("Number of cache writes dropped because the buffer was full or retries were exhausted")
+                    .register(meterRegistry);
+            this.flushTimer = MetricsService.latencyTimer("embedding.writebehind.flush.time", ecmConfig)
+                    .description("Time taken to flush one batch of buffered writes")
+                    .register(meterRegistry);
+        } else {
+            this.droppedCounter = null;
+            this.flushTimer = null;
+        }
+
+        logger.info("WriteBehindEmbeddingCacheStore initialized (buffer: {}, flush size: {}, flush bytes: {}, interval: {}ms)",
+                maxBufferSize, flushSize, flushBytes, intervalMs);
+    }
+
+    @Override
+    public List<Double> getCachedEmbedding(String text) throws EmbeddingCacheStoreException {
+        PendingWrite pending = getPending(text);
+        if (Objects.nonNull(pending)) {
+            return pending.embedding;
+        }
+        return delegate.getCachedEmbedding(text);
+    }
+
+    @Override
+    public Map<String, List<Double>> getCachedEmbeddings(List<String> texts) throws EmbeddingCacheStoreException {
+        Map<String, List<Double>> cached = new HashMap<>();
+        List<String> remaining = new ArrayList<>();
+        for (String text : texts) {
+            PendingWrite pending = getPending(text);
+            if (Objects.nonNull(pending)) {
+                cached.put(text, pending.embedding);
+            } else {
+                remaining.add(text);
+            }
+        }
+        if (!remaining.isEmpty()) {
+            cached.putAll(delegate.getCachedEmbeddings(remaining));
+        }
+        return cached;
+    }
+
+    @Override
+    public CacheLookupResult lookupCachedEmbedding(String text) throws EmbeddingCacheStoreException {
+        PendingWrite pending = getPending(text);
+        if (Objects.nonNull(pending)) {
+            return pending.toLookupResult();
+        }
+        return delegate.lookupCachedEmbedding(text);
+    }
+
+    @Override
+    public Map<String, CacheLookupResult> lookupCachedEmbeddings(List<String> texts) throws EmbeddingCacheStoreException {
+        Map<String, CacheLookupResult> cached = new HashMap<>();
+        List<String> remaining = new ArrayList<>();
+        for (String text : texts) {
+            PendingWrite pending = getPending(text);
+            if (Objects.nonNull(pending)) {
+                cached.put(text, pending.toLookupResult());
+            } else {
+                remaining.add(text);
+            }
+        }
+        if (!remaining.isEmpty()) {
+            cached.putAll(delegate.lookupCachedEmbeddings(remaining));
+        }
+        return cached;
+    }
+
+    @Override
+    public void storeEmbedding(String id, String text, List<Double> embedding) throws EmbeddingCacheStoreException {
+        if (closed.get()) {
+            delegate.storeEmbedding(id, text, embedding);
+            return;
+        }
+        enqueue(new PendingWrite(hash(text), id, text, embedding, null));
+    }
+
+    @Override
+    public void storeEmbedding(CachedEmbeddingDocument document) throws EmbeddingCacheStoreException {
+        if (closed.get()) {
+            delegate.storeEmbedding(document);
+            return;
+        }
+        String id = document instanceof EsCachedEmbeddingDocument ? ((EsCachedEmbeddingDocument) document).getId() : null;
+        enqueue(new PendingWrite(hash(document.getText()), id, document.getText(), document.getEmbedding(), document.getToken_count()));
+    }
+
+    /**
+     * Bulk stores are already batched by the caller and go straight to the delegate
+     */
+    @Override
+    public void storeEmbeddings(List<CachedEmbeddingDocument> documents) throws EmbeddingCacheStoreException {
+        delegate.storeEmbeddings(documents);
+    }
+
+    @Override
+    public BulkStoreResult bulkStoreEmbeddings(List<CachedEmbeddingDocument> documents) throws EmbeddingCacheStoreException {
+        return delegate.bulkStoreEmbeddings(documents);
+    }
+
+    private void enqueue(PendingWrite write) {
+        boolean flushNeeded;
+        synchronized (bufferLock) {
+            PendingWrite previous = buffer.remove(write.hash);
+            if (Objects.nonNull(previous)) {
+                bufferedBytes -= previous.sizeInBytes;
+                coalescedWrites.incrementAndGet();
+            } else if (buffer.size() >= maxBufferSize) {
+                recordDropped(1);
+                logger.warn("Write-behind buffer is full ({} pending), dropping cache write", buffer.size());
+                return;
+            }
+            buffer.put(write.hash, write);
+            bufferedBytes += write.sizeInBytes;
+            flushNeeded = buffer.size() >= flushSize || bufferedBytes >= flushBytes;
+        }
+        if (flushNeeded && flushScheduled.compareAndSet(false, true)) {
+            try {
+                flushExecutor.execute(() -> {
+                    flushScheduled.set(false);
+                    flushAll();
+                });
+            } catch (RejectedExecutionException e) {
+                flushScheduled.set(false); // closing, the drain in close() picks the write up
+            }
+        }
+    }
+
+    private void flushAll() {
+        try {
+            while (flushBatch()) {
+                // keep flushing until the buffer is empty or a flush fails
+            }
+        } catch (Exception e) {
+            logger.error("Unexpected error while flushing write-behind buffer: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Moves up to flushSize writes from the buffer to the in-flight map and sends them as one bulk store.
+     * Failed writes go back to the buffer and are retried on the next scheduled flush. Either way they
+     * leave the in-flight map only once the response is in, so lookups keep finding them meanwhile.
+     *
+     * @return true if the batch was flushed and more writes may be pending
+     */
+    private boolean flushBatch() {
+        synchronized (flushLock) {
+            List<PendingWrite> batch = takeBatch();
+            if (batch.isEmpty()) {
+                return false;
+            }
+            long startTime = System.nanoTime();
+            try {
+                List<CachedEmbeddingDocument> documents = batch.stream()
+                        .map(PendingWrite::toDocument)
+                        .collect(Collectors.toList());
+                BulkStoreResult result = delegate.bulkStoreEmbeddings(documents);
+                flushedWrites.addAndGet(result.getSucceeded());
+                if (result.hasFailures()) {
+                    logger.warn("Write-behind flush failed for {}/{} documents", result.getFailed(), batch.size());
+                    completeFlush(batch, result.getFailures().stream()
+                            .map(failure -> batch.get(failure.getPosition()))
+                            .collect(Collectors.toList()));
+                    return false;
+                }
+                completeFlush(batch, Collections.emptyList());
+                return true;
+            } catch (Exception e) {
+                logger.warn("Write-behind flush of {} documents failed: {}", batch.size(), e.getMessage());
+                completeFlush(batch, batch);
+                return false;
+            } finally {
+                if (Objects.nonNull(flushTimer)) {
+                    flushTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+    }
+
+    private List<PendingWrite> takeBatch() {
+        List<PendingWrite> batch = new ArrayList<>();
+        synchronized (bufferLock) {
+            Iterator<PendingWrite> iterator = buffer.values().iterator();
+            while (iterator.hasNext() && batch.size() < flushSize) {
+                PendingWrite write = iterator.next();
+                iterator.remove();
+                bufferedBytes -= write.sizeInBytes;
+                inFlight.put(write.hash, write);
+                batch.add(write);
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Releases the flushed batch from the in-flight map and re-queues its failed writes in the same step,
+     * so a failed write is never missing from both
+     */
+    private void completeFlush(List<PendingWrite> batch, List<PendingWrite> failed) {
+        int dropped = 0;
+        synchronized (bufferLock) {
+            for (PendingWrite write : batch) {
+                inFlight.remove(write.hash);
+            }
+            for (PendingWrite write : failed) {
+                if (buffer.containsKey(write.hash)) {
+                    continue; // a newer write for the same text is already pending
+                }
+                if (write.attempts + 1 >= maxRetries || buffer.size() >= maxBufferSize) {
+                    dropped++;
+                    continue;
+                }
+                PendingWrite retry = write.retry();
+                buffer.put(retry.hash, retry);
+                bufferedBytes += retry.sizeInBytes;
+            }
+        }
+        if (dropped > 0) {
+            recordDropped(dropped);
+            logger.error("Dropped {} cache writes after {} failed flush attempts", dropped, maxRetries);
+        }
+    }
+
+    /**
+     * The buffered embedding for the text, or null when no write is pending
+     */
+    public List<Double> getPendingEmbedding(String text) throws EmbeddingCacheStoreException {
+        PendingWrite pending = getPending(text);
+        return Objects.nonNull(pending) ? pending.embedding : null;
+    }
+
+    /**
+     * The buffered write for the text with its token count, or null when no write is pending
+     */
+    public CacheLookupResult getPendingLookup(String text) throws EmbeddingCacheStoreException {
+        PendingWrite pending = getPending(text);
+        return Objects.nonNull(pending) ? pending.toLookupResult() : null;
+    }
+
+    private PendingWrite getPending(String text) throws EmbeddingCacheStoreException {
+        String hash = hash(text);
+        synchronized (bufferLock) {
+            PendingWrite pending = buffer.get(hash);
+            return Objects.nonNull(pending) ? pending : inFlight.get(hash);
+        }
+    }
+
+    private String hash(String text) throws EmbeddingCacheStoreException {
+        try {
+            return hashGenerator.getHash(text);
+        } catch (Exception e) {
+            throw new EmbeddingCacheStoreException(e.getMessage(), e.getCause());
+        }
+    }
+
+    private void recordDropped(int count) {
+        droppedWrites.addAndGet(count);
+        if (Objects.nonNull(droppedCounter)) {
+            droppedCounter.increment(count);
+        }
+    }
+
+    /**
+     * Stops the periodic flush and drains all pending writes to the delegate
+     */
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        logger.info("Draining write-behind buffer ({} pending writes)", getQueueDepth());
+        flushExecutor.shutdown();
+        try {
+            if (!flushExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+                logger.warn("Write-behind flusher did not terminate within 30 seconds");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (int attempt = 0; attempt < maxRetries && getQueueDepth() > 0; attempt++) {
+            flushAll();
+        }
+        int remaining = getQueueDepth();
+        if (remaining > 0) {
+            recordDropped(remaining);
+            logger.error("Write-behind drain left {} cache writes unflushed", remaining);
+        }
+    }
+
+    public int getQueueDepth() {
+        synchronized (bufferLock) {
+            return buffer.size();
+        }
+    }
+
+    public long getDroppedWrites() {
+        return droppedWrites.get();
+    }
+
+    public long getFlushedWrites() {
+        return flushedWrites.get();
+    }
+
+    public EmbeddingCacheStore getDelegate() {
+        return delegate;
+    }
+
+    private static final class PendingWrite {
+        private final String hash;
+        private final String id;
+        private final String text;
+        private final List<Double> embedding;
+        private final Long tokenCount;
+        private final long sizeInBytes;
+        private final int attempts;
+
+        private PendingWrite(String hash, String id, String text, List<Double> embedding, Long tokenCount) {
+            this(hash, id, text, embedding, tokenCount, 0);
+        }
+
+        private PendingWrite(String hash, String id, String text, List<Double> embedding, Long tokenCount, int attempts) {
+            this.hash = hash;
+            this.id = id;
+            this.text = text;
+            this.embedding = embedding;
+            this.tokenCount = tokenCount;
+            this.sizeInBytes = DocumentSizeEstimator.estimate(text, embedding);
+            this.attempts = attempts;
+        }
+
+        private PendingWrite retry() {
+            return new PendingWrite(hash, id, text, embedding, tokenCount, attempts + 1);
+        }
+
+        private CachedEmbeddingDocument toDocument() {
+            return EsCachedEmbeddingDocument.builder()
+                    .id(id)
+                    .text(text)
+                    .embedding(embedding)
+                    .token_count(tokenCount)
+                    .build();
+        }
+
+        private CacheLookupResult toLookupResult() {
+            return CacheLookupResult.builder()
+                    .embedding(embedding)
+                    .tokenCount(tokenCount)
+                    .build();
+        }
+    }
+}
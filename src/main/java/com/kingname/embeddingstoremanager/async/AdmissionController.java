@@ -0,0 +1,389 @@
+package com.kingname.embeddingstoremanager.async;
+
+import com.kingname.embeddingstoremanager.exception.EmbeddingRequestRejectedException;
+import com.kingname.embeddingstoremanager.exception.EmbeddingRequestRejectedException.Reason;
+import com.kingname.embeddingstoremanager.priority.RequestPriority;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded admission in front of an executor. At most maxConcurrency tasks run at once and at most queueCapacity wait
+ * per priority lane; arrivals beyond that follow the {@link RejectionPolicy}. Freed slots go to the lanes by weighted
+ * fair queueing, and bulk tasks never hold the slots reserved for interactive ones. Within a lane tasks run earliest
+ * deadline first, and a task whose deadline passes while it waits is rejected instead of run, so a brownout sheds
+ * load rather than growing the queue.
+ */
+public class AdmissionController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionController.class);
+
+    private final Executor executor;
+    private final int maxConcurrency;
+    private final int queueCapacity;
+    private final RejectionPolicy rejectionPolicy;
+    private final long timeoutMs;
+    private final Object lock = new Object();
+    private final Map<RequestPriority, Lane> lanes = new EnumMap<>(RequestPriority.class);
+    private final AtomicLong callerRuns = new AtomicLong();
+    private int active;
+    private long sequence;
+    private double virtualTime; // Pass of the lane served last; idle lanes rejoin here instead of with banked credit
+    private boolean closed;
+
+    public AdmissionController(Executor executor, int maxConcurrency, int queueCapacity,
+                               RejectionPolicy rejectionPolicy, long timeoutMs, MeterRegistry meterRegistry) {
+        this(executor, maxConcurrency, queueCapacity, rejectionPolicy, timeoutMs, 1, 1, 0.0, meterRegistry);
+    }
+
+    /**
+     * @param queueCapacity queued tasks per lane
+     * @param interactiveWeight share of freed slots given to interactive tasks relative to bulkWeight
+     * @param interactiveReservedShare share of maxConcurrency bulk tasks may not use
+     */
+    public AdmissionController(Executor executor, int maxConcurrency, int queueCapacity,
+                               RejectionPolicy rejectionPolicy, long timeoutMs,
+                               int interactiveWeight, int bulkWeight, double interactiveReservedShare,
+                               MeterRegistry meterRegistry) {
+        this.executor = executor;
+        this.maxConcurrency = maxConcurrency;
+        this.queueCapacity = queueCapacity;
+        this.rejectionPolicy = rejectionPolicy;
+        this.timeoutMs = timeoutMs;
+        int bulkConcurrency = Math.max(1, maxConcurrency - (int) Math.ceil(maxConcurrency * interactiveReservedShare));
+        lanes.put(RequestPriority.INTERACTIVE, new Lane(RequestPriority.INTERACTIVE, interactiveWeight, maxConcurrency, meterRegistry));
+        lanes.put(RequestPriority.BULK, new Lane(RequestPriority.BULK, bulkWeight, bulkConcurrency, meterRegistry));
+        logger.info("AdmissionController initialized (concurrency: {}, bulk concurrency: {}, queue per lane: {}, policy: {}, timeout: {}ms)",
+                    maxConcurrency, bulkConcurrency, queueCapacity, rejectionPolicy, timeoutMs);
+    }
+
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        return submit(task, RequestPriority.INTERACTIVE, timeoutMs);
+    }
+
+    public <T> CompletableFuture<T> submit(Callable<T> task, RequestPriority priority) {
+        return submit(task, priority, timeoutMs);
+    }
+
+    /**
+     * @param task blocking work to run on the executor
+     * @param priority lane the task is queued and accounted in
+     * @param timeoutMs how long the task may wait for a slot before it is rejected
+     * @return a future failed with {@link EmbeddingRequestRejectedException} when the task is shed
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task, RequestPriority priority, long timeoutMs) {
+        long now = System.nanoTime();
+        Lane lane = lanes.get(priority);
+        Admission<T> admission;
+        Admission<?> evicted = null;
+        Reason rejected = null;
+        boolean dispatch = false;
+        boolean runInCaller = false;
+        synchronized (lock) {
+            admission = new Admission<>(task, lane, now, now + TimeUnit.MILLISECONDS.toNanos(timeoutMs), sequence++);
+            if (closed) {
+                rejected = Reason.SHUTDOWN;
+            } else if (active < maxConcurrency && lane.active < lane.maxActive && lane.queue.isEmpty()) {
+                activate(lane);
+                dispatch = true;
+            } else if (lane.queue.size() < queueCapacity) {
+                if (lane.queue.isEmpty()) {
+                    lane.pass = Math.max(lane.pass, virtualTime);
+                }
+                lane.queue.add(admission);
+            } else if (rejectionPolicy == RejectionPolicy.CALLER_RUNS) {
+                runInCaller = true;
+            } else if (rejectionPolicy == RejectionPolicy.DROP_OLDEST_BY_DEADLINE && !lane.queue.isEmpty()) {
+                evicted = lane.queue.poll();
+                lane.queue.add(admission);
+            } else {
+                rejected = Reason.QUEUE_FULL;
+            }
+        }
+        if (rejected != null) {
+            reject(admission, rejected);
+        } else if (evicted != null) {
+            reject(evicted, Reason.DROPPED);
+        }
+        if (dispatch) {
+            dispatch(admission);
+        } else if (runInCaller) {
+            callerRuns.incrementAndGet();
+            admission.run();
+        }
+        return admission.future;
+    }
+
+    private void activate(Lane lane) {
+        active++;
+        lane.active++;
+    }
+
+    private void dispatch(Admission<?> admission) {
+        try {
+            executor.execute(() -> {
+                try {
+                    admission.lane.recordWait(System.nanoTime() - admission.enqueuedNanos);
+                    admission.run();
+                } finally {
+                    onFinished(admission.lane);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            reject(admission, Reason.SHUTDOWN);
+            onFinished(admission.lane);
+        }
+    }
+
+    /**
+     * Hand the freed slot to the next queued task that is still within its deadline
+     */
+    private void onFinished(Lane finished) {
+        List<Admission<?>> next = new ArrayList<>();
+        List<Admission<?>> expired = new ArrayList<>();
+        synchronized (lock) {
+            active--;
+            finished.active--;
+            long now = System.nanoTime();
+            while (active < maxConcurrency) {
+                Lane lane = selectLane();
+                if (lane == null) {
+                    break;
+                }
+                Admission<?> candidate = lane.queue.poll();
+                if (candidate.deadlineNanos - now < 0) {
+                    expired.add(candidate);
+                    continue;
+                }
+                virtualTime = lane.pass;
+                lane.pass += 1.0 / lane.weight;
+                activate(lane);
+                next.add(candidate);
+            }
+        }
+        for (Admission<?> admission : expired) {
+            reject(admission, Reason.DEADLINE_EXCEEDED);
+        }
+        for (Admission<?> admission : next) {
+            dispatch(admission);
+        }
+    }
+
+    /**
+     * The lane with queued work and a free lane slot that has received the least service for its weight
+     */
+    private Lane selectLane() {
+        Lane selected = null;
+        for (Lane lane : lanes.values()) {
+            if (lane.queue.isEmpty() || lane.active >= lane.maxActive) {
+                continue;
+            }
+            if (selected == null || lane.pass < selected.pass) {
+                selected = lane;
+            }
+        }
+        return selected;
+    }
+
+    private void reject(Admission<?> admission, Reason reason) {
+        admission.lane.recordRejection(reason);
+        admission.future.completeExceptionally(new EmbeddingRequestRejectedException(reason,
+                "Embedding request rejected: " + reason.name().toLowerCase()
+                        + " (lane: " + admission.lane.priority.tagValue()
+                        + ", active: " + getActiveCount() + ", queued: " + getQueueDepth() + ")"));
+    }
+
+    /**
+     * Stop admitting and reject everything still queued. Running tasks are left to finish.
+     */
+    public void close() {
+        List<Admission<?>> pending = new ArrayList<>();
+        synchronized (lock) {
+            closed = true;
+            for (Lane lane : lanes.values()) {
+                pending.addAll(lane.queue);
+                lane.queue.clear();
+            }
+        }
+        for (Admission<?> admission : pending) {
+            reject(admission, Reason.SHUTDOWN);
+        }
+    }
+
+    public int getQueueDepth() {
+        synchronized (lock) {
+            return lanes.values().stream().mapToInt(lane -> lane.queue.size()).sum();
+        }
+    }
+
+    public int getQueueDepth(RequestPriority priority) {
+        synchronized (lock) {
+            return lanes.get(priority).queue.size();
+        }
+    }
+
+    public int getActiveCount() {
+        synchronized (lock) {
+            return active;
+        }
+    }
+
+    public int getActiveCount(RequestPriority priority) {
+        synchronized (lock) {
+            return lanes.get(priority).active;
+        }
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public int getMaxConcurrency(RequestPriority priority) {
+        return lanes.get(priority).maxActive;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public long getRejectedCount(Reason reason) {
+        return lanes.values().stream().mapToLong(lane -> lane.rejections.get(reason).get()).sum();
+    }
+
+    public long getRejectedCount() {
+        return lanes.values().stream()
+                .flatMap(lane -> lane.rejections.values().stream())
+                .mapToLong(AtomicLong::get)
+                .sum();
+    }
+
+    public long getCallerRunsCount() {
+        return callerRuns.get();
+    }
+
+    /**
+     * Tasks of the lane that were given a slot, for per-lane throughput
+     */
+    public long getDispatchedCount(RequestPriority priority) {
+        return lanes.get(priority).dispatched.get();
+    }
+
+    /**
+     * Mean time dispatched tasks waited for a slot, in milliseconds
+     */
+    public double getAverageQueueWaitMs() {
+        long count = lanes.values().stream().mapToLong(lane -> lane.dispatched.get()).sum();
+        long waitNanos = lanes.values().stream().mapToLong(lane -> lane.totalWaitNanos.get()).sum();
+        return count > 0 ? waitNanos / (double) count / 1_000_000.0 : 0.0;
+    }
+
+    public double getAverageQueueWaitMs(RequestPriority priority) {
+        Lane lane = lanes.get(priority);
+        long count = lane.dispatched.get();
+        return count > 0 ? lane.totalWaitNanos.get() / (double) count / 1_000_000.0 : 0.0;
+    }
+
+    private final class Lane {
+        private final RequestPriority priority;
+        private final int weight;
+        private final int maxActive;
+        private final PriorityQueue<Admission<?>> queue = new PriorityQueue<>(
+                Comparator.<Admission<?>>comparingLong(admission -> admission.deadlineNanos).thenComparingLong(admission -> admission.sequence));
+        private final Map<Reason, AtomicLong> rejections = new EnumMap<>(Reason.class);
+        private final Map<Reason, Counter> rejectionCounters = new EnumMap<>(Reason.class);
+        private final AtomicLong totalWaitNanos = new AtomicLong();
+        private final AtomicLong dispatched = new AtomicLong();
+        private final Timer queueWaitTimer;
+        private int active;
+        private double pass;
+
+        private Lane(RequestPriority priority, int weight, int maxActive, MeterRegistry meterRegistry) {
+            this.priority = priority;
+            this.weight = Math.max(1, weight);
+            this.maxActive = maxActive;
+            for (Reason reason : Reason.values()) {
+                rejections.put(reason, new AtomicLong());
+            }
+            if (meterRegistry != null) {
+                Gauge.builder("embedding.async.queue.depth", AdmissionController.this, controller -> controller.getQueueDepth(priority))
+                        .description("Async requests waiting for an executor slot")
+                        .tag("lane", priority.tagValue())
+                        .register(meterRegistry);
+                Gauge.builder("embedding.async.active", AdmissionController.this, controller -> controller.getActiveCount(priority))
+                        .description("Async requests running")
+                        .tag("lane", priority.tagValue())
+                        .register(meterRegistry);
+                this.queueWaitTimer = Timer.builder("embedding.async.queue.wait")
+                        .description("Time async requests waited for an executor slot")
+                        .tag("lane", priority.tagValue())
+                        .register(meterRegistry);
+                for (Reason reason : Reason.values()) {
+                    rejectionCounters.put(reason, Counter.builder("embedding.async.rejected")
+                            .description("Async requests shed by admission control")
+                            .tag("lane", priority.tagValue())
+                            .tag("reason", reason.name().toLowerCase())
+                            .register(meterRegistry));
+                }
+            } else {
+                this.queueWaitTimer = null;
+            }
+        }
+
+        private void recordWait(long waitNanos) {
+            totalWaitNanos.addAndGet(waitNanos);
+            dispatched.incrementAndGet();
+            if (queueWaitTimer != null) {
+                queueWaitTimer.record(waitNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private void recordRejection(Reason reason) {
+            rejections.get(reason).incrementAndGet();
+            Counter counter = rejectionCounters.get(reason);
+            if (counter != null) {
+                counter.increment();
+            }
+        }
+    }
+
+    private static final class Admission<T> {
+        private final Callable<T> task;
+        private final AdmissionController.Lane lane;
+        private final long enqueuedNanos;
+        private final long deadlineNanos;
+        private final long sequence;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        private Admission(Callable<T> task, AdmissionController.Lane lane, long enqueuedNanos, long deadlineNanos, long sequence) {
+            this.task = task;
+            this.lane = lane;
+            this.enqueuedNanos = enqueuedNanos;
+            this.deadlineNanos = deadlineNanos;
+            this.sequence = sequence;
+        }
+
+        private void run() {
+            try {
+                future.complete(task.call());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        }
+    }
+}
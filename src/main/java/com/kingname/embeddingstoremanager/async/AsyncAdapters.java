@@ -0,0 +1,207 @@
+package com.kingname.embeddingstoremanager.async;
+
+import com.kingname.embeddingstoremanager.EmbeddingCacheStore;
+import com.kingname.embeddingstoremanager.EmbeddingGenerator;
+import com.kingname.embeddingstoremanager.exception.EmbeddingCacheStoreException;
+import com.kingname.embeddingstoremanager.exception.EmbeddingGeneratorException;
+import com.kingname.embeddingstoremanager.vo.BulkStoreResult;
+import com.kingname.embeddingstoremanager.vo.CacheLookupResult;
+import com.kingname.embeddingstoremanager.vo.CachedEmbeddingDocument;
+import com.kingname.embeddingstoremanager.vo.GeneratedEmbeddings;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Adapters between the blocking and the {@link CompletionStage} based store and generator interfaces.
+ * Blocking implementations run on the given executor, so they still hold one thread per call.
+ * Async implementations seen through the blocking interface block the caller until the stage completes.
+ */
+public final class AsyncAdapters {
+
+    private AsyncAdapters() {
+    }
+
+    public static AsyncEmbeddingCacheStore toAsync(EmbeddingCacheStore store, Executor executor) {
+        return new AsyncEmbeddingCacheStore() {
+            @Override
+            public CompletionStage<List<Double>> getCachedEmbedding(String text) {
+                return supply(() -> store.getCachedEmbedding(text), executor);
+            }
+
+            @Override
+            public CompletionStage<Map<String, List<Double>>> getCachedEmbeddings(List<String> texts) {
+                return supply(() -> store.getCachedEmbeddings(texts), executor);
+            }
+
+            @Override
+            public CompletionStage<CacheLookupResult> lookupCachedEmbedding(String text) {
+                return supply(() -> store.lookupCachedEmbedding(text), executor);
+            }
+
+            @Override
+            public CompletionStage<Void> storeEmbedding(String id, String text, List<Double> embedding) {
+                return supply(() -> {
+                    store.storeEmbedding(id, text, embedding);
+                    return null;
+                }, executor);
+            }
+
+            @Override
+            public CompletionStage<Void> storeEmbedding(CachedEmbeddingDocument document) {
+                return supply(() -> {
+                    store.storeEmbedding(document);
+                    return null;
+                }, executor);
+            }
+
+            @Override
+            public CompletionStage<BulkStoreResult> bulkStoreEmbeddings(List<CachedEmbeddingDocument> documents) {
+                return supply(() -> store.bulkStoreEmbeddings(documents), executor);
+            }
+        };
+    }
+
+    public static AsyncEmbeddingGenerator toAsync(EmbeddingGenerator generator, Executor executor) {
+        return new AsyncEmbeddingGenerator() {
+            @Override
+            public CompletionStage<List<Double>> generateEmbedding(String text) {
+                return supply(() -> generator.generateEmbedding(text), executor);
+            }
+
+            @Override
+            public CompletionStage<List<List<Double>>> generateEmbeddings(List<String> texts) {
+                return supply(() -> generator.generateEmbeddings(texts), executor);
+            }
+
+            @Override
+            public CompletionStage<GeneratedEmbeddings> generateEmbeddingsWithUsage(List<String> texts) {
+                return supply(() -> generator.generateEmbeddingsWithUsage(texts), executor);
+            }
+        };
+    }
+
+    public static EmbeddingCacheStore toBlocking(AsyncEmbeddingCacheStore store) {
+        return new EmbeddingCacheStore() {
+            @Override
+            public List<Double> getCachedEmbedding(String text) throws EmbeddingCacheStoreException {
+                return awaitStore(store.getCachedEmbedding(text));
+            }
+
+            @Override
+            public Map<String, List<Double>> getCachedEmbeddings(List<String> texts) throws EmbeddingCacheStoreException {
+                return awaitStore(store.getCachedEmbeddings(texts));
+            }
+
+            @Override
+            public CacheLookupResult lookupCachedEmbedding(String text) throws EmbeddingCacheStoreException {
+                return awaitStore(store.lookupCachedEmbedding(text));
+            }
+
+            @Override
+            public void storeEmbedding(String id, String text, List<Double> embedding) throws EmbeddingCacheStoreException {
+                awaitStore(store.storeEmbedding(id, text, embedding));
+            }
+
+            @Override
+            public void storeEmbedding(CachedEmbeddingDocument document) throws EmbeddingCacheStoreException {
+                awaitStore(store.storeEmbedding(document));
+            }
+
+            @Override
+            public void storeEmbeddings(List<CachedEmbeddingDocument> documents) throws EmbeddingCacheStoreException {
+                awaitStore(store.bulkStoreEmbeddings(documents));
+            }
+
+            @Override
+            public BulkStoreResult bulkStoreEmbeddings(List<CachedEmbeddingDocument> documents) throws EmbeddingCacheStoreException {
+                return awaitStore(store.bulkStoreEmbeddings(documents));
+            }
+        };
+    }
+
+    public static EmbeddingGenerator toBlocking(AsyncEmbeddingGenerator generator) {
+        return new EmbeddingGenerator() {
+            @Override
+            public List<Double> generateEmbedding(String text) throws EmbeddingGeneratorException {
+                return awaitGenerator(generator.generateEmbedding(text));
+            }
+
+            @Override
+            public List<List<Double>> generateEmbeddings(List<String> texts) throws EmbeddingGeneratorException {
+                return awaitGenerator(generator.generateEmbeddings(texts));
+            }
+
+            @Override
+            public GeneratedEmbeddings generateEmbeddingsWithUsage(List<String> texts) throws EmbeddingGeneratorException {
+                return awaitGenerator(generator.generateEmbeddingsWithUsage(texts));
+            }
+        };
+    }
+
+    /**
+     * The exception a stage failed with, without the {@link CompletionException} wrapper
+     */
+    public static Throwable unwrap(Throwable throwable) {
+        Throwable cause = throwable;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private static <T> CompletableFuture<T> supply(BlockingCall<T> call, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return call.call();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    private static <T> T awaitStore(CompletionStage<T> stage) throws EmbeddingCacheStoreException {
+        try {
+            return await(stage);
+        } catch (EmbeddingCacheStoreException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new EmbeddingCacheStoreException(e.getMessage(), e.getCause());
+        }
+    }
+
+    private static <T> T awaitGenerator(CompletionStage<T> stage) throws EmbeddingGeneratorException {
+        try {
+            return await(stage);
+        } catch (EmbeddingGeneratorException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new EmbeddingGeneratorException(e.getMessage(), e.getCause());
+        }
+    }
+
+    private static <T> T await(CompletionStage<T> stage) throws Exception {
+        try {
+            return stage.toCompletableFuture().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = unwrap(e);
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+
+    @FunctionalInterface
+    private interface BlockingCall<T> {
+        T call() throws Exception;
+    }
+}
@@ -0,0 +1,137 @@
+package com.kingname.embeddingstoremanager.async;
+
+import com.kingname.embeddingstoremanager.ESEmbeddingCacheStore;
+import com.kingname.embeddingstoremanager.WriteBehindEmbeddingCacheStore;
+import com.kingname.embeddingstoremanager.exception.EmbeddingCacheStoreException;
+import com.kingname.embeddingstoremanager.vo.BulkStoreResult;
+import com.kingname.embeddingstoremanager.vo.CacheLookupResult;
+import com.kingname.embeddingstoremanager.vo.CachedEmbeddingDocument;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * {@link AsyncEmbeddingCacheStore} over the Elasticsearch async client. Lookups and stores hold no thread while
+ * the request is in flight. When a write-behind buffer is given, pending writes answer lookups and new writes are
+ * only enqueued, as they are on the blocking path.
+ */
+public class AsyncESEmbeddingCacheStore implements AsyncEmbeddingCacheStore {
+
+    private final ESEmbeddingCacheStore store;
+    private final WriteBehindEmbeddingCacheStore writeBehind;
+
+    public AsyncESEmbeddingCacheStore(ESEmbeddingCacheStore store) {
+        this(store, null);
+    }
+
+    public AsyncESEmbeddingCacheStore(ESEmbeddingCacheStore store, WriteBehindEmbeddingCacheStore writeBehind) {
+        this.store = store;
+        this.writeBehind = writeBehind;
+    }
+
+    @Override
+    public CompletionStage<List<Double>> getCachedEmbedding(String text) {
+        if (Objects.nonNull(writeBehind)) {
+            try {
+                List<Double> pending = writeBehind.getPendingEmbedding(text);
+                if (Objects.nonNull(pending)) {
+                    return CompletableFuture.completedFuture(pending);
+                }
+            } catch (EmbeddingCacheStoreException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return store.lookupCachedEmbeddingAsync(text)
+                .thenApply(result -> Objects.nonNull(result) ? result.getEmbedding() : null);
+    }
+
+    /**
+     * Same as {@link #getCachedEmbedding(String)} but also reports the index that served the hit
+     * and the stored token count. A pending write answers without an index.
+     */
+    @Override
+    public CompletionStage<CacheLookupResult> lookupCachedEmbedding(String text) {
+        if (Objects.nonNull(writeBehind)) {
+            try {
+                CacheLookupResult pending = writeBehind.getPendingLookup(text);
+                if (Objects.nonNull(pending)) {
+                    return CompletableFuture.completedFuture(pending);
+                }
+            } catch (EmbeddingCacheStoreException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return store.lookupCachedEmbeddingAsync(text);
+    }
+
+    @Override
+    public CompletionStage<Map<String, List<Double>>> getCachedEmbeddings(List<String> texts) {
+        Map<String, List<Double>> cached = new HashMap<>();
+        List<String> remaining = new ArrayList<>();
+        for (String text : texts) {
+            List<Double> pending = null;
+            if (Objects.nonNull(writeBehind)) {
+                try {
+                    pending = writeBehind.getPendingEmbedding(text);
+                } catch (EmbeddingCacheStoreException e) {
+                    return CompletableFuture.failedFuture(e);
+                }
+            }
+            if (Objects.nonNull(pending)) {
+                cached.put(text, pending);
+            } else {
+                remaining.add(text);
+            }
+        }
+        if (remaining.isEmpty()) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return store.getCachedEmbeddingsAsync(remaining).thenApply(found -> {
+            cached.putAll(found);
+            return cached;
+        });
+    }
+
+    @Override
+    public CompletionStage<Void> storeEmbedding(String id, String text, List<Double> embedding) {
+        if (Objects.nonNull(writeBehind)) {
+            try {
+                writeBehind.storeEmbedding(id, text, embedding);
+                return CompletableFuture.completedFuture(null);
+            } catch (EmbeddingCacheStoreException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return store.storeEmbeddingAsync(id, text, embedding);
+    }
+
+    @Override
+    public CompletionStage<Void> storeEmbedding(CachedEmbeddingDocument document) {
+        if (Objects.nonNull(writeBehind)) {
+            try {
+                writeBehind.storeEmbedding(document);
+                return CompletableFuture.completedFuture(null);
+            } catch (EmbeddingCacheStoreException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return store.storeEmbeddingAsync(document);
+    }
+
+    /**
+     * Sent as _bulk requests straight to Elasticsearch, like bulk stores through the write-behind buffer
+     */
+    @Override
+    public CompletionStage<BulkStoreResult> bulkStoreEmbeddings(List<CachedEmbeddingDocument> documents) {
+        return store.bulkStoreEmbeddingsAsync(documents);
+    }
+
+    public ESEmbeddingCacheStore getStore() {
+        return this.store;
+    }
+}
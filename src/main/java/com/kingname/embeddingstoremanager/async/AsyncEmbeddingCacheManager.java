@@ -0,0 +1,335 @@
+package com.kingname.embeddingstoremanager.async;
+
+import com.kingname.embeddingstoremanager.ESEmbeddingCacheStore;
+import com.kingname.embeddingstoremanager.EmbeddingCacheManager;
+import com.kingname.embeddingstoremanager.EmbeddingCacheStore;
+import com.kingname.embeddingstoremanager.EmbeddingGenerator;
+import com.kingname.embeddingstoremanager.RestEmbeddingGenerator;
+import com.kingname.embeddingstoremanager.WriteBehindEmbeddingCacheStore;
+import com.kingname.embeddingstoremanager.exception.EmbeddingCacheStoreException;
+import com.kingname.embeddingstoremanager.exception.EmbeddingGeneratorException;
+import com.kingname.embeddingstoremanager.metrics.MetricsService;
+import com.kingname.embeddingstoremanager.metrics.Outcome;
+import com.kingname.embeddingstoremanager.metrics.RequestStage;
+import com.kingname.embeddingstoremanager.metrics.StageTimings;
+import com.kingname.embeddingstoremanager.priority.PriorityBulkhead;
+import com.kingname.embeddingstoremanager.priority.RequestPriority;
+import com.kingname.embeddingstoremanager.vo.BulkStoreResult;
+import com.kingname.embeddingstoremanager.vo.CachedEmbeddingDocument;
+import com.kingname.embeddingstoremanager.vo.GeneratedEmbeddings;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * {@link CompletionStage} counterpart of {@link EmbeddingCacheManager}. The lookup, generate and store chain is
+ * composed on the stages returned by the store and the generator, so a request holds no thread while it waits on
+ * Elasticsearch or the embedding API. Continuations run on the client IO threads and must not block.
+ * Generated embeddings are stored in the background with their token count, after the caller's stage completes.
+ */
+public class AsyncEmbeddingCacheManager implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncEmbeddingCacheManager.class);
+
+    private final EmbeddingCacheManager embeddingCacheManager;
+    private final AsyncEmbeddingCacheStore asyncEmbeddingCacheStore;
+    private final AsyncEmbeddingGenerator asyncEmbeddingGenerator;
+    private final MetricsService metricsService;
+    private ExecutorService blockingExecutor; // Only created when a blocking store or generator has to be adapted
+
+    /**
+     * Use the native async paths of the manager's Elasticsearch store and REST generator,
+     * and adapt any other store or generator on a dedicated pool
+     */
+    public AsyncEmbeddingCacheManager(EmbeddingCacheManager embeddingCacheManager) {
+        this.embeddingCacheManager = embeddingCacheManager;
+        this.metricsService = embeddingCacheManager.getMetricsService();
+        this.asyncEmbeddingCacheStore = createAsyncStore(embeddingCacheManager);
+        this.asyncEmbeddingGenerator = createAsyncGenerator(embeddingCacheManager);
+
+        logger.info("AsyncEmbeddingCacheManager initialized (store: {}, generator: {})",
+                    asyncEmbeddingCacheStore.getClass().getSimpleName(), asyncEmbeddingGenerator.getClass().getSimpleName());
+    }
+
+    public AsyncEmbeddingCacheManager(EmbeddingCacheManager embeddingCacheManager,
+                                      AsyncEmbeddingCacheStore asyncEmbeddingCacheStore,
+                                      AsyncEmbeddingGenerator asyncEmbeddingGenerator) {
+        this.embeddingCacheManager = embeddingCacheManager;
+        this.metricsService = embeddingCacheManager.getMetricsService();
+        this.asyncEmbeddingCacheStore = asyncEmbeddingCacheStore;
+        this.asyncEmbeddingGenerator = asyncEmbeddingGenerator;
+    }
+
+    private AsyncEmbeddingCacheStore createAsyncStore(EmbeddingCacheManager manager) {
+        ESEmbeddingCacheStore esStore = manager.getESEmbeddingCacheStore();
+        EmbeddingCacheStore store = manager.getEmbeddingCacheStore();
+        if (Objects.nonNull(esStore)) {
+            return new AsyncESEmbeddingCacheStore(esStore,
+                    store instanceof WriteBehindEmbeddingCacheStore ? (WriteBehindEmbeddingCacheStore) store : null);
+        }
+        return AsyncAdapters.toAsync(store, getBlockingExecutor());
+    }
+
+    private AsyncEmbeddingGenerator createAsyncGenerator(EmbeddingCacheManager manager) {
+        EmbeddingGenerator generator = manager.getOpenAIEmbeddingGenerator();
+        if (generator instanceof RestEmbeddingGenerator) {
+            AsyncRestEmbeddingGenerator asyncGenerator = new AsyncRestEmbeddingGenerator(manager.getEmbeddingCacheManagerConfig(), (RestEmbeddingGenerator) generator);
+            asyncGenerator.registerMetrics(metricsService.getMeterRegistry());
+            return asyncGenerator;
+        }
+        return AsyncAdapters.toAsync(generator, getBlockingExecutor());
+    }
+
+    private synchronized ExecutorService getBlockingExecutor() {
+        if (blockingExecutor == null) {
+            AtomicInteger threadCount = new AtomicInteger();
+            blockingExecutor = Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "async-embedding-blocking-" + threadCount.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return blockingExecutor;
+    }
+
+    public CompletionStage<List<Double>> getEmbedding(String text) {
+        return getEmbedding(text, RequestPriority.INTERACTIVE);
+    }
+
+    /**
+     * Bulk requests only use the Elasticsearch and embedding API capacity not reserved for interactive traffic
+     */
+    public CompletionStage<List<Double>> getEmbedding(String text, RequestPriority priority) {
+        return getEmbedding(text, priority, null);
+    }
+
+    /**
+     * Like {@link EmbeddingCacheManager#getEmbedding(String, RequestPriority, StageTimings)}, except that a generated
+     * embedding is returned as soon as it arrives and stored in the background, so a slow store does not delay the caller
+     */
+    public CompletionStage<List<Double>> getEmbedding(String text, RequestPriority priority, StageTimings timings) {
+        metricsService.recordEmbeddingRequest();
+        Timer.Sample totalTimer = metricsService.startTotalRequestTimer();
+        StageTimings requestTimings = timings != null ? timings : metricsService.isStageMetricsEnabled() ? new StageTimings() : null;
+
+        String normalized = normalizeTimed(text, requestTimings);
+        AtomicReference<Outcome> outcome = new AtomicReference<>(Outcome.HIT);
+        return lookup(normalized, priority, requestTimings).thenCompose(cached -> {
+            if (Objects.nonNull(cached)) {
+                metricsService.recordCacheHit();
+                return CompletableFuture.completedFuture(cached);
+            }
+            metricsService.recordCacheMiss();
+            outcome.set(Outcome.MISS);
+            return generate(normalized, priority, requestTimings).thenApply(generated -> {
+                List<Double> embedding = generated.getEmbeddings().get(0);
+                storeInBackground(normalized, embedding, generated.getTokenCount(0), priority);
+                metricsService.recordEmbeddingSuccess();
+                return embedding;
+            });
+        }).whenComplete((embedding, e) -> {
+            if (e != null) {
+                metricsService.recordEmbeddingFailure();
+            }
+            metricsService.stopTotalRequestTimer(totalTimer, MetricsService.OPERATION_GET_EMBEDDING, e != null ? Outcome.ERROR : outcome.get());
+            metricsService.stopLaneRequestTimer(totalTimer, priority);
+            if (requestTimings != null) {
+                metricsService.recordStageTimings(requestTimings);
+            }
+        });
+    }
+
+    /**
+     * A hit is credited with the tokens it saved: the count stored with the embedding, or an estimate from the text length
+     */
+    public CompletionStage<List<Double>> getEmbeddingFromCache(String text) {
+        return lookupCached(embeddingCacheManager.normalize(text), null);
+    }
+
+    public CompletionStage<List<Double>> generateEmbedding(String text) {
+        return generateWithUsage(embeddingCacheManager.normalize(text), null)
+                .thenApply(generated -> generated.getEmbeddings().get(0));
+    }
+
+    public CompletionStage<Void> storeEmbedding(String text, List<Double> embedding) {
+        return asyncEmbeddingCacheStore.storeEmbedding(embeddingCacheManager.normalize(text), embedding);
+    }
+
+    /**
+     * Stores the embedding with the token count the API reported for it, so later hits can be credited with it
+     */
+    public CompletionStage<Void> storeEmbedding(String text, List<Double> embedding, Long tokenCount) {
+        return asyncEmbeddingCacheStore.storeEmbedding(CachedEmbeddingDocument.builder()
+                .text(embeddingCacheManager.normalize(text))
+                .embedding(embedding)
+                .token_count(tokenCount)
+                .build());
+    }
+
+    private CompletionStage<List<Double>> lookup(String normalized, RequestPriority priority, StageTimings timings) {
+        PriorityBulkhead bulkhead = embeddingCacheManager.getEsBulkhead();
+        return acquire(bulkhead, priority, timings, () -> new EmbeddingCacheStoreException(
+                "Bulk lane limit of " + bulkhead.getBulkLimit() + " concurrent Elasticsearch calls reached", null))
+                .thenCompose(ignored -> withPermit(bulkhead, priority, () -> lookupCached(normalized, timings)));
+    }
+
+    private CompletionStage<List<Double>> lookupCached(String normalized, StageTimings timings) {
+        Timer.Sample cacheTimer = metricsService.startCacheRetrievalTimer();
+        return withTimings(timings, () -> asyncEmbeddingCacheStore.lookupCachedEmbedding(normalized)).thenApply(result -> {
+            if (Objects.isNull(result)) {
+                return null;
+            }
+            metricsService.recordTokensSaved(embeddingCacheManager.tokenCount(result.getTokenCount(), normalized));
+            return result.getEmbedding();
+        }).whenComplete((embedding, e) -> metricsService.stopCacheRetrievalTimer(cacheTimer, MetricsService.OPERATION_LOOKUP,
+                e != null ? Outcome.ERROR : Objects.nonNull(embedding) ? Outcome.HIT : Outcome.MISS));
+    }
+
+    private CompletionStage<GeneratedEmbeddings> generate(String normalized, RequestPriority priority, StageTimings timings) {
+        PriorityBulkhead bulkhead = embeddingCacheManager.getApiBulkhead();
+        return acquire(bulkhead, priority, timings, () -> new EmbeddingGeneratorException(
+                "Bulk lane limit of " + bulkhead.getBulkLimit() + " concurrent embedding API calls reached", null))
+                .thenCompose(ignored -> withPermit(bulkhead, priority, () -> generateWithUsage(normalized, timings)));
+    }
+
+    private CompletionStage<GeneratedEmbeddings> generateWithUsage(String normalized, StageTimings timings) {
+        Timer.Sample generationTimer = metricsService.startEmbeddingGenerationTimer();
+        return withTimings(timings, () -> asyncEmbeddingGenerator.generateEmbeddingsWithUsage(Collections.singletonList(normalized)))
+                .thenApply(generated -> {
+                    if (generated.getEmbeddings().size() != 1) {
+                        throw new CompletionException(new EmbeddingGeneratorException("Embedding generator returned "
+                                + generated.getEmbeddings().size() + " embeddings for 1 text", null));
+                    }
+                    metricsService.recordTokensConsumed(embeddingCacheManager.tokenCount(generated.getTokenCount(0), normalized));
+                    return generated;
+                })
+                .whenComplete((generated, e) -> metricsService.stopEmbeddingGenerationTimer(generationTimer, MetricsService.OPERATION_GENERATE,
+                        e != null ? Outcome.ERROR : Outcome.SUCCESS));
+    }
+
+    /**
+     * Fire-and-forget: a failed store is logged and the next request for the text generates it again
+     */
+    private void storeInBackground(String normalized, List<Double> embedding, Long tokenCount, RequestPriority priority) {
+        CachedEmbeddingDocument document = CachedEmbeddingDocument.builder()
+                .text(normalized)
+                .embedding(embedding)
+                .token_count(tokenCount)
+                .build();
+        PriorityBulkhead bulkhead = embeddingCacheManager.getEsBulkhead();
+        acquire(bulkhead, priority, null, () -> new EmbeddingCacheStoreException(
+                "Bulk lane limit of " + bulkhead.getBulkLimit() + " concurrent Elasticsearch calls reached", null))
+                .thenCompose(ignored -> withPermit(bulkhead, priority, () -> asyncEmbeddingCacheStore.storeEmbedding(document)))
+                .whenComplete((ignored, e) -> {
+                    if (e != null) {
+                        logger.warn("Background store of generated embedding failed: {}", AsyncAdapters.unwrap(e).getMessage());
+                    }
+                });
+    }
+
+    /**
+     * Interactive calls pass straight through. A bulk call may wait for its permit, so it waits on the blocking pool
+     * rather than on the client IO thread that completed the previous stage.
+     */
+    private CompletionStage<Void> acquire(PriorityBulkhead bulkhead, RequestPriority priority, StageTimings timings,
+                                          Supplier<Exception> rejection) {
+        if (!bulkhead.limits(priority)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(() -> {
+            long startNanos = System.nanoTime();
+            try {
+                if (!bulkhead.acquire(priority)) {
+                    throw new CompletionException(rejection.get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(rejection.get());
+            } finally {
+                if (timings != null) {
+                    timings.add(RequestStage.POOL_WAIT, System.nanoTime() - startNanos);
+                }
+            }
+        }, getBlockingExecutor());
+    }
+
+    private static <T> CompletionStage<T> withPermit(PriorityBulkhead bulkhead, RequestPriority priority, Supplier<CompletionStage<T>> call) {
+        CompletionStage<T> stage;
+        try {
+            stage = call.get();
+        } catch (RuntimeException e) {
+            bulkhead.release(priority);
+            throw e;
+        }
+        return stage.whenComplete((result, e) -> bulkhead.release(priority));
+    }
+
+    /**
+     * Makes timings current while the call starts, so the store and generator can capture them before leaving the thread
+     */
+    private static <T> CompletionStage<T> withTimings(StageTimings timings, Supplier<CompletionStage<T>> call) {
+        if (timings == null) {
+            return call.get();
+        }
+        StageTimings previousTimings = StageTimings.attach(timings);
+        try {
+            return call.get();
+        } finally {
+            StageTimings.restore(previousTimings);
+        }
+    }
+
+    private String normalizeTimed(String text, StageTimings timings) {
+        long startNanos = System.nanoTime();
+        try {
+            return embeddingCacheManager.normalize(text);
+        } finally {
+            if (timings != null) {
+                timings.add(RequestStage.NORMALIZE, System.nanoTime() - startNanos);
+            }
+        }
+    }
+
+    public CompletionStage<BulkStoreResult> bulkStoreEmbeddings(List<CachedEmbeddingDocument> documents) {
+        return asyncEmbeddingCacheStore.bulkStoreEmbeddings(documents);
+    }
+
+    public AsyncEmbeddingCacheStore getAsyncEmbeddingCacheStore() {
+        return this.asyncEmbeddingCacheStore;
+    }
+
+    public AsyncEmbeddingGenerator getAsyncEmbeddingGenerator() {
+        return this.asyncEmbeddingGenerator;
+    }
+
+    /**
+     * Release the threads owned by this manager. The wrapped {@link EmbeddingCacheManager} is left running.
+     */
+    @Override
+    public void close() {
+        if (asyncEmbeddingGenerator instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) asyncEmbeddingGenerator).close();
+            } catch (Exception e) {
+                logger.warn("Failed to close async embedding generator: {}", e.getMessage());
+            }
+        }
+        synchronized (this) {
+            if (blockingExecutor != null) {
+                blockingExecutor.shutdown();
+            }
+        }
+    }
+}
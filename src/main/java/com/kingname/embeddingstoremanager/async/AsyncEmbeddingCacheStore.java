@@ -0,0 +1,85 @@
+package com.kingname.embeddingstoremanager.async;
+
+import com.kingname.embeddingstoremanager.vo.BulkStoreResult;
+import com.kingname.embeddingstoremanager.vo.CacheLookupResult;
+import com.kingname.embeddingstoremanager.vo.CachedEmbeddingDocument;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Non-blocking counterpart of {@link com.kingname.embeddingstoremanager.EmbeddingCacheStore}.
+ * Failures complete the stage exceptionally with an {@link com.kingname.embeddingstoremanager.exception.EmbeddingCacheStoreException}.
+ */
+public interface AsyncEmbeddingCacheStore {
+    CompletionStage<List<Double>> getCachedEmbedding(String text);
+    default CompletionStage<Map<String, List<Double>>> getCachedEmbeddings(List<String> texts) {
+        Map<String, CompletableFuture<List<Double>>> lookups = new LinkedHashMap<>();
+        for (String text : texts) {
+            lookups.computeIfAbsent(text, t -> this.getCachedEmbedding(t).toCompletableFuture());
+        }
+        return CompletableFuture.allOf(lookups.values().toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+            Map<String, List<Double>> cached = new LinkedHashMap<>();
+            lookups.forEach((text, lookup) -> {
+                List<Double> embedding = lookup.join();
+                if (Objects.nonNull(embedding)) {
+                    cached.put(text, embedding);
+                }
+            });
+            return cached;
+        });
+    }
+    /**
+     * Like {@link #getCachedEmbedding(String)}, with what the store kept alongside the embedding. Null on a miss.
+     */
+    default CompletionStage<CacheLookupResult> lookupCachedEmbedding(String text) {
+        return this.getCachedEmbedding(text).thenApply(embedding ->
+                Objects.nonNull(embedding) ? CacheLookupResult.builder().embedding(embedding).build() : null);
+    }
+    default CompletionStage<Void> storeEmbedding(String text, List<Double> embedding) {
+        return this.storeEmbedding(null, text, embedding);
+    }
+    CompletionStage<Void> storeEmbedding(String id, String text, List<Double> embedding);
+    default CompletionStage<Void> storeEmbedding(CachedEmbeddingDocument document) {
+        return this.storeEmbedding(document.getText(), document.getEmbedding());
+    }
+    /**
+     * Stores that can send a _bulk request override this. The fallback stores each document on its own
+     * and reports the ones that failed by input position instead of failing the whole batch.
+     */
+    default CompletionStage<BulkStoreResult> bulkStoreEmbeddings(List<CachedEmbeddingDocument> documents) {
+        long startNanos = System.nanoTime();
+        List<CompletableFuture<Throwable>> stores = documents.stream()
+                .map(document -> this.storeEmbedding(document).handle((ignored, e) -> e).toCompletableFuture())
+                .collect(Collectors.toList());
+        return CompletableFuture.allOf(stores.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+            List<BulkStoreResult.ItemFailure> failures = new ArrayList<>();
+            for (int i = 0; i < stores.size(); i++) {
+                Throwable failure = stores.get(i).join();
+                if (Objects.nonNull(failure)) {
+                    Throwable cause = AsyncAdapters.unwrap(failure);
+                    failures.add(BulkStoreResult.ItemFailure.builder()
+                            .position(i)
+                            .type(cause.getClass().getSimpleName())
+                            .reason(cause.getMessage())
+                            .build());
+                }
+            }
+            return BulkStoreResult.builder()
+                    .total(documents.size())
+                    .succeeded(documents.size() - failures.size())
+                    .failed(failures.size())
+                    .chunks(documents.size())
+                    .tookMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos))
+                    .failures(failures)
+                    .build();
+        });
+    }
+}
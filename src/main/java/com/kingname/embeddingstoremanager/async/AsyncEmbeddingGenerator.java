@@ -0,0 +1,32 @@
+package com.kingname.embeddingstoremanager.async;
+
+import com.kingname.embeddingstoremanager.vo.GeneratedEmbeddings;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.stream.Collectors;
+
+/**
+ * Non-blocking counterpart of {@link com.kingname.embeddingstoremanager.EmbeddingGenerator}.
+ * Failures complete the stage exceptionally with an {@link com.kingname.embeddingstoremanager.exception.EmbeddingGeneratorException}.
+ */
+public interface AsyncEmbeddingGenerator {
+    CompletionStage<List<Double>> generateEmbedding(String text);
+    default CompletionStage<List<List<Double>>> generateEmbeddings(List<String> texts) {
+        List<CompletableFuture<List<Double>>> embeddings = texts.stream()
+                .map(text -> this.generateEmbedding(text).toCompletableFuture())
+                .collect(Collectors.toList());
+        return CompletableFuture.allOf(embeddings.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> embeddings.stream().map(CompletableFuture::join).collect(Collectors.toList()));
+    }
+
+    /**
+     * Like {@link #generateEmbeddings(List)}, also returning the tokens the API billed for each text when it reports usage
+     */
+    default CompletionStage<GeneratedEmbeddings> generateEmbeddingsWithUsage(List<String> texts) {
+        return this.generateEmbeddings(texts).thenApply(embeddings -> GeneratedEmbeddings.builder()
+                .embeddings(embeddings)
+                .build());
+    }
+}
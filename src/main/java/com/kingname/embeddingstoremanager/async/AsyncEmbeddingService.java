@@ -1,11 +1,15 @@
 package com.kingname.embeddingstoremanager.async;
 
+import com.kingname.embeddingstoremanager.ESEmbeddingCacheStore;
 import com.kingname.embeddingstoremanager.EmbeddingCacheManager;
 import com.kingname.embeddingstoremanager.EmbeddingCacheManagerConfig;
 import com.kingname.embeddingstoremanager.exception.EmbeddingCacheStoreException;
 import com.kingname.embeddingstoremanager.exception.EmbeddingGeneratorException;
 import com.kingname.embeddingstoremanager.health.HealthCheck;
+import com.kingname.embeddingstoremanager.index.GenerationOptimizer;
+import com.kingname.embeddingstoremanager.index.IndexRolloverScheduler;
 import com.kingname.embeddingstoremanager.metrics.MetricsSummary;
+import com.kingname.embeddingstoremanager.priority.RequestPriority;
 import com.kingname.embeddingstoremanager.vo.CachedEmbeddingDocument;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,8 +20,8 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
 
 /**
  * Asynchronous embedding service providing non-blocking operations
@@ -25,34 +29,43 @@ import java.util.stream.Collectors;
 public class AsyncEmbeddingService {
     
     private static final Logger logger = LoggerFactory.getLogger(AsyncEmbeddingService.class);
+    private static final int VIRTUAL_THREAD_CONCURRENCY = 1_000; // Default in-flight limit when threads are not the limit
     
     private final EmbeddingCacheManager embeddingCacheManager;
     private final ExecutorService executorService;
     private final ScheduledExecutorService scheduledExecutorService;
     private final EmbeddingCacheManagerConfig config;
     private final boolean shutdownExecutorOnClose;
+    private final AdmissionController admissionController;
+    private IndexRolloverScheduler indexRolloverScheduler;
+    private GenerationOptimizer generationOptimizer;
     
     /**
-     * Constructor with default thread pool configuration
+     * Constructor using the executor mode from the manager's configuration
      */
     public AsyncEmbeddingService(EmbeddingCacheManager embeddingCacheManager) {
+        this(embeddingCacheManager, embeddingCacheManager.getEmbeddingCacheManagerConfig().getAsyncExecutorMode());
+    }
+    
+    /**
+     * Constructor with an owned executor of the given mode
+     */
+    public AsyncEmbeddingService(EmbeddingCacheManager embeddingCacheManager, AsyncExecutorMode executorMode) {
         this.embeddingCacheManager = embeddingCacheManager;
-        this.config = null; // Will use defaults
+        this.config = embeddingCacheManager.getEmbeddingCacheManagerConfig();
         
-        // Create default thread pools
-        int threadPoolSize = Math.max(4, Runtime.getRuntime().availableProcessors());
-        this.executorService = Executors.newFixedThreadPool(
-            threadPoolSize,
-            r -> {
-                Thread t = new Thread(r, "async-embedding-" + r.hashCode());
-                t.setDaemon(true);
-                return t;
-            }
-        );
+        int threadPoolSize = AsyncExecutors.defaultPoolSize();
+        this.executorService = AsyncExecutors.create(executorMode, threadPoolSize);
         this.scheduledExecutorService = Executors.newScheduledThreadPool(2);
         this.shutdownExecutorOnClose = true;
+        boolean virtualThreads = executorMode == AsyncExecutorMode.VIRTUAL_THREADS && AsyncExecutors.isVirtualThreadSupported();
+        this.admissionController = createAdmissionController(virtualThreads ? VIRTUAL_THREAD_CONCURRENCY : threadPoolSize);
         
-        logger.info("AsyncEmbeddingService initialized with default thread pool (size: {})", threadPoolSize);
+        if (virtualThreads) {
+            logger.info("AsyncEmbeddingService initialized with virtual-thread-per-task executor");
+        } else {
+            logger.info("AsyncEmbeddingService initialized with default thread pool (size: {})", threadPoolSize);
+        }
     }
     
     /**
@@ -64,12 +77,33 @@ public class AsyncEmbeddingService {
         this.embeddingCacheManager = embeddingCacheManager;
         this.executorService = executorService;
         this.scheduledExecutorService = scheduledExecutorService;
-        this.config = null;
+        this.config = embeddingCacheManager.getEmbeddingCacheManagerConfig();
         this.shutdownExecutorOnClose = false; // Don't shutdown externally provided executors
+        this.admissionController = createAdmissionController(executorService instanceof ThreadPoolExecutor
+                ? ((ThreadPoolExecutor) executorService).getMaximumPoolSize()
+                : AsyncExecutors.defaultPoolSize());
         
         logger.info("AsyncEmbeddingService initialized with custom thread pool");
     }
     
+    /**
+     * Bound the requests running on and waiting for the executor; asyncMaxConcurrency overrides the executor default
+     */
+    private AdmissionController createAdmissionController(int defaultConcurrency) {
+        Integer maxConcurrency = config.getAsyncMaxConcurrency();
+        return new AdmissionController(
+            executorService,
+            maxConcurrency != null ? maxConcurrency : defaultConcurrency,
+            config.getAsyncQueueCapacity(),
+            config.getAsyncRejectionPolicy(),
+            config.getAsyncRequestTimeoutMs(),
+            config.getInteractiveLaneWeight(),
+            config.getBulkLaneWeight(),
+            config.getInteractiveReservedShare(),
+            embeddingCacheManager.getMetricsService().getMeterRegistry()
+        );
+    }
+    
     /**
      * Get embedding asynchronously
      * 
@@ -77,16 +111,27 @@ public class AsyncEmbeddingService {
      * @return CompletableFuture containing the embedding vector
      */
     public CompletableFuture<List<Double>> getEmbeddingAsync(String text) {
+        return getEmbeddingAsync(text, RequestPriority.INTERACTIVE);
+    }
+    
+    /**
+     * Get embedding asynchronously on a priority lane
+     * 
+     * @param text Input text for embedding generation
+     * @param priority Lane the request is queued, scheduled and measured in
+     * @return CompletableFuture containing the embedding vector
+     */
+    public CompletableFuture<List<Double>> getEmbeddingAsync(String text, RequestPriority priority) {
         logger.debug("Starting async embedding request for text length: {}", text != null ? text.length() : 0);
         
-        return CompletableFuture.supplyAsync(() -> {
+        return admissionController.submit(() -> {
             try {
-                return embeddingCacheManager.getEmbedding(text);
+                return embeddingCacheManager.getEmbedding(text, priority);
             } catch (EmbeddingCacheStoreException | EmbeddingGeneratorException e) {
                 logger.error("Async embedding generation failed: {}", e.getMessage());
                 throw new RuntimeException(e);
             }
-        }, executorService);
+        }, priority);
     }
     
     /**
@@ -98,14 +143,14 @@ public class AsyncEmbeddingService {
     public CompletableFuture<List<Double>> getEmbeddingFromCacheAsync(String text) {
         logger.debug("Starting async cache lookup for text length: {}", text != null ? text.length() : 0);
         
-        return CompletableFuture.supplyAsync(() -> {
+        return admissionController.submit(() -> {
             try {
                 return embeddingCacheManager.getEmbeddingFromCache(text);
             } catch (EmbeddingCacheStoreException e) {
                 logger.error("Async cache lookup failed: {}", e.getMessage());
                 throw new RuntimeException(e);
             }
-        }, executorService);
+        });
     }
     
     /**
@@ -117,14 +162,14 @@ public class AsyncEmbeddingService {
     public CompletableFuture<List<Double>> generateEmbeddingAsync(String text) {
         logger.debug("Starting async embedding generation for text length: {}", text != null ? text.length() : 0);
         
-        return CompletableFuture.supplyAsync(() -> {
+        return admissionController.submit(() -> {
             try {
                 return embeddingCacheManager.generateEmbedding(text);
             } catch (EmbeddingGeneratorException e) {
                 logger.error("Async embedding generation failed: {}", e.getMessage());
                 throw new RuntimeException(e);
             }
-        }, executorService);
+        });
     }
     
     /**
@@ -137,14 +182,15 @@ public class AsyncEmbeddingService {
     public CompletableFuture<Void> storeEmbeddingAsync(String text, List<Double> embedding) {
         logger.debug("Starting async embedding storage for text length: {}", text != null ? text.length() : 0);
         
-        return CompletableFuture.runAsync(() -> {
+        return admissionController.submit(() -> {
             try {
                 embeddingCacheManager.storeEmbedding(text, embedding);
+                return null;
             } catch (EmbeddingCacheStoreException e) {
                 logger.error("Async embedding storage failed: {}", e.getMessage());
                 throw new RuntimeException(e);
             }
-        }, executorService);
+        });
     }
     
     /**
@@ -156,14 +202,15 @@ public class AsyncEmbeddingService {
     public CompletableFuture<Void> storeEmbeddingsAsync(List<CachedEmbeddingDocument> documents) {
         logger.debug("Starting async bulk embedding storage for {} documents", documents != null ? documents.size() : 0);
         
-        return CompletableFuture.runAsync(() -> {
+        return admissionController.submit(() -> {
             try {
                 embeddingCacheManager.storeEmbeddings(documents);
+                return null;
             } catch (EmbeddingCacheStoreException e) {
                 logger.error("Async bulk embedding storage failed: {}", e.getMessage());
                 throw new RuntimeException(e);
             }
-        }, executorService);
+        });
     }
     
     /**
@@ -193,26 +240,46 @@ public class AsyncEmbeddingService {
     }
     
     /**
-     * Process multiple texts in parallel
+     * Process multiple texts in parallel on the bulk lane
      * 
      * @param texts List of texts to process
      * @return CompletableFuture containing list of embeddings in the same order
      */
     public CompletableFuture<List<List<Double>>> getEmbeddingsBatchAsync(List<String> texts) {
+        return getEmbeddingsBatchAsync(texts, RequestPriority.BULK);
+    }
+    
+    /**
+     * Process multiple texts with the manager's staged batch pipeline
+     * 
+     * The whole batch is admitted as one request, so a large batch does not fill the admission queue and get shed.
+     * 
+     * @param texts List of texts to process
+     * @param priority Lane the texts are processed in
+     * @return CompletableFuture containing list of embeddings in the same order
+     */
+    public CompletableFuture<List<List<Double>>> getEmbeddingsBatchAsync(List<String> texts, RequestPriority priority) {
         logger.debug("Starting async batch embedding processing for {} texts", texts != null ? texts.size() : 0);
         
         if (texts == null || texts.isEmpty()) {
             return CompletableFuture.completedFuture(Collections.emptyList());
         }
         
-        List<CompletableFuture<List<Double>>> futures = texts.stream()
-                .map(this::getEmbeddingAsync)
-                .collect(Collectors.toList());
-        
-        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
-                .thenApply(v -> futures.stream()
-                        .map(CompletableFuture::join)
-                        .collect(Collectors.toList()));
+        return admissionController.submit(() -> {
+            try {
+                return embeddingCacheManager.getEmbeddings(texts, priority);
+            } catch (EmbeddingCacheStoreException | EmbeddingGeneratorException e) {
+                logger.error("Async batch embedding failed: {}", e.getMessage());
+                throw new RuntimeException(e);
+            }
+        }, priority);
+    }
+    
+    /**
+     * Admission control in front of the executor, for queue depth, wait time and rejection counts
+     */
+    public AdmissionController getAdmissionController() {
+        return admissionController;
     }
     
     /**
@@ -239,12 +306,58 @@ public class AsyncEmbeddingService {
         }, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
     }
     
+    /**
+     * Run index rollover and retention on this service's scheduler
+     * 
+     * @return the started scheduler; stopped by {@link #shutdown()}
+     * @throws IllegalStateException if the manager is not backed by Elasticsearch
+     */
+    public synchronized IndexRolloverScheduler scheduleIndexRollover() {
+        if (indexRolloverScheduler != null) {
+            return indexRolloverScheduler;
+        }
+        ESEmbeddingCacheStore store = embeddingCacheManager.getESEmbeddingCacheStore();
+        if (store == null) {
+            throw new IllegalStateException("Index rollover requires an Elasticsearch cache store");
+        }
+        indexRolloverScheduler = new IndexRolloverScheduler(store, embeddingCacheManager.getEmbeddingCacheManagerConfig(), scheduledExecutorService).start();
+        logger.info("Scheduled index rollover every {} ms", embeddingCacheManager.getEmbeddingCacheManagerConfig().getRolloverCheckIntervalMs());
+        return indexRolloverScheduler;
+    }
+    
+    /**
+     * Optimize read-only cache generations on this service's scheduler
+     * 
+     * @return the started optimizer; stopped by {@link #shutdown()}
+     * @throws IllegalStateException if the manager is not backed by Elasticsearch
+     */
+    public synchronized GenerationOptimizer scheduleGenerationOptimizer() {
+        if (generationOptimizer != null) {
+            return generationOptimizer;
+        }
+        ESEmbeddingCacheStore store = embeddingCacheManager.getESEmbeddingCacheStore();
+        if (store == null) {
+            throw new IllegalStateException("Generation optimization requires an Elasticsearch cache store");
+        }
+        generationOptimizer = new GenerationOptimizer(store, embeddingCacheManager.getEmbeddingCacheManagerConfig(), scheduledExecutorService).start();
+        return generationOptimizer;
+    }
+    
     /**
      * Shutdown the async service and clean up resources
      */
     public void shutdown() {
         logger.info("Shutting down AsyncEmbeddingService");
         
+        if (indexRolloverScheduler != null) {
+            indexRolloverScheduler.stop();
+        }
+        if (generationOptimizer != null) {
+            generationOptimizer.stop();
+        }
+        
+        admissionController.close();
+        
         if (shutdownExecutorOnClose) {
             executorService.shutdown();
             scheduledExecutorService.shutdown();
@@ -0,0 +1,17 @@
+package com.kingname.embeddingstoremanager.async;
+
+/**
+ * How {@link AsyncEmbeddingService} runs the blocking manager calls it wraps
+ */
+public enum AsyncExecutorMode {
+    /**
+     * A fixed pool of max(4, cores) daemon platform threads, as before executor modes were added
+     */
+    FIXED_POOL,
+    /**
+     * One virtual thread per task on JDK 21+, so a call blocked on Elasticsearch or the embedding API
+     * does not hold a platform thread. Virtual threads are always daemon threads, like the pool threads.
+     * Falls back to {@link #FIXED_POOL} on older runtimes.
+     */
+    VIRTUAL_THREADS
+}
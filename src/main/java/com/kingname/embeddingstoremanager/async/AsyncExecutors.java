@@ -0,0 +1,62 @@
+package com.kingname.embeddingstoremanager.async;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates the executor behind {@link AsyncEmbeddingService}. The library targets Java 11, so the JDK 21
+ * virtual-thread executor is looked up reflectively and a platform pool is used when it is missing.
+ */
+public final class AsyncExecutors {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncExecutors.class);
+    private static final Method NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = findVirtualThreadPerTaskExecutor();
+
+    private AsyncExecutors() {
+    }
+
+    private static Method findVirtualThreadPerTaskExecutor() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    public static boolean isVirtualThreadSupported() {
+        return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+    }
+
+    public static int defaultPoolSize() {
+        return Math.max(4, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param mode requested execution mode
+     * @param poolSize platform threads for {@link AsyncExecutorMode#FIXED_POOL} and for the fallback
+     */
+    public static ExecutorService create(AsyncExecutorMode mode, int poolSize) {
+        if (mode == AsyncExecutorMode.VIRTUAL_THREADS) {
+            if (isVirtualThreadSupported()) {
+                try {
+                    return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invoke(null);
+                } catch (ReflectiveOperationException e) {
+                    logger.warn("Failed to create virtual-thread executor, using a fixed pool: {}", e.getMessage());
+                }
+            } else {
+                logger.warn("Virtual threads need JDK 21+ (running {}), using a fixed pool of {} threads",
+                            System.getProperty("java.version"), poolSize);
+            }
+        }
+        // Same factory as the pool AsyncEmbeddingService created before executor modes existed
+        return Executors.newFixedThreadPool(poolSize, r -> {
+            Thread t = new Thread(r, "async-embedding-" + r.hashCode());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+}
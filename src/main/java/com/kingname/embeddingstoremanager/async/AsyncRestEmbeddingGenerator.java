@@ -0,0 +1,247 @@
+package com.kingname.embeddingstoremanager.async;
+
+import com.google.gson.Gson;
+import com.kingname.embeddingstoremanager.EmbeddingCacheManagerConfig;
+import com.kingname.embeddingstoremanager.RestEmbeddingGenerator;
+import com.kingname.embeddingstoremanager.exception.RestEmbeddingGeneratorException;
+import com.kingname.embeddingstoremanager.metrics.RequestStage;
+import com.kingname.embeddingstoremanager.metrics.StageTimings;
+import com.kingname.embeddingstoremanager.vo.EmbeddingResponse;
+import com.kingname.embeddingstoremanager.vo.EmbeddingUsage;
+import com.kingname.embeddingstoremanager.vo.GeneratedEmbeddings;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.retry.Retry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * {@link AsyncEmbeddingGenerator} over the JDK HTTP client. Requests are sent with {@code sendAsync},
+ * so no thread waits on the embedding API. Retries are scheduled instead of slept.
+ */
+public class AsyncRestEmbeddingGenerator implements AsyncEmbeddingGenerator, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncRestEmbeddingGenerator.class);
+
+    private final Gson gson = new Gson();
+    private final EmbeddingCacheManagerConfig ecmConfig;
+    private final ExecutorService httpExecutor;
+    private final ScheduledExecutorService retryScheduler;
+    private final HttpClient httpClient;
+    private final CircuitBreaker circuitBreaker;
+    private final Retry retry;
+    private volatile MeterRegistry meterRegistry;
+    private volatile Counter apiPromptTokens;
+    private volatile Counter apiTotalTokens;
+
+    /**
+     * Share the circuit breaker and retry policy of the blocking generator, so both paths open and close together
+     */
+    public AsyncRestEmbeddingGenerator(EmbeddingCacheManagerConfig ecmConfig, RestEmbeddingGenerator restEmbeddingGenerator) {
+        this(ecmConfig, restEmbeddingGenerator.getCircuitBreaker(), restEmbeddingGenerator.getRetry());
+    }
+
+    public AsyncRestEmbeddingGenerator(EmbeddingCacheManagerConfig ecmConfig, CircuitBreaker circuitBreaker, Retry retry) {
+        this.ecmConfig = ecmConfig;
+        this.circuitBreaker = circuitBreaker;
+        this.retry = retry;
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+        this.httpExecutor = Executors.newFixedThreadPool(threads, daemonThreadFactory("async-embedding-api-"));
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("async-embedding-retry-"));
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(ecmConfig.getConnectionTimeoutMs()))
+                .executor(httpExecutor)
+                .build();
+        registerMetrics(ecmConfig.getMeterRegistry());
+
+        logger.info("AsyncRestEmbeddingGenerator initialized with {} client threads, circuit breaker: {}, retry: {}",
+                    threads, circuitBreaker != null, retry != null);
+    }
+
+    /**
+     * Records the token usage the API reports on the given registry, into the same counters as the blocking generator;
+     * ignored when metrics are disabled
+     */
+    public void registerMetrics(MeterRegistry meterRegistry) {
+        if (meterRegistry == null || !Boolean.TRUE.equals(ecmConfig.getEnableMetrics())) {
+            return;
+        }
+        this.apiPromptTokens = RestEmbeddingGenerator.apiTokenCounter(meterRegistry, "prompt");
+        this.apiTotalTokens = RestEmbeddingGenerator.apiTokenCounter(meterRegistry, "total");
+        this.meterRegistry = meterRegistry;
+    }
+
+    private static ThreadFactory daemonThreadFactory(String prefix) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    @Override
+    public CompletionStage<List<Double>> generateEmbedding(String text) {
+        return execute(() -> callEmbeddingApi(text).thenApply(embeddingResponse -> embeddingResponse.getData().get(0).getEmbedding()));
+    }
+
+    /**
+     * Generates embeddings for all texts with one API call, sending them as the "input" array
+     */
+    @Override
+    public CompletionStage<List<List<Double>>> generateEmbeddings(List<String> texts) {
+        if (texts.isEmpty()) {
+            return CompletableFuture.completedFuture(new ArrayList<>());
+        }
+        return execute(() -> callEmbeddingApi(texts).thenApply(embeddingResponse -> {
+            try {
+                return RestEmbeddingGenerator.toEmbeddings(embeddingResponse, texts.size());
+            } catch (RestEmbeddingGeneratorException e) {
+                throw new CompletionException(e);
+            }
+        }));
+    }
+
+    /**
+     * Generates embeddings with one API call and splits the reported usage across the texts. A single text is sent
+     * as a plain string input, like {@link #generateEmbedding(String)}.
+     */
+    @Override
+    public CompletionStage<GeneratedEmbeddings> generateEmbeddingsWithUsage(List<String> texts) {
+        if (texts.isEmpty()) {
+            return CompletableFuture.completedFuture(GeneratedEmbeddings.builder().embeddings(new ArrayList<>()).build());
+        }
+        return execute(() -> callEmbeddingApi(texts.size() == 1 ? texts.get(0) : texts).thenApply(embeddingResponse -> {
+            try {
+                return RestEmbeddingGenerator.toGeneratedEmbeddings(embeddingResponse, texts);
+            } catch (RestEmbeddingGeneratorException e) {
+                throw new CompletionException(e);
+            }
+        }));
+    }
+
+    private <T> CompletionStage<T> execute(Supplier<CompletionStage<T>> apiCall) {
+        try {
+            checkApiUrl();
+        } catch (RestEmbeddingGeneratorException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        Supplier<CompletionStage<T>> decoratedSupplier = apiCall;
+        if (circuitBreaker != null) {
+            decoratedSupplier = CircuitBreaker.decorateCompletionStage(circuitBreaker, decoratedSupplier);
+        }
+        if (retry != null) {
+            decoratedSupplier = Retry.decorateCompletionStage(retry, retryScheduler, decoratedSupplier);
+        }
+        return decoratedSupplier.get().handle((result, e) -> {
+            if (e == null) {
+                return result;
+            }
+            Throwable cause = AsyncAdapters.unwrap(e);
+            logger.error("Async embedding generation failed after retries and circuit breaker: {}", cause.getMessage());
+            if (cause instanceof RestEmbeddingGeneratorException) {
+                throw new CompletionException(cause);
+            }
+            throw new CompletionException(new RestEmbeddingGeneratorException(cause.getMessage(), cause));
+        });
+    }
+
+    /**
+     * Validates the configured API URL before each call
+     */
+    protected void checkApiUrl() throws RestEmbeddingGeneratorException {
+        RestEmbeddingGenerator.validateApiUrl(this.ecmConfig.getEmbeddingApiUrl());
+    }
+
+    /**
+     * Timings current on the calling thread are captured here, since the response completes on a client thread
+     */
+    private CompletionStage<EmbeddingResponse> callEmbeddingApi(Object input) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("input", input);
+        body.put("model", this.ecmConfig.getModelName());
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(this.ecmConfig.getEmbeddingApiUrl()))
+                .timeout(Duration.ofMillis(this.ecmConfig.getSocketTimeoutMs()))
+                .header("Content-Type", "application/json;charset=UTF-8")
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(body), StandardCharsets.UTF_8));
+        if (ecmConfig.getApiKey() != null && !ecmConfig.getApiKey().trim().isEmpty()) {
+            String headerName = ecmConfig.getApiKeyHeader() != null ? ecmConfig.getApiKeyHeader() : "Authorization";
+            String headerValue = headerName.equalsIgnoreCase("Authorization") ? "Bearer " + ecmConfig.getApiKey() : ecmConfig.getApiKey();
+            request.header(headerName, headerValue);
+        }
+        StageTimings timings = StageTimings.current();
+        long callStartNanos = System.nanoTime();
+        return httpClient.sendAsync(request.build(), HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8))
+                .thenApply(response -> {
+                    long parseStartNanos = System.nanoTime();
+                    if (timings != null) {
+                        timings.add(RequestStage.API_CALL, parseStartNanos - callStartNanos);
+                    }
+                    try {
+                        return parseResponse(response);
+                    } finally {
+                        if (timings != null) {
+                            timings.add(RequestStage.RESPONSE_PARSE, System.nanoTime() - parseStartNanos);
+                        }
+                    }
+                });
+    }
+
+    private EmbeddingResponse parseResponse(HttpResponse<String> response) {
+        if (response.statusCode() != 200) {
+            logger.error("API returned error status: {}", response.statusCode());
+            throw new CompletionException(new RestEmbeddingGeneratorException("API returned error status: " + response.statusCode(), null));
+        }
+        EmbeddingResponse embeddingResponse = gson.fromJson(response.body(), EmbeddingResponse.class);
+        if (embeddingResponse == null || embeddingResponse.getData() == null || embeddingResponse.getData().isEmpty()) {
+            logger.error("Invalid response structure from embedding API");
+            throw new CompletionException(new RestEmbeddingGeneratorException("Invalid response structure from embedding API", null));
+        }
+        recordUsage(embeddingResponse.getUsage());
+        return embeddingResponse;
+    }
+
+    private void recordUsage(EmbeddingUsage usage) {
+        if (usage == null || this.meterRegistry == null) {
+            return;
+        }
+        if (usage.getPrompt_tokens() != null) {
+            apiPromptTokens.increment(usage.getPrompt_tokens());
+        }
+        if (usage.getTotal_tokens() != null) {
+            apiTotalTokens.increment(usage.getTotal_tokens());
+        }
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return this.circuitBreaker;
+    }
+
+    @Override
+    public void close() {
+        retryScheduler.shutdownNow();
+        httpExecutor.shutdown();
+    }
+}
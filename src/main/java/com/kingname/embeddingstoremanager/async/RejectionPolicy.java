@@ -0,0 +1,19 @@
+package com.kingname.embeddingstoremanager.async;
+
+/**
+ * What {@link AdmissionController} does with a request that arrives while its queue is full
+ */
+public enum RejectionPolicy {
+    /**
+     * Fail the new request with {@link com.kingname.embeddingstoremanager.exception.EmbeddingRequestRejectedException}
+     */
+    REJECT,
+    /**
+     * Run the new request on the submitting thread, slowing the caller down
+     */
+    CALLER_RUNS,
+    /**
+     * Admit the new request and reject the queued one closest to its deadline
+     */
+    DROP_OLDEST_BY_DEADLINE
+}
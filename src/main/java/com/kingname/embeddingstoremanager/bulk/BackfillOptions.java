@@ -0,0 +1,30 @@
+package com.kingname.embeddingstoremanager.bulk;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.nio.file.Path;
+
+/**
+ * Options for pre-embedding a text corpus with {@link EmbeddingBackfillJob}
+ */
+@Builder
+@Getter
+@ToString
+public class BackfillOptions {
+    @Builder.Default
+    private final Integer batchSize = 1_000;             // Texts looked up, generated and stored as one unit
+    @Builder.Default
+    private final Integer parallelism = 4;               // Batches processed at once
+    @Builder.Default
+    private final Integer maxInFlightBatches = 8;        // Batches read ahead of the slowest one
+    @Builder.Default
+    private final Integer storeAttempts = 3;             // Bulk stores of a batch's rejected documents before the batch fails uncommitted
+    private final Double maxTextsPerSecond;              // Generation rate limit for cache misses; unlimited when null
+    private final Long maxTokensPerMinute;               // Generation token budget, estimated with estimatedCharsPerToken; unlimited when null
+    private final Path checkpointPath;                   // Resume point; no checkpointing when null
+    private final Long totalTexts;                       // Corpus size for the ETA; counted up front by runFile when null
+    @Builder.Default
+    private final Long progressIntervalMs = 10_000L;     // How often throughput and ETA are logged
+}
@@ -0,0 +1,44 @@
+package com.kingname.embeddingstoremanager.bulk;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Snapshot of a running or finished backfill
+ */
+@Getter
+@Builder
+@ToString
+public class BackfillProgress {
+
+    private final long textsRead;
+    private final long textsSkipped;      // Texts before the checkpoint on resume
+    private final long alreadyCached;
+    private final long generated;
+    private final long failed;            // Generated but rejected by the store
+    private final long elapsedMs;
+    private final long checkpointLine;
+    private final Long totalTexts;
+    private final boolean paused;
+    private final boolean finished;
+
+    public double getTextsPerSecond() {
+        return elapsedMs > 0 ? textsRead * 1000.0 / elapsedMs : 0.0;
+    }
+
+    public double getGeneratedPerSecond() {
+        return elapsedMs > 0 ? generated * 1000.0 / elapsedMs : 0.0;
+    }
+
+    /**
+     * Estimated time to finish at the throughput so far, or null when the corpus size or throughput is unknown
+     */
+    public Long getEtaMs() {
+        if (totalTexts == null || textsRead == 0 || elapsedMs == 0) {
+            return null;
+        }
+        long remaining = Math.max(0, totalTexts - textsSkipped - textsRead);
+        return (long) (remaining * 1000.0 / getTextsPerSecond());
+    }
+}
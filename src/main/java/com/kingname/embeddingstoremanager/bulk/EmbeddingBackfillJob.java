@@ -0,0 +1,343 @@
+package com.kingname.embeddingstoremanager.bulk;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.RateLimiter;
+import com.kingname.embeddingstoremanager.EmbeddingCacheManager;
+import com.kingname.embeddingstoremanager.exception.EmbeddingCacheManagerException;
+import com.kingname.embeddingstoremanager.exception.EmbeddingCacheStoreException;
+import com.kingname.embeddingstoremanager.priority.RequestPriority;
+import com.kingname.embeddingstoremanager.vo.BulkStoreResult;
+import com.kingname.embeddingstoremanager.vo.CachedEmbeddingDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Pre-embeds a text corpus into the cache.
+ * <p>
+ * Texts are read incrementally in batches. Each batch is normalized and deduplicated, and its cached texts are skipped
+ * with one multi-lookup. The misses are generated in embeddingApiBatchSize API calls within the configured rate and
+ * token budget, and bulk stored. Lookups, API calls and stores go through the manager's {@link RequestPriority#BULK}
+ * lanes, so a backfill cannot take the capacity reserved for interactive traffic. Documents the store rejects are
+ * re-sent up to {@code storeAttempts} times; a batch that still has rejections fails without being checkpointed.
+ * At most {@code maxInFlightBatches} batches are held in memory. When a checkpoint path is configured the job resumes
+ * after the last fully stored text; it can also be paused and resumed while running.
+ */
+public class EmbeddingBackfillJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddingBackfillJob.class);
+
+    private final EmbeddingCacheManager embeddingCacheManager;
+    private final BackfillOptions options;
+    private final RateLimiter textRateLimiter;
+    private final RateLimiter tokenRateLimiter;
+    private final double charsPerToken;
+
+    private final AtomicLong textsRead = new AtomicLong();
+    private final AtomicLong alreadyCached = new AtomicLong();
+    private final AtomicLong generated = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final Object pauseLock = new Object();
+    private volatile boolean paused;
+    private volatile long pausedAt;
+    private volatile long pausedMs;
+    private volatile long textsSkipped;
+    private volatile long startTime;
+    private volatile boolean finished;
+    private volatile Long totalTexts;
+    private volatile ImportCheckpoint checkpoint;
+
+    public EmbeddingBackfillJob(EmbeddingCacheManager embeddingCacheManager, BackfillOptions options) {
+        this.embeddingCacheManager = embeddingCacheManager;
+        this.options = options;
+        this.textRateLimiter = Objects.nonNull(options.getMaxTextsPerSecond())
+                ? RateLimiter.create(options.getMaxTextsPerSecond()) : null;
+        this.tokenRateLimiter = Objects.nonNull(options.getMaxTokensPerMinute())
+                ? RateLimiter.create(options.getMaxTokensPerMinute() / 60.0) : null;
+        this.charsPerToken = embeddingCacheManager.getEmbeddingCacheManagerConfig().getEstimatedCharsPerToken();
+        this.totalTexts = options.getTotalTexts();
+    }
+
+    /**
+     * Backfill every line of the given UTF-8 file, one text per line
+     *
+     * @return final progress of the backfill
+     */
+    public BackfillProgress runFile(Path file) throws EmbeddingCacheManagerException {
+        logger.info("Starting embedding backfill from {}", file);
+        try {
+            if (Objects.isNull(totalTexts)) {
+                try (Stream<String> lines = Files.lines(file, StandardCharsets.UTF_8)) {
+                    totalTexts = lines.count();
+                }
+            }
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                return run(reader.lines().iterator());
+            }
+        } catch (IOException e) {
+            throw new EmbeddingCacheManagerException(e.getMessage(), e);
+        } catch (UncheckedIOException e) {
+            throw new EmbeddingCacheManagerException(e.getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Backfill every text of the given source; positions in the source are the checkpoint lines
+     *
+     * @return final progress of the backfill
+     */
+    public BackfillProgress run(Iterator<String> texts) throws EmbeddingCacheManagerException {
+        startTime = System.currentTimeMillis();
+        ExecutorService workers = Executors.newFixedThreadPool(options.getParallelism(), namedDaemonThreads("embedding-backfill-"));
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(namedDaemonThreads("embedding-backfill-progress-"));
+        try {
+            checkpoint = ImportCheckpoint.load(options.getCheckpointPath());
+            logger.info("Backfilling with batch size {}, {} workers, {} texts/s, {} tokens/min",
+                    options.getBatchSize(), options.getParallelism(), options.getMaxTextsPerSecond(), options.getMaxTokensPerMinute());
+            reporter.scheduleAtFixedRate(this::logProgress, options.getProgressIntervalMs(),
+                    options.getProgressIntervalMs(), TimeUnit.MILLISECONDS);
+
+            readBatches(texts, workers);
+            finished = true;
+            BackfillProgress progress = getProgress();
+            logger.info("Embedding backfill finished: {}", progress);
+            return progress;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EmbeddingCacheManagerException(e.getMessage(), e);
+        } catch (IOException e) {
+            throw new EmbeddingCacheManagerException(e.getMessage(), e);
+        } finally {
+            reporter.shutdownNow();
+            workers.shutdownNow();
+        }
+    }
+
+    private void readBatches(Iterator<String> texts, ExecutorService workers)
+            throws InterruptedException, EmbeddingCacheManagerException {
+        int maxInFlight = options.getMaxInFlightBatches();
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        AtomicReference<Throwable> error = new AtomicReference<>();
+
+        long skipLines = checkpoint.getCommittedLine();
+        long lineNumber = 0;
+        long batchStart = skipLines;
+        List<String> batch = new ArrayList<>(options.getBatchSize());
+        while (Objects.isNull(error.get()) && texts.hasNext()) {
+            String text = texts.next();
+            lineNumber++;
+            if (lineNumber <= skipLines) {
+                textsSkipped = lineNumber;
+                continue;
+            }
+            batch.add(text);
+            textsRead.incrementAndGet();
+            if (batch.size() >= options.getBatchSize()) {
+                awaitResumed();
+                submit(workers, inFlight, error, batch, batchStart, lineNumber);
+                batch = new ArrayList<>(options.getBatchSize());
+                batchStart = lineNumber;
+            }
+        }
+        if (!batch.isEmpty() && Objects.isNull(error.get())) {
+            awaitResumed();
+            submit(workers, inFlight, error, batch, batchStart, lineNumber);
+        }
+        inFlight.acquire(maxInFlight); // wait for every submitted batch
+        inFlight.release(maxInFlight);
+
+        Throwable cause = error.get();
+        if (Objects.nonNull(cause)) {
+            if (cause instanceof EmbeddingCacheManagerException) {
+                throw (EmbeddingCacheManagerException) cause;
+            }
+            throw new EmbeddingCacheManagerException(cause.getMessage(), cause);
+        }
+    }
+
+    private void submit(ExecutorService workers, Semaphore inFlight, AtomicReference<Throwable> error,
+                        List<String> texts, long startLine, long endLine) throws InterruptedException {
+        inFlight.acquire();
+        workers.execute(() -> {
+            try {
+                processBatch(texts);
+                checkpoint.complete(startLine, endLine);
+            } catch (Throwable t) {
+                logger.error("Backfill batch for lines {}-{} failed: {}", startLine + 1, endLine, t.getMessage());
+                error.compareAndSet(null, t);
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    private void processBatch(List<String> texts) throws EmbeddingCacheManagerException, InterruptedException {
+        List<String> distinctTexts = texts.stream()
+                .filter(text -> Objects.nonNull(text) && !text.trim().isEmpty())
+                .map(embeddingCacheManager::normalize)
+                .distinct()
+                .collect(Collectors.toList());
+        if (distinctTexts.isEmpty()) {
+            return;
+        }
+        Map<String, List<Double>> cached = embeddingCacheManager.getCachedEmbeddings(distinctTexts, RequestPriority.BULK);
+        alreadyCached.addAndGet(cached.size());
+        List<String> misses = distinctTexts.stream().filter(text -> !cached.containsKey(text)).collect(Collectors.toList());
+        if (misses.isEmpty()) {
+            return;
+        }
+
+        List<CachedEmbeddingDocument> documents = new ArrayList<>(misses.size());
+        int apiBatchSize = embeddingCacheManager.getEmbeddingCacheManagerConfig().getEmbeddingApiBatchSize();
+        for (List<String> apiBatch : Lists.partition(misses, apiBatchSize)) {
+            awaitResumed();
+            throttle(apiBatch);
+            List<List<Double>> embeddings = embeddingCacheManager.generateEmbeddings(apiBatch, RequestPriority.BULK);
+            for (int i = 0; i < apiBatch.size(); i++) {
+                documents.add(CachedEmbeddingDocument.builder().text(apiBatch.get(i)).embedding(embeddings.get(i)).build());
+            }
+        }
+        store(documents);
+    }
+
+    /**
+     * Bulk stores the documents, re-sending the rejected ones; throws when some are still rejected after the last attempt
+     */
+    private void store(List<CachedEmbeddingDocument> documents) throws EmbeddingCacheStoreException {
+        List<CachedEmbeddingDocument> pending = documents;
+        for (int attempt = 1; ; attempt++) {
+            BulkStoreResult result = embeddingCacheManager.bulkStoreEmbeddings(pending, RequestPriority.BULK);
+            generated.addAndGet(result.getSucceeded());
+            if (!result.hasFailures()) {
+                return;
+            }
+            if (attempt >= options.getStoreAttempts()) {
+                failed.addAndGet(result.getFailed());
+                throw new EmbeddingCacheStoreException(result.getFailed() + " documents rejected by the store after "
+                        + attempt + " attempts, first failure: " + result.getFailures().get(0), null);
+            }
+            logger.warn("{} documents rejected by the store, retrying them; first failure: {}", result.getFailed(), result.getFailures().get(0));
+            List<CachedEmbeddingDocument> rejected = new ArrayList<>(result.getFailed());
+            for (BulkStoreResult.ItemFailure failure : result.getFailures()) {
+                rejected.add(pending.get(failure.getPosition()));
+            }
+            pending = rejected;
+        }
+    }
+
+    private void throttle(List<String> texts) {
+        if (Objects.nonNull(textRateLimiter)) {
+            textRateLimiter.acquire(texts.size());
+        }
+        if (Objects.nonNull(tokenRateLimiter)) {
+            long characters = texts.stream().mapToLong(String::length).sum();
+            tokenRateLimiter.acquire((int) Math.max(1, Math.min(Integer.MAX_VALUE, Math.ceil(characters / charsPerToken))));
+        }
+    }
+
+    /**
+     * Stop reading and generating after the calls in flight; stored progress and the checkpoint are kept
+     */
+    public void pause() {
+        synchronized (pauseLock) {
+            if (!paused) {
+                paused = true;
+                pausedAt = System.currentTimeMillis();
+                logger.info("Embedding backfill paused at checkpoint line {}", getProgress().getCheckpointLine());
+            }
+        }
+    }
+
+    public void resume() {
+        synchronized (pauseLock) {
+            if (paused) {
+                pausedMs += System.currentTimeMillis() - pausedAt;
+                paused = false;
+                pauseLock.notifyAll();
+                logger.info("Embedding backfill resumed");
+            }
+        }
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    private void awaitResumed() throws InterruptedException {
+        if (!paused) {
+            return;
+        }
+        synchronized (pauseLock) {
+            while (paused) {
+                pauseLock.wait();
+            }
+        }
+    }
+
+    private void logProgress() {
+        BackfillProgress progress = getProgress();
+        if (progress.isPaused()) {
+            return;
+        }
+        Long etaMs = progress.getEtaMs();
+        logger.info("Backfill progress: {} read, {} cached, {} generated, {} failed, {} texts/s, {} generated/s, ETA {}",
+                progress.getTextsRead(), progress.getAlreadyCached(), progress.getGenerated(), progress.getFailed(),
+                String.format("%.0f", progress.getTextsPerSecond()), String.format("%.1f", progress.getGeneratedPerSecond()),
+                Objects.nonNull(etaMs) ? String.format("%.1f min", etaMs / 60_000.0) : "unknown");
+    }
+
+    /**
+     * Current progress; safe to call from another thread while the backfill runs.
+     * Elapsed time excludes time spent paused.
+     */
+    public BackfillProgress getProgress() {
+        ImportCheckpoint current = checkpoint;
+        long now = System.currentTimeMillis();
+        long elapsedMs = 0;
+        if (startTime > 0) {
+            elapsedMs = now - startTime - pausedMs - (paused ? now - pausedAt : 0);
+        }
+        return BackfillProgress.builder()
+                .textsRead(textsRead.get())
+                .textsSkipped(textsSkipped)
+                .alreadyCached(alreadyCached.get())
+                .generated(generated.get())
+                .failed(failed.get())
+                .elapsedMs(Math.max(0, elapsedMs))
+                .checkpointLine(Objects.nonNull(current) ? current.getCommittedLine() : 0)
+                .totalTexts(totalTexts)
+                .paused(paused)
+                .finished(finished)
+                .build();
+    }
+
+    private static java.util.concurrent.ThreadFactory namedDaemonThreads(String prefix) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
@@ -0,0 +1,76 @@
+package com.kingname.embeddingstoremanager.bulk;
+
+import com.kingname.embeddingstoremanager.ESEmbeddingCacheStore;
+import com.kingname.embeddingstoremanager.EmbeddingCacheManager;
+import com.kingname.embeddingstoremanager.EmbeddingCacheManagerConfig;
+
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Command line entry point for {@link EmbeddingImporter}.
+ * <pre>
+ * java -cp embeddingStoreManager.jar:... com.kingname.embeddingstoremanager.bulk.EmbeddingImportCli \
+ *     --file embeddings.jsonl --hosts es1,es2 --port 9200 --alias embeddings-cache \
+ *     [--checkpoint import.ckpt] [--batch-size 2000] [--parallelism 8] [--max-length 3000] [--dimension 768]
+ * </pre>
+ */
+public class EmbeddingImportCli {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> params = parseArgs(args);
+        if (!params.containsKey("file") || !params.containsKey("hosts") || !params.containsKey("alias")) {
+            System.err.println("Usage: EmbeddingImportCli --file <path> --hosts <h1,h2> --alias <alias> [--port 9200]"
+                    + " [--checkpoint <path>] [--batch-size n] [--parallelism n] [--max-length n] [--dimension n]");
+            System.exit(2);
+        }
+
+        EmbeddingCacheManagerConfig.EmbeddingCacheManagerConfigBuilder configBuilder = EmbeddingCacheManagerConfig.builder()
+                .elasticSearchCacheHosts(Arrays.asList(params.get("hosts").split(",")))
+                .elasticSearchCachePort(Integer.parseInt(params.getOrDefault("port", "9200")))
+                .elasticSearchCacheAliasName(params.get("alias"))
+                .enableCircuitBreaker(false)
+                .enableRetry(false);
+        if (params.containsKey("max-length")) {
+            configBuilder.maxLength(Integer.parseInt(params.get("max-length")));
+        }
+        EmbeddingCacheManagerConfig config = configBuilder.build();
+
+        ImportOptions.ImportOptionsBuilder optionsBuilder = ImportOptions.builder();
+        if (params.containsKey("checkpoint")) {
+            optionsBuilder.checkpointPath(Paths.get(params.get("checkpoint")));
+        }
+        if (params.containsKey("batch-size")) {
+            optionsBuilder.batchSize(Integer.parseInt(params.get("batch-size")));
+        }
+        if (params.containsKey("parallelism")) {
+            optionsBuilder.parallelism(Integer.parseInt(params.get("parallelism")));
+        }
+        if (params.containsKey("dimension")) {
+            optionsBuilder.expectedDimension(Integer.parseInt(params.get("dimension")));
+        }
+
+        EmbeddingCacheManager manager = new EmbeddingCacheManager(config, new ESEmbeddingCacheStore(config));
+        try {
+            ImportProgress progress = new EmbeddingImporter(manager, optionsBuilder.build())
+                    .importFile(Paths.get(params.get("file")));
+            System.out.printf("Imported %d documents (%d invalid, %d failed) in %.1fs - %.0f docs/s, %.2f MB/s%n",
+                    progress.getImported(), progress.getInvalid(), progress.getFailed(), progress.getElapsedMs() / 1000.0,
+                    progress.getDocsPerSecond(), progress.getMegabytesPerSecond());
+        } finally {
+            manager.shutdown();
+        }
+    }
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> params = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].startsWith("--")) {
+                params.put(args[i].substring(2), args[i + 1]);
+            }
+        }
+        return params;
+    }
+}
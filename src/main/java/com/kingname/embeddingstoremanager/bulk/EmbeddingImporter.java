@@ -0,0 +1,315 @@
+package com.kingname.embeddingstoremanager.bulk;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.io.CountingInputStream;
+import com.kingname.embeddingstoremanager.ESEmbeddingCacheStore;
+import com.kingname.embeddingstoremanager.EmbeddingCacheManager;
+import com.kingname.embeddingstoremanager.EmbeddingCacheStore;
+import com.kingname.embeddingstoremanager.HashGenerator;
+import com.kingname.embeddingstoremanager.WriteBehindEmbeddingCacheStore;
+import com.kingname.embeddingstoremanager.exception.EmbeddingCacheManagerException;
+import com.kingname.embeddingstoremanager.exception.EmbeddingCacheStoreException;
+import com.kingname.embeddingstoremanager.vo.BulkStoreResult;
+import com.kingname.embeddingstoremanager.vo.CachedEmbeddingDocument;
+import com.kingname.embeddingstoremanager.vo.EsCachedEmbeddingDocument;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Streams precomputed embeddings from a JSONL/NDJSON file into the cache store.
+ * <p>
+ * Each line is a JSON object with {@code text} and {@code embedding} fields and an optional {@code id}.
+ * The file is read incrementally; batches of lines are parsed, normalized and hashed on a worker pool
+ * and bulk stored, with at most {@code maxInFlightBatches} batches held in memory at a time.
+ * Documents the store rejects are re-sent up to {@code storeAttempts} times with a doubling backoff; a batch that
+ * still has rejections fails the import without being checkpointed.
+ * When a checkpoint path is configured the import resumes after the last fully stored line.
+ */
+public class EmbeddingImporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddingImporter.class);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final int MAX_LOGGED_INVALID_LINES = 10;
+
+    private final EmbeddingCacheManager embeddingCacheManager;
+    private final EmbeddingCacheStore embeddingCacheStore;
+    private final ImportOptions options;
+    private final HashGenerator hashGenerator;
+
+    private final AtomicLong linesRead = new AtomicLong();
+    private final AtomicLong imported = new AtomicLong();
+    private final AtomicLong invalid = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong bytesRead = new AtomicLong();
+    private volatile long linesSkipped;
+    private volatile long startTime;
+    private volatile boolean finished;
+    private volatile ImportCheckpoint checkpoint;
+
+    public EmbeddingImporter(EmbeddingCacheManager embeddingCacheManager, ImportOptions options) {
+        this.embeddingCacheManager = embeddingCacheManager;
+        this.embeddingCacheStore = embeddingCacheManager.getEmbeddingCacheStore();
+        this.options = options;
+        this.hashGenerator = new HashGenerator(embeddingCacheManager.getEmbeddingCacheManagerConfig().getKeyHashStrategy());
+    }
+
+    /**
+     * Import every line of the given file
+     *
+     * @return final progress of the import
+     */
+    public ImportProgress importFile(Path file) throws EmbeddingCacheManagerException {
+        logger.info("Starting embedding import from {}", file);
+        try (InputStream in = Files.newInputStream(file)) {
+            return importStream(in);
+        } catch (IOException e) {
+            throw new EmbeddingCacheManagerException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Import every line of the given UTF-8 stream
+     *
+     * @return final progress of the import
+     */
+    public ImportProgress importStream(InputStream in) throws EmbeddingCacheManagerException {
+        startTime = System.currentTimeMillis();
+        ExecutorService workers = Executors.newFixedThreadPool(options.getParallelism(), namedDaemonThreads("embedding-import-"));
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(namedDaemonThreads("embedding-import-progress-"));
+        try {
+            checkpoint = ImportCheckpoint.load(options.getCheckpointPath());
+            Integer dimension = resolveDimension();
+            logger.info("Importing with batch size {}, {} workers, expected dimension {}",
+                    options.getBatchSize(), options.getParallelism(), dimension);
+            reporter.scheduleAtFixedRate(this::logProgress, options.getProgressIntervalMs(),
+                    options.getProgressIntervalMs(), TimeUnit.MILLISECONDS);
+
+            readBatches(in, workers, dimension);
+            finished = true;
+            ImportProgress progress = getProgress();
+            logger.info("Embedding import finished: {}", progress);
+            return progress;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EmbeddingCacheManagerException(e.getMessage(), e);
+        } catch (IOException e) {
+            throw new EmbeddingCacheManagerException(e.getMessage(), e);
+        } finally {
+            reporter.shutdownNow();
+            workers.shutdownNow();
+        }
+    }
+
+    private void readBatches(InputStream in, ExecutorService workers, Integer dimension)
+            throws IOException, InterruptedException, EmbeddingCacheManagerException {
+        int maxInFlight = options.getMaxInFlightBatches();
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        CountingInputStream countingIn = new CountingInputStream(in);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(countingIn, StandardCharsets.UTF_8));
+
+        long skipLines = checkpoint.getCommittedLine();
+        long lineNumber = 0;
+        long batchStart = skipLines;
+        long baseBytes = 0;
+        List<String> batch = new ArrayList<>(options.getBatchSize());
+        String line;
+        while (Objects.isNull(error.get()) && (line = reader.readLine()) != null) {
+            lineNumber++;
+            if (lineNumber <= skipLines) {
+                linesSkipped = lineNumber;
+                baseBytes = countingIn.getCount();
+                continue;
+            }
+            batch.add(line);
+            linesRead.incrementAndGet();
+            if (batch.size() >= options.getBatchSize()) {
+                bytesRead.set(countingIn.getCount() - baseBytes);
+                submit(workers, inFlight, error, batch, batchStart, lineNumber, dimension);
+                batch = new ArrayList<>(options.getBatchSize());
+                batchStart = lineNumber;
+            }
+        }
+        bytesRead.set(countingIn.getCount() - baseBytes);
+        if (!batch.isEmpty() && Objects.isNull(error.get())) {
+            submit(workers, inFlight, error, batch, batchStart, lineNumber, dimension);
+        }
+        inFlight.acquire(maxInFlight); // wait for every submitted batch
+        inFlight.release(maxInFlight);
+
+        Throwable cause = error.get();
+        if (Objects.nonNull(cause)) {
+            if (cause instanceof EmbeddingCacheManagerException) {
+                throw (EmbeddingCacheManagerException) cause;
+            }
+            throw new EmbeddingCacheManagerException(cause.getMessage(), cause);
+        }
+    }
+
+    private void submit(ExecutorService workers, Semaphore inFlight, AtomicReference<Throwable> error,
+                        List<String> lines, long startLine, long endLine, Integer dimension) throws InterruptedException {
+        inFlight.acquire();
+        workers.execute(() -> {
+            try {
+                processBatch(lines, dimension);
+                checkpoint.complete(startLine, endLine);
+            } catch (Throwable t) {
+                logger.error("Import batch for lines {}-{} failed: {}", startLine + 1, endLine, t.getMessage());
+                error.compareAndSet(null, t);
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    private void processBatch(List<String> lines, Integer dimension) throws EmbeddingCacheManagerException, InterruptedException {
+        List<CachedEmbeddingDocument> documents = new ArrayList<>(lines.size());
+        for (String line : lines) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            try {
+                ImportRecord record = OBJECT_MAPPER.readValue(line, ImportRecord.class);
+                if (Objects.isNull(record.getText()) || Objects.isNull(record.getEmbedding()) || record.getEmbedding().isEmpty()) {
+                    recordInvalid("missing text or embedding", line);
+                    continue;
+                }
+                if (Objects.nonNull(dimension) && record.getEmbedding().size() != dimension) {
+                    recordInvalid("dimension " + record.getEmbedding().size() + " does not match " + dimension, line);
+                    continue;
+                }
+                String text = embeddingCacheManager.normalize(record.getText());
+                documents.add(EsCachedEmbeddingDocument.builder()
+                        .id(record.getId())
+                        .hash(hashGenerator.getHash(text))
+                        .text(text)
+                        .embedding(record.getEmbedding())
+                        .build());
+            } catch (IOException e) {
+                recordInvalid(e.getMessage(), line);
+            }
+        }
+        if (documents.isEmpty()) {
+            return;
+        }
+        store(documents);
+    }
+
+    /**
+     * Bulk stores the documents, re-sending the rejected ones after a backoff; throws when some are still rejected
+     * after the last attempt
+     */
+    private void store(List<CachedEmbeddingDocument> documents) throws EmbeddingCacheStoreException, InterruptedException {
+        List<CachedEmbeddingDocument> pending = documents;
+        long backoffMs = options.getStoreRetryBackoffMs();
+        for (int attempt = 1; ; attempt++) {
+            BulkStoreResult result = embeddingCacheStore.bulkStoreEmbeddings(pending);
+            imported.addAndGet(result.getSucceeded());
+            if (!result.hasFailures()) {
+                return;
+            }
+            if (attempt >= options.getStoreAttempts()) {
+                failed.addAndGet(result.getFailed());
+                throw new EmbeddingCacheStoreException(result.getFailed() + " documents rejected by the store after "
+                        + attempt + " attempts, first failure: " + result.getFailures().get(0), null);
+            }
+            logger.warn("{} documents rejected by the store, retrying them in {} ms; first failure: {}",
+                    result.getFailed(), backoffMs, result.getFailures().get(0));
+            List<CachedEmbeddingDocument> rejected = new ArrayList<>(result.getFailed());
+            for (BulkStoreResult.ItemFailure failure : result.getFailures()) {
+                rejected.add(pending.get(failure.getPosition()));
+            }
+            pending = rejected;
+            TimeUnit.MILLISECONDS.sleep(backoffMs);
+            backoffMs *= 2;
+        }
+    }
+
+    private void recordInvalid(String reason, String line) {
+        if (invalid.incrementAndGet() <= MAX_LOGGED_INVALID_LINES) {
+            logger.warn("Skipping invalid import line ({}): {}", reason,
+                    line.length() > 200 ? line.substring(0, 200) + "..." : line);
+        }
+    }
+
+    private Integer resolveDimension() throws EmbeddingCacheManagerException {
+        if (Objects.nonNull(options.getExpectedDimension())) {
+            return options.getExpectedDimension();
+        }
+        EmbeddingCacheStore store = embeddingCacheStore;
+        if (store instanceof WriteBehindEmbeddingCacheStore) {
+            store = ((WriteBehindEmbeddingCacheStore) store).getDelegate();
+        }
+        if (store instanceof ESEmbeddingCacheStore) {
+            return ((ESEmbeddingCacheStore) store).getEmbeddingDimension();
+        }
+        return null;
+    }
+
+    private void logProgress() {
+        ImportProgress progress = getProgress();
+        logger.info("Import progress: {} imported, {} invalid, {} failed, {} lines read, {} docs/s, {} MB/s",
+                progress.getImported(), progress.getInvalid(), progress.getFailed(), progress.getLinesRead(),
+                String.format("%.0f", progress.getDocsPerSecond()), String.format("%.2f", progress.getMegabytesPerSecond()));
+    }
+
+    /**
+     * Current progress; safe to call from another thread while the import runs
+     */
+    public ImportProgress getProgress() {
+        ImportCheckpoint current = checkpoint;
+        return ImportProgress.builder()
+                .linesRead(linesRead.get())
+                .linesSkipped(linesSkipped)
+                .imported(imported.get())
+                .invalid(invalid.get())
+                .failed(failed.get())
+                .bytesRead(bytesRead.get())
+                .elapsedMs(startTime > 0 ? System.currentTimeMillis() - startTime : 0)
+                .checkpointLine(Objects.nonNull(current) ? current.getCommittedLine() : 0)
+                .finished(finished)
+                .build();
+    }
+
+    private static java.util.concurrent.ThreadFactory namedDaemonThreads(String prefix) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    static class ImportRecord {
+        private String id;
+        private String text;
+        private List<Double> embedding;
+    }
+}
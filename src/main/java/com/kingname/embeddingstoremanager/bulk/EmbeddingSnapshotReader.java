@@ -0,0 +1,129 @@
+package com.kingname.embeddingstoremanager.bulk;
+
+import com.kingname.embeddingstoremanager.vo.EsCachedEmbeddingDocument;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads snapshots written by {@link EmbeddingSnapshotWriter}
+ */
+public class EmbeddingSnapshotReader implements Closeable {
+
+    private final DataInputStream in;
+    private final VectorEncoding encoding;
+    private final byte version;
+    private final Inflater inflater = new Inflater();
+    private byte[] compressed = new byte[0];
+    private DataInputStream block;
+    private boolean finished;
+
+    public EmbeddingSnapshotReader(Path file) throws IOException {
+        this(Files.newInputStream(file));
+    }
+
+    public EmbeddingSnapshotReader(InputStream in) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(in, 64 * 1024));
+        byte[] magic = new byte[EmbeddingSnapshotWriter.MAGIC.length];
+        this.in.readFully(magic);
+        if (!Arrays.equals(magic, EmbeddingSnapshotWriter.MAGIC)) {
+            throw new IOException("Not an embedding snapshot");
+        }
+        this.version = this.in.readByte();
+        if (version < 1 || version > EmbeddingSnapshotWriter.FORMAT_VERSION) {
+            throw new IOException("Unsupported snapshot version: " + version);
+        }
+        this.encoding = VectorEncoding.fromCode(this.in.readByte());
+    }
+
+    public VectorEncoding getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * Read the next entry
+     *
+     * @return the next document with hash, text, embedding and token count (null in version 1 snapshots),
+     * or null at the end of the snapshot
+     */
+    public EsCachedEmbeddingDocument next() throws IOException {
+        while (block == null || block.available() == 0) {
+            if (finished || !readBlock()) {
+                return null;
+            }
+        }
+        String hash = new String(readBytes(block.readInt()), StandardCharsets.UTF_8);
+        int textLength = block.readInt();
+        String text = textLength < 0 ? null : new String(readBytes(textLength), StandardCharsets.UTF_8);
+        int dimension = block.readInt();
+        List<Double> embedding = new ArrayList<>(dimension);
+        for (int i = 0; i < dimension; i++) {
+            float value = encoding == VectorEncoding.FLOAT16 ? VectorEncoding.fromHalf(block.readShort()) : block.readFloat();
+            embedding.add((double) value);
+        }
+        long tokenCount = version >= 2 ? block.readLong() : -1L;
+        return EsCachedEmbeddingDocument.builder()
+                .hash(hash)
+                .text(text)
+                .embedding(embedding)
+                .token_count(tokenCount >= 0 ? tokenCount : null)
+                .build();
+    }
+
+    private byte[] readBytes(int length) throws IOException {
+        byte[] bytes = new byte[length];
+        block.readFully(bytes);
+        return bytes;
+    }
+
+    private boolean readBlock() throws IOException {
+        int rawLength = in.readInt();
+        if (rawLength == 0) {
+            finished = true;
+            return false;
+        }
+        int compressedLength = in.readInt();
+        if (compressed.length < compressedLength) {
+            compressed = new byte[compressedLength];
+        }
+        in.readFully(compressed, 0, compressedLength);
+        byte[] raw = new byte[rawLength];
+        try {
+            inflater.reset();
+            inflater.setInput(compressed, 0, compressedLength);
+            int inflated = 0;
+            while (inflated < rawLength && !inflater.finished()) {
+                int count = inflater.inflate(raw, inflated, rawLength - inflated);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                inflated += count;
+            }
+            if (inflated != rawLength) {
+                throw new IOException("Truncated snapshot block");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt snapshot block: " + e.getMessage(), e);
+        }
+        block = new DataInputStream(new ByteArrayInputStream(raw));
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+        in.close();
+    }
+}
@@ -0,0 +1,126 @@
+package com.kingname.embeddingstoremanager.bulk;
+
+import com.kingname.embeddingstoremanager.EmbeddingCacheStore;
+import com.kingname.embeddingstoremanager.exception.EmbeddingCacheManagerException;
+import com.kingname.embeddingstoremanager.vo.BulkStoreResult;
+import com.kingname.embeddingstoremanager.vo.CachedEmbeddingDocument;
+import com.kingname.embeddingstoremanager.vo.EsCachedEmbeddingDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Restores a binary snapshot into any {@link EmbeddingCacheStore}.
+ * Decoding the next batch overlaps with bulk storing the previous one.
+ */
+public class EmbeddingSnapshotRestorer {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddingSnapshotRestorer.class);
+
+    private final EmbeddingCacheStore cacheStore;
+    private final int batchSize;
+
+    public EmbeddingSnapshotRestorer(EmbeddingCacheStore cacheStore) {
+        this(cacheStore, 5_000);
+    }
+
+    public EmbeddingSnapshotRestorer(EmbeddingCacheStore cacheStore, int batchSize) {
+        this.cacheStore = cacheStore;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Store every entry of the given snapshot
+     *
+     * @return summary of stored and failed entries
+     */
+    public BulkStoreResult restore(Path file) throws EmbeddingCacheManagerException {
+        long startTime = System.currentTimeMillis();
+        ExecutorService storeExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "embedding-snapshot-restore");
+            t.setDaemon(true);
+            return t;
+        });
+        Totals totals = new Totals();
+        try (EmbeddingSnapshotReader reader = new EmbeddingSnapshotReader(file)) {
+            Future<BulkStoreResult> pending = null;
+            List<CachedEmbeddingDocument> batch = new ArrayList<>(batchSize);
+            EsCachedEmbeddingDocument document;
+            while ((document = reader.next()) != null) {
+                batch.add(document);
+                if (batch.size() >= batchSize) {
+                    totals.add(await(pending));
+                    totals.total += batch.size();
+                    List<CachedEmbeddingDocument> toStore = batch;
+                    pending = storeExecutor.submit(() -> cacheStore.bulkStoreEmbeddings(toStore));
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            totals.add(await(pending));
+            if (!batch.isEmpty()) {
+                totals.total += batch.size();
+                totals.add(cacheStore.bulkStoreEmbeddings(batch));
+            }
+        } catch (IOException e) {
+            throw new EmbeddingCacheManagerException(e.getMessage(), e);
+        } finally {
+            storeExecutor.shutdownNow();
+        }
+        long elapsedMs = Math.max(1, System.currentTimeMillis() - startTime);
+        logger.info("Restored {}/{} entries from {} in {}ms - {} entries/s", totals.succeeded, totals.total, file, elapsedMs,
+                (long) totals.succeeded * 1000 / elapsedMs);
+        return BulkStoreResult.builder()
+                .total(totals.total)
+                .succeeded(totals.succeeded)
+                .failed(totals.failures.size())
+                .retried(totals.retried)
+                .chunks(totals.chunks)
+                .tookMs(elapsedMs)
+                .failures(totals.failures)
+                .build();
+    }
+
+    private BulkStoreResult await(Future<BulkStoreResult> future) throws EmbeddingCacheManagerException {
+        if (future == null) {
+            return null;
+        }
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof EmbeddingCacheManagerException) {
+                throw (EmbeddingCacheManagerException) cause;
+            }
+            throw new EmbeddingCacheManagerException(cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EmbeddingCacheManagerException(e.getMessage(), e);
+        }
+    }
+
+    private static final class Totals {
+        private int total;
+        private int succeeded;
+        private int retried;
+        private int chunks;
+        private final List<BulkStoreResult.ItemFailure> failures = new ArrayList<>();
+
+        private void add(BulkStoreResult result) {
+            if (result == null) {
+                return;
+            }
+            succeeded += result.getSucceeded();
+            retried += result.getRetried();
+            chunks += result.getChunks();
+            failures.addAll(result.getFailures());
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.kingname.embeddingstoremanager.bulk;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.Deflater;
+
+/**
+ * Writes cache entries to a compact, block-compressed binary snapshot.
+ * <pre>
+ * file   := magic "EMBS" | version (byte) | vector encoding (byte) | block* | 0 (int)
+ * block  := uncompressed length (int) | compressed length (int) | deflated records
+ * record := hash length (int) | hash bytes | text length (int, -1 if absent) | text bytes
+ *           | dimension (int) | dimension x float32 or float16 | token count (long, -1 if absent)
+ * </pre>
+ * Version 1 records end after the vector; {@link EmbeddingSnapshotReader} still reads them.
+ * Safe to call {@link #write} from several threads.
+ */
+public class EmbeddingSnapshotWriter implements Closeable {
+
+    static final byte[] MAGIC = {'E', 'M', 'B', 'S'};
+    static final byte FORMAT_VERSION = 2;
+    private static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+
+    private final DataOutputStream out;
+    private final VectorEncoding encoding;
+    private final int blockSize;
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private final ByteArrayOutputStream blockBytes;
+    private final DataOutputStream block;
+    private byte[] compressBuffer = new byte[0];
+    private long records;
+    private long bytesWritten;
+
+    public EmbeddingSnapshotWriter(Path file, VectorEncoding encoding) throws IOException {
+        this(Files.newOutputStream(file), encoding, DEFAULT_BLOCK_SIZE);
+    }
+
+    public EmbeddingSnapshotWriter(OutputStream out, VectorEncoding encoding, int blockSize) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out, 64 * 1024));
+        this.encoding = encoding;
+        this.blockSize = blockSize;
+        this.blockBytes = new ByteArrayOutputStream(blockSize + 64 * 1024);
+        this.block = new DataOutputStream(blockBytes);
+        this.out.write(MAGIC);
+        this.out.writeByte(FORMAT_VERSION);
+        this.out.writeByte(encoding.getCode());
+        this.bytesWritten = MAGIC.length + 2;
+    }
+
+    public void write(String hash, String text, List<Double> embedding) throws IOException {
+        write(hash, text, embedding, null);
+    }
+
+    public synchronized void write(String hash, String text, List<Double> embedding, Long tokenCount) throws IOException {
+        writeBytes(hash.getBytes(StandardCharsets.UTF_8));
+        if (Objects.isNull(text)) {
+            block.writeInt(-1);
+        } else {
+            writeBytes(text.getBytes(StandardCharsets.UTF_8));
+        }
+        block.writeInt(embedding.size());
+        for (Double value : embedding) {
+            if (encoding == VectorEncoding.FLOAT16) {
+                block.writeShort(VectorEncoding.toHalf(value.floatValue()));
+            } else {
+                block.writeFloat(value.floatValue());
+            }
+        }
+        block.writeLong(Objects.nonNull(tokenCount) ? tokenCount : -1L);
+        records++;
+        if (blockBytes.size() >= blockSize) {
+            flushBlock();
+        }
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        block.writeInt(bytes.length);
+        block.write(bytes);
+    }
+
+    private void flushBlock() throws IOException {
+        if (blockBytes.size() == 0) {
+            return;
+        }
+        byte[] raw = blockBytes.toByteArray();
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        if (compressBuffer.length < raw.length + 64) {
+            compressBuffer = new byte[raw.length + 64];
+        }
+        int compressedLength = 0;
+        while (!deflater.finished()) {
+            if (compressedLength == compressBuffer.length) {
+                compressBuffer = java.util.Arrays.copyOf(compressBuffer, compressBuffer.length * 2);
+            }
+            compressedLength += deflater.deflate(compressBuffer, compressedLength, compressBuffer.length - compressedLength);
+        }
+        out.writeInt(raw.length);
+        out.writeInt(compressedLength);
+        out.write(compressBuffer, 0, compressedLength);
+        bytesWritten += 8 + compressedLength;
+        blockBytes.reset();
+    }
+
+    public synchronized long getRecords() {
+        return records;
+    }
+
+    public synchronized long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            flushBlock();
+            out.writeInt(0);
+            bytesWritten += 4;
+            out.flush();
+        } finally {
+            deflater.end();
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.kingname.embeddingstoremanager.bulk;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Tracks the line up to which every batch has been stored and persists it to a file.
+ * Batches complete out of order, so the checkpoint only advances over a contiguous prefix.
+ */
+public class ImportCheckpoint {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportCheckpoint.class);
+
+    private final Path path;
+    private final TreeMap<Long, Long> completed = new TreeMap<>(); // batch start line -> end line (exclusive)
+    private long committedLine;
+
+    private ImportCheckpoint(Path path, long committedLine) {
+        this.path = path;
+        this.committedLine = committedLine;
+    }
+
+    /**
+     * Load the checkpoint from the given file, starting at line 0 if it does not exist
+     */
+    public static ImportCheckpoint load(Path path) throws IOException {
+        if (Objects.isNull(path) || !Files.exists(path)) {
+            return new ImportCheckpoint(path, 0L);
+        }
+        String content = new String(Files.readAllBytes(path), StandardCharsets.UTF_8).trim();
+        long line = content.isEmpty() ? 0L : Long.parseLong(content);
+        logger.info("Resuming from checkpoint line {} ({})", line, path);
+        return new ImportCheckpoint(path, line);
+    }
+
+    public synchronized long getCommittedLine() {
+        return committedLine;
+    }
+
+    /**
+     * Mark the lines [startLine, endLine) as stored and persist the new contiguous position
+     */
+    public synchronized void complete(long startLine, long endLine) throws IOException {
+        completed.put(startLine, endLine);
+        long advancedTo = committedLine;
+        Map.Entry<Long, Long> next;
+        while ((next = completed.firstEntry()) != null && next.getKey() <= advancedTo) {
+            advancedTo = Math.max(advancedTo, next.getValue());
+            completed.pollFirstEntry();
+        }
+        if (advancedTo != committedLine) {
+            committedLine = advancedTo;
+            persist();
+        }
+    }
+
+    private void persist() throws IOException {
+        if (Objects.isNull(path)) {
+            return;
+        }
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.write(temp, Long.toString(committedLine).getBytes(StandardCharsets.UTF_8));
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
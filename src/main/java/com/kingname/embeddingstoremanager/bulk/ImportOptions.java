@@ -0,0 +1,30 @@
+package com.kingname.embeddingstoremanager.bulk;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.nio.file.Path;
+
+/**
+ * Options for streaming imports of precomputed embeddings
+ */
+@Builder
+@Getter
+@ToString
+public class ImportOptions {
+    @Builder.Default
+    private final Integer batchSize = 2_000;             // Lines parsed and stored as one unit
+    @Builder.Default
+    private final Integer parallelism = Math.max(2, Runtime.getRuntime().availableProcessors()); // Parse/normalize/hash workers
+    @Builder.Default
+    private final Integer maxInFlightBatches = 8;        // Batches read ahead of the slowest store
+    @Builder.Default
+    private final Integer storeAttempts = 3;             // Bulk stores of a batch's rejected documents before the import fails uncommitted
+    @Builder.Default
+    private final Long storeRetryBackoffMs = 1_000L;     // Wait before re-sending rejected documents, doubled per attempt
+    private final Path checkpointPath;                   // Resume point; no checkpointing when null
+    private final Integer expectedDimension;             // Overrides the dimension read from the index mapping
+    @Builder.Default
+    private final Long progressIntervalMs = 10_000L;     // How often throughput is logged
+}
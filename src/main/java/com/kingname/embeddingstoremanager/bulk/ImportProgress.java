@@ -0,0 +1,32 @@
+package com.kingname.embeddingstoremanager.bulk;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Snapshot of a running or finished import
+ */
+@Getter
+@Builder
+@ToString
+public class ImportProgress {
+
+    private final long linesRead;
+    private final long linesSkipped;      // Lines before the checkpoint on resume
+    private final long imported;
+    private final long invalid;           // Unparseable lines or wrong dimension
+    private final long failed;            // Rejected by the store
+    private final long bytesRead;
+    private final long elapsedMs;
+    private final long checkpointLine;
+    private final boolean finished;
+
+    public double getDocsPerSecond() {
+        return elapsedMs > 0 ? imported * 1000.0 / elapsedMs : 0.0;
+    }
+
+    public double getMegabytesPerSecond() {
+        return elapsedMs > 0 ? (bytesRead / (1024.0 * 1024.0)) * 1000.0 / elapsedMs : 0.0;
+    }
+}
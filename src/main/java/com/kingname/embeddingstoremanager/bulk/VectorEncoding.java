@@ -0,0 +1,95 @@
+package com.kingname.embeddingstoremanager.bulk;
+
+/**
+ * How vectors are written to a cache snapshot
+ */
+public enum VectorEncoding {
+    FLOAT32((byte) 0, 4),
+    FLOAT16((byte) 1, 2);   // IEEE 754 half precision, half the size at ~3 significant digits
+
+    private final byte code;
+    private final int bytesPerDimension;
+
+    VectorEncoding(byte code, int bytesPerDimension) {
+        this.code = code;
+        this.bytesPerDimension = bytesPerDimension;
+    }
+
+    public byte getCode() {
+        return code;
+    }
+
+    public int getBytesPerDimension() {
+        return bytesPerDimension;
+    }
+
+    static VectorEncoding fromCode(byte code) {
+        for (VectorEncoding encoding : values()) {
+            if (encoding.code == code) {
+                return encoding;
+            }
+        }
+        throw new IllegalArgumentException("Unknown vector encoding: " + code);
+    }
+
+    /**
+     * Convert a float to IEEE 754 half precision bits, rounding to nearest even
+     */
+    static short toHalf(float value) {
+        int bits = Float.floatToIntBits(value);
+        int sign = (bits >>> 16) & 0x8000;
+        int exponent = ((bits >>> 23) & 0xff) - 127 + 15;
+        int mantissa = bits & 0x7fffff;
+
+        if (exponent >= 0x1f) { // overflow, infinity or NaN
+            boolean nan = ((bits >>> 23) & 0xff) == 0xff && mantissa != 0;
+            return (short) (sign | 0x7c00 | (nan ? 0x200 : 0));
+        }
+        if (exponent <= 0) { // subnormal or zero
+            if (exponent < -10) {
+                return (short) sign;
+            }
+            mantissa |= 0x800000;
+            int shift = 14 - exponent;
+            int half = mantissa >> shift;
+            int remainder = mantissa & ((1 << shift) - 1);
+            int midpoint = 1 << (shift - 1);
+            if (remainder > midpoint || (remainder == midpoint && (half & 1) == 1)) {
+                half++;
+            }
+            return (short) (sign | half);
+        }
+        int half = (exponent << 10) | (mantissa >> 13);
+        int remainder = mantissa & 0x1fff;
+        if (remainder > 0x1000 || (remainder == 0x1000 && (half & 1) == 1)) {
+            half++; // may carry into the exponent, which is the correct rounding
+        }
+        return (short) (sign | half);
+    }
+
+    /**
+     * Convert IEEE 754 half precision bits to a float
+     */
+    static float fromHalf(short half) {
+        int bits = half & 0xffff;
+        int sign = (bits & 0x8000) << 16;
+        int exponent = (bits >>> 10) & 0x1f;
+        int mantissa = bits & 0x3ff;
+
+        if (exponent == 0x1f) {
+            return Float.intBitsToFloat(sign | 0x7f800000 | (mantissa << 13));
+        }
+        if (exponent == 0) {
+            if (mantissa == 0) {
+                return Float.intBitsToFloat(sign);
+            }
+            while ((mantissa & 0x400) == 0) { // normalize the subnormal value
+                mantissa <<= 1;
+                exponent--;
+            }
+            exponent++;
+            mantissa &= 0x3ff;
+        }
+        return Float.intBitsToFloat(sign | ((exponent + 127 - 15) << 23) | (mantissa << 13));
+    }
+}
@@ -1,6 +1,8 @@
 package com.kingname.embeddingstoremanager.exception;
 
 public class ElasticSearchClientException extends EmbeddingCacheManagerException {
+    private static final long serialVersionUID = 1L;
+
     public ElasticSearchClientException(Throwable cause) {
         super(cause);
     }
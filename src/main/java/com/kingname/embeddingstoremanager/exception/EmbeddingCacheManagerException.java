@@ -1,6 +1,8 @@
 package com.kingname.embeddingstoremanager.exception;
 
 public class EmbeddingCacheManagerException extends Exception {
+    private static final long serialVersionUID = 1L;
+
     public EmbeddingCacheManagerException(Throwable cause) {
         super(cause);
     }
@@ -1,5 +1,7 @@
 package com.kingname.embeddingstoremanager.exception;
 public class EmbeddingCacheStoreException extends EmbeddingCacheManagerException {
+    private static final long serialVersionUID = 1L;
+
     public EmbeddingCacheStoreException(Throwable cause) {
         super(cause);
     }
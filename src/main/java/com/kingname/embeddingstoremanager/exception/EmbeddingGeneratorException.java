@@ -1,6 +1,8 @@
 package com.kingname.embeddingstoremanager.exception;
 
 public class EmbeddingGeneratorException extends EmbeddingCacheManagerException {
+    private static final long serialVersionUID = 1L;
+
     public EmbeddingGeneratorException(Throwable cause) {
         super(cause);
     }
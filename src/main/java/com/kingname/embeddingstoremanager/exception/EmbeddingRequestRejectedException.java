@@ -0,0 +1,27 @@
+package com.kingname.embeddingstoremanager.exception;
+
+/**
+ * Thrown when an async embedding request is shed instead of queued or run
+ */
+public class EmbeddingRequestRejectedException extends EmbeddingCacheManagerException {
+
+    private static final long serialVersionUID = 1L;
+
+    public enum Reason {
+        QUEUE_FULL,         // Rejected on arrival, the admission queue was at capacity
+        DROPPED,            // Evicted from the queue to admit a newer request
+        DEADLINE_EXCEEDED,  // Waited in the queue past its deadline
+        SHUTDOWN            // The service was shut down
+    }
+
+    private final Reason reason;
+
+    public EmbeddingRequestRejectedException(Reason reason, String message) {
+        super(message, null);
+        this.reason = reason;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
@@ -1,6 +1,8 @@
 package com.kingname.embeddingstoremanager.exception;
 
 public class HashGeneratorException extends EmbeddingCacheManagerException {
+    private static final long serialVersionUID = 1L;
+
     public HashGeneratorException(Throwable cause) {
         super(cause);
     }
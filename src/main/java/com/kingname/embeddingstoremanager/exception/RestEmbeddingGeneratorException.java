@@ -1,6 +1,8 @@
 package com.kingname.embeddingstoremanager.exception;
 
 public class RestEmbeddingGeneratorException extends EmbeddingGeneratorException {
+    private static final long serialVersionUID = 1L;
+
     public RestEmbeddingGeneratorException(Throwable cause) {
         super(cause);
     }
@@ -1,8 +1,10 @@
 package com.kingname.embeddingstoremanager.health;
 
+import com.kingname.embeddingstoremanager.ESEmbeddingCacheStore;
 import com.kingname.embeddingstoremanager.EmbeddingCacheManagerConfig;
 import com.kingname.embeddingstoremanager.EmbeddingCacheStore;
 import com.kingname.embeddingstoremanager.EmbeddingGenerator;
+import com.kingname.embeddingstoremanager.index.IndexLifecycleStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
@@ -52,6 +54,11 @@ public class HealthCheckService {
         HealthCheck.ComponentHealth circuitBreakerHealth = checkCircuitBreaker();
         components.put("circuit-breaker", circuitBreakerHealth);
         
+        // Check index lifecycle (rollover / retention)
+        if (cacheStore instanceof ESEmbeddingCacheStore) {
+            components.put("index-lifecycle", checkIndexLifecycle((ESEmbeddingCacheStore) cacheStore));
+        }
+        
         // Determine overall status
         HealthCheck.HealthStatus overallStatus = determineOverallStatus(components);
         String message = generateOverallMessage(overallStatus, components);
@@ -203,6 +210,48 @@ public class HealthCheckService {
         }
     }
     
+    /**
+     * Reports the last index lifecycle run; degraded when a rollover is due or the last run failed
+     */
+    private HealthCheck.ComponentHealth checkIndexLifecycle(ESEmbeddingCacheStore store) {
+        IndexLifecycleStatus status = store.getLifecycleStatus();
+        
+        Map<String, Object> details = new HashMap<>();
+        details.put("write_index", status.getWriteIndexName());
+        details.put("indices", status.getIndexNames());
+        details.put("write_index_docs", status.getWriteIndexDocs());
+        details.put("write_index_primary_bytes", status.getWriteIndexPrimaryBytes());
+        details.put("write_index_max_shard_bytes", status.getWriteIndexMaxShardBytes());
+        details.put("rollover_due", status.isRolloverDue());
+        details.put("last_rollover_reason", status.getLastRolloverReason());
+        details.put("last_rollover_at", status.getLastRolloverAt());
+        details.put("last_expired_indices", status.getLastExpiredIndices());
+        details.put("last_run_at", status.getLastRunAt());
+        details.put("expired_index_action", config.getExpiredIndexAction());
+        details.put("sweep_detached_indices", config.getSweepDetachedIndices());
+        
+        HealthCheck.HealthStatus healthStatus;
+        String message;
+        if (status.getLastRunAt() == null) {
+            healthStatus = HealthCheck.HealthStatus.UP;
+            message = "Index lifecycle has not run yet";
+        } else if (status.getLastError() != null || status.isRolloverDue()) {
+            healthStatus = HealthCheck.HealthStatus.DEGRADED;
+            message = "Index lifecycle needs attention: " + (status.getLastError() != null ? status.getLastError() : "rollover due");
+            details.put("error", status.getLastError());
+        } else {
+            healthStatus = HealthCheck.HealthStatus.UP;
+            message = "Writing to " + status.getWriteIndexName();
+        }
+        
+        return HealthCheck.ComponentHealth.builder()
+                .status(healthStatus)
+                .message(message)
+                .responseTimeMs(0L)
+                .details(details)
+                .build();
+    }
+    
     private HealthCheck.HealthStatus determineCircuitBreakerHealth(CircuitBreaker.State state) {
         switch (state) {
             case CLOSED:
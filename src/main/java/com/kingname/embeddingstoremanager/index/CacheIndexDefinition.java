@@ -0,0 +1,93 @@
+package com.kingname.embeddingstoremanager.index;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kingname.embeddingstoremanager.EmbeddingCacheManagerConfig;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Generates the mappings and settings of the cache indices from the configuration
+ */
+public final class CacheIndexDefinition {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private CacheIndexDefinition() {
+    }
+
+    public static Map<String, Object> mappings(EmbeddingCacheManagerConfig ecmConfig) {
+        StorageProfile profile = ecmConfig.getStorageProfile();
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("hash", field("keyword"));
+        if (profile.storesText()) {
+            Map<String, Object> text = field("keyword");
+            if (!profile.indexesText()) {
+                text.put("index", false);
+                text.put("doc_values", false);
+            }
+            properties.put("text", text);
+        }
+        properties.put("has_embedding", field("boolean"));
+        Map<String, Object> embedding = field("dense_vector");
+        embedding.put("dims", ecmConfig.getEmbeddingDimension());
+        embedding.put("index", false); // 해시 조회 전용이라 kNN 그래프가 필요 없음
+        properties.put("embedding", embedding);
+        Map<String, Object> tokenCount = field("integer");
+        tokenCount.put("index", false); // _source 로만 읽음
+        properties.put("token_count", tokenCount);
+
+        Map<String, Object> mappings = new LinkedHashMap<>();
+        mappings.put("dynamic", "false");
+        if (Boolean.TRUE.equals(ecmConfig.getEnableHashRouting())) {
+            mappings.put("_routing", Collections.singletonMap("required", true)); // routing 없는 쓰기를 거부
+        }
+        if (profile != StorageProfile.STANDARD) {
+            mappings.put("_source", Collections.singletonMap("excludes", Collections.singletonList("id"))); // id 는 _id 와 중복
+        }
+        mappings.put("properties", properties);
+        return mappings;
+    }
+
+    public static Map<String, Object> settings(EmbeddingCacheManagerConfig ecmConfig) {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("index.mapping.coerce", true);
+        settings.put("index.mapping.ignore_malformed", true);
+        settings.put("unassigned", Collections.singletonMap("node_left", Collections.singletonMap("delayed_timeout", "1m")));
+        if (Objects.nonNull(ecmConfig.getIndexLifecyclePolicy())) {
+            settings.put("lifecycle", Collections.singletonMap("name", ecmConfig.getIndexLifecyclePolicy()));
+        }
+        settings.put("priority", "100");
+        settings.put("number_of_shards", String.valueOf(ecmConfig.getNumberOfShards()));
+        settings.put("number_of_replicas", String.valueOf(ecmConfig.getNumberOfReplicas()));
+        if (ecmConfig.getStorageProfile() != StorageProfile.STANDARD) {
+            settings.put("codec", "best_compression");
+        }
+        return settings;
+    }
+
+    public static String mappingsJson(EmbeddingCacheManagerConfig ecmConfig) {
+        return toJson(mappings(ecmConfig));
+    }
+
+    public static String settingsJson(EmbeddingCacheManagerConfig ecmConfig) {
+        return toJson(settings(ecmConfig));
+    }
+
+    private static Map<String, Object> field(String type) {
+        Map<String, Object> field = new LinkedHashMap<>();
+        field.put("type", type);
+        return field;
+    }
+
+    private static String toJson(Map<String, Object> value) {
+        try {
+            return OBJECT_MAPPER.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.kingname.embeddingstoremanager.index;
+
+/**
+ * What happens to a monthly index once it is older than the retention period
+ */
+public enum ExpiredIndexAction {
+    /**
+     * Only remove it from the alias; the index stays on disk
+     */
+    DETACH,
+    /**
+     * Remove it from the alias and close it; frees heap but keeps the data on disk
+     */
+    CLOSE,
+    /**
+     * Delete the index
+     */
+    DELETE
+}
@@ -0,0 +1,357 @@
+package com.kingname.embeddingstoremanager.index;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.HealthStatus;
+import co.elastic.clients.elasticsearch._types.Level;
+import co.elastic.clients.elasticsearch._types.Time;
+import co.elastic.clients.elasticsearch.cat.shards.ShardsRecord;
+import co.elastic.clients.elasticsearch.cluster.HealthResponse;
+import co.elastic.clients.elasticsearch.indices.GetAliasResponse;
+import co.elastic.clients.elasticsearch.indices.IndexSettings;
+import co.elastic.clients.elasticsearch.indices.IndexState;
+import co.elastic.clients.elasticsearch.indices.stats.IndicesStats;
+import co.elastic.clients.elasticsearch.indices.update_aliases.Action;
+import co.elastic.clients.json.JsonData;
+import com.kingname.embeddingstoremanager.ESEmbeddingCacheStore;
+import com.kingname.embeddingstoremanager.EmbeddingCacheManagerConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Optimizes cache generations that no longer receive writes.
+ * <p>
+ * Each older index behind the alias goes through
+ * <ol>
+ *     <li>{@link Step#READ_ONLY}: write block, reduced replicas and refresh disabled,</li>
+ *     <li>optionally {@link Step#PREPARE_SHRINK} / {@link Step#SHRINK} / {@link Step#SWAP} / {@link Step#CLEANUP}:
+ *     co-locate the shards, shrink to one shard as {@code <index>-shrunk}, swap it into the alias and delete the source,</li>
+ *     <li>{@link Step#FORCE_MERGE}: merge to a single segment.</li>
+ * </ol>
+ * The next step of an index is derived from its live state, so the job picks up where it left off after a restart.
+ * At most one step runs per tick, newest generation first. The tick is skipped while the cluster is not green
+ * (except for the relocation of an own shrink), a force merge is still running or any node has more than
+ * {@code optimizerMaxSearchQueue} queued searches, so the job never competes with live lookups.
+ */
+public class GenerationOptimizer {
+
+    private static final Logger logger = LoggerFactory.getLogger(GenerationOptimizer.class);
+    private static final String LEASE_NAME = "generation-optimizer";
+    private static final String SHRUNK_SUFFIX = "-shrunk";
+    private static final String FORCE_MERGE_ACTION = "indices:admin/forcemerge*";
+
+    public enum Step {
+        READ_ONLY, PREPARE_SHRINK, SHRINK, SWAP, CLEANUP, FORCE_MERGE, DONE
+    }
+
+    private final ESEmbeddingCacheStore store;
+    private final ElasticsearchClient esClient;
+    private final EmbeddingCacheManagerConfig config;
+    private final ScheduledExecutorService scheduler;
+    private final boolean ownsScheduler;
+    private final String ownerId = UUID.randomUUID().toString();
+    private final Map<String, Step> progress = new ConcurrentHashMap<>();
+
+    private volatile ScheduledFuture<?> periodicTask;
+    private volatile String lastAction;
+    private volatile String skipReason;
+    private volatile LocalDateTime lastRunAt;
+    private volatile String lastError;
+
+    public GenerationOptimizer(ESEmbeddingCacheStore store, EmbeddingCacheManagerConfig config) {
+        this(store, config, Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "embedding-generation-optimizer");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        }), true);
+    }
+
+    /**
+     * Host the optimizer on an existing executor, e.g. the one of {@code AsyncEmbeddingService}
+     */
+    public GenerationOptimizer(ESEmbeddingCacheStore store, EmbeddingCacheManagerConfig config, ScheduledExecutorService scheduler) {
+        this(store, config, scheduler, false);
+    }
+
+    private GenerationOptimizer(ESEmbeddingCacheStore store, EmbeddingCacheManagerConfig config,
+                                ScheduledExecutorService scheduler, boolean ownsScheduler) {
+        this.store = store;
+        this.esClient = store.getElasticsearchClient();
+        this.config = config;
+        this.scheduler = scheduler;
+        this.ownsScheduler = ownsScheduler;
+    }
+
+    public synchronized GenerationOptimizer start() {
+        if (periodicTask == null) {
+            long intervalMs = config.getGenerationOptimizeIntervalMs();
+            periodicTask = scheduler.scheduleWithFixedDelay(this::tick, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+            logger.info("Generation optimizer started for {} (every {} ms)", config.getElasticSearchCacheAliasName(), intervalMs);
+        }
+        return this;
+    }
+
+    public synchronized void stop() {
+        if (periodicTask != null) {
+            periodicTask.cancel(false);
+            periodicTask = null;
+        }
+        if (ownsScheduler) {
+            scheduler.shutdown();
+        }
+        store.releaseLease(LEASE_NAME, ownerId);
+    }
+
+    /**
+     * Run at most one optimization step; safe to call directly
+     */
+    public void tick() {
+        lastRunAt = LocalDateTime.now();
+        try {
+            if (!store.tryAcquireLease(LEASE_NAME, ownerId, config.getRolloverLeaseTtlMs())) {
+                skipReason = "lease held by another instance";
+                return;
+            }
+            skipReason = getBusyReason();
+            if (skipReason != null) {
+                return;
+            }
+            String aliasName = config.getElasticSearchCacheAliasName();
+            GetAliasResponse aliasResponse = esClient.indices().getAlias(a -> a.index(aliasName));
+            String writeIndexName = aliasResponse.result().entrySet().stream()
+                    .filter(entry -> Objects.nonNull(entry.getValue().aliases().get(aliasName)))
+                    .filter(entry -> Boolean.TRUE.equals(entry.getValue().aliases().get(aliasName).isWriteIndex()))
+                    .map(Map.Entry::getKey)
+                    .findFirst()
+                    .orElse(null);
+            if (writeIndexName == null) {
+                skipReason = "no write index";
+                return; // without a known write index every index could still be receiving writes
+            }
+            List<String> olderIndexNames = aliasResponse.result().keySet().stream()
+                    .filter(indexName -> !indexName.equals(writeIndexName))
+                    .sorted(Comparator.reverseOrder())
+                    .collect(Collectors.toList());
+            progress.keySet().retainAll(olderIndexNames);
+
+            for (String indexName : olderIndexNames) {
+                Step step = runNextStep(indexName, olderIndexNames);
+                progress.put(indexName, step);
+                if (step != Step.DONE) {
+                    lastAction = step + " " + indexName;
+                    lastError = null;
+                    return; // one step per tick
+                }
+            }
+            lastAction = null;
+            lastError = null;
+        } catch (Exception e) {
+            lastError = e.getMessage();
+            logger.warn("Generation optimizer tick failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Inspect an index and run its next step
+     *
+     * @return the step that ran, or {@link Step#DONE} when nothing was left to do
+     */
+    private Step runNextStep(String indexName, List<String> aliasIndexNames) throws IOException {
+        IndexState state = esClient.indices().get(g -> g.index(indexName)).result().get(indexName);
+        if (!isWriteBlocked(state.settings())) {
+            markReadOnly(indexName);
+            return Step.READ_ONLY;
+        }
+        String sourceName = indexName.endsWith(SHRUNK_SUFFIX)
+                ? indexName.substring(0, indexName.length() - SHRUNK_SUFFIX.length())
+                : null;
+        if (sourceName != null && !aliasIndexNames.contains(sourceName) && esClient.indices().exists(e -> e.index(sourceName)).value()) {
+            esClient.indices().delete(d -> d.index(sourceName));
+            logger.info("Deleted {} after swapping in {}", sourceName, indexName);
+            return Step.CLEANUP;
+        }
+        IndicesStats stats = esClient.indices().stats(s -> s
+                .index(indexName)
+                .metric("segments")
+                .level(Level.Shards)).indices().get(indexName);
+        int shards = stats.shards().size();
+        if (Boolean.TRUE.equals(config.getShrinkOldGenerations()) && shards > 1 && sourceName == null) {
+            return shrink(indexName, shards);
+        }
+        if (stats.primaries().segments().count() > shards) {
+            forceMerge(indexName);
+            return Step.FORCE_MERGE;
+        }
+        return Step.DONE;
+    }
+
+    private void markReadOnly(String indexName) throws IOException {
+        esClient.indices().putSettings(p -> p
+                .index(indexName)
+                .settings(s -> s
+                        .blocks(b -> b.write(true))
+                        .numberOfReplicas(String.valueOf(config.getOldGenerationReplicas()))
+                        .refreshInterval(t -> t.time(config.getOldGenerationRefreshInterval()))));
+        logger.info("Marked {} read-only", indexName);
+    }
+
+    private void forceMerge(String indexName) throws IOException {
+        // runs as a task on the single-thread force_merge pool; later ticks wait until it has finished
+        esClient.indices().forcemerge(f -> f
+                .index(indexName)
+                .maxNumSegments(1L)
+                .waitForCompletion(false));
+        logger.info("Started force merge of {} to one segment", indexName);
+    }
+
+    private Step shrink(String indexName, int shards) throws IOException {
+        String targetName = indexName + SHRUNK_SUFFIX;
+        String aliasName = config.getElasticSearchCacheAliasName();
+        if (esClient.indices().exists(e -> e.index(targetName)).value()) {
+            HealthResponse health = esClient.cluster().health(h -> h
+                    .index(targetName)
+                    .waitForStatus(HealthStatus.Yellow)
+                    .timeout(t -> t.time("30s")));
+            if (health.timedOut()) {
+                return Step.SHRINK; // still recovering
+            }
+            esClient.indices().updateAliases(u -> u.actions(Arrays.asList(
+                    Action.of(a -> a.add(add -> add.index(targetName).alias(aliasName).isWriteIndex(false))),
+                    Action.of(a -> a.remove(remove -> remove.index(indexName).alias(aliasName))))));
+            logger.info("Swapped {} for {} in {}", targetName, indexName, aliasName);
+            return Step.SWAP; // the source is deleted on a later tick, after cached alias states have expired
+        }
+
+        List<ShardsRecord> copies = esClient.cat().shards(c -> c.index(indexName)).valueBody();
+        String node = copies.stream()
+                .filter(copy -> Objects.nonNull(copy.node()))
+                .collect(Collectors.groupingBy(ShardsRecord::node, Collectors.counting()))
+                .entrySet().stream()
+                .max(Map.Entry.<String, Long>comparingByValue().thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())))
+                .map(Map.Entry::getKey)
+                .orElse(null);
+        if (node == null) {
+            return Step.PREPARE_SHRINK;
+        }
+        long colocated = copies.stream()
+                .filter(copy -> node.equals(copy.node()) && "STARTED".equals(copy.state()))
+                .map(ShardsRecord::shard)
+                .distinct()
+                .count();
+        boolean relocating = copies.stream().anyMatch(copy -> !"STARTED".equals(copy.state()));
+        if (colocated < shards || relocating) {
+            // every shard needs a copy on one node; replicas would only slow the relocation down
+            esClient.indices().putSettings(p -> p
+                    .index(indexName)
+                    .settings(s -> s
+                            .numberOfReplicas("0")
+                            .otherSettings("index.routing.allocation.require._name", JsonData.of(node))));
+            return Step.PREPARE_SHRINK;
+        }
+
+        Map<String, JsonData> settings = new LinkedHashMap<>();
+        settings.put("index.number_of_shards", JsonData.of(1));
+        settings.put("index.number_of_replicas", JsonData.of(config.getOldGenerationReplicas()));
+        settings.put("index.routing.allocation.require._name", JsonData.fromJson("null"));
+        esClient.indices().shrink(s -> s
+                .index(indexName)
+                .target(targetName)
+                .settings(settings)
+                .timeout(new Time.Builder().time("5m").build()));
+        logger.info("Shrinking {} into {}", indexName, targetName);
+        return Step.SHRINK;
+    }
+
+    private boolean isWriteBlocked(IndexSettings settings) {
+        if (settings == null) {
+            return false;
+        }
+        IndexSettings nested = settings.index();
+        return isWriteBlockSet(settings) || (nested != null && isWriteBlockSet(nested));
+    }
+
+    private boolean isWriteBlockSet(IndexSettings settings) {
+        return settings.blocks() != null && Boolean.TRUE.equals(settings.blocks().write());
+    }
+
+    /**
+     * A reason to skip this tick, or null when the cluster is idle enough to optimize
+     */
+    private String getBusyReason() throws IOException {
+        HealthResponse health = esClient.cluster().health(h -> h);
+        // HealthStatus declares Green, Yellow, Red in order of severity
+        if (health.status().ordinal() > config.getOptimizerMinHealthStatus().ordinal() && !isOwnShrinkInProgress()) {
+            return "cluster status " + health.status();
+        }
+        int merging = esClient.tasks().list(t -> t.actions(FORCE_MERGE_ACTION)).nodes().values().stream()
+                .mapToInt(nodeTasks -> nodeTasks.tasks().size())
+                .sum();
+        if (merging > 0) {
+            return "force merge in progress";
+        }
+        long queued = esClient.nodes().stats(n -> n.metric("thread_pool")).nodes().values().stream()
+                .map(stats -> stats.threadPool().get("search"))
+                .filter(Objects::nonNull)
+                .map(pool -> Objects.nonNull(pool.queue()) ? pool.queue() : 0L)
+                .reduce(0L, Long::sum);
+        if (queued > config.getOptimizerMaxSearchQueue()) {
+            return queued + " searches queued";
+        }
+        return null;
+    }
+
+    private boolean isOwnShrinkInProgress() {
+        return progress.values().stream().anyMatch(step -> step == Step.PREPARE_SHRINK || step == Step.SHRINK);
+    }
+
+    /**
+     * Last observed step per older generation; {@link Step#DONE} once fully optimized
+     */
+    public Map<String, Step> getProgress() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(progress));
+    }
+
+    public long getOptimizedCount() {
+        return progress.values().stream().filter(step -> step == Step.DONE).count();
+    }
+
+    public String getLastAction() {
+        return lastAction;
+    }
+
+    /**
+     * Why the last tick did nothing, or null when it ran a step
+     */
+    public String getSkipReason() {
+        return skipReason;
+    }
+
+    public LocalDateTime getLastRunAt() {
+        return lastRunAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public boolean isRunning() {
+        return Objects.nonNull(periodicTask) && !periodicTask.isCancelled();
+    }
+}
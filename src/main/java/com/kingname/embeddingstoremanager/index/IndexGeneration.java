@@ -0,0 +1,78 @@
+package com.kingname.embeddingstoremanager.index;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Name of a monthly cache index, optionally followed by a size-rollover generation.
+ * <p>
+ * The first index of a month keeps the original {@code alias-yyyyMM} name; rollovers within
+ * the month append a zero-padded generation: {@code alias-yyyyMM-000002}, {@code alias-yyyyMM-000003}, ...
+ * A {@code -shrunk} suffix left by {@link GenerationOptimizer} is accepted when parsing.
+ */
+public final class IndexGeneration implements Comparable<IndexGeneration> {
+
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final Comparator<IndexGeneration> ORDER = Comparator
+            .comparing(IndexGeneration::getMonth)
+            .thenComparingInt(IndexGeneration::getGeneration);
+
+    private final String aliasName;
+    private final YearMonth month;
+    private final int generation;
+
+    private IndexGeneration(String aliasName, YearMonth month, int generation) {
+        this.aliasName = aliasName;
+        this.month = month;
+        this.generation = generation;
+    }
+
+    public static IndexGeneration first(String aliasName, YearMonth month) {
+        return new IndexGeneration(aliasName, month, 1);
+    }
+
+    /**
+     * Parse an index name of the alias; empty for names that are not monthly generations (e.g. the base index)
+     */
+    public static Optional<IndexGeneration> parse(String aliasName, String indexName) {
+        Matcher matcher = Pattern.compile("^" + Pattern.quote(aliasName) + "-(\\d{6})(?:-(\\d{6}))?(?:-shrunk)?$").matcher(indexName);
+        if (!matcher.matches()) {
+            return Optional.empty();
+        }
+        YearMonth month = YearMonth.parse(matcher.group(1), MONTH_FORMAT);
+        int generation = Objects.nonNull(matcher.group(2)) ? Integer.parseInt(matcher.group(2)) : 1;
+        return Optional.of(new IndexGeneration(aliasName, month, generation));
+    }
+
+    public IndexGeneration next() {
+        return new IndexGeneration(aliasName, month, generation + 1);
+    }
+
+    public String getIndexName() {
+        String monthly = String.format("%s-%s", aliasName, month.format(MONTH_FORMAT));
+        return generation == 1 ? monthly : String.format("%s-%06d", monthly, generation);
+    }
+
+    public YearMonth getMonth() {
+        return month;
+    }
+
+    public int getGeneration() {
+        return generation;
+    }
+
+    @Override
+    public int compareTo(IndexGeneration other) {
+        return ORDER.compare(this, other);
+    }
+
+    @Override
+    public String toString() {
+        return getIndexName();
+    }
+}
@@ -0,0 +1,36 @@
+package com.kingname.embeddingstoremanager.index;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Snapshot of the cache index lifecycle taken by the last lifecycle run
+ */
+@Getter
+@Builder
+@ToString
+public class IndexLifecycleStatus {
+
+    private final String writeIndexName;
+    @Builder.Default
+    private final List<String> indexNames = Collections.emptyList();
+    private final long writeIndexDocs;
+    private final long writeIndexPrimaryBytes;
+    private final long writeIndexMaxShardBytes;
+    private final boolean rolloverDue;          // A rollover condition is met but has not run yet
+    private final String lastRolloverReason;    // "month", "max_docs" or "max_primary_shard_size"
+    private final LocalDateTime lastRolloverAt;
+    @Builder.Default
+    private final List<String> lastExpiredIndices = Collections.emptyList();
+    private final LocalDateTime lastRunAt;
+    private final String lastError;
+
+    public static IndexLifecycleStatus unknown() {
+        return IndexLifecycleStatus.builder().build();
+    }
+}
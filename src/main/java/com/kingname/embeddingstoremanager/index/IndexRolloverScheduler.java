@@ -0,0 +1,173 @@
+package com.kingname.embeddingstoremanager.index;
+
+import com.kingname.embeddingstoremanager.ESEmbeddingCacheStore;
+import com.kingname.embeddingstoremanager.EmbeddingCacheManagerConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the index lifecycle in-process so the month boundary does not pay for index creation.
+ * <p>
+ * Every tick the instance holding the lease
+ * <ul>
+ *     <li>pre-creates next month's index once the boundary is less than {@code rolloverPrecreateHours} away
+ *     and waits for it to turn yellow,</li>
+ *     <li>runs {@link ESEmbeddingCacheStore#runLifecycle(java.time.LocalDateTime)} at the tick's time, which flips
+ *     the write alias to the prepared index once the month has changed and also handles size rollover and retention.</li>
+ * </ul>
+ * An extra tick is scheduled right after the boundary so the flip does not wait for the next interval.
+ * Instances without the lease do nothing; the lease expires if its holder stops renewing it.
+ */
+public class IndexRolloverScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndexRolloverScheduler.class);
+    private static final ZoneId INDEX_ZONE = ZoneId.of("Asia/Seoul");
+    private static final String LEASE_NAME = "index-lifecycle";
+    private static final long BOUNDARY_DELAY_MS = 1_000L;
+
+    private final ESEmbeddingCacheStore store;
+    private final EmbeddingCacheManagerConfig config;
+    private final ScheduledExecutorService scheduler;
+    private final boolean ownsScheduler;
+    private final Clock clock;
+    private final String ownerId = UUID.randomUUID().toString();
+
+    private volatile ScheduledFuture<?> periodicTask;
+    private volatile ScheduledFuture<?> boundaryTask;
+    private volatile boolean leader;
+    private volatile String preparedIndexName;
+    private volatile ZonedDateTime lastTickAt;
+    private volatile String lastError;
+
+    public IndexRolloverScheduler(ESEmbeddingCacheStore store, EmbeddingCacheManagerConfig config) {
+        this(store, config, Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "embedding-index-rollover");
+            t.setDaemon(true);
+            return t;
+        }), true, Clock.system(INDEX_ZONE));
+    }
+
+    /**
+     * Host the scheduler on an existing executor, e.g. the one of {@code AsyncEmbeddingService}
+     */
+    public IndexRolloverScheduler(ESEmbeddingCacheStore store, EmbeddingCacheManagerConfig config, ScheduledExecutorService scheduler) {
+        this(store, config, scheduler, false, Clock.system(INDEX_ZONE));
+    }
+
+    /**
+     * Host the scheduler on an existing executor and read the time from the given clock, e.g. a fixed one in tests
+     */
+    public IndexRolloverScheduler(ESEmbeddingCacheStore store, EmbeddingCacheManagerConfig config, ScheduledExecutorService scheduler,
+                                  Clock clock) {
+        this(store, config, scheduler, false, clock.withZone(INDEX_ZONE));
+    }
+
+    private IndexRolloverScheduler(ESEmbeddingCacheStore store, EmbeddingCacheManagerConfig config,
+                                   ScheduledExecutorService scheduler, boolean ownsScheduler, Clock clock) {
+        this.store = store;
+        this.config = config;
+        this.scheduler = scheduler;
+        this.ownsScheduler = ownsScheduler;
+        this.clock = clock;
+    }
+
+    public synchronized IndexRolloverScheduler start() {
+        if (periodicTask == null) {
+            long intervalMs = config.getRolloverCheckIntervalMs();
+            periodicTask = scheduler.scheduleWithFixedDelay(this::tick, 0, intervalMs, TimeUnit.MILLISECONDS);
+            logger.info("Index rollover scheduler started for {} (owner {}, every {} ms)",
+                    config.getElasticSearchCacheAliasName(), ownerId, intervalMs);
+        }
+        return this;
+    }
+
+    public synchronized void stop() {
+        if (periodicTask != null) {
+            periodicTask.cancel(false);
+            periodicTask = null;
+        }
+        if (boundaryTask != null) {
+            boundaryTask.cancel(false);
+            boundaryTask = null;
+        }
+        if (ownsScheduler) {
+            scheduler.shutdown();
+        }
+        if (leader) {
+            store.releaseLease(LEASE_NAME, ownerId);
+            leader = false;
+        }
+    }
+
+    /**
+     * One scheduling round; safe to call directly
+     */
+    public void tick() {
+        try {
+            lastTickAt = ZonedDateTime.now(clock);
+            leader = store.tryAcquireLease(LEASE_NAME, ownerId, config.getRolloverLeaseTtlMs());
+            if (!leader) {
+                return;
+            }
+            ZonedDateTime boundary = YearMonth.from(lastTickAt).plusMonths(1).atDay(1).atStartOfDay(INDEX_ZONE);
+            Duration untilBoundary = Duration.between(lastTickAt, boundary);
+            if (untilBoundary.toHours() < config.getRolloverPrecreateHours()) {
+                YearMonth nextMonth = YearMonth.from(boundary);
+                preparedIndexName = store.prepareMonthlyIndex(nextMonth);
+                scheduleBoundaryTick(untilBoundary);
+            }
+            store.runLifecycle(lastTickAt.withZoneSameInstant(INDEX_ZONE).toLocalDateTime());
+            lastError = null;
+        } catch (Exception e) {
+            lastError = e.getMessage();
+            logger.warn("Index rollover tick failed: {}", e.getMessage());
+        }
+    }
+
+    private synchronized void scheduleBoundaryTick(Duration untilBoundary) {
+        if (boundaryTask != null && !boundaryTask.isDone()) {
+            return;
+        }
+        long delayMs = Math.max(untilBoundary.toMillis(), 0) + BOUNDARY_DELAY_MS;
+        if (delayMs > config.getRolloverCheckIntervalMs()) {
+            return; // a later periodic tick is still before the boundary and schedules it
+        }
+        boundaryTask = scheduler.schedule(this::tick, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isLeader() {
+        return leader;
+    }
+
+    public String getOwnerId() {
+        return ownerId;
+    }
+
+    public String getPreparedIndexName() {
+        return preparedIndexName;
+    }
+
+    public ZonedDateTime getLastTickAt() {
+        return lastTickAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public boolean isRunning() {
+        return Objects.nonNull(periodicTask) && !periodicTask.isCancelled();
+    }
+}
@@ -0,0 +1,38 @@
+package com.kingname.embeddingstoremanager.index;
+
+/**
+ * Storage layout of the cache indices.
+ * <p>
+ * The vector is kept in {@code _source} in every profile because lookups read it from there;
+ * the {@code dense_vector} field is never indexed for kNN since the cache only looks up by hash.
+ */
+public enum StorageProfile {
+    /**
+     * Text indexed as a keyword, as in the original static mappings
+     */
+    STANDARD(true, true),
+    /**
+     * Text kept in {@code _source} only (not indexed, no doc values), best_compression codec
+     */
+    LEAN(true, false),
+    /**
+     * No text at all; a lookup trusts the hash without comparing the text
+     */
+    HASH_ONLY(false, false);
+
+    private final boolean storesText;
+    private final boolean indexesText;
+
+    StorageProfile(boolean storesText, boolean indexesText) {
+        this.storesText = storesText;
+        this.indexesText = indexesText;
+    }
+
+    public boolean storesText() {
+        return storesText;
+    }
+
+    public boolean indexesText() {
+        return indexesText;
+    }
+}
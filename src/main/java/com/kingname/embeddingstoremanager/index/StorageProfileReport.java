@@ -0,0 +1,64 @@
+package com.kingname.embeddingstoremanager.index;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Estimates the on-disk bytes per cached document for each storage profile.
+ * <p>
+ * Figures are per primary copy and derived from the field layout: {@code _source} JSON
+ * (compressed roughly 2x by the default LZ4 codec and 3x by best_compression),
+ * dense_vector doc values (4 bytes per dimension), the keyword terms and doc values of
+ * indexed fields and a fixed per-document overhead for {@code _id}, {@code _seq_no} and friends.
+ * Compare with {@code ESEmbeddingCacheStore#getStoredBytesPerDocument()} for a live measurement.
+ */
+public final class StorageProfileReport {
+
+    private static final int JSON_BYTES_PER_DIMENSION = 20;
+    private static final int HASH_BYTES = 64;
+    private static final int METADATA_BYTES = 60;
+    private static final double DEFAULT_CODEC_RATIO = 0.5;
+    private static final double BEST_COMPRESSION_RATIO = 0.33;
+
+    private StorageProfileReport() {
+    }
+
+    public static long estimateBytesPerDocument(StorageProfile profile, int averageTextBytes, int dimensions) {
+        long vectorJson = (long) dimensions * JSON_BYTES_PER_DIMENSION;
+        long sourceJson = 64 + HASH_BYTES + vectorJson;
+        if (profile.storesText()) {
+            sourceJson += averageTextBytes;
+        }
+        if (profile == StorageProfile.STANDARD) {
+            sourceJson += HASH_BYTES; // the duplicated "id" field
+        }
+        double ratio = profile == StorageProfile.STANDARD ? DEFAULT_CODEC_RATIO : BEST_COMPRESSION_RATIO;
+        long source = Math.round(sourceJson * ratio);
+
+        long vectorDocValues = (long) dimensions * 4;
+        long hashIndex = HASH_BYTES * 2L; // terms + doc values
+        long textIndex = profile.indexesText() ? averageTextBytes * 2L : 0;
+        return METADATA_BYTES + source + vectorDocValues + hashIndex + textIndex;
+    }
+
+    public static Map<StorageProfile, Long> estimate(int averageTextBytes, int dimensions) {
+        Map<StorageProfile, Long> estimates = new EnumMap<>(StorageProfile.class);
+        for (StorageProfile profile : StorageProfile.values()) {
+            estimates.put(profile, estimateBytesPerDocument(profile, averageTextBytes, dimensions));
+        }
+        return estimates;
+    }
+
+    /**
+     * Render the estimates as a table, relative to the STANDARD profile
+     */
+    public static String render(int averageTextBytes, int dimensions) {
+        Map<StorageProfile, Long> estimates = estimate(averageTextBytes, dimensions);
+        long standard = estimates.get(StorageProfile.STANDARD);
+        StringBuilder report = new StringBuilder(String.format("Estimated bytes per document (text %d bytes, %d dims)%n",
+                averageTextBytes, dimensions));
+        estimates.forEach((profile, bytes) -> report.append(String.format("  %-10s %8d bytes  %5.1f%%%n",
+                profile, bytes, bytes * 100.0 / standard)));
+        return report.toString();
+    }
+}
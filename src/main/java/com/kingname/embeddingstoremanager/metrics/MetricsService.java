@@ -1,25 +1,59 @@
 package com.kingname.embeddingstoremanager.metrics;
 
+import com.kingname.embeddingstoremanager.EmbeddingCacheManagerConfig;
+import com.kingname.embeddingstoremanager.priority.RequestPriority;
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.math.BigDecimal;
 import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
 
 /**
  * Metrics service for tracking embedding operations performance and usage
  */
 public class MetricsService {
-    
+
     private static final Logger logger = LoggerFactory.getLogger(MetricsService.class);
-    
+
+    // Values of the "operation" tag
+    public static final String OPERATION_GET_EMBEDDING = "get_embedding";
+    public static final String OPERATION_GET_EMBEDDINGS = "get_embeddings";
+    public static final String OPERATION_LOOKUP = "lookup";
+    public static final String OPERATION_LOOKUP_BATCH = "lookup_batch";
+    public static final String OPERATION_GENERATE = "generate";
+    public static final String OPERATION_GENERATE_BATCH = "generate_batch";
+
+    private static final String CACHE_RETRIEVAL_TIME = "embedding.cache.retrieval.time";
+    private static final String GENERATION_TIME = "embedding.generation.time";
+    private static final String TOTAL_REQUEST_TIME = "embedding.request.total.time";
+    private static final int TOKEN_RATE_WINDOW_SECONDS = 60;
+
     private final MeterRegistry meterRegistry;
     private final boolean enabled;
-    
+    private final double[] percentiles;
+    private final boolean percentileHistogram;
+    private final Duration distributionExpiry;
+
     // Counters
     private final Counter cacheHits;
     private final Counter cacheMisses;
@@ -27,62 +61,98 @@ public class MetricsService {
     private final Counter embeddingSuccess;
     private final Counter embeddingFailures;
     private final Counter healthCheckRequests;
-    
-    // Timers
-    private final Timer cacheRetrievalTime;
-    private final Timer embeddingGenerationTime;
-    private final Timer totalRequestTime;
+    private final Counter tokensConsumed;
+    private final Counter tokensSaved;
+    private final DistributionSummary requestTokens;
+    private final SlidingWindowRate tokenRate = new SlidingWindowRate(TOKEN_RATE_WINDOW_SECONDS);
+
+    // Timers, one per (name, operation, outcome)
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
     private final Timer healthCheckTime;
-    
+    private final Map<RequestPriority, Timer> laneRequestTimes = new EnumMap<>(RequestPriority.class);
+    private final Map<RequestStage, Timer> stageTimes = new EnumMap<>(RequestStage.class);
+    private final boolean stageMetricsEnabled;
+
     public MetricsService(boolean enabled) {
-        this.enabled = enabled;
-        
+        this(EmbeddingCacheManagerConfig.builder().enableMetrics(enabled).build());
+    }
+
+    /**
+     * Registers on config.getMeterRegistry(), or on a private SimpleMeterRegistry when none is given
+     */
+    public MetricsService(EmbeddingCacheManagerConfig config) {
+        this.enabled = Boolean.TRUE.equals(config.getEnableMetrics());
+        this.percentiles = toArray(config.getMetricsPercentiles());
+        this.percentileHistogram = Boolean.TRUE.equals(config.getMetricsPercentileHistogram());
+        this.distributionExpiry = Duration.ofMillis(config.getMetricsDistributionExpiryMs());
+        this.stageMetricsEnabled = enabled && Boolean.TRUE.equals(config.getEnableStageMetrics());
+
         if (enabled) {
-            this.meterRegistry = new SimpleMeterRegistry();
-            
+            this.meterRegistry = Objects.nonNull(config.getMeterRegistry()) ? config.getMeterRegistry() : new SimpleMeterRegistry();
+
             // Initialize counters
             this.cacheHits = Counter.builder("embedding.cache.hits")
                     .description("Number of successful cache retrievals")
                     .register(meterRegistry);
-            
+
             this.cacheMisses = Counter.builder("embedding.cache.misses")
                     .description("Number of cache misses requiring generation")
                     .register(meterRegistry);
-            
+
             this.embeddingRequests = Counter.builder("embedding.requests.total")
                     .description("Total number of embedding requests")
                     .register(meterRegistry);
-            
+
             this.embeddingSuccess = Counter.builder("embedding.generation.success")
                     .description("Number of successful embedding generations")
                     .register(meterRegistry);
-            
+
             this.embeddingFailures = Counter.builder("embedding.generation.failures")
                     .description("Number of failed embedding generations")
                     .register(meterRegistry);
-            
+
             this.healthCheckRequests = Counter.builder("health.check.requests")
                     .description("Number of health check requests")
                     .register(meterRegistry);
-            
-            // Initialize timers
-            this.cacheRetrievalTime = Timer.builder("embedding.cache.retrieval.time")
-                    .description("Time taken to retrieve embeddings from cache")
+
+            this.tokensConsumed = Counter.builder("embedding.tokens.consumed")
+                    .description("Tokens of generated texts, as reported by the embedding API or estimated from the text length")
                     .register(meterRegistry);
-            
-            this.embeddingGenerationTime = Timer.builder("embedding.generation.time")
-                    .description("Time taken to generate embeddings")
+
+            this.tokensSaved = Counter.builder("embedding.tokens.saved")
+                    .description("Tokens cache hits avoided, from the stored token count or estimated from the text length")
                     .register(meterRegistry);
-            
-            this.totalRequestTime = Timer.builder("embedding.request.total.time")
-                    .description("Total time for embedding requests (cache + generation)")
+
+            this.requestTokens = DistributionSummary.builder("embedding.request.tokens")
+                    .description("Tokens per embedded text, consumed on a miss or saved on a hit")
                     .register(meterRegistry);
-            
-            this.healthCheckTime = Timer.builder("health.check.time")
+
+            Gauge.builder("embedding.tokens.rate", tokenRate, SlidingWindowRate::perSecond)
+                    .description("Tokens consumed per second over the last minute")
+                    .register(meterRegistry);
+
+            // Initialize timers
+            this.healthCheckTime = latencyTimer("health.check.time")
                     .description("Time taken for health checks")
                     .register(meterRegistry);
-            
-            logger.info("MetricsService initialized with metrics collection enabled");
+
+            for (RequestPriority priority : RequestPriority.values()) {
+                laneRequestTimes.put(priority, latencyTimer("embedding.request.lane.time")
+                        .description("Total time for embedding requests per priority lane")
+                        .tag("lane", priority.tagValue())
+                        .register(meterRegistry));
+            }
+
+            if (stageMetricsEnabled) {
+                for (RequestStage stage : RequestStage.values()) {
+                    stageTimes.put(stage, latencyTimer("embedding.request.stage.time")
+                            .description("Time spent per stage of embedding requests that went through the stage")
+                            .tag("stage", stage.tagValue())
+                            .register(meterRegistry));
+                }
+            }
+
+            logger.info("MetricsService initialized with metrics collection enabled ({})", meterRegistry.getClass().getSimpleName());
         } else {
             // Initialize with null values when disabled
             this.meterRegistry = null;
@@ -92,15 +162,37 @@ public class MetricsService {
             this.embeddingSuccess = null;
             this.embeddingFailures = null;
             this.healthCheckRequests = null;
-            this.cacheRetrievalTime = null;
-            this.embeddingGenerationTime = null;
-            this.totalRequestTime = null;
             this.healthCheckTime = null;
-            
+            this.tokensConsumed = null;
+            this.tokensSaved = null;
+            this.requestTokens = null;
+
             logger.info("MetricsService initialized with metrics collection disabled");
         }
     }
-    
+
+    /**
+     * Timer builder publishing the configured percentiles (and histogram buckets), for latency timers registered
+     * outside this service on the same registry
+     */
+    public static Timer.Builder latencyTimer(String name, EmbeddingCacheManagerConfig config) {
+        return Timer.builder(name)
+                .publishPercentiles(toArray(config.getMetricsPercentiles()))
+                .publishPercentileHistogram(Boolean.TRUE.equals(config.getMetricsPercentileHistogram()))
+                .distributionStatisticExpiry(Duration.ofMillis(config.getMetricsDistributionExpiryMs()));
+    }
+
+    private Timer.Builder latencyTimer(String name) {
+        return Timer.builder(name)
+                .publishPercentiles(percentiles)
+                .publishPercentileHistogram(percentileHistogram)
+                .distributionStatisticExpiry(distributionExpiry);
+    }
+
+    private static double[] toArray(List<Double> values) {
+        return Objects.isNull(values) ? new double[0] : values.stream().mapToDouble(Double::doubleValue).toArray();
+    }
+
     /**
      * Record a cache hit event
      */
@@ -109,7 +201,7 @@ public class MetricsService {
             cacheHits.increment();
         }
     }
-    
+
     /**
      * Record a cache miss event
      */
@@ -118,7 +210,7 @@ public class MetricsService {
             cacheMisses.increment();
         }
     }
-    
+
     /**
      * Record an embedding request
      */
@@ -127,7 +219,7 @@ public class MetricsService {
             embeddingRequests.increment();
         }
     }
-    
+
     /**
      * Record successful embedding generation
      */
@@ -136,7 +228,7 @@ public class MetricsService {
             embeddingSuccess.increment();
         }
     }
-    
+
     /**
      * Record failed embedding generation
      */
@@ -145,7 +237,7 @@ public class MetricsService {
             embeddingFailures.increment();
         }
     }
-    
+
     /**
      * Record a health check request
      */
@@ -154,74 +246,130 @@ public class MetricsService {
             healthCheckRequests.increment();
         }
     }
-    
+
     /**
      * Time cache retrieval operations
      */
     public Timer.Sample startCacheRetrievalTimer() {
-        if (enabled && cacheRetrievalTime != null) {
-            return Timer.start(meterRegistry);
-        }
-        return null;
+        return startSample();
     }
-    
+
     /**
-     * Stop cache retrieval timer
+     * Stop cache retrieval timer as a successful single-text lookup
      */
     public void stopCacheRetrievalTimer(Timer.Sample sample) {
-        if (enabled && sample != null && cacheRetrievalTime != null) {
-            sample.stop(cacheRetrievalTime);
-        }
+        stopCacheRetrievalTimer(sample, OPERATION_LOOKUP, Outcome.SUCCESS);
     }
-    
+
+    /**
+     * Stop cache retrieval timer
+     */
+    public void stopCacheRetrievalTimer(Timer.Sample sample, String operation, Outcome outcome) {
+        stop(sample, CACHE_RETRIEVAL_TIME, "Time taken to retrieve embeddings from cache", operation, outcome);
+    }
+
     /**
      * Time embedding generation operations
      */
     public Timer.Sample startEmbeddingGenerationTimer() {
-        if (enabled && embeddingGenerationTime != null) {
-            return Timer.start(meterRegistry);
-        }
-        return null;
+        return startSample();
     }
-    
+
     /**
-     * Stop embedding generation timer
+     * Stop embedding generation timer as a successful single-text generation
      */
     public void stopEmbeddingGenerationTimer(Timer.Sample sample) {
-        if (enabled && sample != null && embeddingGenerationTime != null) {
-            sample.stop(embeddingGenerationTime);
-        }
+        stopEmbeddingGenerationTimer(sample, OPERATION_GENERATE, Outcome.SUCCESS);
     }
-    
+
+    /**
+     * Stop embedding generation timer
+     */
+    public void stopEmbeddingGenerationTimer(Timer.Sample sample, String operation, Outcome outcome) {
+        stop(sample, GENERATION_TIME, "Time taken to generate embeddings", operation, outcome);
+    }
+
     /**
      * Time total request operations
      */
     public Timer.Sample startTotalRequestTimer() {
-        if (enabled && totalRequestTime != null) {
-            return Timer.start(meterRegistry);
-        }
-        return null;
+        return startSample();
     }
-    
+
     /**
-     * Stop total request timer
+     * Stop total request timer as a successful single-text request
      */
     public void stopTotalRequestTimer(Timer.Sample sample) {
-        if (enabled && sample != null && totalRequestTime != null) {
-            sample.stop(totalRequestTime);
+        stopTotalRequestTimer(sample, OPERATION_GET_EMBEDDING, Outcome.SUCCESS);
+    }
+
+    /**
+     * Stop total request timer
+     */
+    public void stopTotalRequestTimer(Timer.Sample sample, String operation, Outcome outcome) {
+        stop(sample, TOTAL_REQUEST_TIME, "Total time for embedding requests (cache + generation)", operation, outcome);
+    }
+
+    /**
+     * Record a request sample on its priority lane as well; call alongside {@link #stopTotalRequestTimer(Timer.Sample, String, Outcome)}
+     */
+    public void stopLaneRequestTimer(Timer.Sample sample, RequestPriority priority) {
+        Timer timer = laneRequestTimes.get(priority);
+        if (enabled && sample != null && timer != null) {
+            sample.stop(timer);
+        }
+    }
+
+    /**
+     * Record the tokens spent on a generated text
+     */
+    public void recordTokensConsumed(long tokens) {
+        if (enabled && tokensConsumed != null && tokens > 0) {
+            tokensConsumed.increment(tokens);
+            tokenRate.add(tokens);
+            requestTokens.record(tokens);
         }
     }
-    
+
+    /**
+     * Record the tokens a cache hit did not have to pay for
+     */
+    public void recordTokensSaved(long tokens) {
+        if (enabled && tokensSaved != null && tokens > 0) {
+            tokensSaved.increment(tokens);
+            requestTokens.record(tokens);
+        }
+    }
+
+    /**
+     * Whether requests should collect a {@link StageTimings} for {@link #recordStageTimings(StageTimings)}
+     */
+    public boolean isStageMetricsEnabled() {
+        return stageMetricsEnabled;
+    }
+
+    /**
+     * Record each stage a finished request went through on its stage histogram
+     */
+    public void recordStageTimings(StageTimings timings) {
+        if (!stageMetricsEnabled || timings == null) {
+            return;
+        }
+        stageTimes.forEach((stage, timer) -> {
+            long nanos = timings.getNanos(stage);
+            if (nanos > 0) {
+                timer.record(nanos, TimeUnit.NANOSECONDS);
+            }
+        });
+    }
+
     /**
      * Time health check operations
      */
     public Timer.Sample startHealthCheckTimer() {
-        if (enabled && healthCheckTime != null) {
-            return Timer.start(meterRegistry);
-        }
-        return null;
+        return startSample();
     }
-    
+
     /**
      * Stop health check timer
      */
@@ -230,21 +378,39 @@ public class MetricsService {
             sample.stop(healthCheckTime);
         }
     }
-    
+
+    private Timer.Sample startSample() {
+        return enabled ? Timer.start(meterRegistry) : null;
+    }
+
+    private void stop(Timer.Sample sample, String name, String description, String operation, Outcome outcome) {
+        if (enabled && sample != null) {
+            sample.stop(timer(name, description, operation, outcome));
+        }
+    }
+
+    private Timer timer(String name, String description, String operation, Outcome outcome) {
+        return timers.computeIfAbsent(name + '|' + operation + '|' + outcome.tagValue(), key -> latencyTimer(name)
+                .description(description)
+                .tag("operation", operation)
+                .tag("outcome", outcome.tagValue())
+                .register(meterRegistry));
+    }
+
     /**
      * Get the meter registry for custom metrics
      */
     public MeterRegistry getMeterRegistry() {
         return meterRegistry;
     }
-    
+
     /**
      * Check if metrics collection is enabled
      */
     public boolean isEnabled() {
         return enabled;
     }
-    
+
     /**
      * Get current metrics summary
      */
@@ -252,28 +418,105 @@ public class MetricsService {
         if (!enabled || meterRegistry == null) {
             return MetricsSummary.disabled();
         }
-        
+
         return MetricsSummary.builder()
                 .cacheHitRate(calculateCacheHitRate())
                 .totalRequests(embeddingRequests.count())
                 .successfulGenerations(embeddingSuccess.count())
                 .failedGenerations(embeddingFailures.count())
-                .averageCacheRetrievalTime(getAverageTime(cacheRetrievalTime))
-                .averageGenerationTime(getAverageTime(embeddingGenerationTime))
-                .averageTotalRequestTime(getAverageTime(totalRequestTime))
+                .averageCacheRetrievalTime(getAverageTime(timers(CACHE_RETRIEVAL_TIME)))
+                .averageGenerationTime(getAverageTime(timers(GENERATION_TIME)))
+                .averageTotalRequestTime(getAverageTime(timers(TOTAL_REQUEST_TIME)))
                 .healthCheckRequests(healthCheckRequests.count())
-                .averageHealthCheckTime(getAverageTime(healthCheckTime))
+                .averageHealthCheckTime(getAverageTime(Collections.singletonList(healthCheckTime)))
+                .requestsByLane(getLaneValues(timer -> (double) timer.count()))
+                .averageRequestTimeByLane(getLaneValues(timer -> getAverageTime(Collections.singletonList(timer))))
+                .requestTimePercentiles(getPercentiles(TOTAL_REQUEST_TIME))
+                .cacheRetrievalTimePercentiles(getPercentiles(CACHE_RETRIEVAL_TIME))
+                .generationTimePercentiles(getPercentiles(GENERATION_TIME))
+                .tokensConsumed(tokensConsumed.count())
+                .tokensSaved(tokensSaved.count())
+                .tokensPerSecond(tokenRate.perSecond())
+                .averageTokensPerRequest(requestTokens.mean())
+                .averageStageTime(getStageValues(timer -> getAverageTime(Collections.singletonList(timer))))
+                .stageTimePercentiles(getStagePercentiles())
                 .enabled(true)
                 .build();
     }
-    
+
     private double calculateCacheHitRate() {
         double hits = cacheHits.count();
         double total = hits + cacheMisses.count();
         return total > 0 ? (hits / total) * 100.0 : 0.0;
     }
-    
-    private double getAverageTime(Timer timer) {
-        return timer != null ? timer.mean(TimeUnit.MILLISECONDS) : 0.0;
+
+    private Map<String, Double> getLaneValues(ToDoubleFunction<Timer> value) {
+        Map<String, Double> values = new LinkedHashMap<>();
+        laneRequestTimes.forEach((priority, timer) -> values.put(priority.tagValue(), value.applyAsDouble(timer)));
+        return values;
+    }
+
+    private Map<String, Double> getStageValues(ToDoubleFunction<Timer> value) {
+        Map<String, Double> values = new LinkedHashMap<>();
+        stageTimes.forEach((stage, timer) -> {
+            if (timer.count() > 0) {
+                values.put(stage.tagValue(), value.applyAsDouble(timer));
+            }
+        });
+        return values;
+    }
+
+    private Map<String, Map<String, Double>> getStagePercentiles() {
+        Map<String, Map<String, Double>> percentilesByStage = new LinkedHashMap<>();
+        stageTimes.forEach((stage, timer) -> {
+            if (timer.count() > 0) {
+                percentilesByStage.put(stage.tagValue(), getPercentiles(timer));
+            }
+        });
+        return percentilesByStage;
+    }
+
+    private Collection<Timer> timers(String name) {
+        return timers.entrySet().stream()
+                .filter(entry -> entry.getKey().startsWith(name + '|'))
+                .map(Map.Entry::getValue)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Mean over all operations and outcomes of a timer; means merge across tags, percentiles do not
+     */
+    private double getAverageTime(Collection<Timer> timers) {
+        long count = 0;
+        double totalMs = 0.0;
+        for (Timer timer : timers) {
+            count += timer.count();
+            totalMs += timer.totalTime(TimeUnit.MILLISECONDS);
+        }
+        return count > 0 ? totalMs / count : 0.0;
+    }
+
+    /**
+     * Percentiles in milliseconds keyed "operation.outcome", then "p50", "p99", "p999" and so on
+     */
+    private Map<String, Map<String, Double>> getPercentiles(String name) {
+        Map<String, Map<String, Double>> percentilesByTags = new TreeMap<>();
+        for (Timer timer : timers(name)) {
+            percentilesByTags.put(timer.getId().getTag("operation") + "." + timer.getId().getTag("outcome"), getPercentiles(timer));
+        }
+        return percentilesByTags;
+    }
+
+    private static Map<String, Double> getPercentiles(Timer timer) {
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        Map<String, Double> values = new LinkedHashMap<>();
+        for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+            values.put(percentileKey(percentile.percentile()), percentile.value(TimeUnit.MILLISECONDS));
+        }
+        return values;
+    }
+
+    static String percentileKey(double percentile) {
+        return "p" + BigDecimal.valueOf(percentile * 100).stripTrailingZeros().toPlainString().replace(".", "");
     }
-}
\ No newline at end of file
+}
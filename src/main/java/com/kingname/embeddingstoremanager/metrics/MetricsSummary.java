@@ -4,6 +4,9 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.ToString;
 
+import java.util.Collections;
+import java.util.Map;
+
 /**
  * Summary of metrics collected by the MetricsService
  */
@@ -22,6 +25,24 @@ public class MetricsSummary {
     private final double averageTotalRequestTime; // Milliseconds
     private final double healthCheckRequests;
     private final double averageHealthCheckTime; // Milliseconds
+    private final double tokensConsumed;
+    private final double tokensSaved;
+    private final double tokensPerSecond; // Consumed, over the last minute
+    private final double averageTokensPerRequest; // Per embedded text, hit or miss
+    @Builder.Default
+    private final Map<String, Double> requestsByLane = Collections.emptyMap();
+    @Builder.Default
+    private final Map<String, Double> averageRequestTimeByLane = Collections.emptyMap(); // Milliseconds
+    @Builder.Default
+    private final Map<String, Map<String, Double>> requestTimePercentiles = Collections.emptyMap(); // "operation.outcome" -> "p99" -> milliseconds
+    @Builder.Default
+    private final Map<String, Map<String, Double>> cacheRetrievalTimePercentiles = Collections.emptyMap();
+    @Builder.Default
+    private final Map<String, Map<String, Double>> generationTimePercentiles = Collections.emptyMap();
+    @Builder.Default
+    private final Map<String, Double> averageStageTime = Collections.emptyMap(); // Stage -> milliseconds, over requests that went through the stage
+    @Builder.Default
+    private final Map<String, Map<String, Double>> stageTimePercentiles = Collections.emptyMap();
     
     /**
      * Create a summary for disabled metrics
@@ -51,6 +72,14 @@ public class MetricsSummary {
         return (successfulGenerations / totalRequests) * 100.0;
     }
     
+    /**
+     * Share of the tokens requested that the cache saved, as percentage
+     */
+    public double getTokenSavingsRate() {
+        double requested = tokensConsumed + tokensSaved;
+        return requested > 0 ? (tokensSaved / requested) * 100.0 : 0.0;
+    }
+    
     /**
      * Get failure rate as percentage
      */
@@ -0,0 +1,16 @@
+package com.kingname.embeddingstoremanager.metrics;
+
+/**
+ * Value of the "outcome" tag on latency timers. Lookups end in a hit or a miss, generations in success,
+ * and anything that threw in an error; a batch is a hit only when every text was cached.
+ */
+public enum Outcome {
+    HIT,
+    MISS,
+    SUCCESS,
+    ERROR;
+
+    public String tagValue() {
+        return name().toLowerCase();
+    }
+}
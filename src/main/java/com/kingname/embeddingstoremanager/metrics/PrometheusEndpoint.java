@@ -0,0 +1,193 @@
+package com.kingname.embeddingstoremanager.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Measurement;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves any MeterRegistry in the Prometheus text exposition format on /metrics, without a Prometheus client dependency.
+ * Timers are exported in seconds as summaries (client-side percentiles as quantiles) or, when percentile histograms are
+ * enabled, as histograms with the percentiles in a separate "_percentile" gauge family.
+ */
+public class PrometheusEndpoint implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrometheusEndpoint.class);
+    public static final String PATH = "/metrics";
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final MeterRegistry meterRegistry;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public PrometheusEndpoint(MeterRegistry meterRegistry, int port) throws IOException {
+        this.meterRegistry = meterRegistry;
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "prometheus-endpoint");
+            t.setDaemon(true);
+            return t;
+        });
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.server.createContext(PATH, this::handle);
+        this.server.setExecutor(executor);
+        this.server.start();
+        logger.info("Prometheus endpoint listening on port {}{}", getPort(), PATH);
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            byte[] body = scrape(meterRegistry).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Renders every meter of the registry in the Prometheus text format
+     */
+    public static String scrape(MeterRegistry meterRegistry) {
+        Map<String, Family> families = new LinkedHashMap<>();
+        for (Meter meter : meterRegistry.getMeters()) {
+            Meter.Id id = meter.getId();
+            String name = sanitize(id.getName());
+            meter.use(
+                gauge -> family(families, name, "gauge", id).add("", id, null, gauge.value()),
+                counter -> family(families, name + "_total", "counter", id).add("", id, null, counter.count()),
+                timer -> histogram(families, name + "_seconds", id, timer.takeSnapshot(), TimeUnit.SECONDS),
+                summary -> histogram(families, name, id, summary.takeSnapshot(), null),
+                longTaskTimer -> {
+                    family(families, name + "_active_count", "gauge", id).add("", id, null, longTaskTimer.activeTasks());
+                    family(families, name + "_duration_seconds", "gauge", id).add("", id, null, longTaskTimer.duration(TimeUnit.SECONDS));
+                },
+                timeGauge -> family(families, name + "_seconds", "gauge", id).add("", id, null, timeGauge.value(TimeUnit.SECONDS)),
+                functionCounter -> family(families, name + "_total", "counter", id).add("", id, null, functionCounter.count()),
+                functionTimer -> {
+                    Family family = family(families, name + "_seconds", "summary", id);
+                    family.add("_count", id, null, functionTimer.count());
+                    family.add("_sum", id, null, functionTimer.totalTime(TimeUnit.SECONDS));
+                },
+                other -> {
+                    for (Measurement measurement : other.measure()) {
+                        String suffix = measurement.getStatistic().name().toLowerCase(Locale.ROOT);
+                        family(families, name + "_" + suffix, "untyped", id).add("", id, null, measurement.getValue());
+                    }
+                });
+        }
+        StringBuilder out = new StringBuilder();
+        families.values().forEach(family -> family.write(out));
+        return out.toString();
+    }
+
+    private static void histogram(Map<String, Family> families, String name, Meter.Id id, HistogramSnapshot snapshot, TimeUnit unit) {
+        CountAtBucket[] buckets = snapshot.histogramCounts();
+        Family family = family(families, name, buckets.length > 0 ? "histogram" : "summary", id);
+        if (buckets.length > 0) {
+            for (CountAtBucket bucket : buckets) {
+                family.add("_bucket", id, "le=\"" + format(unit != null ? bucket.bucket(unit) : bucket.bucket()) + "\"", bucket.count());
+            }
+            family.add("_bucket", id, "le=\"+Inf\"", snapshot.count());
+        }
+        Family quantiles = buckets.length > 0 ? family(families, name + "_percentile", "gauge", id) : family;
+        for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+            quantiles.add("", id, "quantile=\"" + format(percentile.percentile()) + "\"",
+                    unit != null ? percentile.value(unit) : percentile.value());
+        }
+        family.add("_count", id, null, snapshot.count());
+        family.add("_sum", id, null, unit != null ? snapshot.total(unit) : snapshot.total());
+        family(families, name + "_max", "gauge", id).add("", id, null, unit != null ? snapshot.max(unit) : snapshot.max());
+    }
+
+    private static Family family(Map<String, Family> families, String name, String type, Meter.Id id) {
+        return families.computeIfAbsent(name, key -> new Family(key, type, id.getDescription()));
+    }
+
+    private static String sanitize(String name) {
+        String sanitized = name.replaceAll("[^a-zA-Z0-9_:]", "_");
+        return Character.isDigit(sanitized.charAt(0)) ? "_" + sanitized : sanitized;
+    }
+
+    private static String format(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        return Double.toString(value);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private static final class Family {
+        private final String name;
+        private final String type;
+        private final String help;
+        private final List<String> samples = new ArrayList<>();
+
+        private Family(String name, String type, String help) {
+            this.name = name;
+            this.type = type;
+            this.help = help;
+        }
+
+        private void add(String suffix, Meter.Id id, String extraLabel, double value) {
+            StringBuilder sample = new StringBuilder(name).append(suffix);
+            List<String> labels = new ArrayList<>();
+            for (Tag tag : id.getTagsAsIterable()) {
+                labels.add(sanitize(tag.getKey()) + "=\"" + escape(tag.getValue()) + "\"");
+            }
+            if (extraLabel != null) {
+                labels.add(extraLabel);
+            }
+            if (!labels.isEmpty()) {
+                sample.append('{').append(String.join(",", labels)).append('}');
+            }
+            samples.add(sample.append(' ').append(format(value)).toString());
+        }
+
+        private void write(StringBuilder out) {
+            if (help != null) {
+                out.append("# HELP ").append(name).append(' ').append(help.replace("\\", "\\\\").replace("\n", "\\n")).append('\n');
+            }
+            out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+            samples.forEach(sample -> out.append(sample).append('\n'));
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.kingname.embeddingstoremanager.metrics;
+
+/**
+ * Where the time of one embedding request goes; the value of the "stage" tag on embedding.request.stage.time
+ */
+public enum RequestStage {
+    NORMALIZE,          // Truncate, trim and lower-case the text
+    HASH,               // Document key of the text
+    POOL_WAIT,          // Waiting for an Elasticsearch or embedding API permit (connection pool share of the lane)
+    ES_QUERY,           // Elasticsearch get / mget / search round trips, excluding _source deserialization
+    DESERIALIZE,        // Parsing cached documents' _source
+    API_CALL,           // Embedding API round trips, request serialization and response read included
+    RESPONSE_PARSE,     // Parsing the embedding API response body
+    RETRY_BACKOFF,      // Waiting between embedding API retries
+    STORE;              // Synchronous store of a generated embedding
+
+    public String tagValue() {
+        return name().toLowerCase();
+    }
+}
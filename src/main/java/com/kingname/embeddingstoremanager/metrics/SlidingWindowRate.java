@@ -0,0 +1,52 @@
+package com.kingname.embeddingstoremanager.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Amount per second over the last few seconds, kept in one bucket per second. An add racing with the reuse of
+ * its bucket may be lost, which a rate gauge can afford.
+ */
+final class SlidingWindowRate {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final int windowSeconds;
+    private final AtomicLongArray amounts;
+    private final AtomicLongArray bucketSeconds;
+    private final long startNanos = System.nanoTime();
+
+    SlidingWindowRate(int windowSeconds) {
+        this.windowSeconds = windowSeconds;
+        this.amounts = new AtomicLongArray(windowSeconds);
+        this.bucketSeconds = new AtomicLongArray(windowSeconds);
+        for (int i = 0; i < windowSeconds; i++) {
+            bucketSeconds.set(i, -1L);
+        }
+    }
+
+    void add(long amount) {
+        long second = (System.nanoTime() - startNanos) / NANOS_PER_SECOND;
+        int index = (int) (second % windowSeconds);
+        long bucketSecond = bucketSeconds.get(index);
+        if (bucketSecond != second && bucketSeconds.compareAndSet(index, bucketSecond, second)) {
+            amounts.set(index, 0L);
+        }
+        amounts.addAndGet(index, amount);
+    }
+
+    double perSecond() {
+        long elapsedNanos = System.nanoTime() - startNanos;
+        long second = elapsedNanos / NANOS_PER_SECOND;
+        long total = 0;
+        for (int i = 0; i < windowSeconds; i++) {
+            if (second - bucketSeconds.get(i) < windowSeconds) {
+                total += amounts.get(i);
+            }
+        }
+        // The buckets cover the finished seconds of the window plus the current, partial one
+        double elapsedSeconds = (double) elapsedNanos / NANOS_PER_SECOND;
+        double coveredSeconds = Math.min(elapsedSeconds, windowSeconds - 1 + (elapsedSeconds - second));
+        return coveredSeconds > 0 ? total / coveredSeconds : 0.0;
+    }
+}
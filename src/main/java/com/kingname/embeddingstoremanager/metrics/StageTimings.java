@@ -0,0 +1,93 @@
+package com.kingname.embeddingstoremanager.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-request time spent in each {@link RequestStage}, one array slot per stage. Components on the request's
+ * thread reach it through {@link #current()}; asynchronous Elasticsearch callbacks capture it before leaving the
+ * thread. Stages of concurrent sub-batches are summed, so a batch breakdown can exceed its wall time.
+ */
+public final class StageTimings {
+
+    private static final RequestStage[] STAGES = RequestStage.values();
+    private static final ThreadLocal<StageTimings> CURRENT = new ThreadLocal<>();
+
+    private final AtomicLongArray nanos = new AtomicLongArray(STAGES.length);
+
+    public void add(RequestStage stage, long elapsedNanos) {
+        if (elapsedNanos > 0) {
+            nanos.addAndGet(stage.ordinal(), elapsedNanos);
+        }
+    }
+
+    public long getNanos(RequestStage stage) {
+        return nanos.get(stage.ordinal());
+    }
+
+    public double getMillis(RequestStage stage) {
+        return getNanos(stage) / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public long getTotalNanos() {
+        long total = 0;
+        for (int i = 0; i < STAGES.length; i++) {
+            total += nanos.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * Milliseconds per stage that took any time, in pipeline order
+     */
+    public Map<String, Double> toMillisMap() {
+        Map<String, Double> millis = new LinkedHashMap<>();
+        for (RequestStage stage : STAGES) {
+            if (getNanos(stage) > 0) {
+                millis.put(stage.tagValue(), getMillis(stage));
+            }
+        }
+        return millis;
+    }
+
+    /**
+     * Timings of the request running on this thread, or null outside a timed request
+     */
+    public static StageTimings current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Makes timings current on this thread and returns the previous value for {@link #restore(StageTimings)}
+     */
+    public static StageTimings attach(StageTimings timings) {
+        StageTimings previous = CURRENT.get();
+        CURRENT.set(timings);
+        return previous;
+    }
+
+    public static void restore(StageTimings previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * Adds the time since startNanos to the current request, if any
+     */
+    public static void record(RequestStage stage, long startNanos) {
+        StageTimings timings = CURRENT.get();
+        if (timings != null) {
+            timings.add(stage, System.nanoTime() - startNanos);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "StageTimings" + toMillisMap();
+    }
+}
@@ -0,0 +1,72 @@
+package com.kingname.embeddingstoremanager.priority;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps the calls bulk traffic may have in flight against one backend, so the rest of its capacity stays
+ * free for interactive requests. Interactive calls are never limited here; the backend's own pool bounds them.
+ */
+public class PriorityBulkhead {
+
+    private final String name;
+    private final int bulkLimit;
+    private final Semaphore bulkPermits;
+    private final long maxWaitMs;
+
+    /**
+     * @param name backend name used in error messages
+     * @param capacity concurrent calls the backend accepts, e.g. its connection pool size
+     * @param interactiveReservedShare share of the capacity bulk traffic may not use
+     * @param maxWaitMs how long a bulk call waits for a permit
+     */
+    public PriorityBulkhead(String name, int capacity, double interactiveReservedShare, long maxWaitMs) {
+        this.name = name;
+        int reserved = (int) Math.ceil(capacity * interactiveReservedShare);
+        this.bulkLimit = Math.max(1, capacity - reserved);
+        this.bulkPermits = new Semaphore(bulkLimit, true);
+        this.maxWaitMs = maxWaitMs;
+    }
+
+    /**
+     * Connections a pool can actually open: its total limit, or its per-route limit times the routes when that is lower
+     */
+    public static int poolCapacity(int maxTotal, int maxPerRoute, int routes) {
+        return Math.min(maxTotal, maxPerRoute * Math.max(1, routes));
+    }
+
+    /**
+     * @return true when the call may proceed; a granted bulk call must be followed by {@link #release(RequestPriority)}
+     */
+    public boolean acquire(RequestPriority priority) throws InterruptedException {
+        if (!limits(priority)) {
+            return true;
+        }
+        return bulkPermits.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void release(RequestPriority priority) {
+        if (limits(priority)) {
+            bulkPermits.release();
+        }
+    }
+
+    /**
+     * Whether calls of the priority take a permit, and so may wait in {@link #acquire(RequestPriority)}
+     */
+    public boolean limits(RequestPriority priority) {
+        return priority == RequestPriority.BULK;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getBulkLimit() {
+        return bulkLimit;
+    }
+
+    public int getBulkInFlight() {
+        return bulkLimit - bulkPermits.availablePermits();
+    }
+}
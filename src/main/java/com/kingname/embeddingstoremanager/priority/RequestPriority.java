@@ -0,0 +1,14 @@
+package com.kingname.embeddingstoremanager.priority;
+
+/**
+ * Scheduling class of an embedding request. Interactive requests get a larger share of the async executor
+ * and capacity on the Elasticsearch and embedding API sides that bulk traffic cannot take.
+ */
+public enum RequestPriority {
+    INTERACTIVE,
+    BULK;
+
+    public String tagValue() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,339 @@
+package com.kingname.embeddingstoremanager.stream;
+
+import com.kingname.embeddingstoremanager.EmbeddingCacheManager;
+import com.kingname.embeddingstoremanager.async.AsyncAdapters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Streams the embeddings of an unbounded text source through {@link EmbeddingCacheManager#getEmbeddingsAsync}.
+ * 
+ * Texts are taken from the source in chunks, and only while the subscriber has unmet demand and fewer than
+ * chunkSize * maxInFlightChunks texts are in flight or waiting for demand, so memory stays bounded however long
+ * the source is. Each chunk goes through the batch pipeline, which dedupes it, looks it up with one multi-lookup
+ * and generates its misses in API batches.
+ * 
+ * Signals are delivered on one daemon thread per subscription. That thread also reads an {@link Iterator} source,
+ * so a blocking iterator does not hold pipeline threads. A publisher accepts a single subscriber.
+ */
+public class EmbeddingStreamPublisher implements Flow.Publisher<IndexedEmbedding> {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddingStreamPublisher.class);
+    private static final AtomicInteger streamCount = new AtomicInteger();
+
+    private final EmbeddingCacheManager embeddingCacheManager;
+    private final Iterator<String> sourceIterator;
+    private final Flow.Publisher<String> sourcePublisher;
+    private final StreamOptions options;
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    public EmbeddingStreamPublisher(EmbeddingCacheManager embeddingCacheManager, Iterator<String> source, StreamOptions options) {
+        this(embeddingCacheManager, Objects.requireNonNull(source), null, options);
+    }
+
+    public EmbeddingStreamPublisher(EmbeddingCacheManager embeddingCacheManager, Flow.Publisher<String> source, StreamOptions options) {
+        this(embeddingCacheManager, null, Objects.requireNonNull(source), options);
+    }
+
+    private EmbeddingStreamPublisher(EmbeddingCacheManager embeddingCacheManager, Iterator<String> sourceIterator,
+                                     Flow.Publisher<String> sourcePublisher, StreamOptions options) {
+        this.embeddingCacheManager = embeddingCacheManager;
+        this.sourceIterator = sourceIterator;
+        this.sourcePublisher = sourcePublisher;
+        this.options = options;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super IndexedEmbedding> subscriber) {
+        Objects.requireNonNull(subscriber);
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("EmbeddingStreamPublisher supports a single subscriber"));
+            return;
+        }
+        new StreamSubscription(subscriber).start();
+    }
+
+    private final class StreamSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super IndexedEmbedding> downstream;
+        private final ExecutorService signalExecutor;
+        private final int chunkSize;
+        private final long maxHeldTexts;
+
+        // Written by any thread, read by the drain loop
+        private final AtomicInteger wip = new AtomicInteger();
+        private final AtomicLong requested = new AtomicLong();
+        private final ConcurrentHashMap<Long, List<IndexedEmbedding>> completedChunks = new ConcurrentHashMap<>();
+        private final ConcurrentLinkedQueue<Long> completionOrder = new ConcurrentLinkedQueue<>();
+        private final ConcurrentLinkedQueue<String> received = new ConcurrentLinkedQueue<>();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private volatile Flow.Subscription upstream;
+        private volatile boolean upstreamDone;
+        private volatile boolean cancelled;
+
+        // Only touched by the drain loop
+        private final ArrayDeque<IndexedEmbedding> ready = new ArrayDeque<>();
+        private List<String> pending = new ArrayList<>();
+        private long nextTextIndex;
+        private long nextChunk;
+        private long nextEmitChunk;
+        private long heldTexts;              // Texts in flight plus results waiting for demand
+        private long upstreamOutstanding;
+        private boolean sourceExhausted;
+        private boolean done;
+
+        private StreamSubscription(Flow.Subscriber<? super IndexedEmbedding> downstream) {
+            this.downstream = downstream;
+            this.chunkSize = Math.max(1, options.getChunkSize());
+            this.maxHeldTexts = (long) chunkSize * Math.max(1, options.getMaxInFlightChunks());
+            int streamId = streamCount.incrementAndGet();
+            this.signalExecutor = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "embedding-stream-" + streamId);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+
+        private void start() {
+            downstream.onSubscribe(this);
+            if (sourcePublisher != null) {
+                sourcePublisher.subscribe(new SourceSubscriber());
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                failure.compareAndSet(null, new IllegalArgumentException("Demand must be positive, got " + n));
+            } else {
+                requested.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            drain();
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            try {
+                signalExecutor.execute(this::drainLoop);
+            } catch (RejectedExecutionException e) {
+                // Terminated; nothing left to signal
+            }
+        }
+
+        private void drainLoop() {
+            int missed = 1;
+            do {
+                drainOnce();
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drainOnce() {
+            if (done) {
+                return;
+            }
+            if (cancelled) {
+                terminate();
+                return;
+            }
+            Throwable error = failure.get();
+            if (error != null) {
+                terminate();
+                downstream.onError(error);
+                return;
+            }
+            collectCompleted();
+            emit();
+            fill();
+            if (sourceExhausted && pending.isEmpty() && heldTexts == 0 && !done) {
+                terminate();
+                downstream.onComplete();
+            }
+        }
+
+        private void collectCompleted() {
+            if (options.getOrdering() == StreamOrdering.ORDERED) {
+                List<IndexedEmbedding> results;
+                while ((results = completedChunks.remove(nextEmitChunk)) != null) {
+                    ready.addAll(results);
+                    nextEmitChunk++;
+                }
+            } else {
+                Long chunk;
+                while ((chunk = completionOrder.poll()) != null) {
+                    ready.addAll(completedChunks.remove(chunk));
+                }
+            }
+        }
+
+        private void emit() {
+            while (!ready.isEmpty() && requested.get() > 0 && !cancelled) {
+                IndexedEmbedding result = ready.poll();
+                heldTexts--;
+                if (requested.get() != Long.MAX_VALUE) {
+                    requested.decrementAndGet();
+                }
+                try {
+                    downstream.onNext(result);
+                } catch (RuntimeException e) {
+                    logger.warn("Stream subscriber failed in onNext, cancelling: {}", e.getMessage());
+                    cancelled = true;
+                }
+            }
+        }
+
+        private void fill() {
+            while (!done && !cancelled) {
+                try {
+                    readSource();
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                    drain();
+                    return;
+                }
+                boolean fullChunk = pending.size() >= chunkSize;
+                if (!(fullChunk || (sourceExhausted && !pending.isEmpty())) || !canLaunch()) {
+                    return;
+                }
+                launch();
+            }
+        }
+
+        /**
+         * Moves source texts into the pending chunk, pulling no more than one chunk ahead of what may be launched
+         */
+        private void readSource() {
+            if (sourcePublisher == null) {
+                if (canLaunch()) {
+                    while (pending.size() < chunkSize && sourceIterator.hasNext()) {
+                        pending.add(sourceIterator.next());
+                    }
+                }
+                if (pending.size() < chunkSize && !sourceIterator.hasNext()) {
+                    sourceExhausted = true;
+                }
+                return;
+            }
+            boolean completed = upstreamDone;
+            String text;
+            while ((text = received.poll()) != null) {
+                pending.add(text);
+                upstreamOutstanding--;
+            }
+            if (completed) {
+                sourceExhausted = true;
+                return;
+            }
+            long need = chunkSize - pending.size() - upstreamOutstanding;
+            Flow.Subscription subscription = upstream;
+            if (need > 0 && subscription != null && canLaunch()) {
+                upstreamOutstanding += need;
+                subscription.request(need);
+            }
+        }
+
+        private boolean canLaunch() {
+            return heldTexts < requested.get() && heldTexts + chunkSize <= maxHeldTexts;
+        }
+
+        private void launch() {
+            List<String> chunk = pending;
+            pending = new ArrayList<>();
+            long firstIndex = nextTextIndex;
+            long chunkId = nextChunk++;
+            nextTextIndex += chunk.size();
+            heldTexts += chunk.size();
+            embeddingCacheManager.getEmbeddingsAsync(chunk, options.getPriority()).whenComplete((embeddings, e) -> {
+                if (e != null) {
+                    failure.compareAndSet(null, AsyncAdapters.unwrap(e));
+                } else {
+                    List<IndexedEmbedding> results = new ArrayList<>(embeddings.size());
+                    for (int i = 0; i < embeddings.size(); i++) {
+                        results.add(new IndexedEmbedding(firstIndex + i, embeddings.get(i)));
+                    }
+                    completedChunks.put(chunkId, results);
+                    // Ordered streams drain by chunk id and never poll the completion queue
+                    if (options.getOrdering() != StreamOrdering.ORDERED) {
+                        completionOrder.add(chunkId);
+                    }
+                }
+                drain();
+            });
+        }
+
+        private void terminate() {
+            done = true;
+            Flow.Subscription subscription = upstream;
+            if (subscription != null && !upstreamDone) {
+                subscription.cancel();
+            }
+            ready.clear();
+            completedChunks.clear();
+            received.clear();
+            signalExecutor.shutdown();
+        }
+
+        private final class SourceSubscriber implements Flow.Subscriber<String> {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                if (upstream != null) {
+                    subscription.cancel();
+                    return;
+                }
+                upstream = subscription;
+                drain();
+            }
+
+            @Override
+            public void onNext(String text) {
+                received.add(text);
+                drain();
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                failure.compareAndSet(null, throwable);
+                drain();
+            }
+
+            @Override
+            public void onComplete() {
+                upstreamDone = true;
+                drain();
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.kingname.embeddingstoremanager.stream;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * Embedding of the text at position index of a streamed source
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class IndexedEmbedding {
+    private final long index;
+    private final List<Double> embedding;
+}
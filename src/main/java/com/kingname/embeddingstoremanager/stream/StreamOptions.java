@@ -0,0 +1,23 @@
+package com.kingname.embeddingstoremanager.stream;
+
+import com.kingname.embeddingstoremanager.priority.RequestPriority;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Options for streaming embedding of unbounded text sources
+ */
+@Builder
+@Getter
+@ToString
+public class StreamOptions {
+    @Builder.Default
+    private final Integer chunkSize = 500;               // Texts handed to the batch pipeline as one unit
+    @Builder.Default
+    private final Integer maxInFlightChunks = 4;         // Chunks in flight or awaiting demand; bounds memory to chunkSize * maxInFlightChunks texts
+    @Builder.Default
+    private final StreamOrdering ordering = StreamOrdering.ORDERED;
+    @Builder.Default
+    private final RequestPriority priority = RequestPriority.BULK;
+}
@@ -0,0 +1,9 @@
+package com.kingname.embeddingstoremanager.stream;
+
+/**
+ * Order in which a stream emits its results
+ */
+public enum StreamOrdering {
+    ORDERED,        // Source order; a slow chunk holds back the chunks after it
+    COMPLETION      // As chunks complete; lowest latency, indices tell results apart
+}
@@ -0,0 +1,53 @@
+package com.kingname.embeddingstoremanager.vo;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Per-document outcome of a bulk store
+ */
+@Getter
+@Builder
+@ToString
+public class BulkStoreResult {
+
+    private final int total;
+    private final int succeeded;
+    private final int failed;
+    private final int retried;   // Items re-sent after a rejection (429)
+    private final int chunks;    // Number of _bulk requests sent, excluding retries
+    private final long tookMs;
+    @Builder.Default
+    private final List<ItemFailure> failures = Collections.emptyList();
+
+    /**
+     * Create a result for a store that does not report per-document outcomes
+     */
+    public static BulkStoreResult allSucceeded(int total) {
+        return BulkStoreResult.builder()
+                .total(total)
+                .succeeded(total)
+                .failed(0)
+                .chunks(total > 0 ? 1 : 0)
+                .build();
+    }
+
+    public boolean hasFailures() {
+        return failed > 0;
+    }
+
+    @Getter
+    @Builder
+    @ToString
+    public static class ItemFailure {
+        private final int position; // Index of the document in the input list
+        private final String id;
+        private final int status;
+        private final String type;
+        private final String reason;
+    }
+}
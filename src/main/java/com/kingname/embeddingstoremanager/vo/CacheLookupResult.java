@@ -0,0 +1,21 @@
+package com.kingname.embeddingstoremanager.vo;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * A cache hit together with the backing index that served it
+ */
+@Getter
+@Builder
+@ToString(exclude = "embedding")
+public class CacheLookupResult {
+
+    private final List<Double> embedding;
+    private final String indexName;
+    private final boolean olderGeneration; // Served by an index other than the current write index
+    private final Long tokenCount; // Tokens stored with the document, null for documents cached without usage
+}
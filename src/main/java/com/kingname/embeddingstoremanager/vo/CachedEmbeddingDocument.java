@@ -16,4 +16,9 @@ import java.util.List;
 public class CachedEmbeddingDocument {
     protected String text;
     protected List<Double> embedding;
+    protected Long token_count; // Tokens the embedding API billed for the text, null when unknown
+
+    public CachedEmbeddingDocument(String text, List<Double> embedding) {
+        this(text, embedding, null);
+    }
 }
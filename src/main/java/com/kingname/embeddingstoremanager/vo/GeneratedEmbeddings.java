@@ -0,0 +1,25 @@
+package com.kingname.embeddingstoremanager.vo;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * Embeddings of one generation call together with the token usage the API reported for it
+ */
+@Getter
+@Builder
+@ToString(exclude = "embeddings")
+public class GeneratedEmbeddings {
+
+    private final List<List<Double>> embeddings; // In input order
+    private final List<Long> tokenCounts;        // Per input text, null when the generator does not report usage
+    private final long promptTokens;
+    private final long totalTokens;
+
+    public Long getTokenCount(int index) {
+        return tokenCounts != null ? tokenCounts.get(index) : null;
+    }
+}
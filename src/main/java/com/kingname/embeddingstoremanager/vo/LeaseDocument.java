@@ -0,0 +1,19 @@
+package com.kingname.embeddingstoremanager.vo;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.*;
+
+/**
+ * Lease held by the instance that runs index lifecycle tasks
+ */
+@Getter
+@Setter
+@Builder
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class LeaseDocument {
+    private String owner;
+    private Long expiresAt; // epoch millis
+}
@@ -34,6 +34,12 @@ public class EmbeddingStoreManagerApplicationTests {
         assertThat(hash1).isEqualTo(hash2); // Same input should produce same hash
         assertThat(hash1).isNotEqualTo(hash3); // Different input should produce different hash
         assertThat(hash1).hasSize(64); // SHA-256 produces 64 character hex string
+        
+        HashGenerator murmurGenerator = new HashGenerator(KeyHashStrategy.MURMUR3_128_BASE64);
+        assertThat(murmurGenerator.getHash("test string")).hasSize(22) // 128 bits as unpadded URL-safe base64
+            .isEqualTo(murmurGenerator.getHash("test string"))
+            .isNotEqualTo(murmurGenerator.getHash("different string"))
+            .matches("[A-Za-z0-9_-]+");
     }
 
     @Test
@@ -56,6 +62,1367 @@ public class EmbeddingStoreManagerApplicationTests {
         assertThat(manager.normalize("very long string that exceeds max")).isEqualTo("very long");
     }
     
+    @Test
+    public void testWriteBehindStoreCoalescesAndDrains() throws Exception {
+        EmbeddingCacheManagerConfig config = EmbeddingCacheManagerConfig.builder()
+                .elasticSearchCacheHosts(java.util.Arrays.asList("localhost"))
+                .elasticSearchCachePort(9200)
+                .elasticSearchCacheAliasName("test")
+                .writeBehindFlushIntervalMs(60_000L)
+                .build();
+        io.micrometer.core.instrument.simple.SimpleMeterRegistry registry = new io.micrometer.core.instrument.simple.SimpleMeterRegistry();
+        RecordingEmbeddingCacheStore delegate = new RecordingEmbeddingCacheStore();
+        WriteBehindEmbeddingCacheStore store = new WriteBehindEmbeddingCacheStore(delegate, config, registry);
+        
+        store.storeEmbedding("hello", java.util.Arrays.asList(0.1, 0.2));
+        store.storeEmbedding("hello", java.util.Arrays.asList(0.3, 0.4));
+        store.storeEmbedding("world", java.util.Arrays.asList(0.5, 0.6));
+        
+        // Pending writes are visible to lookups before they are flushed
+        assertThat(store.getQueueDepth()).isEqualTo(2);
+        assertThat(store.getCachedEmbedding("hello")).containsExactly(0.3, 0.4);
+        assertThat(delegate.stored).isEmpty();
+        
+        store.close();
+        assertThat(store.getQueueDepth()).isZero();
+        assertThat(delegate.stored).extracting(com.kingname.embeddingstoremanager.vo.CachedEmbeddingDocument::getText)
+                .containsExactly("hello", "world");
+        assertThat(registry.get("embedding.writebehind.coalesced").functionCounter().count()).isEqualTo(1.0);
+        assertThat(registry.get("embedding.writebehind.flushed").functionCounter().count()).isEqualTo(2.0);
+        assertThat(registry.get("embedding.writebehind.flush.time").timer().takeSnapshot().percentileValues()).isNotEmpty();
+    }
+    
+    @Test
+    public void testWriteBehindKeepsInFlightWritesVisibleAndRequeuesFailedFlushes() throws Exception {
+        EmbeddingCacheManagerConfig config = EmbeddingCacheManagerConfig.builder()
+                .elasticSearchCacheHosts(java.util.Arrays.asList("localhost"))
+                .elasticSearchCachePort(9200)
+                .elasticSearchCacheAliasName("test")
+                .writeBehindFlushSize(1)
+                .writeBehindFlushIntervalMs(60_000L)
+                .build();
+        java.util.concurrent.CountDownLatch flushStarted = new java.util.concurrent.CountDownLatch(1);
+        java.util.concurrent.CountDownLatch flushReleased = new java.util.concurrent.CountDownLatch(1);
+        java.util.concurrent.atomic.AtomicInteger flushes = new java.util.concurrent.atomic.AtomicInteger();
+        RecordingEmbeddingCacheStore delegate = new RecordingEmbeddingCacheStore() {
+            @Override
+            public com.kingname.embeddingstoremanager.vo.BulkStoreResult bulkStoreEmbeddings(java.util.List<com.kingname.embeddingstoremanager.vo.CachedEmbeddingDocument> documents)
+                    throws com.kingname.embeddingstoremanager.exception.EmbeddingCacheStoreException {
+                if (flushes.incrementAndGet() == 1) {
+                    flushStarted.countDown();
+                    try {
+                        flushReleased.await(5, java.util.concurrent.TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    throw new com.kingname.embeddingstoremanager.exception.EmbeddingCacheStoreException("bulk rejected", null);
+                }
+                return super.bulkStoreEmbeddings(documents);
+            }
+        };
+        WriteBehindEmbeddingCacheStore store = new WriteBehindEmbeddingCacheStore(delegate, config, null);
+        
+        store.storeEmbedding("hello", java.util.Arrays.asList(0.1, 0.2));
+        assertThat(flushStarted.await(5, java.util.concurrent.TimeUnit.SECONDS)).isTrue();
+        
+        // Taken by the flush but not yet acknowledged: still answered from memory
+        assertThat(store.getQueueDepth()).isZero();
+        assertThat(store.getCachedEmbedding("hello")).containsExactly(0.1, 0.2);
+        
+        flushReleased.countDown();
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (store.getQueueDepth() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(store.getQueueDepth()).isEqualTo(1);
+        assertThat(store.getCachedEmbedding("hello")).containsExactly(0.1, 0.2);
+        
+        store.close();
+        assertThat(delegate.stored).extracting(com.kingname.embeddingstoremanager.vo.CachedEmbeddingDocument::getText)
+                .containsExactly("hello");
+        assertThat(store.getDroppedWrites()).isZero();
+    }
+    
+    @Test
+    public void testImportCheckpointAdvancesOverContiguousBatches() throws Exception {
+        java.nio.file.Path path = java.nio.file.Files.createTempFile("import", ".ckpt");
+        java.nio.file.Files.delete(path);
+        com.kingname.embeddingstoremanager.bulk.ImportCheckpoint checkpoint =
+                com.kingname.embeddingstoremanager.bulk.ImportCheckpoint.load(path);
+        
+        checkpoint.complete(100, 200); // out of order, must not advance yet
+        assertThat(checkpoint.getCommittedLine()).isZero();
+        checkpoint.complete(0, 100);
+        assertThat(checkpoint.getCommittedLine()).isEqualTo(200);
+        
+        // A restarted import resumes after the last contiguous batch
+        assertThat(com.kingname.embeddingstoremanager.bulk.ImportCheckpoint.load(path).getCommittedLine()).isEqualTo(200);
+        java.nio.file.Files.deleteIfExists(path);
+    }
+    
+    @Test
+    public void testBackfillSkipsCachedTextsAndResumesFromCheckpoint() throws Exception {
+        EmbeddingCacheManagerConfig config = EmbeddingCacheManagerConfig.builder()
+                .elasticSearchCacheHosts(java.util.Arrays.asList("localhost"))
+                .elasticSearchCachePort(9200)
+                .elasticSearchCacheAliasName("test")
+                .modelName("test")
+                .embeddingApiUrl("http://test.com")
+                .build();
+        RecordingEmbeddingCacheStore store = new RecordingEmbeddingCacheStore() {
+            @Override
+            public java.util.Map<String, java.util.List<Double>> getCachedEmbeddings(java.util.List<String> texts) {
+                return texts.contains("cached") ? java.util.Collections.singletonMap("cached", java.util.Arrays.asList(1.0))
+                    : java.util.Collections.emptyMap();
+            }
+        };
+        EmbeddingCacheManager manager = new EmbeddingCacheManager(config, store, new MockEmbeddingGenerator());
+        java.nio.file.Path checkpointPath = java.nio.file.Files.createTempFile("backfill", ".ckpt");
+        java.nio.file.Files.write(checkpointPath, "2".getBytes(java.nio.charset.StandardCharsets.UTF_8));
+        
+        com.kingname.embeddingstoremanager.bulk.BackfillProgress progress = new com.kingname.embeddingstoremanager.bulk.EmbeddingBackfillJob(manager,
+            com.kingname.embeddingstoremanager.bulk.BackfillOptions.builder().batchSize(4).checkpointPath(checkpointPath).build())
+            .run(java.util.Arrays.asList("done 1", "done 2", "Cached", "a", "A", "b").iterator());
+        
+        assertThat(progress.getTextsSkipped()).isEqualTo(2);
+        assertThat(progress.getAlreadyCached()).isEqualTo(1);
+        assertThat(progress.getGenerated()).isEqualTo(2);
+        assertThat(progress.getCheckpointLine()).isEqualTo(6);
+        assertThat(store.stored).extracting(com.kingname.embeddingstoremanager.vo.CachedEmbeddingDocument::getText)
+            .containsExactlyInAnyOrder("a", "b");
+        java.nio.file.Files.deleteIfExists(checkpointPath);
+        manager.shutdown();
+    }
+    
+    @Test
+    public void testBackfillRetriesRejectedDocumentsAndNeverCommitsAFailedBatch() throws Exception {
+        EmbeddingCacheManagerConfig config = EmbeddingCacheManagerConfig.builder()
+                .elasticSearchCacheHosts(java.util.Arrays.asList("localhost"))
+                .elasticSearchCachePort(9200)
+                .elasticSearchCacheAliasName("test")
+                .modelName("test")
+                .embeddingApiUrl("http://test.com")
+                .build();
+        // Rejects "b" on its first store and "z" on every store
+        java.util.concurrent.atomic.AtomicBoolean rejectedB = new java.util.concurrent.atomic.AtomicBoolean();
+        RecordingEmbeddingCacheStore store = new RecordingEmbeddingCacheStore() {
+            @Override
+            public com.kingname.embeddingstoremanager.vo.BulkStoreResult bulkStoreEmbeddings(
+                    java.util.List<com.kingname.embeddingstoremanager.vo.CachedEmbeddingDocument> documents) {
+                java.util.List<com.kingname.embeddingstoremanager.vo.BulkStoreResult.ItemFailure> failures = new java.util.ArrayList<>();
+                for (int i = 0; i < documents.size(); i++) {
+                    String text = documents.get(i).getText();
+                    if (text.equals("z") || (text.equals("b") && rejectedB.compareAndSet(false, true))) {
+                        failures.add(com.kingname.embeddingstoremanager.vo.BulkStoreResult.ItemFailure.builder()
+                            .position(i).status(503).type("unavailable_shards_exception").build());
+                    } else {
+                        stored.add(documents.get(i));
+                    }
+                }
+                return com.kingname.embeddingstoremanager.vo.BulkStoreResult.builder().total(documents.size())
+                    .succeeded(documents.size() - failures.size()).failed(failures.size()).failures(failures).build();
+            }
+        };
+        EmbeddingCacheManager manager = new EmbeddingCacheManager(config, store, new MockEmbeddingGenerator());
+        java.nio.file.Path checkpointPath = java.nio.file.Files.createTempFile("backfill", ".ckpt");
+        com.kingname.embeddingstoremanager.bulk.BackfillOptions options = com.kingname.embeddingstoremanager.bulk.BackfillOptions.builder()
+            .batchSize(2).parallelism(1).checkpointPath(checkpointPath).build();
+        
+        com.kingname.embeddingstoremanager.bulk.EmbeddingBackfillJob job = new com.kingname.embeddingstoremanager.bulk.EmbeddingBackfillJob(manager, options);
+        assertThatThrownBy(() -> job.run(java.util.Arrays.asList("a", "b", "y", "z").iterator()))
+            .isInstanceOf(com.kingname.embeddingstoremanager.exception.EmbeddingCacheStoreException.class);
+        
+        // "b" got through on the retry, the batch holding "z" stays behind the checkpoint
+        assertThat(store.stored).extracting(com.kingname.embeddingstoremanager.vo.CachedEmbeddingDocument::getText)
+            .contains("a", "b", "y").doesNotContain("z");
+        assertThat(job.getProgress().getFailed()).isEqualTo(1);
+        assertThat(com.kingname.embeddingstoremanager.bulk.ImportCheckpoint.load(checkpointPath).getCommittedLine()).isEqualTo(2);
+        java.nio.file.Files.deleteIfExists(checkpointPath);
+        manager.shutdown();
+    }
+    
+    @Test
+    public void testImportRetriesRejectedDocumentsAndNeverCommitsAFailedBatch() throws Exception {
+        EmbeddingCacheManagerConfig config = EmbeddingCacheManagerConfig.builder()
+                .elasticSearchCacheHosts(java.util.Arrays.asList("localhost"))
+                .elasticSearchCachePort(9200)
+                .elasticSearchCacheAliasName("test")
+                .modelName("test")
+                .embeddingApiUrl("http://test.com")
+                .build();
+        // Rejects "b" on its first store and "z" on every store
+        java.util.concurrent.atomic.AtomicBoolean rejectedB = new java.util.concurrent.atomic.AtomicBoolean();
+        RecordingEmbeddingCacheStore store = new RecordingEmbeddingCacheStore() {
+            @Override
+            public com.kingname.embeddingstoremanager.vo.BulkStoreResult bulkStoreEmbeddings(
+                    java.util.List<com.kingname.embeddingstoremanager.vo.CachedEmbeddingDocument> documents) {
+                java.util.List<com.kingname.embeddingstoremanager.vo.BulkStoreResult.ItemFailure> failures = new java.util.ArrayList<>();
+                for (int i = 0; i < documents.size(); i++) {
+                    String text = documents.get(i).getText();
+                    if (text.equals("z") || (text.equals("b") && rejectedB.compareAndSet(false, true))) {
+                        failures.add(com.kingname.embeddingstoremanager.vo.BulkStoreResult.ItemFailure.builder()
+                            .position(i).status(429).type("es_rejected_execution_exception").build());
+                    } else {
+                        stored.add(documents.get(i));
+                    }
+                }
+                return com.kingname.embeddingstoremanager.vo.BulkStoreResult.builder().total(documents.size())
+                    .succeeded(documents.size() - failures.size()).failed(failures.size()).failures(failures).build();
+            }
+        };
+        EmbeddingCacheManager manager = new EmbeddingCacheManager(config, store, new MockEmbeddingGenerator());
+        java.nio.file.Path checkpointPath = java.nio.file.Files.createTempFile("import", ".ckpt");
+        java.nio.file.Files.delete(checkpointPath);
+        com.kingname.embeddingstoremanager.bulk.ImportOptions options = com.kingname.embeddingstoremanager.bulk.ImportOptions.builder()
+            .batchSize(2).parallelism(1).maxInFlightBatches(1).expectedDimension(2).storeRetryBackoffMs(1L)
+            .checkpointPath(checkpointPath).build();
+        String lines = "{\"text\":\"a\",\"embedding\":[0.1,0.2]}\n{\"text\":\"b\",\"embedding\":[0.1,0.2]}\n"
+            + "{\"text\":\"y\",\"embedding\":[0.1,0.2]}\n{\"text\":\"z\",\"embedding\":[0.1,0.2]}\n";
+        
+        com.kingname.embeddingstoremanager.bulk.EmbeddingImporter importer = new com.kingname.embeddingstoremanager.bulk.EmbeddingImporter(manager, options);
+        assertThatThrownBy(() -> importer.importStream(new java.io.ByteArrayInputStream(lines.getBytes(java.nio.charset.StandardCharsets.UTF_8))))
+            .isInstanceOf(com.kingname.embeddingstoremanager.exception.EmbeddingCacheStoreException.class);
+        
+        // "b" got through on the retry, the batch holding "z" stays behind the checkpoint
+        assertThat(store.stored).extracting(com.kingname.embeddingstoremanager.vo.CachedEmbeddingDocument::getText)
+            .contains("a", "b", "y").doesNotContain("z");
+        assertThat(importer.getProgress().getFailed()).isEqualTo(1);
+        assertThat(com.kingname.embeddingstoremanager.bulk.ImportCheckpoint.load(checkpointPath).getCommittedLine()).isEqualTo(2);
+        java.nio.file.Files.deleteIfExists(checkpointPath);
+        manager.shutdown();
+    }
+    
+    @Test
+    public void testSnapshotRoundTrip() throws Exception {
+        java.io.ByteArrayOutputStream bytes = new java.io.ByteArrayOutputStream();
+        com.kingname.embeddingstoremanager.bulk.EmbeddingSnapshotWriter writer = new com.kingname.embeddingstoremanager.bulk.EmbeddingSnapshotWriter(
+                bytes, com.kingname.embeddingstoremanager.bulk.VectorEncoding.FLOAT16, 64);
+        writer.write("hash-1", "hello", java.util.Arrays.asList(0.5, -0.25, 1.0), 7L);
+        writer.write("hash-2", null, java.util.Arrays.asList(0.1, 0.2, 0.3));
+        writer.close();
+        
+        com.kingname.embeddingstoremanager.bulk.EmbeddingSnapshotReader reader = new com.kingname.embeddingstoremanager.bulk.EmbeddingSnapshotReader(
+                new java.io.ByteArrayInputStream(bytes.toByteArray()));
+        com.kingname.embeddingstoremanager.vo.EsCachedEmbeddingDocument first = reader.next();
+        com.kingname.embeddingstoremanager.vo.EsCachedEmbeddingDocument second = reader.next();
+        
+        assertThat(first.getHash()).isEqualTo("hash-1");
+        assertThat(first.getText()).isEqualTo("hello");
+        assertThat(first.getEmbedding()).containsExactly(0.5, -0.25, 1.0);
+        assertThat(first.getToken_count()).isEqualTo(7L);
+        assertThat(second.getText()).isNull();
+        assertThat(second.getToken_count()).isNull();
+        assertThat(second.getEmbedding().get(0)).isCloseTo(0.1, within(1e-3));
+        assertThat(reader.next()).isNull();
+        reader.close();
+        
+        // Version 1 snapshots have no token count and still read
+        java.io.ByteArrayOutputStream recordBytes = new java.io.ByteArrayOutputStream();
+        java.io.DataOutputStream record = new java.io.DataOutputStream(recordBytes);
+        record.writeInt(6);
+        record.write("hash-1".getBytes(java.nio.charset.StandardCharsets.UTF_8));
+        record.writeInt(-1);
+        record.writeInt(1);
+        record.writeFloat(0.5f);
+        byte[] raw = recordBytes.toByteArray();
+        java.util.zip.Deflater deflater = new java.util.zip.Deflater();
+        deflater.setInput(raw);
+        deflater.finish();
+        byte[] deflated = new byte[raw.length + 64];
+        int deflatedLength = deflater.deflate(deflated);
+        deflater.end();
+        java.io.ByteArrayOutputStream v1Bytes = new java.io.ByteArrayOutputStream();
+        java.io.DataOutputStream v1 = new java.io.DataOutputStream(v1Bytes);
+        v1.write(new byte[]{'E', 'M', 'B', 'S'});
+        v1.writeByte(1);
+        v1.writeByte(com.kingname.embeddingstoremanager.bulk.VectorEncoding.FLOAT32.getCode());
+        v1.writeInt(raw.length);
+        v1.writeInt(deflatedLength);
+        v1.write(deflated, 0, deflatedLength);
+        v1.writeInt(0);
+        com.kingname.embeddingstoremanager.bulk.EmbeddingSnapshotReader v1Reader = new com.kingname.embeddingstoremanager.bulk.EmbeddingSnapshotReader(
+                new java.io.ByteArrayInputStream(v1Bytes.toByteArray()));
+        com.kingname.embeddingstoremanager.vo.EsCachedEmbeddingDocument old = v1Reader.next();
+        assertThat(old.getHash()).isEqualTo("hash-1");
+        assertThat(old.getEmbedding()).containsExactly(0.5);
+        assertThat(old.getToken_count()).isNull();
+        assertThat(v1Reader.next()).isNull();
+        v1Reader.close();
+    }
+    
+    @Test
+    public void testIndexGenerationNaming() {
+        java.time.YearMonth month = java.time.YearMonth.of(2024, 3);
+        com.kingname.embeddingstoremanager.index.IndexGeneration first =
+                com.kingname.embeddingstoremanager.index.IndexGeneration.first("embedding-cache", month);
+        
+        assertThat(first.getIndexName()).isEqualTo("embedding-cache-202403");
+        assertThat(first.next().getIndexName()).isEqualTo("embedding-cache-202403-000002");
+        assertThat(com.kingname.embeddingstoremanager.index.IndexGeneration.parse("embedding-cache", "embedding-cache-202403-000002")
+                .map(com.kingname.embeddingstoremanager.index.IndexGeneration::getGeneration)).contains(2);
+        assertThat(com.kingname.embeddingstoremanager.index.IndexGeneration.parse("embedding-cache", "embedding-cache-base")).isEmpty();
+        assertThat(first.next().compareTo(com.kingname.embeddingstoremanager.index.IndexGeneration.first("embedding-cache", month.plusMonths(1)))).isNegative();
+    }
+    
+    @Test
+    public void testRetentionSelectsExpiredIndicesPerAction() {
+        java.time.YearMonth may = java.time.YearMonth.of(2024, 5);
+        java.util.List<String> aliasIndices = java.util.Arrays.asList("cache-base", "cache-202402", "cache-202402-000002",
+            "cache-202403", "cache-202405");
+        java.util.List<String> openIndices = java.util.Arrays.asList("cache-202401", "cache-202402", "cache-202403", "cache-202405");
+        
+        // With 3 months kept in May, March is the oldest retained month; base indices never match
+        assertThat(ESEmbeddingCacheStore.selectExpiredIndices("cache", "cache-202405", aliasIndices, openIndices,
+            com.kingname.embeddingstoremanager.index.ExpiredIndexAction.DETACH, true, may, 3))
+            .containsExactly("cache-202402", "cache-202402-000002");
+        // Detached indices are only swept by CLOSE or DELETE when asked for
+        assertThat(ESEmbeddingCacheStore.selectExpiredIndices("cache", "cache-202405", aliasIndices, openIndices,
+            com.kingname.embeddingstoremanager.index.ExpiredIndexAction.DELETE, false, may, 3))
+            .containsExactly("cache-202402", "cache-202402-000002");
+        assertThat(ESEmbeddingCacheStore.selectExpiredIndices("cache", "cache-202405", aliasIndices, openIndices,
+            com.kingname.embeddingstoremanager.index.ExpiredIndexAction.CLOSE, true, may, 3))
+            .containsExactly("cache-202401", "cache-202402", "cache-202402-000002");
+        assertThat(ESEmbeddingCacheStore.selectExpiredIndices("cache", "cache-202405", aliasIndices, openIndices,
+            com.kingname.embeddingstoremanager.index.ExpiredIndexAction.DELETE, true, may, 3))
+            .containsExactly("cache-202401", "cache-202402", "cache-202402-000002");
+        // The write index is kept even when its month has expired
+        assertThat(ESEmbeddingCacheStore.selectExpiredIndices("cache", "cache-202402-000002", aliasIndices, openIndices,
+            com.kingname.embeddingstoremanager.index.ExpiredIndexAction.DETACH, false, may, 3))
+            .containsExactly("cache-202402");
+        assertThat(EmbeddingCacheManagerConfig.builder().build().getExpiredIndexAction())
+            .isEqualTo(com.kingname.embeddingstoremanager.index.ExpiredIndexAction.DETACH);
+    }
+    
+    @Test
+    public void testRolloverSchedulerPreparesNextMonthNearTheSeoulBoundary() throws Exception {
+        EmbeddingCacheManagerConfig config = EmbeddingCacheManagerConfig.builder()
+                .elasticSearchCacheAliasName("cache")
+                .rolloverPrecreateHours(6)
+                .rolloverCheckIntervalMs(5 * 3_600_000L)
+                .build();
+        java.util.concurrent.atomic.AtomicBoolean leaseFree = new java.util.concurrent.atomic.AtomicBoolean(true);
+        java.util.List<java.time.YearMonth> prepared = java.util.Collections.synchronizedList(new java.util.ArrayList<>());
+        java.util.concurrent.atomic.AtomicInteger lifecycleRuns = new java.util.concurrent.atomic.AtomicInteger();
+        java.util.List<java.time.LocalDateTime> lifecycleTimes = java.util.Collections.synchronizedList(new java.util.ArrayList<>());
+        ESEmbeddingCacheStore store = new ESEmbeddingCacheStore(config, new FakeTransport()) {
+            @Override
+            public boolean tryAcquireLease(String leaseName, String owner, long ttlMs) {
+                return leaseFree.get();
+            }
+            
+            @Override
+            public String prepareMonthlyIndex(java.time.YearMonth month) {
+                prepared.add(month);
+                return com.kingname.embeddingstoremanager.index.IndexGeneration.first("cache", month).getIndexName();
+            }
+            
+            @Override
+            public com.kingname.embeddingstoremanager.index.IndexLifecycleStatus runLifecycle(java.time.LocalDateTime now) {
+                lifecycleRuns.incrementAndGet();
+                lifecycleTimes.add(now);
+                return com.kingname.embeddingstoremanager.index.IndexLifecycleStatus.unknown();
+            }
+        };
+        java.util.List<Long> scheduledDelaysMs = java.util.Collections.synchronizedList(new java.util.ArrayList<>());
+        java.util.concurrent.ScheduledThreadPoolExecutor executor = new java.util.concurrent.ScheduledThreadPoolExecutor(1) {
+            @Override
+            public java.util.concurrent.ScheduledFuture<?> schedule(Runnable command, long delay, java.util.concurrent.TimeUnit unit) {
+                scheduledDelaysMs.add(unit.toMillis(delay));
+                return super.schedule(command, delay, unit);
+            }
+        };
+        
+        // 14:00 in Seoul on January 31st, ten hours before the month changes there: nothing to prepare yet
+        new com.kingname.embeddingstoremanager.index.IndexRolloverScheduler(store, config, executor,
+            java.time.Clock.fixed(java.time.Instant.parse("2024-01-31T05:00:00Z"), java.time.ZoneOffset.UTC)).tick();
+        assertThat(prepared).isEmpty();
+        assertThat(lifecycleRuns.get()).isEqualTo(1);
+        assertThat(lifecycleTimes).containsExactly(java.time.LocalDateTime.of(2024, 1, 31, 14, 0)); // the tick's clock, in Seoul
+        
+        // 20:00 in Seoul is 11:00 UTC; February starts in Seoul four hours later, while UTC is still thirteen hours away
+        com.kingname.embeddingstoremanager.index.IndexRolloverScheduler scheduler = new com.kingname.embeddingstoremanager.index.IndexRolloverScheduler(
+            store, config, executor, java.time.Clock.fixed(java.time.Instant.parse("2024-01-31T11:00:00Z"), java.time.ZoneOffset.UTC));
+        scheduler.tick();
+        assertThat(prepared).containsExactly(java.time.YearMonth.of(2024, 2));
+        assertThat(scheduler.getPreparedIndexName()).isEqualTo("cache-202402");
+        assertThat(scheduledDelaysMs).containsExactly(4 * 3_600_000L + 1_000L);
+        
+        // The boundary tick is scheduled once, however many ticks run before it
+        scheduler.tick();
+        assertThat(scheduledDelaysMs).hasSize(1);
+        
+        // Without the lease a tick neither prepares nor runs the lifecycle
+        leaseFree.set(false);
+        int runs = lifecycleRuns.get();
+        scheduler.tick();
+        assertThat(scheduler.isLeader()).isFalse();
+        assertThat(prepared).hasSize(2);
+        assertThat(lifecycleRuns.get()).isEqualTo(runs);
+        executor.shutdownNow();
+        store.close();
+    }
+    
+    @Test
+    public void testDocumentIdIsDerivedFromTheTextHash() throws Exception {
+        String hash = new HashGenerator(KeyHashStrategy.SHA256_HEX).getHash("hello");
+        FakeDocuments documents = new FakeDocuments("cache", "cache-202402");
+        ESEmbeddingCacheStore store = documents.store(EmbeddingCacheManagerConfig.builder()
+                .elasticSearchCacheAliasName("cache")
+                .build());
+        ESEmbeddingCacheStore qualifiedStore = documents.store(EmbeddingCacheManagerConfig.builder()
+                .elasticSearchCacheAliasName("cache")
+                .modelName("model-a")
+                .modelQualifiedDocumentId(true)
+                .build());
+        
+        store.storeEmbedding(null, "hello", java.util.Arrays.asList(0.1, 0.2));
+        qualifiedStore.storeEmbedding(null, "hello", java.util.Arrays.asList(0.1, 0.2));
+        
+        assertThat(store.getDocumentId(hash)).isEqualTo(hash);
+        assertThat(qualifiedStore.getDocumentId(hash)).isEqualTo("model-a:" + hash);
+        assertThat(documents.indices.get("cache-202402")).containsOnlyKeys(hash, "model-a:" + hash);
+    }
+    
+    @Test
+    public void testLookupSearchesTheWriteIndexAfterAGetMiss() throws Exception {
+        String hash = new HashGenerator(KeyHashStrategy.SHA256_HEX).getHash("hello");
+        FakeDocuments documents = new FakeDocuments("cache", "cache-202402");
+        documents.put("cache-202402", "auto-id-1", "hello", hash); // stored before ids were derived from the hash
+        ESEmbeddingCacheStore store = documents.store(EmbeddingCacheManagerConfig.builder()
+                .elasticSearchCacheAliasName("cache")
+                .build());
+        
+        com.kingname.embeddingstoremanager.vo.CacheLookupResult result = store.lookupCachedEmbedding("hello");
+        
+        assertThat(result.getEmbedding()).containsExactly(0.1, 0.2);
+        assertThat(result.isOlderGeneration()).isFalse();
+        assertThat(documents.transport.requests.stream().map(request -> request.getClass().getSimpleName()))
+            .containsSubsequence("GetAliasRequest", "GetRequest", "SearchRequest");
+        co.elastic.clients.elasticsearch.core.SearchRequest search = documents.transport.requests(co.elastic.clients.elasticsearch.core.SearchRequest.class).get(0);
+        assertThat(search.index()).containsExactly("cache");
+        assertThat(search.query().bool().mustNot()).isEmpty();
+        awaitReadRepairs(store, 1);
+        assertThat(documents.indices.get("cache-202402")).containsOnlyKeys("auto-id-1", hash); // re-keyed under the hash id
+        
+        FakeDocuments cutOver = new FakeDocuments("cache", "cache-202402");
+        cutOver.put("cache-202402", "auto-id-1", "hello", hash);
+        ESEmbeddingCacheStore cutOverStore = cutOver.store(EmbeddingCacheManagerConfig.builder()
+                .elasticSearchCacheAliasName("cache")
+                .searchWriteIndexOnIdMiss(false)
+                .build());
+        assertThat(cutOverStore.lookupCachedEmbedding("hello")).isNull();
+        assertThat(cutOver.transport.requests(co.elastic.clients.elasticsearch.core.SearchRequest.class)).isEmpty();
+    }
+    
+    @Test
+    public void testAsyncLookupAnswersPendingWritesBeforeElasticsearch() throws Exception {
+        EmbeddingCacheManagerConfig config = EmbeddingCacheManagerConfig.builder()
+                .elasticSearchCacheAliasName("cache")
+                .writeBehindFlushIntervalMs(60_000L)
+                .build();
+        FakeDocuments documents = new FakeDocuments("cache", "cache-202402");
+        ESEmbeddingCacheStore store = documents.store(config);
+        WriteBehindEmbeddingCacheStore writeBehind = new WriteBehindEmbeddingCacheStore(store, config, null);
+        com.kingname.embeddingstoremanager.async.AsyncESEmbeddingCacheStore asyncStore =
+            new com.kingname.embeddingstoremanager.async.AsyncESEmbeddingCacheStore(store, writeBehind);
+        
+        writeBehind.storeEmbedding(com.kingname.embeddingstoremanager.vo.CachedEmbeddingDocument.builder()
+                .text("pending").embedding(java.util.Arrays.asList(0.5, 0.6)).token_count(5L).build());
+        com.kingname.embeddingstoremanager.vo.CacheLookupResult result = asyncStore.lookupCachedEmbedding("pending").toCompletableFuture().get();
+        
+        assertThat(result.getEmbedding()).containsExactly(0.5, 0.6);
+        assertThat(result.getTokenCount()).isEqualTo(5L);
+        assertThat(documents.transport.requests(co.elastic.clients.elasticsearch.core.GetRequest.class)).isEmpty();
+        assertThat(documents.transport.requests(co.elastic.clients.elasticsearch.core.SearchRequest.class)).isEmpty();
+        writeBehind.close();
+        assertThat(documents.bulkTexts()).containsExactly(java.util.Collections.singletonList("pending"));
+    }
+    
+    @Test
+    public void testBatchLookupMergesMgetHitsWithSearchedMisses() throws Exception {
+        HashGenerator hashGenerator = new HashGenerator(KeyHashStrategy.SHA256_HEX);
+        String keyed = hashGenerator.getHash("keyed");
+        String autoId = hashGenerator.getHash("auto id");
+        String older = hashGenerator.getHash("older");
+        FakeDocuments documents = new FakeDocuments("cache", "cache-202402");
+        documents.put("cache-202402", keyed, "keyed", keyed);
+        documents.put("cache-202402", "auto-id-1", "auto id", autoId);
+        documents.put("cache-202401", older, "older", older);
+        ESEmbeddingCacheStore store = documents.store(EmbeddingCacheManagerConfig.builder()
+                .elasticSearchCacheAliasName("cache")
+                .lookupNewestGenerationFirst(true)
+                .readRepairPerSecond(1_000_000.0)
+                .build());
+        
+        java.util.Map<String, com.kingname.embeddingstoremanager.vo.CacheLookupResult> results =
+            store.lookupCachedEmbeddings(java.util.Arrays.asList("keyed", "auto id", "older", "missing"));
+        
+        assertThat(results).containsOnlyKeys("keyed", "auto id", "older");
+        assertThat(results.get("auto id").getIndexName()).isEqualTo("cache-202402");
+        assertThat(results.get("older").isOlderGeneration()).isTrue();
+        java.util.List<co.elastic.clients.elasticsearch.core.SearchRequest> searches =
+            documents.transport.requests(co.elastic.clients.elasticsearch.core.SearchRequest.class);
+        assertThat(searches).extracting(search -> search.index().get(0)).containsExactly("cache-202402", "cache-202401");
+        assertThat(FakeDocuments.searchedHashes(searches.get(0))).containsOnly(autoId, older, hashGenerator.getHash("missing"));
+        assertThat(FakeDocuments.searchedHashes(searches.get(1))).containsOnly(older, hashGenerator.getHash("missing"));
+        awaitReadRepairs(store, 2);
+        assertThat(documents.indices.get("cache-202402")).containsKeys(autoId, older);
+    }
+    
+    @Test
+    public void testRoutedBatchLookupKeepsTheRoutingParameterBounded() throws Exception {
+        HashGenerator hashGenerator = new HashGenerator(KeyHashStrategy.SHA256_HEX);
+        FakeDocuments documents = new FakeDocuments("cache", "cache-202402");
+        java.util.List<String> texts = new java.util.ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            String text = "older-" + i;
+            String hash = hashGenerator.getHash(text);
+            documents.put("cache-202401", hash, text, hash);
+            texts.add(text);
+        }
+        ESEmbeddingCacheStore store = documents.store(EmbeddingCacheManagerConfig.builder()
+                .elasticSearchCacheAliasName("cache")
+                .enableHashRouting(true)
+                .enableReadRepair(false)
+                .build());
+        
+        java.util.Map<String, com.kingname.embeddingstoremanager.vo.CacheLookupResult> results = store.lookupCachedEmbeddings(texts);
+        
+        assertThat(results).hasSize(150);
+        java.util.List<co.elastic.clients.elasticsearch.core.SearchRequest> searches =
+            documents.transport.requests(co.elastic.clients.elasticsearch.core.SearchRequest.class);
+        assertThat(searches).hasSizeGreaterThan(1);
+        java.util.Set<String> searched = new java.util.HashSet<>();
+        for (co.elastic.clients.elasticsearch.core.SearchRequest search : searches) {
+            assertThat(search.routing().length()).isLessThanOrEqualTo(2048);
+            assertThat(search.routing().split(",")).containsExactlyInAnyOrderElementsOf(FakeDocuments.searchedHashes(search));
+            searched.addAll(FakeDocuments.searchedHashes(search));
+        }
+        assertThat(searched).hasSize(150);
+    }
+    
+    @Test
+    public void testBulkStoreSplitsChunksByDocumentCountAndBytes() throws Exception {
+        java.util.List<com.kingname.embeddingstoremanager.vo.CachedEmbeddingDocument> documents = new java.util.ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            documents.add(new com.kingname.embeddingstoremanager.vo.CachedEmbeddingDocument("doc-" + i, java.util.Arrays.asList(0.1, 0.2)));
+        }
+        long documentBytes = DocumentSizeEstimator.estimate("doc-0", java.util.Arrays.asList(0.1, 0.2));
+        
+        FakeDocuments byCount = new FakeDocuments("cache", "cache-202402");
+        com.kingname.embeddingstoremanager.vo.BulkStoreResult countResult = byCount.store(EmbeddingCacheManagerConfig.builder()
+                .elasticSearchCacheAliasName("cache")
+                .bulkMaxDocuments(3)
+                .bulkParallelism(1)
+                .build()).bulkStoreEmbeddings(documents);
+        FakeDocuments byBytes = new FakeDocuments("cache", "cache-202402");
+        com.kingname.embeddingstoremanager.vo.BulkStoreResult bytesResult = byBytes.store(EmbeddingCacheManagerConfig.builder()
+                .elasticSearchCacheAliasName("cache")
+                .bulkMaxBytes(documentBytes * 2)
+                .bulkParallelism(1)
+                .build()).bulkStoreEmbeddings(documents);
+        
+        assertThat(countResult.getChunks()).isEqualTo(3);
+        assertThat(countResult.getSucceeded()).isEqualTo(7);
+        assertThat(byCount.bulkTexts()).containsExactly(
+            java.util.Arrays.asList("doc-0", "doc-1", "doc-2"), java.util.Arrays.asList("doc-3", "doc-4", "doc-5"), java.util.Arrays.asList("doc-6"));
+        assertThat(bytesResult.getChunks()).isEqualTo(4);
+        assertThat(byBytes.bulkTexts()).extracting(java.util.List::size).containsExactly(2, 2, 2, 1);
+        assertThat(byBytes.indices.get("cache-202402")).hasSize(7);
+    }
+    
+    @Test
+    public void testBulkStoreRetriesRejectedItemsAndReportsInputPositions() throws Exception {
+        java.util.List<com.kingname.embeddingstoremanager.vo.CachedEmbeddingDocument> documents = new java.util.ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            documents.add(new com.kingname.embeddingstoremanager.vo.CachedEmbeddingDocument("doc-" + i, java.util.Arrays.asList(0.1, 0.2)));
+        }
+        FakeDocuments cluster = new FakeDocuments("cache", "cache-202402");
+        cluster.reply("doc-1", "429:es_rejected_execution_exception", "429:es_rejected_execution_exception");
+        cluster.reply("doc-3", "503:es_rejected_execution_exception");
+        cluster.reply("doc-5", "429:es_rejected_execution_exception", "400:mapper_parsing_exception");
+        cluster.reply("doc-6", "429:es_rejected_execution_exception", "429:es_rejected_execution_exception",
+            "429:es_rejected_execution_exception", "429:es_rejected_execution_exception");
+        
+        com.kingname.embeddingstoremanager.vo.BulkStoreResult result = cluster.store(EmbeddingCacheManagerConfig.builder()
+                .elasticSearchCacheAliasName("cache")
+                .bulkMaxDocuments(3)
+                .bulkParallelism(1)
+                .bulkMaxRetries(3)
+                .bulkRetryInitialBackoffMs(40L)
+                .build()).bulkStoreEmbeddings(documents);
+        
+        assertThat(result.getChunks()).isEqualTo(3);
+        assertThat(result.getRetried()).isEqualTo(7);
+        assertThat(result.getSucceeded()).isEqualTo(5);
+        assertThat(result.getFailures()).extracting(com.kingname.embeddingstoremanager.vo.BulkStoreResult.ItemFailure::getPosition).containsExactly(5, 6);
+        assertThat(result.getFailures()).extracting(com.kingname.embeddingstoremanager.vo.BulkStoreResult.ItemFailure::getType)
+            .containsExactly("mapper_parsing_exception", "es_rejected_execution_exception");
+        assertThat(cluster.bulkTexts()).containsExactly(
+            java.util.Arrays.asList("doc-0", "doc-1", "doc-2"), java.util.Arrays.asList("doc-1"), java.util.Arrays.asList("doc-1"),
+            java.util.Arrays.asList("doc-3", "doc-4", "doc-5"), java.util.Arrays.asList("doc-3", "doc-5"),
+            java.util.Arrays.asList("doc-6"), java.util.Arrays.asList("doc-6"), java.util.Arrays.asList("doc-6"), java.util.Arrays.asList("doc-6"));
+        java.util.List<Long> sentAt = cluster.bulkSentAtMs;
+        assertThat(sentAt.get(1) - sentAt.get(0)).isGreaterThanOrEqualTo(40L);
+        assertThat(sentAt.get(2) - sentAt.get(1)).isGreaterThanOrEqualTo(80L);
+        assertThat(sentAt.get(8) - sentAt.get(7)).isGreaterThanOrEqualTo(160L);
+    }
+    
+    @Test
+    public void testReadRepairSkipsHashesAlreadyBeingRepaired() throws Exception {
+        FakeDocuments documents = olderGeneration("older");
+        documents.indexGate = new java.util.concurrent.CountDownLatch(1);
+        ESEmbeddingCacheStore store = documents.store(EmbeddingCacheManagerConfig.builder()
+                .elasticSearchCacheAliasName("cache")
+                .build());
+        
+        store.lookupCachedEmbedding("older");
+        store.lookupCachedEmbedding("older");
+        assertThat(store.getReadRepairSkippedCount()).isEqualTo(1);
+        documents.indexGate.countDown();
+        awaitReadRepairs(store, 1);
+        assertThat(store.lookupCachedEmbedding("older").isOlderGeneration()).isFalse();
+        assertThat(store.getReadRepairCount()).isEqualTo(1);
+        assertThat(store.getReadRepairSkippedCount()).isEqualTo(1);
+    }
+    
+    @Test
+    public void testReadRepairSkipsRepairsOverTheRateLimit() throws Exception {
+        FakeDocuments documents = olderGeneration("older-1", "older-2");
+        ESEmbeddingCacheStore store = documents.store(EmbeddingCacheManagerConfig.builder()
+                .elasticSearchCacheAliasName("cache")
+                .readRepairPerSecond(0.001)
+                .build());
+        
+        store.lookupCachedEmbedding("older-1");
+        store.lookupCachedEmbedding("older-2");
+        
+        awaitReadRepairs(store, 1);
+        assertThat(store.getReadRepairSkippedCount()).isEqualTo(1);
+        assertThat(documents.indices.get("cache-202402")).hasSize(1);
+    }
+    
+    @Test
+    public void testReadRepairSkipsRepairsWhenTheQueueIsFull() throws Exception {
+        FakeDocuments documents = olderGeneration("older-1", "older-2", "older-3");
+        documents.indexGate = new java.util.concurrent.CountDownLatch(1);
+        ESEmbeddingCacheStore store = documents.store(EmbeddingCacheManagerConfig.builder()
+                .elasticSearchCacheAliasName("cache")
+                .readRepairQueueSize(1)
+                .readRepairPerSecond(1_000_000.0)
+                .build());
+        
+        store.lookupCachedEmbedding("older-1"); // running
+        store.lookupCachedEmbedding("older-2"); // queued
+        store.lookupCachedEmbedding("older-3"); // rejected
+        assertThat(store.getReadRepairSkippedCount()).isEqualTo(1);
+        documents.indexGate.countDown();
+        awaitReadRepairs(store, 2);
+        store.lookupCachedEmbedding("older-3"); // a skipped repair is retried on the next hit
+        awaitReadRepairs(store, 3);
+        assertThat(documents.indices.get("cache-202402")).hasSize(3);
+    }
+    
+    @Test
+    public void testLookupFallsBackToTheLegacyKeyAndRepairsUnderTheNewKey() throws Exception {
+        HashGenerator legacy = new HashGenerator(KeyHashStrategy.SHA256_HEX);
+        HashGenerator current = new HashGenerator(KeyHashStrategy.MURMUR3_128_BASE64);
+        FakeDocuments documents = new FakeDocuments("cache", "cache-202402");
+        documents.put("cache-202402", legacy.getHash("hello"), "hello", legacy.getHash("hello"));
+        documents.put("cache-202402", legacy.getHash("world"), "world", legacy.getHash("world"));
+        ESEmbeddingCacheStore store = documents.store(EmbeddingCacheManagerConfig.builder()
+                .elasticSearchCacheAliasName("cache")
+                .keyHashStrategy(KeyHashStrategy.MURMUR3_128_BASE64)
+                .legacyKeyHashStrategy(KeyHashStrategy.SHA256_HEX)
+                .readRepairPerSecond(1_000_000.0)
+                .build());
+        
+        com.kingname.embeddingstoremanager.vo.CacheLookupResult single = store.lookupCachedEmbeddingAsync("hello").get();
+        java.util.Map<String, com.kingname.embeddingstoremanager.vo.CacheLookupResult> batch =
+            store.lookupCachedEmbeddingsAsync(java.util.Arrays.asList("world", "missing")).get();
+        
+        assertThat(single.getEmbedding()).containsExactly(0.1, 0.2);
+        assertThat(batch).containsOnlyKeys("world");
+        assertThat(store.getLegacyKeyHitCount()).isEqualTo(2);
+        assertThat(documents.transport.requests(co.elastic.clients.elasticsearch.core.GetRequest.class))
+            .extracting(co.elastic.clients.elasticsearch.core.GetRequest::id)
+            .containsExactly(current.getHash("hello"), legacy.getHash("hello"));
+        awaitReadRepairs(store, 2);
+        assertThat(documents.transport.requests(co.elastic.clients.elasticsearch.core.IndexRequest.class))
+            .extracting(request -> request.id())
+            .containsOnly(current.getHash("hello"), current.getHash("world"));
+        assertThat(documents.indices.get("cache-202402").get(current.getHash("world")).getHash()).isEqualTo(current.getHash("world"));
+        
+        store.lookupCachedEmbeddings(java.util.Arrays.asList("hello", "world"));
+        assertThat(store.getLegacyKeyHitCount()).isEqualTo(2); // both now hit under the new key
+    }
+    
+    /**
+     * A write index cache-202402 and an older cache-202401 holding the given texts under their hash ids
+     */
+    private static FakeDocuments olderGeneration(String... texts) throws Exception {
+        HashGenerator hashGenerator = new HashGenerator(KeyHashStrategy.SHA256_HEX);
+        FakeDocuments documents = new FakeDocuments("cache", "cache-202402");
+        for (String text : texts) {
+            String hash = hashGenerator.getHash(text);
+            documents.put("cache-202401", hash, text, hash);
+        }
+        return documents;
+    }
+    
+    private static void awaitReadRepairs(ESEmbeddingCacheStore store, long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (store.getReadRepairCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(store.getReadRepairCount()).isEqualTo(count);
+    }
+    
+    @Test
+    public void testCacheIndexDefinitionFollowsTheStorageProfile() throws Exception {
+        com.fasterxml.jackson.databind.ObjectMapper objectMapper = new com.fasterxml.jackson.databind.ObjectMapper();
+        java.util.Map<com.kingname.embeddingstoremanager.index.StorageProfile, com.fasterxml.jackson.databind.JsonNode> mappings =
+            new java.util.EnumMap<>(com.kingname.embeddingstoremanager.index.StorageProfile.class);
+        java.util.Map<com.kingname.embeddingstoremanager.index.StorageProfile, com.fasterxml.jackson.databind.JsonNode> settings =
+            new java.util.EnumMap<>(com.kingname.embeddingstoremanager.index.StorageProfile.class);
+        for (com.kingname.embeddingstoremanager.index.StorageProfile profile : com.kingname.embeddingstoremanager.index.StorageProfile.values()) {
+            EmbeddingCacheManagerConfig config = EmbeddingCacheManagerConfig.builder()
+                    .storageProfile(profile)
+                    .embeddingDimension(4)
+                    .build();
+            mappings.put(profile, objectMapper.readTree(com.kingname.embeddingstoremanager.index.CacheIndexDefinition.mappingsJson(config)));
+            settings.put(profile, objectMapper.readTree(com.kingname.embeddingstoremanager.index.CacheIndexDefinition.settingsJson(config)));
+        }
+        
+        for (com.fasterxml.jackson.databind.JsonNode mapping : mappings.values()) {
+            com.fasterxml.jackson.databind.JsonNode embedding = mapping.at("/properties/embedding");
+            assertThat(embedding.get("type").asText()).isEqualTo("dense_vector");
+            assertThat(embedding.get("dims").asInt()).isEqualTo(4);
+            assertThat(embedding.get("index").asBoolean()).isFalse();
+            assertThat(mapping.has("_routing")).isFalse();
+        }
+        com.fasterxml.jackson.databind.JsonNode standard = mappings.get(com.kingname.embeddingstoremanager.index.StorageProfile.STANDARD);
+        assertThat(standard.at("/properties/text/type").asText()).isEqualTo("keyword");
+        assertThat(standard.at("/properties/text").has("index")).isFalse();
+        assertThat(standard.has("_source")).isFalse();
+        assertThat(settings.get(com.kingname.embeddingstoremanager.index.StorageProfile.STANDARD).has("codec")).isFalse();
+        
+        com.fasterxml.jackson.databind.JsonNode lean = mappings.get(com.kingname.embeddingstoremanager.index.StorageProfile.LEAN);
+        assertThat(lean.at("/properties/text/index").asBoolean()).isFalse();
+        assertThat(lean.at("/properties/text/doc_values").asBoolean()).isFalse();
+        assertThat(lean.at("/_source/excludes/0").asText()).isEqualTo("id");
+        assertThat(settings.get(com.kingname.embeddingstoremanager.index.StorageProfile.LEAN).get("codec").asText()).isEqualTo("best_compression");
+        
+        com.fasterxml.jackson.databind.JsonNode hashOnly = mappings.get(com.kingname.embeddingstoremanager.index.StorageProfile.HASH_ONLY);
+        assertThat(hashOnly.at("/properties").has("text")).isFalse();
+        assertThat(hashOnly.at("/_source/excludes/0").asText()).isEqualTo("id");
+        assertThat(settings.get(com.kingname.embeddingstoremanager.index.StorageProfile.HASH_ONLY).get("codec").asText()).isEqualTo("best_compression");
+        
+        com.fasterxml.jackson.databind.JsonNode routed = objectMapper.readTree(com.kingname.embeddingstoremanager.index.CacheIndexDefinition.mappingsJson(
+            EmbeddingCacheManagerConfig.builder().enableHashRouting(true).build()));
+        assertThat(routed.at("/_routing/required").asBoolean()).isTrue();
+    }
+    
+    @Test
+    public void testGenerationOptimizerRunsOneStepPerTick() throws Exception {
+        EmbeddingCacheManagerConfig config = EmbeddingCacheManagerConfig.builder()
+                .elasticSearchCacheAliasName("cache")
+                .shrinkOldGenerations(true)
+                .optimizerMaxSearchQueue(10L)
+                .build();
+        FakeCluster cluster = new FakeCluster("cache");
+        cluster.addIndex("cache-202401", 2, 6).placeShards("node-1", "node-2");
+        cluster.addIndex("cache-202402", 2, 4).writeIndex = true;
+        com.kingname.embeddingstoremanager.index.GenerationOptimizer optimizer = new com.kingname.embeddingstoremanager.index.GenerationOptimizer(
+            cluster.store(config), config, java.util.concurrent.Executors.newSingleThreadScheduledExecutor());
+        
+        java.util.List<String> actions = new java.util.ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            optimizer.tick();
+            assertThat(optimizer.getLastError()).isNull();
+            actions.add(optimizer.getLastAction());
+        }
+        
+        assertThat(actions).containsExactly("READ_ONLY cache-202401", "PREPARE_SHRINK cache-202401", "SHRINK cache-202401",
+            "SWAP cache-202401", "CLEANUP cache-202401-shrunk", "FORCE_MERGE cache-202401-shrunk", null);
+        assertThat(optimizer.getProgress()).containsOnly(
+            entry("cache-202401-shrunk", com.kingname.embeddingstoremanager.index.GenerationOptimizer.Step.DONE));
+        assertThat(cluster.indices).doesNotContainKey("cache-202401");
+        assertThat(cluster.indices.get("cache-202402").writeBlocked).isFalse();
+    }
+    
+    @Test
+    public void testGenerationOptimizerSkipsTicksWhileTheClusterIsBusy() throws Exception {
+        EmbeddingCacheManagerConfig config = EmbeddingCacheManagerConfig.builder()
+                .elasticSearchCacheAliasName("cache")
+                .optimizerMaxSearchQueue(10L)
+                .build();
+        FakeCluster cluster = new FakeCluster("cache");
+        cluster.addIndex("cache-202401", 1, 3);
+        cluster.addIndex("cache-202402", 1, 3).writeIndex = true;
+        com.kingname.embeddingstoremanager.index.GenerationOptimizer optimizer = new com.kingname.embeddingstoremanager.index.GenerationOptimizer(
+            cluster.store(config), config, java.util.concurrent.Executors.newSingleThreadScheduledExecutor());
+        
+        cluster.status = co.elastic.clients.elasticsearch._types.HealthStatus.Red;
+        optimizer.tick();
+        assertThat(optimizer.getSkipReason()).isEqualTo("cluster status Red");
+        // Yellow is enough by default; unassigned replicas alone do not stop the optimizer
+        cluster.status = co.elastic.clients.elasticsearch._types.HealthStatus.Yellow;
+        EmbeddingCacheManagerConfig greenOnly = EmbeddingCacheManagerConfig.builder()
+                .elasticSearchCacheAliasName("cache")
+                .optimizerMinHealthStatus(co.elastic.clients.elasticsearch._types.HealthStatus.Green)
+                .build();
+        com.kingname.embeddingstoremanager.index.GenerationOptimizer greenOptimizer = new com.kingname.embeddingstoremanager.index.GenerationOptimizer(
+            cluster.store(greenOnly), greenOnly, java.util.concurrent.Executors.newSingleThreadScheduledExecutor());
+        greenOptimizer.tick();
+        assertThat(greenOptimizer.getSkipReason()).isEqualTo("cluster status Yellow");
+        cluster.runningMerges = 1;
+        optimizer.tick();
+        assertThat(optimizer.getLastError()).isNull();
+        assertThat(optimizer.getSkipReason()).isEqualTo("force merge in progress");
+        cluster.runningMerges = 0;
+        cluster.searchQueue = 11;
+        optimizer.tick();
+        assertThat(optimizer.getSkipReason()).isEqualTo("11 searches queued");
+        assertThat(cluster.indices.get("cache-202401").writeBlocked).isFalse();
+        
+        cluster.searchQueue = 10;
+        optimizer.tick();
+        assertThat(optimizer.getSkipReason()).isNull();
+        assertThat(optimizer.getLastAction()).isEqualTo("READ_ONLY cache-202401");
+    }
+    
+    @Test
+    public void testAsyncCacheManagerComposesAdaptedStoreAndGenerator() throws Exception {
+        EmbeddingCacheManagerConfig config = EmbeddingCacheManagerConfig.builder()
+                .elasticSearchCacheHosts(java.util.Arrays.asList("localhost"))
+                .elasticSearchCachePort(9200)
+                .elasticSearchCacheAliasName("test")
+                .modelName("test")
+                .embeddingApiUrl("http://test.com")
+                .build();
+        EmbeddingCacheManager manager = new EmbeddingCacheManager(config,
+            new MockEmbeddingCacheStore(), new MockEmbeddingGenerator());
+        com.kingname.embeddingstoremanager.async.AsyncEmbeddingCacheManager asyncManager = manager.createAsyncCacheManager();
+        
+        assertThat(asyncManager.getEmbedding("  Hello ").toCompletableFuture().get()).containsExactly(0.1, 0.2, 0.3);
+        asyncManager.close();
+        
+        // Failures keep their checked type when seen through the blocking interface
+        EmbeddingGenerator blocking = com.kingname.embeddingstoremanager.async.AsyncAdapters.toBlocking(text ->
+            java.util.concurrent.CompletableFuture.failedFuture(
+                new com.kingname.embeddingstoremanager.exception.EmbeddingGeneratorException("down", null)));
+        assertThatThrownBy(() -> blocking.generateEmbedding("x"))
+            .isInstanceOf(com.kingname.embeddingstoremanager.exception.EmbeddingGeneratorException.class)
+            .hasMessage("down");
+    }
+    
+    @Test
+    public void testAsyncGetEmbeddingCreditsTokensAndStoresInTheBackground() throws Exception {
+        io.micrometer.core.instrument.simple.SimpleMeterRegistry registry = new io.micrometer.core.instrument.simple.SimpleMeterRegistry();
+        EmbeddingCacheManagerConfig config = EmbeddingCacheManagerConfig.builder()
+                .elasticSearchCacheHosts(java.util.Arrays.asList("localhost"))
+                .elasticSearchCachePort(9200)
+                .elasticSearchCacheAliasName("test")
+                .modelName("test")
+                .embeddingApiUrl("http://test.com")
+                .meterRegistry(registry)
+                .build();
+        java.util.Map<String, com.kingname.embeddingstoremanager.vo.CachedEmbeddingDocument> documents = new java.util.concurrent.ConcurrentHashMap<>();
+        java.util.concurrent.CountDownLatch storeGate = new java.util.concurrent.CountDownLatch(1);
+        EmbeddingCacheStore store = new MockEmbeddingCacheStore() {
+            @Override
+            public com.kingname.embeddingstoremanager.vo.CacheLookupResult lookupCachedEmbedding(String text) {
+                com.kingname.embeddingstoremanager.vo.CachedEmbeddingDocument document = documents.get(text);
+                return document == null ? null : com.kingname.embeddingstoremanager.vo.CacheLookupResult.builder()
+                        .embedding(document.getEmbedding())
+                        .tokenCount(document.getToken_count())
+                        .build();
+            }
+            
+            @Override
+            public void storeEmbedding(com.kingname.embeddingstoremanager.vo.CachedEmbeddingDocument document) throws com.kingname.embeddingstoremanager.exception.EmbeddingCacheStoreException {
+                try {
+                    storeGate.await(5, java.util.concurrent.TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new com.kingname.embeddingstoremanager.exception.EmbeddingCacheStoreException(e.getMessage(), e);
+                }
+                documents.put(document.getText(), document);
+            }
+        };
+        EmbeddingGenerator generator = new MockEmbeddingGenerator() {
+            @Override
+            public com.kingname.embeddingstoremanager.vo.GeneratedEmbeddings generateEmbeddingsWithUsage(java.util.List<String> texts) {
+                return com.kingname.embeddingstoremanager.vo.GeneratedEmbeddings.builder()
+                        .embeddings(java.util.Collections.singletonList(generateEmbedding(texts.get(0))))
+                        .tokenCounts(java.util.Collections.singletonList(7L))
+                        .promptTokens(7L)
+                        .totalTokens(7L)
+                        .build();
+            }
+        };
+        EmbeddingCacheManager manager = new EmbeddingCacheManager(config, store, generator);
+        com.kingname.embeddingstoremanager.async.AsyncEmbeddingCacheManager asyncManager = manager.createAsyncCacheManager();
+        com.kingname.embeddingstoremanager.metrics.StageTimings timings = new com.kingname.embeddingstoremanager.metrics.StageTimings();
+        
+        // The caller gets the generated embedding while the store is still held
+        assertThat(asyncManager.getEmbedding("  Token Counted ", com.kingname.embeddingstoremanager.priority.RequestPriority.BULK, timings)
+                .toCompletableFuture().get(5, java.util.concurrent.TimeUnit.SECONDS)).containsExactly(0.1, 0.2, 0.3);
+        assertThat(documents).isEmpty();
+        storeGate.countDown();
+        long deadline = System.currentTimeMillis() + 5_000;
+        while ((!documents.containsKey("token counted") || manager.getEsBulkhead().getBulkInFlight() > 0) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(documents.get("token counted").getToken_count()).isEqualTo(7L);
+        assertThat(manager.getEsBulkhead().getBulkInFlight()).isZero();
+        assertThat(manager.getApiBulkhead().getBulkInFlight()).isZero();
+        
+        asyncManager.getEmbedding("token counted").toCompletableFuture().get();
+        
+        com.kingname.embeddingstoremanager.metrics.MetricsSummary summary = manager.getMetrics();
+        assertThat(summary.getTokensConsumed()).isEqualTo(7.0);
+        assertThat(summary.getTokensSaved()).isEqualTo(7.0);
+        assertThat(timings.getNanos(com.kingname.embeddingstoremanager.metrics.RequestStage.NORMALIZE)).isPositive();
+        assertThat(registry.get("embedding.request.stage.time").tag("stage", "normalize").timer().count()).isEqualTo(2);
+        asyncManager.close();
+        manager.shutdown();
+    }
+    
+    @Test
+    public void testAsyncBulkStoreReportsFailuresPerDocument() throws Exception {
+        java.util.List<com.kingname.embeddingstoremanager.vo.CachedEmbeddingDocument> documents = java.util.Arrays.asList(
+            new com.kingname.embeddingstoremanager.vo.CachedEmbeddingDocument("a", java.util.Arrays.asList(0.1), 3L),
+            new com.kingname.embeddingstoremanager.vo.CachedEmbeddingDocument("bad", java.util.Arrays.asList(0.2), 4L),
+            new com.kingname.embeddingstoremanager.vo.CachedEmbeddingDocument("c", java.util.Arrays.asList(0.3), 5L));
+        java.util.List<Long> storedTokenCounts = java.util.Collections.synchronizedList(new java.util.ArrayList<>());
+        com.kingname.embeddingstoremanager.async.AsyncEmbeddingCacheStore perDocument = new com.kingname.embeddingstoremanager.async.AsyncEmbeddingCacheStore() {
+            @Override
+            public java.util.concurrent.CompletionStage<java.util.List<Double>> getCachedEmbedding(String text) {
+                return java.util.concurrent.CompletableFuture.completedFuture(null);
+            }
+            
+            @Override
+            public java.util.concurrent.CompletionStage<Void> storeEmbedding(String id, String text, java.util.List<Double> embedding) {
+                throw new UnsupportedOperationException();
+            }
+            
+            @Override
+            public java.util.concurrent.CompletionStage<Void> storeEmbedding(com.kingname.embeddingstoremanager.vo.CachedEmbeddingDocument document) {
+                if (document.getText().equals("bad")) {
+                    return java.util.concurrent.CompletableFuture.failedFuture(
+                        new com.kingname.embeddingstoremanager.exception.EmbeddingCacheStoreException("rejected", null));
+                }
+                storedTokenCounts.add(document.getToken_count());
+                return java.util.concurrent.CompletableFuture.completedFuture(null);
+            }
+        };
+        
+        com.kingname.embeddingstoremanager.vo.BulkStoreResult result = perDocument.bulkStoreEmbeddings(documents).toCompletableFuture().get();
+        
+        assertThat(result.getSucceeded()).isEqualTo(2);
+        assertThat(result.getFailures()).extracting(com.kingname.embeddingstoremanager.vo.BulkStoreResult.ItemFailure::getPosition).containsExactly(1);
+        assertThat(result.getFailures().get(0).getReason()).isEqualTo("rejected");
+        assertThat(storedTokenCounts).containsExactlyInAnyOrder(3L, 5L);
+        
+        // A blocking store keeps its own bulk path: one call for the whole batch
+        java.util.List<Integer> bulkCalls = java.util.Collections.synchronizedList(new java.util.ArrayList<>());
+        RecordingEmbeddingCacheStore blocking = new RecordingEmbeddingCacheStore() {
+            @Override
+            public com.kingname.embeddingstoremanager.vo.BulkStoreResult bulkStoreEmbeddings(java.util.List<com.kingname.embeddingstoremanager.vo.CachedEmbeddingDocument> batch) {
+                bulkCalls.add(batch.size());
+                return com.kingname.embeddingstoremanager.vo.BulkStoreResult.allSucceeded(batch.size());
+            }
+        };
+        java.util.concurrent.ExecutorService executor = java.util.concurrent.Executors.newSingleThreadExecutor();
+        com.kingname.embeddingstoremanager.async.AsyncAdapters.toAsync(blocking, executor).bulkStoreEmbeddings(documents).toCompletableFuture().get();
+        executor.shutdown();
+        assertThat(bulkCalls).containsExactly(3);
+    }
+    
+    @Test
+    public void testAsyncRestGeneratorReportsUsageAndKeepsTheFailureCause() throws Exception {
+        io.micrometer.core.instrument.simple.SimpleMeterRegistry registry = new io.micrometer.core.instrument.simple.SimpleMeterRegistry();
+        com.sun.net.httpserver.HttpServer server = com.sun.net.httpserver.HttpServer.create(new java.net.InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/embeddings", exchange -> {
+            byte[] body = ("{\"object\":\"list\",\"model\":\"test\",\"data\":["
+                    + "{\"object\":\"embedding\",\"index\":1,\"embedding\":[0.2]},"
+                    + "{\"object\":\"embedding\",\"index\":0,\"embedding\":[0.1]}],"
+                    + "\"usage\":{\"prompt_tokens\":10,\"total_tokens\":10}}").getBytes(java.nio.charset.StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        EmbeddingCacheManagerConfig config = EmbeddingCacheManagerConfig.builder()
+                .modelName("test")
+                .embeddingApiUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/embeddings")
+                .meterRegistry(registry)
+                .build();
+        com.kingname.embeddingstoremanager.async.AsyncRestEmbeddingGenerator generator =
+            new com.kingname.embeddingstoremanager.async.AsyncRestEmbeddingGenerator(config, null, null) {
+                @Override
+                protected void checkApiUrl() {
+                }
+            };
+        
+        try {
+            com.kingname.embeddingstoremanager.vo.GeneratedEmbeddings generated = generator
+                    .generateEmbeddingsWithUsage(java.util.Arrays.asList("abc", "abcdefg")).toCompletableFuture().get();
+            assertThat(generated.getEmbeddings()).containsExactly(java.util.Arrays.asList(0.1), java.util.Arrays.asList(0.2));
+            assertThat(generated.getTokenCounts()).containsExactly(3L, 7L);
+            assertThat(registry.get("embedding.api.tokens").tag("type", "prompt").counter().count()).isEqualTo(10.0);
+            assertThat(registry.get("embedding.api.tokens").tag("type", "total").counter().count()).isEqualTo(10.0);
+        } finally {
+            server.stop(0);
+        }
+        
+        // Transport failures keep the original exception as the cause
+        assertThatThrownBy(() -> generator.generateEmbedding("abc").toCompletableFuture().get())
+            .hasCauseInstanceOf(com.kingname.embeddingstoremanager.exception.RestEmbeddingGeneratorException.class)
+            .hasRootCauseInstanceOf(java.io.IOException.class);
+        generator.close();
+    }
+    
+    @Test
+    public void testFixedPoolKeepsDaemonAsyncThreads() throws Exception {
+        java.util.concurrent.ExecutorService executor = com.kingname.embeddingstoremanager.async.AsyncExecutors.create(
+            com.kingname.embeddingstoremanager.async.AsyncExecutorMode.FIXED_POOL, 2);
+        Thread thread = executor.submit(Thread::currentThread).get();
+        executor.shutdown();
+        
+        // The pool must not keep the JVM alive, as before executor modes existed
+        assertThat(thread.isDaemon()).isTrue();
+        assertThat(thread.getName()).startsWith("async-embedding-");
+    }
+    
+    @Test
+    public void testBatchPipelineDedupesAndBatchesMisses() throws Exception {
+        EmbeddingCacheManagerConfig config = EmbeddingCacheManagerConfig.builder()
+                .elasticSearchCacheHosts(java.util.Arrays.asList("localhost"))
+                .elasticSearchCachePort(9200)
+                .elasticSearchCacheAliasName("test")
+                .modelName("test")
+                .embeddingApiUrl("http://test.com")
+                .embeddingApiBatchSize(2)
+                .build();
+        RecordingEmbeddingCacheStore store = new RecordingEmbeddingCacheStore() {
+            @Override
+            public java.util.Map<String, java.util.List<Double>> getCachedEmbeddings(java.util.List<String> texts) {
+                return java.util.Collections.singletonMap("cached", java.util.Arrays.asList(9.0));
+            }
+        };
+        java.util.List<java.util.List<String>> apiCalls = java.util.Collections.synchronizedList(new java.util.ArrayList<>());
+        EmbeddingGenerator generator = new MockEmbeddingGenerator() {
+            @Override
+            public java.util.List<java.util.List<Double>> generateEmbeddings(java.util.List<String> texts) {
+                apiCalls.add(texts);
+                java.util.List<java.util.List<Double>> embeddings = new java.util.ArrayList<>();
+                texts.forEach(text -> embeddings.add(java.util.Arrays.asList((double) text.charAt(0))));
+                return embeddings;
+            }
+        };
+        EmbeddingCacheManager manager = new EmbeddingCacheManager(config, store, generator);
+        
+        java.util.List<java.util.List<Double>> embeddings = manager.getEmbeddings(
+            java.util.Arrays.asList("Cached", "a", " A ", "b", "c"));
+        
+        assertThat(embeddings).containsExactly(java.util.Arrays.asList(9.0), java.util.Arrays.asList((double) 'a'),
+            java.util.Arrays.asList((double) 'a'), java.util.Arrays.asList((double) 'b'), java.util.Arrays.asList((double) 'c'));
+        assertThat(apiCalls).hasSize(2);
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (store.stored.size() < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(store.stored).extracting(com.kingname.embeddingstoremanager.vo.CachedEmbeddingDocument::getText)
+            .containsExactlyInAnyOrder("a", "b", "c");
+        manager.shutdown();
+    }
+    
+    @Test
+    public void testBulkBatchesCannotDelayInteractiveBatches() throws Exception {
+        EmbeddingCacheManagerConfig config = EmbeddingCacheManagerConfig.builder()
+                .elasticSearchCacheHosts(java.util.Arrays.asList("localhost"))
+                .elasticSearchCachePort(9200)
+                .elasticSearchCacheAliasName("test")
+                .modelName("test")
+                .embeddingApiUrl("http://test.com")
+                .embeddingApiBatchSize(1)
+                .batchPipelineParallelism(2)
+                .build();
+        java.util.concurrent.CountDownLatch bulkReleased = new java.util.concurrent.CountDownLatch(1);
+        EmbeddingGenerator generator = new MockEmbeddingGenerator() {
+            @Override
+            public java.util.List<java.util.List<Double>> generateEmbeddings(java.util.List<String> texts) throws
+                    com.kingname.embeddingstoremanager.exception.EmbeddingGeneratorException {
+                if (texts.get(0).startsWith("bulk")) {
+                    try {
+                        bulkReleased.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.generateEmbeddings(texts);
+            }
+        };
+        EmbeddingCacheManager manager = new EmbeddingCacheManager(config, new RecordingEmbeddingCacheStore(), generator);
+        
+        // A bulk stream with more stuck API batches than the pipeline has threads
+        java.util.List<java.util.concurrent.CompletableFuture<java.util.List<java.util.List<Double>>>> bulk = new java.util.ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            bulk.add(manager.getEmbeddingsAsync(java.util.Arrays.asList("bulk " + i + "a", "bulk " + i + "b"),
+                com.kingname.embeddingstoremanager.priority.RequestPriority.BULK));
+        }
+        
+        java.util.List<java.util.List<Double>> interactive = manager.getEmbeddingsAsync(java.util.Arrays.asList("one", "two"),
+            com.kingname.embeddingstoremanager.priority.RequestPriority.INTERACTIVE).get(5, java.util.concurrent.TimeUnit.SECONDS);
+        
+        assertThat(interactive).hasSize(2);
+        assertThat(bulk).noneMatch(java.util.concurrent.CompletableFuture::isDone);
+        bulkReleased.countDown();
+        for (java.util.concurrent.CompletableFuture<java.util.List<java.util.List<Double>>> future : bulk) {
+            assertThat(future.get(5, java.util.concurrent.TimeUnit.SECONDS)).hasSize(2);
+        }
+        manager.shutdown();
+    }
+    
+    @Test
+    public void testStreamEmbeddingsFollowsDemandInSourceOrder() throws Exception {
+        EmbeddingCacheManagerConfig config = EmbeddingCacheManagerConfig.builder()
+                .elasticSearchCacheHosts(java.util.Arrays.asList("localhost"))
+                .elasticSearchCachePort(9200)
+                .elasticSearchCacheAliasName("test")
+                .modelName("test")
+                .embeddingApiUrl("http://test.com")
+                .build();
+        EmbeddingCacheManager manager = new EmbeddingCacheManager(config,
+            new MockEmbeddingCacheStore(), new MockEmbeddingGenerator());
+        java.util.Iterator<String> source = java.util.stream.IntStream.range(0, 10)
+            .mapToObj(i -> "text " + i).iterator();
+        com.kingname.embeddingstoremanager.stream.StreamOptions options = com.kingname.embeddingstoremanager.stream.StreamOptions.builder()
+            .chunkSize(3)
+            .maxInFlightChunks(2)
+            .build();
+        
+        java.util.List<Long> indices = java.util.Collections.synchronizedList(new java.util.ArrayList<>());
+        java.util.concurrent.CountDownLatch completed = new java.util.concurrent.CountDownLatch(1);
+        manager.streamEmbeddings(source, options).subscribe(new java.util.concurrent.Flow.Subscriber<com.kingname.embeddingstoremanager.stream.IndexedEmbedding>() {
+            private java.util.concurrent.Flow.Subscription subscription;
+            
+            @Override
+            public void onSubscribe(java.util.concurrent.Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+            
+            @Override
+            public void onNext(com.kingname.embeddingstoremanager.stream.IndexedEmbedding item) {
+                indices.add(item.getIndex());
+                subscription.request(1);
+            }
+            
+            @Override
+            public void onError(Throwable throwable) {
+                completed.countDown();
+            }
+            
+            @Override
+            public void onComplete() {
+                completed.countDown();
+            }
+        });
+        
+        assertThat(completed.await(5, java.util.concurrent.TimeUnit.SECONDS)).isTrue();
+        assertThat(indices).containsExactly(0L, 1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L);
+        manager.shutdown();
+    }
+    
+    @Test
+    public void testAdmissionControllerShedsWhenQueueIsFull() throws Exception {
+        java.util.concurrent.ExecutorService executor = java.util.concurrent.Executors.newSingleThreadExecutor();
+        java.util.concurrent.CountDownLatch release = new java.util.concurrent.CountDownLatch(1);
+        com.kingname.embeddingstoremanager.async.AdmissionController admission = new com.kingname.embeddingstoremanager.async.AdmissionController(
+            executor, 1, 1, com.kingname.embeddingstoremanager.async.RejectionPolicy.DROP_OLDEST_BY_DEADLINE, 60_000L, null);
+        
+        java.util.concurrent.CompletableFuture<String> running = admission.submit(() -> {
+            release.await();
+            return "running";
+        });
+        java.util.concurrent.CompletableFuture<String> queued = admission.submit(() -> "queued");
+        java.util.concurrent.CompletableFuture<String> newest = admission.submit(() -> "newest");
+        
+        // The queued request is dropped to admit the newest one
+        assertThat(queued).isCompletedExceptionally();
+        assertThat(admission.getRejectedCount(
+            com.kingname.embeddingstoremanager.exception.EmbeddingRequestRejectedException.Reason.DROPPED)).isEqualTo(1);
+        assertThat(admission.getQueueDepth()).isEqualTo(1);
+        
+        release.countDown();
+        assertThat(running.get()).isEqualTo("running");
+        assertThat(newest.get()).isEqualTo("newest");
+        assertThatThrownBy(queued::join).hasCauseInstanceOf(
+            com.kingname.embeddingstoremanager.exception.EmbeddingRequestRejectedException.class);
+        executor.shutdown();
+    }
+    
+    @Test
+    public void testBulkheadsAreSizedFromTheConnectionsThePoolsCanOpen() {
+        EmbeddingCacheManagerConfig singleHost = EmbeddingCacheManagerConfig.builder()
+                .elasticSearchCacheHosts(java.util.Collections.singletonList("es-1"))
+                .build();
+        EmbeddingCacheManagerConfig threeHosts = EmbeddingCacheManagerConfig.builder()
+                .elasticSearchCacheHosts(java.util.Arrays.asList("es-1", "es-2", "es-3"))
+                .build();
+        
+        assertThat(EmbeddingCacheManager.esPoolCapacity(singleHost)).isEqualTo(50);  // per-route limit, not the total of 100
+        assertThat(EmbeddingCacheManager.esPoolCapacity(threeHosts)).isEqualTo(100); // total limit
+        assertThat(EmbeddingCacheManager.apiPoolCapacity(singleHost)).isEqualTo(10);
+        com.kingname.embeddingstoremanager.priority.PriorityBulkhead api = new com.kingname.embeddingstoremanager.priority.PriorityBulkhead(
+            "embedding-api", EmbeddingCacheManager.apiPoolCapacity(singleHost), singleHost.getInteractiveReservedShare(), 0L);
+        assertThat(api.getBulkLimit()).isEqualTo(7).isLessThan(singleHost.getMaxConnectionsPerRoute());
+    }
+    
+    @Test
+    public void testPriorityBulkheadReservesCapacityForInteractiveTraffic() throws Exception {
+        com.kingname.embeddingstoremanager.priority.PriorityBulkhead bulkhead =
+                new com.kingname.embeddingstoremanager.priority.PriorityBulkhead("test", 4, 0.25, 0L);
+        com.kingname.embeddingstoremanager.priority.RequestPriority bulk =
+                com.kingname.embeddingstoremanager.priority.RequestPriority.BULK;
+        
+        assertThat(bulkhead.getBulkLimit()).isEqualTo(3);
+        for (int i = 0; i < 3; i++) {
+            assertThat(bulkhead.acquire(bulk)).isTrue();
+        }
+        assertThat(bulkhead.acquire(bulk)).isFalse();
+        assertThat(bulkhead.acquire(com.kingname.embeddingstoremanager.priority.RequestPriority.INTERACTIVE)).isTrue();
+        
+        bulkhead.release(bulk);
+        assertThat(bulkhead.getBulkInFlight()).isEqualTo(2);
+        assertThat(bulkhead.acquire(bulk)).isTrue();
+    }
+    
+    @Test
+    public void testExternalRegistryPublishesPercentilesAndPrometheusText() throws Exception {
+        io.micrometer.core.instrument.simple.SimpleMeterRegistry registry = new io.micrometer.core.instrument.simple.SimpleMeterRegistry();
+        EmbeddingCacheManagerConfig config = EmbeddingCacheManagerConfig.builder()
+                .elasticSearchCacheHosts(java.util.Arrays.asList("localhost"))
+                .elasticSearchCachePort(9200)
+                .elasticSearchCacheAliasName("test")
+                .modelName("test")
+                .embeddingApiUrl("http://test.com")
+                .meterRegistry(registry)
+                .build();
+        EmbeddingCacheManager manager = new EmbeddingCacheManager(config,
+            new MockEmbeddingCacheStore(), new MockEmbeddingGenerator());
+        
+        manager.getEmbedding("hello");
+        manager.getEmbedding("world");
+        
+        assertThat(manager.getMetricsService().getMeterRegistry()).isSameAs(registry);
+        assertThat(registry.get("embedding.request.total.time").tag("operation", "get_embedding").tag("outcome", "miss").timer().count())
+            .isEqualTo(2);
+        com.kingname.embeddingstoremanager.metrics.MetricsSummary summary = manager.getMetrics();
+        assertThat(summary.getRequestTimePercentiles().get("get_embedding.miss")).containsKeys("p50", "p95", "p99", "p999");
+        assertThat(summary.getGenerationTimePercentiles()).containsKey("generate.success");
+        
+        String scrape = com.kingname.embeddingstoremanager.metrics.PrometheusEndpoint.scrape(registry);
+        assertThat(scrape).contains("# TYPE embedding_request_total_time_seconds summary");
+        assertThat(scrape).contains("embedding_request_total_time_seconds_count{operation=\"get_embedding\",outcome=\"miss\"} 2.0");
+        assertThat(scrape).contains("quantile=\"0.999\"");
+        assertThat(scrape).contains("embedding_cache_misses_total 2.0");
+        manager.shutdown();
+    }
+    
+    @Test
+    public void testStageTimingsBreakDownARequest() throws Exception {
+        io.micrometer.core.instrument.simple.SimpleMeterRegistry registry = new io.micrometer.core.instrument.simple.SimpleMeterRegistry();
+        EmbeddingCacheManagerConfig config = EmbeddingCacheManagerConfig.builder()
+                .elasticSearchCacheHosts(java.util.Arrays.asList("localhost"))
+                .elasticSearchCachePort(9200)
+                .elasticSearchCacheAliasName("test")
+                .modelName("test")
+                .embeddingApiUrl("http://test.com")
+                .meterRegistry(registry)
+                .build();
+        EmbeddingCacheManager manager = new EmbeddingCacheManager(config,
+            new MockEmbeddingCacheStore(), new MockEmbeddingGenerator());
+        com.kingname.embeddingstoremanager.metrics.StageTimings timings = new com.kingname.embeddingstoremanager.metrics.StageTimings();
+        
+        manager.getEmbedding("  Hello Stages ", com.kingname.embeddingstoremanager.priority.RequestPriority.INTERACTIVE, timings);
+        
+        assertThat(timings.getNanos(com.kingname.embeddingstoremanager.metrics.RequestStage.NORMALIZE)).isPositive();
+        assertThat(timings.getNanos(com.kingname.embeddingstoremanager.metrics.RequestStage.STORE)).isPositive();
+        assertThat(timings.toMillisMap()).containsKeys("normalize", "store");
+        assertThat(com.kingname.embeddingstoremanager.metrics.StageTimings.current()).isNull();
+        assertThat(registry.get("embedding.request.stage.time").tag("stage", "normalize").timer().count()).isEqualTo(1);
+        assertThat(manager.getMetrics().getAverageStageTime()).containsKey("normalize");
+        manager.shutdown();
+    }
+    
+    @Test
+    public void testTokenUsageIsStoredAndCreditedToCacheHits() throws Exception {
+        io.micrometer.core.instrument.simple.SimpleMeterRegistry registry = new io.micrometer.core.instrument.simple.SimpleMeterRegistry();
+        EmbeddingCacheManagerConfig config = EmbeddingCacheManagerConfig.builder()
+                .elasticSearchCacheHosts(java.util.Arrays.asList("localhost"))
+                .elasticSearchCachePort(9200)
+                .elasticSearchCacheAliasName("test")
+                .modelName("test")
+                .embeddingApiUrl("http://test.com")
+                .meterRegistry(registry)
+                .build();
+        java.util.Map<String, com.kingname.embeddingstoremanager.vo.CachedEmbeddingDocument> documents = new java.util.concurrent.ConcurrentHashMap<>();
+        EmbeddingCacheStore store = new MockEmbeddingCacheStore() {
+            @Override
+            public com.kingname.embeddingstoremanager.vo.CacheLookupResult lookupCachedEmbedding(String text) {
+                com.kingname.embeddingstoremanager.vo.CachedEmbeddingDocument document = documents.get(text);
+                return document == null ? null : com.kingname.embeddingstoremanager.vo.CacheLookupResult.builder()
+                        .embedding(document.getEmbedding())
+                        .tokenCount(document.getToken_count())
+                        .build();
+            }
+            
+            @Override
+            public void storeEmbedding(com.kingname.embeddingstoremanager.vo.CachedEmbeddingDocument document) {
+                documents.put(document.getText(), document);
+            }
+        };
+        EmbeddingGenerator generator = new MockEmbeddingGenerator() {
+            @Override
+            public com.kingname.embeddingstoremanager.vo.GeneratedEmbeddings generateEmbeddingsWithUsage(java.util.List<String> texts) {
+                return com.kingname.embeddingstoremanager.vo.GeneratedEmbeddings.builder()
+                        .embeddings(java.util.Collections.singletonList(generateEmbedding(texts.get(0))))
+                        .tokenCounts(java.util.Collections.singletonList(7L))
+                        .promptTokens(7L)
+                        .totalTokens(7L)
+                        .build();
+            }
+        };
+        EmbeddingCacheManager manager = new EmbeddingCacheManager(config, store, generator);
+        
+        manager.getEmbedding("Token Counted");
+        manager.getEmbedding("token counted");
+        documents.put("twelve chars", com.kingname.embeddingstoremanager.vo.CachedEmbeddingDocument.builder()
+                .text("twelve chars").embedding(java.util.Arrays.asList(0.1, 0.2, 0.3)).build());
+        manager.getEmbedding("twelve chars");
+        
+        assertThat(documents.get("token counted").getToken_count()).isEqualTo(7L);
+        com.kingname.embeddingstoremanager.metrics.MetricsSummary summary = manager.getMetrics();
+        assertThat(summary.getTokensConsumed()).isEqualTo(7.0);
+        assertThat(summary.getTokensSaved()).isEqualTo(10.0); // 7 stored + 12 chars / 4 estimated
+        assertThat(summary.getAverageTokensPerRequest()).isCloseTo(17.0 / 3, org.assertj.core.data.Offset.offset(1e-9));
+        assertThat(summary.getTokensPerSecond()).isPositive();
+        assertThat(registry.get("embedding.tokens.saved").counter().count()).isEqualTo(10.0);
+        
+        java.util.List<Long> split = com.kingname.embeddingstoremanager.RestEmbeddingGenerator.toGeneratedEmbeddings(
+                new com.kingname.embeddingstoremanager.vo.EmbeddingResponse("list", java.util.Arrays.asList(
+                        new com.kingname.embeddingstoremanager.vo.EmbeddingData("embedding", 0L, java.util.Arrays.asList(0.1)),
+                        new com.kingname.embeddingstoremanager.vo.EmbeddingData("embedding", 1L, java.util.Arrays.asList(0.2))),
+                        "test", new com.kingname.embeddingstoremanager.vo.EmbeddingUsage(10L, 10L)),
+                java.util.Arrays.asList("abc", "abcdefg")).getTokenCounts();
+        assertThat(split).containsExactly(3L, 7L);
+        manager.shutdown();
+    }
+    
     // Mock implementations for testing
     static class MockEmbeddingCacheStore implements EmbeddingCacheStore {
         @Override
@@ -74,10 +1441,402 @@ public class EmbeddingStoreManagerApplicationTests {
         }
     }
     
+    static class RecordingEmbeddingCacheStore extends MockEmbeddingCacheStore {
+        final java.util.List<com.kingname.embeddingstoremanager.vo.CachedEmbeddingDocument> stored =
+                java.util.Collections.synchronizedList(new java.util.ArrayList<>());
+        
+        @Override
+        public void storeEmbeddings(java.util.List<com.kingname.embeddingstoremanager.vo.CachedEmbeddingDocument> documents) {
+            stored.addAll(documents);
+        }
+    }
+    
     static class MockEmbeddingGenerator implements EmbeddingGenerator {
         @Override
         public java.util.List<Double> generateEmbedding(String text) {
             return java.util.Arrays.asList(0.1, 0.2, 0.3);
         }
     }
+    
+    /**
+     * Cache documents per index behind one alias, answering GET, _mget, hash searches and index requests in memory
+     */
+    static class FakeDocuments {
+        final String aliasName;
+        final String writeIndexName;
+        final java.util.Map<String, java.util.Map<String, com.kingname.embeddingstoremanager.vo.EsCachedEmbeddingDocument>> indices =
+            new java.util.concurrent.ConcurrentSkipListMap<>();
+        final FakeTransport transport = new FakeTransport();
+        final java.util.Map<String, java.util.Deque<String>> bulkOutcomes = new java.util.concurrent.ConcurrentHashMap<>();
+        final java.util.List<Long> bulkSentAtMs = java.util.Collections.synchronizedList(new java.util.ArrayList<>());
+        volatile java.util.concurrent.CountDownLatch indexGate; // holds index requests until counted down
+        
+        FakeDocuments(String aliasName, String writeIndexName) {
+            this.aliasName = aliasName;
+            this.writeIndexName = writeIndexName;
+            indices.put(writeIndexName, new java.util.concurrent.ConcurrentHashMap<>());
+            transport.on(co.elastic.clients.elasticsearch.indices.GetAliasRequest.class, request ->
+                co.elastic.clients.elasticsearch.indices.GetAliasResponse.of(b -> {
+                    indices.keySet().forEach(name -> b.result(name, a -> a.aliases(aliasName, d -> d.isWriteIndex(name.equals(writeIndexName)))));
+                    return b;
+                }));
+            transport.on(co.elastic.clients.elasticsearch.core.GetRequest.class, request -> {
+                com.kingname.embeddingstoremanager.vo.EsCachedEmbeddingDocument document = index(request.index()).get(request.id());
+                return co.elastic.clients.elasticsearch.core.GetResponse.<com.kingname.embeddingstoremanager.vo.EsCachedEmbeddingDocument>of(b -> b
+                    .index(request.index()).id(request.id()).found(document != null).source(document));
+            });
+            transport.on(co.elastic.clients.elasticsearch.core.MgetRequest.class, request ->
+                co.elastic.clients.elasticsearch.core.MgetResponse.<com.kingname.embeddingstoremanager.vo.EsCachedEmbeddingDocument>of(b -> {
+                    request.docs().forEach(operation -> {
+                        com.kingname.embeddingstoremanager.vo.EsCachedEmbeddingDocument document = index(request.index()).get(operation.id());
+                        b.docs(item -> item.result(r -> r.index(request.index()).id(operation.id()).found(document != null).source(document)));
+                    });
+                    return b;
+                }));
+            transport.on(co.elastic.clients.elasticsearch.core.SearchRequest.class, request -> {
+                java.util.Set<String> hashes = searchedHashes(request);
+                java.util.Set<String> excluded = request.query().bool().mustNot().stream()
+                    .map(query -> query.term().value().stringValue())
+                    .collect(java.util.stream.Collectors.toSet());
+                String target = request.index().get(0);
+                java.util.List<co.elastic.clients.elasticsearch.core.search.Hit<com.kingname.embeddingstoremanager.vo.EsCachedEmbeddingDocument>> hits = new java.util.ArrayList<>();
+                indices.forEach((name, documents) -> {
+                    if (!(target.equals(aliasName) || target.equals(name)) || excluded.contains(name)) {
+                        return;
+                    }
+                    documents.forEach((id, document) -> {
+                        if (hashes.contains(document.getHash())) {
+                            hits.add(co.elastic.clients.elasticsearch.core.search.Hit.of(h -> h.index(name).id(id).source(document)));
+                        }
+                    });
+                });
+                return co.elastic.clients.elasticsearch.core.SearchResponse.<com.kingname.embeddingstoremanager.vo.EsCachedEmbeddingDocument>of(b -> b
+                    .took(0).timedOut(false).shards(sh -> sh.failed(0).successful(1).total(1)).hits(h -> h.hits(hits)));
+            });
+            transport.on(co.elastic.clients.elasticsearch.core.IndexRequest.class, request -> {
+                awaitGate();
+                com.kingname.embeddingstoremanager.vo.EsCachedEmbeddingDocument document =
+                    (com.kingname.embeddingstoremanager.vo.EsCachedEmbeddingDocument) request.document();
+                String indexName = request.index().equals(aliasName) ? writeIndexName : request.index();
+                index(indexName).put(request.id(), document);
+                return co.elastic.clients.elasticsearch.core.IndexResponse.of(b -> b.index(indexName).id(request.id())
+                    .primaryTerm(1L).seqNo(0L).version(1L).result(co.elastic.clients.elasticsearch._types.Result.Created)
+                    .shards(sh -> sh.failed(0).successful(1).total(1)));
+            });
+            transport.on(co.elastic.clients.elasticsearch.core.BulkRequest.class, request -> {
+                bulkSentAtMs.add(System.currentTimeMillis());
+                java.util.List<co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem> items = new java.util.ArrayList<>();
+                for (co.elastic.clients.elasticsearch.core.bulk.BulkOperation operation : request.operations()) {
+                    com.kingname.embeddingstoremanager.vo.EsCachedEmbeddingDocument document =
+                        (com.kingname.embeddingstoremanager.vo.EsCachedEmbeddingDocument) operation.index().document();
+                    java.util.Deque<String> outcomes = bulkOutcomes.get(document.getText());
+                    String outcome = outcomes == null ? null : outcomes.poll();
+                    if (outcome == null) {
+                        index(writeIndexName).put(operation.index().id(), document);
+                    }
+                    items.add(co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem.of(item -> {
+                        item.operationType(co.elastic.clients.elasticsearch.core.bulk.OperationType.Index)
+                            .index(writeIndexName).id(operation.index().id()).status(201);
+                        if (outcome != null) {
+                            String[] parts = outcome.split(":");
+                            item.status(Integer.parseInt(parts[0])).error(e -> e.type(parts[1]).reason(parts[1]));
+                        }
+                        return item;
+                    }));
+                }
+                return co.elastic.clients.elasticsearch.core.BulkResponse.of(b -> b.errors(items.stream().anyMatch(item -> item.error() != null))
+                    .items(items).took(0));
+            });
+        }
+        
+        /**
+         * Scripted bulk item outcomes per text as "status:error type", consumed one per attempt; later attempts succeed
+         */
+        void reply(String text, String... outcomes) {
+            bulkOutcomes.put(text, new java.util.ArrayDeque<>(java.util.Arrays.asList(outcomes)));
+        }
+        
+        /**
+         * Texts of each _bulk request in the order they were sent
+         */
+        java.util.List<java.util.List<String>> bulkTexts() {
+            return transport.requests(co.elastic.clients.elasticsearch.core.BulkRequest.class).stream()
+                .map(request -> request.operations().stream()
+                    .map(operation -> ((com.kingname.embeddingstoremanager.vo.EsCachedEmbeddingDocument) operation.index().document()).getText())
+                    .collect(java.util.stream.Collectors.toList()))
+                .collect(java.util.stream.Collectors.toList());
+        }
+        
+        private void awaitGate() {
+            try {
+                if (indexGate != null && !indexGate.await(5, java.util.concurrent.TimeUnit.SECONDS)) {
+                    throw new IllegalStateException("index gate was never opened");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+        
+        java.util.Map<String, com.kingname.embeddingstoremanager.vo.EsCachedEmbeddingDocument> index(String name) {
+            return indices.computeIfAbsent(name, key -> new java.util.concurrent.ConcurrentHashMap<>());
+        }
+        
+        void put(String indexName, String id, String text, String hash) {
+            index(indexName).put(id, com.kingname.embeddingstoremanager.vo.EsCachedEmbeddingDocument.builder()
+                .id(id).hash(hash).text(text).embedding(java.util.Arrays.asList(0.1, 0.2)).has_embedding(true).build());
+        }
+        
+        ESEmbeddingCacheStore store(EmbeddingCacheManagerConfig config) throws Exception {
+            return new ESEmbeddingCacheStore(config, transport);
+        }
+        
+        /**
+         * Hashes of the term or terms filter a lookup search sends
+         */
+        static java.util.Set<String> searchedHashes(co.elastic.clients.elasticsearch.core.SearchRequest request) {
+            co.elastic.clients.elasticsearch._types.query_dsl.Query hashQuery = request.query().bool().filter().get(0);
+            if (hashQuery.isTerm()) {
+                return java.util.Collections.singleton(hashQuery.term().value().stringValue());
+            }
+            return hashQuery.terms().terms().value().stream()
+                .map(co.elastic.clients.elasticsearch._types.FieldValue::stringValue)
+                .collect(java.util.stream.Collectors.toSet());
+        }
+    }
+    
+    /**
+     * Indices behind one alias with the state {@link com.kingname.embeddingstoremanager.index.GenerationOptimizer} reads
+     * and changes; settings, shrinks, alias swaps, deletes and force merges take effect at once
+     */
+    static class FakeCluster {
+        final String aliasName;
+        final java.util.Map<String, FakeIndex> indices = new java.util.TreeMap<>();
+        final FakeTransport transport = new FakeTransport();
+        volatile co.elastic.clients.elasticsearch._types.HealthStatus status = co.elastic.clients.elasticsearch._types.HealthStatus.Green;
+        volatile int runningMerges;
+        volatile long searchQueue;
+        
+        static class FakeIndex {
+            int shards;
+            int segments;
+            boolean inAlias = true;
+            boolean writeIndex;
+            boolean writeBlocked;
+            String[] shardNodes;
+            
+            FakeIndex placeShards(String... nodes) {
+                shardNodes = nodes;
+                return this;
+            }
+        }
+        
+        FakeCluster(String aliasName) {
+            this.aliasName = aliasName;
+            transport.on(co.elastic.clients.elasticsearch.cluster.HealthRequest.class, request -> health(
+                request.index().isEmpty() ? status : co.elastic.clients.elasticsearch._types.HealthStatus.Green));
+            transport.on(co.elastic.clients.elasticsearch.tasks.ListRequest.class, request ->
+                co.elastic.clients.elasticsearch.tasks.ListResponse.of(b -> b.nodes("node-1", n -> {
+                    n.tasks(new java.util.HashMap<>());
+                    for (int i = 0; i < runningMerges; i++) {
+                        long id = i;
+                        n.tasks("node-1:" + i, t -> t.action("indices:admin/forcemerge").cancellable(false).id(id).node("node-1")
+                            .runningTimeInNanos(0).startTimeInMillis(0).type("transport").headers(java.util.Collections.emptyMap()));
+                    }
+                    return n;
+                })));
+            transport.on(co.elastic.clients.elasticsearch.nodes.NodesStatsRequest.class, request ->
+                co.elastic.clients.elasticsearch.nodes.NodesStatsResponse.of(b -> b.clusterName("test")
+                    .nodes("node-1", n -> n.threadPool("search", t -> t.queue(searchQueue)))));
+            transport.on(co.elastic.clients.elasticsearch.indices.GetAliasRequest.class, request ->
+                co.elastic.clients.elasticsearch.indices.GetAliasResponse.of(b -> {
+                    indices.forEach((name, index) -> {
+                        if (index.inAlias) {
+                            b.result(name, a -> a.aliases(aliasName, d -> d.isWriteIndex(index.writeIndex)));
+                        }
+                    });
+                    return b;
+                }));
+            transport.on(co.elastic.clients.elasticsearch.indices.GetIndexRequest.class, request -> {
+                String name = request.index().get(0);
+                return co.elastic.clients.elasticsearch.indices.GetIndexResponse.of(b -> b.result(name, i -> i
+                    .settings(st -> st.blocks(bl -> bl.write(indices.get(name).writeBlocked)))));
+            });
+            transport.on(co.elastic.clients.elasticsearch.indices.ExistsRequest.class, request ->
+                new co.elastic.clients.transport.endpoints.BooleanResponse(indices.containsKey(request.index().get(0))
+                    || request.index().get(0).equals(aliasName)));
+            transport.on(co.elastic.clients.elasticsearch.indices.DeleteIndexRequest.class, request -> {
+                request.index().forEach(indices::remove);
+                return co.elastic.clients.elasticsearch.indices.DeleteIndexResponse.of(b -> b.acknowledged(true));
+            });
+            transport.on(co.elastic.clients.elasticsearch.indices.IndicesStatsRequest.class, request -> {
+                String name = request.index().get(0);
+                FakeIndex index = indices.get(name);
+                java.util.Map<String, java.util.List<co.elastic.clients.elasticsearch.indices.stats.ShardStats>> shards = new java.util.HashMap<>();
+                for (int i = 0; i < index.shards; i++) {
+                    shards.put(String.valueOf(i), java.util.Collections.singletonList(
+                        co.elastic.clients.elasticsearch.indices.stats.ShardStats.of(st -> st)));
+                }
+                co.elastic.clients.elasticsearch.indices.stats.IndicesStats stats = co.elastic.clients.elasticsearch.indices.stats.IndicesStats.of(st -> st
+                    .shards(shards)
+                    .primaries(p -> p.segments(segments(index.segments))));
+                return co.elastic.clients.elasticsearch.indices.IndicesStatsResponse.of(b -> b
+                    .shards(sh -> sh.failed(0).successful(1).total(1))
+                    .all(stats)
+                    .indices(name, stats));
+            });
+            transport.on(co.elastic.clients.elasticsearch.indices.PutIndicesSettingsRequest.class, request -> {
+                FakeIndex index = indices.get(request.index().get(0));
+                co.elastic.clients.elasticsearch.indices.IndexSettings settings = request.settings();
+                if (settings.blocks() != null && Boolean.TRUE.equals(settings.blocks().write())) {
+                    index.writeBlocked = true;
+                }
+                co.elastic.clients.json.JsonData requiredNode = settings.otherSettings().get("index.routing.allocation.require._name");
+                if (requiredNode != null) {
+                    java.util.Arrays.fill(index.shardNodes, requiredNode.to(String.class));
+                }
+                return co.elastic.clients.elasticsearch.indices.PutIndicesSettingsResponse.of(b -> b.acknowledged(true));
+            });
+            transport.on(co.elastic.clients.elasticsearch.cat.ShardsRequest.class, request -> {
+                FakeIndex index = indices.get(request.index().get(0));
+                java.util.List<co.elastic.clients.elasticsearch.cat.shards.ShardsRecord> records = new java.util.ArrayList<>();
+                for (int i = 0; i < index.shards; i++) {
+                    String shard = String.valueOf(i);
+                    String node = index.shardNodes[i];
+                    records.add(co.elastic.clients.elasticsearch.cat.shards.ShardsRecord.of(r -> r.shard(shard).node(node).state("STARTED")));
+                }
+                return co.elastic.clients.elasticsearch.cat.ShardsResponse.of(b -> b.valueBody(records));
+            });
+            transport.on(co.elastic.clients.elasticsearch.indices.ShrinkRequest.class, request -> {
+                FakeIndex source = indices.get(request.index());
+                FakeIndex target = addIndex(request.target(), 1, source.segments);
+                target.inAlias = false;
+                target.writeBlocked = source.writeBlocked;
+                return co.elastic.clients.elasticsearch.indices.ShrinkResponse.of(b -> b.acknowledged(true).shardsAcknowledged(true).index(request.target()));
+            });
+            transport.on(co.elastic.clients.elasticsearch.indices.UpdateAliasesRequest.class, request -> {
+                request.actions().forEach(action -> {
+                    if (action.isAdd()) {
+                        indices.get(action.add().index()).inAlias = true;
+                    } else if (action.isRemove()) {
+                        indices.get(action.remove().index()).inAlias = false;
+                    }
+                });
+                return co.elastic.clients.elasticsearch.indices.UpdateAliasesResponse.of(b -> b.acknowledged(true));
+            });
+            transport.on(co.elastic.clients.elasticsearch.indices.ForcemergeRequest.class, request -> {
+                FakeIndex index = indices.get(request.index().get(0));
+                index.segments = index.shards;
+                return co.elastic.clients.elasticsearch.indices.ForcemergeResponse.of(b -> b.shards(sh -> sh.failed(0).successful(1).total(1)));
+            });
+        }
+        
+        FakeIndex addIndex(String name, int shards, int segments) {
+            FakeIndex index = new FakeIndex();
+            index.shards = shards;
+            index.segments = segments;
+            index.shardNodes = new String[shards];
+            java.util.Arrays.fill(index.shardNodes, "node-1");
+            indices.put(name, index);
+            return index;
+        }
+        
+        /**
+         * A store on this cluster that always holds the optimizer lease
+         */
+        ESEmbeddingCacheStore store(EmbeddingCacheManagerConfig config) throws Exception {
+            return new ESEmbeddingCacheStore(config, transport) {
+                @Override
+                public boolean tryAcquireLease(String leaseName, String owner, long ttlMs) {
+                    return true;
+                }
+                
+                @Override
+                public void releaseLease(String leaseName, String owner) {
+                }
+            };
+        }
+        
+        private static co.elastic.clients.elasticsearch.cluster.HealthResponse health(co.elastic.clients.elasticsearch._types.HealthStatus status) {
+            return co.elastic.clients.elasticsearch.cluster.HealthResponse.of(b -> b.status(status).timedOut(false).clusterName("test")
+                .activePrimaryShards(0).activeShards(0).activeShardsPercentAsNumber("100.0").delayedUnassignedShards(0)
+                .initializingShards(0).numberOfDataNodes(2).numberOfInFlightFetch(0).numberOfNodes(2).numberOfPendingTasks(0)
+                .relocatingShards(0).taskMaxWaitingInQueueMillis(0).unassignedShards(0));
+        }
+        
+        private static co.elastic.clients.elasticsearch._types.SegmentsStats segments(int count) {
+            return co.elastic.clients.elasticsearch._types.SegmentsStats.of(b -> b.count(count).docValuesMemoryInBytes(0)
+                .fixedBitSetMemoryInBytes(0).indexWriterMemoryInBytes(0).maxUnsafeAutoIdTimestamp(0).memoryInBytes(0)
+                .normsMemoryInBytes(0).pointsMemoryInBytes(0).storedFieldsMemoryInBytes(0).termsMemoryInBytes(0)
+                .termVectorsMemoryInBytes(0).versionMapMemoryInBytes(0).fileSizes(java.util.Collections.emptyMap()));
+        }
+    }
+    
+    /**
+     * Answers Elasticsearch requests in memory by request type; unknown requests fail. Index templates and the
+     * alias existence check are answered so an {@link ESEmbeddingCacheStore} can start on it.
+     */
+    static class FakeTransport implements co.elastic.clients.transport.ElasticsearchTransport {
+        final java.util.List<Object> requests = java.util.Collections.synchronizedList(new java.util.ArrayList<>());
+        private final java.util.Map<Class<?>, java.util.function.Function<Object, Object>> handlers = new java.util.concurrent.ConcurrentHashMap<>();
+        private final co.elastic.clients.json.JsonpMapper mapper = new co.elastic.clients.json.jackson.JacksonJsonpMapper();
+        
+        FakeTransport() {
+            on(co.elastic.clients.elasticsearch.indices.PutIndexTemplateRequest.class, request ->
+                co.elastic.clients.elasticsearch.indices.PutIndexTemplateResponse.of(b -> b.acknowledged(true)));
+            on(co.elastic.clients.elasticsearch.indices.ExistsRequest.class, request ->
+                new co.elastic.clients.transport.endpoints.BooleanResponse(true));
+        }
+        
+        <T> FakeTransport on(Class<T> type, java.util.function.Function<T, ?> handler) {
+            handlers.put(type, request -> handler.apply(type.cast(request)));
+            return this;
+        }
+        
+        <T> java.util.List<T> requests(Class<T> type) {
+            synchronized (requests) {
+                return requests.stream().filter(type::isInstance).map(type::cast).collect(java.util.stream.Collectors.toList());
+            }
+        }
+        
+        @Override
+        @SuppressWarnings("unchecked")
+        public <RequestT, ResponseT, ErrorT> ResponseT performRequest(RequestT request,
+                co.elastic.clients.transport.Endpoint<RequestT, ResponseT, ErrorT> endpoint,
+                co.elastic.clients.transport.TransportOptions options) throws java.io.IOException {
+            requests.add(request);
+            java.util.function.Function<Object, Object> handler = handlers.get(request.getClass());
+            if (handler == null) {
+                throw new java.io.IOException("No fake response for " + request.getClass().getSimpleName());
+            }
+            return (ResponseT) handler.apply(request);
+        }
+        
+        @Override
+        public <RequestT, ResponseT, ErrorT> java.util.concurrent.CompletableFuture<ResponseT> performRequestAsync(RequestT request,
+                co.elastic.clients.transport.Endpoint<RequestT, ResponseT, ErrorT> endpoint,
+                co.elastic.clients.transport.TransportOptions options) {
+            java.util.concurrent.CompletableFuture<ResponseT> future = new java.util.concurrent.CompletableFuture<>();
+            try {
+                future.complete(performRequest(request, endpoint, options));
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+            return future;
+        }
+        
+        @Override
+        public co.elastic.clients.json.JsonpMapper jsonpMapper() {
+            return mapper;
+        }
+        
+        @Override
+        public co.elastic.clients.transport.TransportOptions options() {
+            return null;
+        }
+        
+        @Override
+        public void close() {
+        }
+    }
 }